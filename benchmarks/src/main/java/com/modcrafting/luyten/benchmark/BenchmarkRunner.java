@@ -0,0 +1,34 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * This class runs the benchmarks, writing JSON results to <code>jmh-result.json</code> unless another result format or
+ * file is given.<br>
+ * All JMH options are supported (ex: <code>-p classCount=1000 JarLister</code>).
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class BenchmarkRunner {
+	/** The default result file. */
+	private static final String RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		// Emit machine-readable results by default
+		if (!arguments.contains("-rf")) {
+			arguments.add(0, "json");
+			arguments.add(0, "-rf");
+		}
+		if (!arguments.contains("-rff")) {
+			arguments.add(0, BenchmarkRunner.RESULT_FILE);
+			arguments.add(0, "-rff");
+		}
+		Main.main(arguments.toArray(new String[arguments.size()]));
+	}
+}
@@ -0,0 +1,75 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.modcrafting.luyten.DecompilerLinkProvider;
+import com.modcrafting.luyten.LuytenTypeLoader;
+import com.strobel.assembler.metadata.JarTypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilerSettings;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+
+/**
+ * This class benchmarks the decompilation with navigation links of a class (without the decompiled cache).
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecompileBenchmark {
+	/** The number of class entries of the jar. */
+	@Param({ "1000" })
+	public int classCount;
+	/** The inner class nesting depth of the decompiled class. */
+	@Param({ "0", "8" })
+	public int innerClassDepth;
+	/** The jar of the decompiled class. */
+	private JarFile jarFile;
+	/** The link provider (its type loader is not set to bypass the decompiled cache). */
+	private DecompilerLinkProvider linkProvider;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.jarFile = new JarFile(SyntheticJar.get(this.classCount, this.innerClassDepth, 64));
+		LuytenTypeLoader typeLoader = new LuytenTypeLoader();
+		typeLoader.addTypeLoader(new JarTypeLoader(this.jarFile));
+		MetadataSystem metadataSystem = new MetadataSystem(typeLoader);
+		DecompilerSettings settings = new DecompilerSettings();
+		if (settings.getFormattingOptions()==null)
+			settings.setFormattingOptions(JavaFormattingOptions.createDefault());
+		DecompilationOptions decompilationOptions = new DecompilationOptions();
+		decompilationOptions.setSettings(settings);
+		decompilationOptions.setFullDecompilation(true);
+		TypeDefinition type = metadataSystem.lookupType(SyntheticJar.getClassName(0)).resolve();
+		this.linkProvider = new DecompilerLinkProvider();
+		this.linkProvider.setDecompilerReferences(metadataSystem, settings, decompilationOptions);
+		this.linkProvider.setType(type);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.jarFile.close();
+	}
+
+	@Benchmark
+	public String generateContent() {
+		this.linkProvider.generateContent();
+		return this.linkProvider.getTextContent();
+	}
+}
@@ -0,0 +1,99 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.modcrafting.luyten.export.ExportListener;
+import com.modcrafting.luyten.export.ExportThreadFactory;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.export.ZipExportOutput;
+import com.modcrafting.luyten.model.zip.ZipArchiveWriter;
+import com.strobel.decompiler.DecompilerSettings;
+
+/**
+ * This class benchmarks the Save All export of a jar (the engine behind FileSaver).
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+	/** The number of class entries of the jar. */
+	@Param({ "1000", "10000" })
+	public int classCount;
+	/** The inner class nesting depth of the jar. */
+	@Param({ "0" })
+	public int innerClassDepth;
+	/** The size of each resource, in kilobytes. */
+	@Param({ "64", "1024" })
+	public int resourceSizeKb;
+	/** The number of decompiler threads (<code>0</code> for the processor count). */
+	@Param({ "1", "0" })
+	public int threadCount;
+	/** The exported jar. */
+	private File jarFile;
+	/** The export archive. */
+	private File outFile;
+	/** The decompiler threads. */
+	private ExecutorService executor;
+	/** The export engine. */
+	private JarExporter exporter;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.jarFile = SyntheticJar.get(this.classCount, this.innerClassDepth, this.resourceSizeKb);
+		this.outFile = File.createTempFile("luyten-export-", ".zip");
+		int threads = this.threadCount>0 ? this.threadCount : Runtime.getRuntime().availableProcessors();
+		this.executor = Executors.newFixedThreadPool(threads, new ExportThreadFactory());
+		this.exporter = new JarExporter(new DecompilerSettings(), this.executor, threads, true);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.executor.shutdownNow();
+		this.outFile.delete();
+	}
+
+	@Benchmark
+	public long export() throws Exception {
+		try (FileOutputStream dest = new FileOutputStream(this.outFile);
+				ZipArchiveWriter out = new ZipArchiveWriter(dest.getChannel(), Deflater.DEFAULT_COMPRESSION);) {
+			this.exporter.export(this.jarFile, new ZipExportOutput(out, ""), new ExportListener() {
+				@Override
+				public void exportStarted(File inFile, int entryCount) {}
+
+				@Override
+				public void entryExporting(String entryName, int entryIndex) {}
+
+				@Override
+				public void entryFailed(String entryName, Exception exception) throws Exception {
+					throw exception;
+				}
+			});
+		}
+		return this.outFile.length();
+	}
+}
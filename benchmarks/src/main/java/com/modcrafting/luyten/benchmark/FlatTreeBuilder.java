@@ -0,0 +1,150 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+
+/**
+ * Builds the whole Package Explorer style tree of jar entries at once (no window needed)<br>
+ * This is the former eager builder of the jar tree, kept as the reference implementation of the tree building
+ * benchmark: the jar tree is now created lazily from a PackageIndex.
+ */
+public class FlatTreeBuilder {
+
+	private FlatTreeBuilder() {}
+
+	/**
+	 * Build the package explorer style tree node.
+	 * 
+	 * @param rootName
+	 *            The root node name.
+	 * @param mass
+	 *            The jar entries to build tree.
+	 * @return The flat root tree node.
+	 */
+	public static TreeNode buildFlatTreeNode(String rootName, List<String> mass) {
+		TreeNodeUserObject topNodeUserObject = new TreeNodeUserObject(rootName);
+		DefaultMutableTreeNode top = new DefaultMutableTreeNode(topNodeUserObject);
+
+		TreeMap<String, TreeSet<String>> packages = new TreeMap<>();
+		HashSet<String> classContainingPackageRoots = new HashSet<>();
+
+		Comparator<String> sortByFileExtensionsComparator = new Comparator<String>() {
+			// (assertion: mass does not contain null elements)
+			@Override
+			public int compare(String o1, String o2) {
+				int comp = o1.replaceAll("[^\\.]*\\.", "").compareTo(o2.replaceAll("[^\\.]*\\.", ""));
+				if (comp!=0)
+					return comp;
+				return o1.compareTo(o2);
+			}
+		};
+
+		for (String entry : mass) {
+			String packagePath = "";
+			String packageRoot = "";
+			if (entry.contains("/")) {
+				packagePath = entry.replaceAll("/[^/]*$", "");
+				packageRoot = entry.replaceAll("/.*$", "");
+			}
+			String packageEntry = entry.replace(packagePath+"/", "");
+			if (!packages.containsKey(packagePath)) {
+				packages.put(packagePath, new TreeSet<String>(sortByFileExtensionsComparator));
+			}
+			packages.get(packagePath).add(packageEntry);
+			if (!entry.startsWith("META-INF")&&packageRoot.trim().length()>0&&entry.matches(".*\\.(class|java|prop|properties)$")) {
+				classContainingPackageRoots.add(packageRoot);
+			}
+		}
+
+		// META-INF comes first -> not flat
+		for (String packagePath : packages.keySet()) {
+			if (packagePath.startsWith("META-INF")) {
+				List<String> packagePathElements = Arrays.asList(packagePath.split("/"));
+				for (String entry : packages.get(packagePath)) {
+					ArrayList<String> list = new ArrayList<>(packagePathElements);
+					list.add(entry);
+					loadNodesByNames(top, list);
+				}
+			}
+		}
+
+		// real packages: path starts with a classContainingPackageRoot -> flat
+		for (String packagePath : packages.keySet()) {
+			String packageRoot = packagePath.replaceAll("/.*$", "");
+			if (classContainingPackageRoots.contains(packageRoot)) {
+				for (String entry : packages.get(packagePath)) {
+					ArrayList<TreeNodeUserObject> list = new ArrayList<>();
+					list.add(new TreeNodeUserObject(packagePath, packagePath.replaceAll("/", ".")));
+					list.add(new TreeNodeUserObject(entry));
+					loadNodesByUserObj(top, list);
+				}
+			}
+		}
+
+		// the rest, not real packages but directories -> not flat
+		for (String packagePath : packages.keySet()) {
+			String packageRoot = packagePath.replaceAll("/.*$", "");
+			if (!classContainingPackageRoots.contains(packageRoot)&&!packagePath.startsWith("META-INF")&&packagePath.length()>0) {
+				List<String> packagePathElements = Arrays.asList(packagePath.split("/"));
+				for (String entry : packages.get(packagePath)) {
+					ArrayList<String> list = new ArrayList<>(packagePathElements);
+					list.add(entry);
+					loadNodesByNames(top, list);
+				}
+			}
+		}
+
+		// the default package -> not flat
+		String packagePath = "";
+		if (packages.containsKey(packagePath)) {
+			for (String entry : packages.get(packagePath)) {
+				ArrayList<String> list = new ArrayList<>();
+				list.add(entry);
+				loadNodesByNames(top, list);
+			}
+		}
+		return top;
+	}
+
+	public static DefaultMutableTreeNode loadNodesByNames(DefaultMutableTreeNode node, List<String> originalNames) {
+		List<TreeNodeUserObject> args = new ArrayList<>();
+		for (String originalName : originalNames) {
+			args.add(new TreeNodeUserObject(originalName));
+		}
+		return loadNodesByUserObj(node, args);
+	}
+
+	public static DefaultMutableTreeNode loadNodesByUserObj(DefaultMutableTreeNode node, List<TreeNodeUserObject> args) {
+		if (args.size()>0) {
+			TreeNodeUserObject name = args.remove(0);
+			DefaultMutableTreeNode nod = getChild(node, name);
+			if (nod==null)
+				nod = new DefaultMutableTreeNode(name);
+			node.add(loadNodesByUserObj(nod, args));
+		}
+		return node;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static DefaultMutableTreeNode getChild(DefaultMutableTreeNode node, TreeNodeUserObject name) {
+		Enumeration<DefaultMutableTreeNode> entry = node.children();
+		while (entry.hasMoreElements()) {
+			DefaultMutableTreeNode nods = entry.nextElement();
+			if (((TreeNodeUserObject) nods.getUserObject()).getOriginalName().equals(name.getOriginalName())) {
+				return nods;
+			}
+		}
+		return null;
+	}
+}
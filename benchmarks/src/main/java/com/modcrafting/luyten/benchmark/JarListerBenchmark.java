@@ -0,0 +1,81 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.modcrafting.luyten.model.JarLister;
+
+/**
+ * This class benchmarks the jar entry listing, from an opened {@link JarFile} and from the memory-mapped central
+ * directory.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JarListerBenchmark {
+	/** The number of class entries of the jar. */
+	@Param({ "1000", "10000", "100000" })
+	public int classCount;
+	/** The inner class nesting depth of the jar. */
+	@Param({ "0", "8" })
+	public int innerClassDepth;
+	/** The listed jar file. */
+	private File file;
+	/** The listed jar. */
+	private JarFile jarFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.file = SyntheticJar.get(this.classCount, this.innerClassDepth, 64);
+		this.jarFile = new JarFile(this.file);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.jarFile.close();
+	}
+
+	@Benchmark
+	public List<String> listFiles() {
+		return JarLister.listFiles(this.jarFile, true);
+	}
+
+	@Benchmark
+	public List<String> listFilesWithoutInnerClasses() {
+		return JarLister.listFiles(this.jarFile, false);
+	}
+
+	@Benchmark
+	public List<String> openAndListFiles() throws IOException {
+		// Opening reads the central directory: compare with the mapped listing
+		try (JarFile openedJarFile = new JarFile(this.file)) {
+			return JarLister.listFiles(openedJarFile, true);
+		}
+	}
+
+	@Benchmark
+	public List<String> listMappedFiles() throws IOException {
+		return JarLister.listFiles(this.file, true);
+	}
+
+	@Benchmark
+	public List<String> listMappedFilesWithoutInnerClasses() throws IOException {
+		return JarLister.listFiles(this.file, false);
+	}
+}
@@ -0,0 +1,421 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * This class represents a generator of synthetic jars for benchmarks.<br>
+ * Generated jars are cached in the temporary directory, keyed by their parameters, so each size is generated once.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class SyntheticJar {
+	/** The number of top-level classes per package. */
+	private static final int CLASSES_PER_PACKAGE = 50;
+	/** The number of packages per parent package. */
+	private static final int PACKAGES_PER_PARENT = 10;
+	/** The number of top-level classes per resource. */
+	private static final int CLASSES_PER_RESOURCE = 100;
+	/** The number of fields of each class. */
+	private static final int FIELD_COUNT = 4;
+	/** The number of methods of each class. */
+	private static final int METHOD_COUNT = 8;
+	/** The class file version (Java 6: no stack map frames needed). */
+	private static final int CLASS_VERSION = 50;
+	/** The seed of resource contents. */
+	private static final long SEED = 0x1A7E4L;
+	/** The words of text resources. */
+	private static final String[] WORDS = { "luyten", "procyon", "decompiler", "class", "package", "resource",
+			"benchmark", "jar", "tree", "export", "value", "field", "method" };
+	/** The charset of text resources. */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Get a synthetic jar, generating it if needed.
+	 *
+	 * @param classCount
+	 *            The number of class entries (top-level and inner classes).
+	 * @param innerClassDepth
+	 *            The inner class nesting depth of each top-level class (<code>0</code> for no inner class).
+	 * @param resourceSizeKb
+	 *            The size of each resource, in kilobytes (one resource per 100 top-level classes).
+	 * @return The synthetic jar file.
+	 * @throws IOException
+	 *             Throws exception if the jar could not be generated.
+	 */
+	public static File get(int classCount, int innerClassDepth, int resourceSizeKb) throws IOException {
+		File directory = new File(System.getProperty("java.io.tmpdir"), "luyten-benchmarks");
+		File jarFile = new File(directory, "synthetic-"+classCount+"-"+innerClassDepth+"-"+resourceSizeKb+".jar");
+		// Check generated jar
+		if (jarFile.isFile())
+			return jarFile;
+		// Generate jar then publish it
+		if (!directory.isDirectory()&&!directory.mkdirs())
+			throw new IOException("Unable to create directory "+directory);
+		File tempFile = File.createTempFile("synthetic-", ".tmp", directory);
+		try {
+			SyntheticJar.generate(tempFile, classCount, innerClassDepth, resourceSizeKb);
+			if (!tempFile.renameTo(jarFile)&&!jarFile.isFile())
+				throw new IOException("Unable to create jar "+jarFile);
+		} finally {
+			tempFile.delete();
+		}
+		return jarFile;
+	}
+
+	/**
+	 * Get the internal name of a top-level class.
+	 *
+	 * @param classIndex
+	 *            The top-level class index.
+	 * @return The top-level class internal name.
+	 */
+	public static String getClassName(int classIndex) {
+		int packageIndex = classIndex/SyntheticJar.CLASSES_PER_PACKAGE;
+		return "com/acme/m"+packageIndex/SyntheticJar.PACKAGES_PER_PARENT+"/p"+
+				packageIndex%SyntheticJar.PACKAGES_PER_PARENT+"/Class"+classIndex;
+	}
+
+	/**
+	 * Get the internal name of the most nested inner class of a top-level class.
+	 *
+	 * @param classIndex
+	 *            The top-level class index.
+	 * @param innerClassDepth
+	 *            The inner class nesting depth.
+	 * @return The inner class internal name.
+	 */
+	public static String getInnerClassName(int classIndex, int innerClassDepth) {
+		StringBuilder builder = new StringBuilder(SyntheticJar.getClassName(classIndex));
+		for (int depth = 1; depth<=innerClassDepth; depth++) {
+			builder.append("$Inner").append(depth);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Generate a synthetic jar.
+	 *
+	 * @param file
+	 *            The file to write jar.
+	 * @param classCount
+	 *            The number of class entries.
+	 * @param innerClassDepth
+	 *            The inner class nesting depth of each top-level class.
+	 * @param resourceSizeKb
+	 *            The size of each resource, in kilobytes.
+	 * @throws IOException
+	 *             Throws exception if the jar could not be written.
+	 */
+	private static void generate(File file, int classCount, int innerClassDepth, int resourceSizeKb)
+			throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		Random random = new Random(SyntheticJar.SEED);
+		int topLevelClassCount = Math.max(1, classCount/(1+innerClassDepth));
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+			for (int classIndex = 0; classIndex<topLevelClassCount; classIndex++) {
+				// Write top-level class and its inner classes
+				List<String> chain = new ArrayList<>();
+				for (int depth = 0; depth<=innerClassDepth; depth++) {
+					chain.add(SyntheticJar.getInnerClassName(classIndex, depth));
+				}
+				for (int depth = 0; depth<=innerClassDepth; depth++) {
+					out.putNextEntry(new JarEntry(chain.get(depth)+".class"));
+					out.write(SyntheticJar.createClass(chain, depth));
+					out.closeEntry();
+				}
+				// Write resources
+				if (classIndex%SyntheticJar.CLASSES_PER_RESOURCE==0) {
+					String packageName = SyntheticJar.getClassName(classIndex).replaceAll("/[^/]*$", "");
+					boolean isText = (classIndex/SyntheticJar.CLASSES_PER_RESOURCE)%2==0;
+					String resourceName = packageName+"/resource"+classIndex+(isText ? ".properties" : ".bin");
+					out.putNextEntry(new JarEntry(resourceName));
+					out.write(SyntheticJar.createResource(random, resourceSizeKb*1024, isText));
+					out.closeEntry();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create resource content.
+	 *
+	 * @param random
+	 *            The content generator.
+	 * @param size
+	 *            The content size.
+	 * @param isText
+	 *            <code>true</code> for (compressible) text, <code>false</code> for random bytes.
+	 * @return The resource content.
+	 */
+	private static byte[] createResource(Random random, int size, boolean isText) {
+		byte[] content = new byte[size];
+		if (!isText) {
+			random.nextBytes(content);
+			return content;
+		}
+		StringBuilder builder = new StringBuilder(size+32);
+		while (builder.length()<size) {
+			builder.append(SyntheticJar.WORDS[random.nextInt(SyntheticJar.WORDS.length)]);
+			builder.append(random.nextInt(8)==0 ? "=" : random.nextInt(10)==0 ? "\n" : ".");
+		}
+		byte[] text = builder.toString().getBytes(SyntheticJar.UTF8);
+		System.arraycopy(text, 0, content, 0, size);
+		return content;
+	}
+
+	/**
+	 * Create the bytes of a class of an inner class chain.
+	 *
+	 * @param chain
+	 *            The internal names of the top-level class and its nested inner classes.
+	 * @param depth
+	 *            The index of the class to create in the chain.
+	 * @return The class bytes.
+	 * @throws IOException
+	 *             Throws exception if the class could not be written.
+	 */
+	private static byte[] createClass(List<String> chain, int depth) throws IOException {
+		String name = chain.get(depth);
+		ConstantPool pool = new ConstantPool();
+		ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bodyBytes);
+		// Write class header
+		body.writeShort(0x21); // ACC_PUBLIC | ACC_SUPER
+		body.writeShort(pool.classRef(name));
+		body.writeShort(pool.classRef("java/lang/Object"));
+		body.writeShort(0);
+		// Write fields
+		body.writeShort(SyntheticJar.FIELD_COUNT);
+		for (int field = 0; field<SyntheticJar.FIELD_COUNT; field++) {
+			body.writeShort(0x2); // ACC_PRIVATE
+			body.writeShort(pool.utf8("field"+field));
+			body.writeShort(pool.utf8("I"));
+			body.writeShort(0);
+		}
+		// Write constructor
+		body.writeShort(1+SyntheticJar.METHOD_COUNT);
+		ByteArrayOutputStream code = new ByteArrayOutputStream();
+		code.write(0x2a); // aload_0
+		SyntheticJar.writeIndex(code, 0xb7, pool.methodRef("java/lang/Object", "<init>", "()V"));
+		for (int field = 0; field<SyntheticJar.FIELD_COUNT; field++) {
+			code.write(0x2a); // aload_0
+			code.write(0x10); // bipush
+			code.write(field+depth);
+			SyntheticJar.writeIndex(code, 0xb5, pool.fieldRef(name, "field"+field, "I"));
+		}
+		code.write(0xb1); // return
+		SyntheticJar.writeMethod(body, pool, "<init>", "()V", 2, 1, code.toByteArray());
+		// Write methods, each calling the previous one
+		for (int method = 0; method<SyntheticJar.METHOD_COUNT; method++) {
+			code.reset();
+			if (method>0)
+				code.write(0x2a); // aload_0
+			code.write(0x1b); // iload_1
+			code.write(0x2a); // aload_0
+			SyntheticJar.writeIndex(code, 0xb4, pool.fieldRef(name, "field"+method%SyntheticJar.FIELD_COUNT, "I"));
+			code.write(0x60); // iadd
+			code.write(0x10); // bipush
+			code.write(method+2);
+			code.write(0x68); // imul
+			if (method>0)
+				SyntheticJar.writeIndex(code, 0xb6, pool.methodRef(name, "method"+(method-1), "(I)I"));
+			code.write(0xac); // ireturn
+			SyntheticJar.writeMethod(body, pool, "method"+method, "(I)I", 3, 2, code.toByteArray());
+		}
+		// Write inner classes attribute (enclosing chain and direct inner class)
+		int innerClassCount = Math.min(depth+1, chain.size()-1);
+		if (innerClassCount>0) {
+			body.writeShort(1);
+			body.writeShort(pool.utf8("InnerClasses"));
+			body.writeInt(2+8*innerClassCount);
+			body.writeShort(innerClassCount);
+			for (int inner = 1; inner<=innerClassCount; inner++) {
+				body.writeShort(pool.classRef(chain.get(inner)));
+				body.writeShort(pool.classRef(chain.get(inner-1)));
+				body.writeShort(pool.utf8("Inner"+inner));
+				body.writeShort(0x9); // ACC_PUBLIC | ACC_STATIC
+			}
+		} else {
+			body.writeShort(0);
+		}
+		body.flush();
+		// Assemble class file
+		ByteArrayOutputStream classBytes = new ByteArrayOutputStream(bodyBytes.size()+pool.getSize()+10);
+		DataOutputStream out = new DataOutputStream(classBytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(SyntheticJar.CLASS_VERSION);
+		pool.writeTo(out);
+		bodyBytes.writeTo(out);
+		out.flush();
+		return classBytes.toByteArray();
+	}
+
+	/**
+	 * Write an instruction with a constant pool index operand.
+	 *
+	 * @param code
+	 *            The code to write instruction.
+	 * @param opcode
+	 *            The instruction opcode.
+	 * @param index
+	 *            The constant pool index.
+	 */
+	private static void writeIndex(ByteArrayOutputStream code, int opcode, int index) {
+		code.write(opcode);
+		code.write(index>>8);
+		code.write(index);
+	}
+
+	/**
+	 * Write a public method.
+	 *
+	 * @param body
+	 *            The class body to write method.
+	 * @param pool
+	 *            The class constant pool.
+	 * @param name
+	 *            The method name.
+	 * @param descriptor
+	 *            The method descriptor.
+	 * @param maxStack
+	 *            The maximum operand stack depth.
+	 * @param maxLocals
+	 *            The number of local variables.
+	 * @param code
+	 *            The method bytecode.
+	 * @throws IOException
+	 *             Throws exception if the method could not be written.
+	 */
+	private static void writeMethod(DataOutputStream body, ConstantPool pool, String name, String descriptor,
+			int maxStack, int maxLocals, byte[] code) throws IOException {
+		body.writeShort(0x1); // ACC_PUBLIC
+		body.writeShort(pool.utf8(name));
+		body.writeShort(pool.utf8(descriptor));
+		body.writeShort(1);
+		body.writeShort(pool.utf8("Code"));
+		body.writeInt(12+code.length);
+		body.writeShort(maxStack);
+		body.writeShort(maxLocals);
+		body.writeInt(code.length);
+		body.write(code);
+		body.writeShort(0);
+		body.writeShort(0);
+	}
+
+	/**
+	 * This class represents a class file constant pool.
+	 *
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 *
+	 */
+	private static class ConstantPool {
+		/** The written constants. */
+		private final ByteArrayOutputStream bytes;
+		/** The constant writer. */
+		private final DataOutputStream out;
+		/** The indexes of written constants. */
+		private final Map<String, Integer> indexes;
+		/** The next constant index. */
+		private int nextIndex;
+
+		/**
+		 * Constructor.
+		 */
+		private ConstantPool() {
+			this.bytes = new ByteArrayOutputStream();
+			this.out = new DataOutputStream(this.bytes);
+			this.indexes = new HashMap<>();
+			this.nextIndex = 1;
+		}
+
+		private int utf8(String value) throws IOException {
+			Integer index = this.indexes.get("U"+value);
+			if (index==null) {
+				this.out.writeByte(1);
+				this.out.writeUTF(value);
+				index = this.add("U"+value);
+			}
+			return index;
+		}
+
+		private int classRef(String name) throws IOException {
+			Integer index = this.indexes.get("C"+name);
+			if (index==null) {
+				int nameIndex = this.utf8(name);
+				this.out.writeByte(7);
+				this.out.writeShort(nameIndex);
+				index = this.add("C"+name);
+			}
+			return index;
+		}
+
+		private int nameAndType(String name, String descriptor) throws IOException {
+			String key = "N"+name+":"+descriptor;
+			Integer index = this.indexes.get(key);
+			if (index==null) {
+				int nameIndex = this.utf8(name);
+				int descriptorIndex = this.utf8(descriptor);
+				this.out.writeByte(12);
+				this.out.writeShort(nameIndex);
+				this.out.writeShort(descriptorIndex);
+				index = this.add(key);
+			}
+			return index;
+		}
+
+		private int fieldRef(String owner, String name, String descriptor) throws IOException {
+			return this.memberRef(9, owner, name, descriptor);
+		}
+
+		private int methodRef(String owner, String name, String descriptor) throws IOException {
+			return this.memberRef(10, owner, name, descriptor);
+		}
+
+		private int memberRef(int tag, String owner, String name, String descriptor) throws IOException {
+			String key = tag+owner+"."+name+":"+descriptor;
+			Integer index = this.indexes.get(key);
+			if (index==null) {
+				int classIndex = this.classRef(owner);
+				int nameAndTypeIndex = this.nameAndType(name, descriptor);
+				this.out.writeByte(tag);
+				this.out.writeShort(classIndex);
+				this.out.writeShort(nameAndTypeIndex);
+				index = this.add(key);
+			}
+			return index;
+		}
+
+		private int add(String key) {
+			int index = this.nextIndex++;
+			this.indexes.put(key, index);
+			return index;
+		}
+
+		private int getSize() {
+			return this.bytes.size();
+		}
+
+		private void writeTo(DataOutputStream classOut) throws IOException {
+			this.out.flush();
+			classOut.writeShort(this.nextIndex);
+			this.bytes.writeTo(classOut);
+		}
+	}
+}
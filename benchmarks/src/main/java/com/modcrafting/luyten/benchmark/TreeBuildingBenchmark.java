@@ -0,0 +1,90 @@
+package com.modcrafting.luyten.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+
+import javax.swing.tree.TreeNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.JarLister;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+import com.modcrafting.luyten.view.tree.FlatRootTreeNode;
+
+/**
+ * This class benchmarks the Package Explorer style tree building: the former eager regular expression based builder
+ * against the package index (alone, fully expanded and first level only as opened by Model).
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TreeBuildingBenchmark {
+	/** The number of class entries of the jar. */
+	@Param({ "1000", "10000", "100000" })
+	public int classCount;
+	/** The inner class nesting depth of the jar. */
+	@Param({ "0", "8" })
+	public int innerClassDepth;
+	/** The entries of the jar. */
+	private List<String> entries;
+
+	@Setup
+	public void setUp() throws IOException {
+		try (JarFile jarFile = new JarFile(SyntheticJar.get(this.classCount, this.innerClassDepth, 64))) {
+			this.entries = JarLister.listFiles(jarFile, true);
+		}
+	}
+
+	@Benchmark
+	public TreeNode buildFlatTreeNode() {
+		return FlatTreeBuilder.buildFlatTreeNode("synthetic.jar", this.entries);
+	}
+
+	@Benchmark
+	public PackageIndex buildPackageIndex() {
+		return new PackageIndex(this.entries);
+	}
+
+	@Benchmark
+	public int buildExpandedFlatTreeNode() {
+		// Same work as the eager builder: index entries and create every node
+		TreeNode rootNode = new FlatRootTreeNode(new TreeNodeUserObject("synthetic.jar"), new PackageIndex(this.entries));
+		return TreeBuildingBenchmark.countNodes(rootNode);
+	}
+
+	@Benchmark
+	public TreeNode buildLazyFlatTreeNode() {
+		// Index entries and create the first level, as displayed when a jar is opened
+		TreeNode rootNode = new FlatRootTreeNode(new TreeNodeUserObject("synthetic.jar"), new PackageIndex(this.entries));
+		rootNode.getChildCount();
+		return rootNode;
+	}
+
+	/**
+	 * Count the nodes of a tree, creating all lazy nodes.
+	 *
+	 * @param node
+	 *            The root node.
+	 * @return The number of nodes.
+	 */
+	private static int countNodes(TreeNode node) {
+		int count = 1;
+		for (int index = 0; index<node.getChildCount(); index++) {
+			count += TreeBuildingBenchmark.countNodes(node.getChildAt(index));
+		}
+		return count;
+	}
+}
@@ -0,0 +1,282 @@
+package com.modcrafting.luyten;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.modcrafting.luyten.export.DirectoryExportOutput;
+import com.modcrafting.luyten.export.ExportListener;
+import com.modcrafting.luyten.export.ExportOutput;
+import com.modcrafting.luyten.export.ExportThreadFactory;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.export.ZipExportOutput;
+import com.modcrafting.luyten.model.JarLister;
+import com.modcrafting.luyten.model.zip.ZipArchiveWriter;
+
+/**
+ * Headless batch decompiler, started with the --batch option.<br>
+ * Decompiles many jars to a directory or an archive with the Save All engine and the saved decompiler settings,
+ * without initializing AWT.
+ */
+public class BatchDecompiler {
+	/** The command line option to start the batch decompiler instead of the GUI. */
+	public static final String BATCH_OPTION = "--batch";
+	/** The exit status when some classes or jars failed. */
+	private static final int FAILURE_STATUS = 1;
+	/** The exit status of invalid command lines. */
+	private static final int USAGE_STATUS = 2;
+
+	private final List<File> inFiles = new ArrayList<>();
+	private File outFile;
+	private int threadCount;
+	private int compressionLevel;
+	private boolean includeInnerClass;
+	private final List<String> failures = new ArrayList<>();
+	private final AtomicInteger classCount = new AtomicInteger();
+
+	public static void main(String[] args) {
+		// Never bring up a display, even by accident
+		System.setProperty("java.awt.headless", "true");
+		BatchDecompiler batchDecompiler = new BatchDecompiler();
+		int status;
+		try {
+			status = batchDecompiler.parseArguments(args) ? batchDecompiler.run() : USAGE_STATUS;
+		} catch (Exception e) {
+			e.printStackTrace();
+			status = FAILURE_STATUS;
+		}
+		System.exit(status);
+	}
+
+	private boolean parseArguments(String[] args) {
+		LuytenPreferences luytenPrefs = ConfigSaver.getLoadedInstance().getLuytenPreferences();
+		threadCount = luytenPrefs.getExportThreadCount();
+		compressionLevel = luytenPrefs.getExportCompressionLevel();
+		includeInnerClass = !luytenPrefs.isFilterOutInnerClassEntries();
+		try {
+			for (int index = 0; index < args.length; index++) {
+				String arg = args[index];
+				if (arg.equals(BATCH_OPTION)) {
+					continue;
+				} else if (arg.equals("-o") || arg.equals("--output")) {
+					outFile = new File(args[++index]);
+				} else if (arg.equals("-t") || arg.equals("--threads")) {
+					threadCount = Integer.parseInt(args[++index]);
+				} else if (arg.equals("-c") || arg.equals("--compression")) {
+					compressionLevel = Integer.parseInt(args[++index]);
+				} else if (arg.equals("-i") || arg.equals("--inner-classes")) {
+					includeInnerClass = true;
+				} else if (arg.equals("-h") || arg.equals("--help")) {
+					printUsage();
+					return false;
+				} else if (arg.startsWith("-")) {
+					System.err.println("Unknown option: " + arg);
+					printUsage();
+					return false;
+				} else {
+					addInputFile(new File(arg));
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+			System.err.println("Invalid option value: " + e.getMessage());
+			printUsage();
+			return false;
+		}
+		if (threadCount <= 0)
+			threadCount = Runtime.getRuntime().availableProcessors();
+		if (outFile == null || inFiles.isEmpty()) {
+			printUsage();
+			return false;
+		}
+		return true;
+	}
+
+	private void addInputFile(File file) {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children == null)
+				return;
+			Arrays.sort(children);
+			for (File child : children) {
+				if (child.isDirectory() || isArchive(child))
+					addInputFile(child);
+			}
+		} else {
+			inFiles.add(file);
+		}
+	}
+
+	private static boolean isArchive(File file) {
+		return JarLister.isArchive(file.getName());
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: java -jar luyten.jar " + BATCH_OPTION
+				+ " -o <directory|file.zip> [options] <jar|directory>...");
+		System.err.println("  -o, --output <path>        output directory, or archive if ending with .zip or .jar");
+		System.err.println("  -t, --threads <count>      number of decompiler threads (default: processor count)");
+		System.err.println("  -c, --compression <level>  output archive compression level, -1 to 9 (default: -1)");
+		System.err.println("  -i, --inner-classes        also export inner class entries");
+		System.err.println("Each jar is exported in a folder named after it when several jars are given.");
+		System.err.println("Decompiler settings are the ones saved by the GUI.");
+	}
+
+	private int run() throws Exception {
+		long start = System.nanoTime();
+		long inputSize = 0;
+		for (File inFile : inFiles) {
+			inputSize += inFile.length();
+		}
+		// Jar exports run concurrently and share the class decompiler threads.
+		// Unlike the GUI, they use their own pools: the batch process runs nothing else and the
+		// user sizes them with the thread count option
+		ExecutorService classExecutor = Executors.newFixedThreadPool(threadCount, new ExportThreadFactory());
+		ExecutorService jarExecutor = Executors.newFixedThreadPool(Math.min(threadCount, inFiles.size()),
+				new ExportThreadFactory());
+		final JarExporter exporter = new JarExporter(ConfigSaver.getLoadedInstance().getDecompilerSettings(),
+				classExecutor, threadCount, includeInnerClass);
+		String outFileName = outFile.getName().toLowerCase(Locale.ROOT);
+		try {
+			if (outFileName.endsWith(".zip") || outFileName.endsWith(".jar")) {
+				File parentFile = outFile.getAbsoluteFile().getParentFile();
+				if (parentFile != null)
+					parentFile.mkdirs();
+				try (FileOutputStream dest = new FileOutputStream(outFile);
+						ZipArchiveWriter out = new ZipArchiveWriter(dest.getChannel(), compressionLevel);) {
+					exportAll(exporter, jarExecutor, new ZipOutputFactory(out));
+				}
+			} else {
+				exportAll(exporter, jarExecutor, new DirectoryOutputFactory(outFile));
+			}
+		} finally {
+			jarExecutor.shutdownNow();
+			classExecutor.shutdownNow();
+		}
+		// Report throughput and failures
+		double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+		for (String failure : failures) {
+			System.err.println("FAILED " + failure);
+		}
+		System.out.println(String.format(Locale.ROOT,
+				"Decompiled %d classes from %d jars in %.1f s (%.1f classes/s, %.2f MB/s), %d failures",
+				classCount.get(), inFiles.size(), seconds, classCount.get() / seconds,
+				inputSize / seconds / (1024 * 1024), failures.size()));
+		return failures.isEmpty() ? 0 : FAILURE_STATUS;
+	}
+
+	private void exportAll(final JarExporter exporter, ExecutorService jarExecutor, OutputFactory outputFactory)
+			throws Exception {
+		List<Future<?>> jarExports = new ArrayList<>();
+		Set<String> prefixes = new HashSet<>();
+		for (final File inFile : inFiles) {
+			final ExportOutput output = outputFactory.create(getPrefix(inFile, prefixes));
+			jarExports.add(jarExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					exportJar(exporter, inFile, output);
+					return null;
+				}
+			}));
+		}
+		for (Future<?> jarExport : jarExports) {
+			jarExport.get();
+		}
+	}
+
+	private void exportJar(JarExporter exporter, final File inFile, ExportOutput output) {
+		long start = System.nanoTime();
+		final AtomicInteger jarClassCount = new AtomicInteger();
+		final AtomicInteger classFailureCount = new AtomicInteger();
+		boolean jarFailed = false;
+		try {
+			exporter.export(inFile, output, new ExportListener() {
+				@Override
+				public void exportStarted(File inFile, int entryCount) {}
+
+				@Override
+				public void entryExporting(String entryName, int entryIndex) {
+					if (entryName.endsWith(".java"))
+						jarClassCount.incrementAndGet();
+				}
+
+				@Override
+				public void entryFailed(String entryName, Exception exception) {
+					// Keep going: report the class and export the rest of the jar
+					classFailureCount.incrementAndGet();
+					addFailure(inFile.getPath() + "!" + entryName + ": " + exception);
+				}
+			});
+		} catch (Exception e) {
+			// The whole jar failed: no class of it to discount
+			jarFailed = true;
+			addFailure(inFile.getPath() + ": " + e);
+		}
+		// Failed classes were counted when exporting started
+		classCount.addAndGet(jarClassCount.get() - classFailureCount.get());
+		System.out.println(String.format(Locale.ROOT, "%s: %d classes, %d failures%s, %d ms", inFile.getPath(),
+				jarClassCount.get(), classFailureCount.get(), jarFailed ? ", jar failed" : "",
+				(System.nanoTime() - start) / 1000000));
+	}
+
+	private synchronized void addFailure(String failure) {
+		failures.add(failure);
+	}
+
+	private String getPrefix(File inFile, Set<String> prefixes) {
+		// A single jar is exported at the output root
+		if (inFiles.size() == 1)
+			return "";
+		String baseName = inFile.getName();
+		int extensionIndex = baseName.lastIndexOf('.');
+		if (extensionIndex > 0)
+			baseName = baseName.substring(0, extensionIndex);
+		String prefix = baseName;
+		for (int index = 2; !prefixes.add(prefix); index++) {
+			prefix = baseName + "-" + index;
+		}
+		return prefix + "/";
+	}
+
+	/**
+	 * This interface creates the export output of each jar.
+	 */
+	private interface OutputFactory {
+		ExportOutput create(String prefix);
+	}
+
+	private static class ZipOutputFactory implements OutputFactory {
+		private final ZipArchiveWriter out;
+
+		private ZipOutputFactory(ZipArchiveWriter out) {
+			this.out = out;
+		}
+
+		@Override
+		public ExportOutput create(String prefix) {
+			return new ZipExportOutput(out, prefix);
+		}
+	}
+
+	private static class DirectoryOutputFactory implements OutputFactory {
+		private final File directory;
+
+		private DirectoryOutputFactory(File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public ExportOutput create(String prefix) {
+			return new DirectoryExportOutput(new File(directory, prefix));
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package com.modcrafting.luyten;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+
+/**
+ * This class represents a type loader keeping the class file bytes read by another type loader.<br>
+ * Class file bytes are kept in least recently used order within a byte budget, which may be shared by several type
+ * loaders (see {@link ClassBytesCache}), and the names the loader could not load are remembered too. File paths are
+ * not cached as the file may change. It is safe for concurrent use: the decorated type loader loads one type at a
+ * time.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class CachingTypeLoader implements ITypeLoader {
+	/** The default cache budget (in bytes). */
+	public static final long DEFAULT_MAX_SIZE = 32*1024*1024;
+	/** The maximum number of remembered missing type names. */
+	private static final int MAX_MISSING_TYPES = 10000;
+	/** The class file extension. */
+	private static final String CLASS_EXTENSION = ".class";
+
+	/** The decorated type loader. */
+	private final ITypeLoader typeLoader;
+	/** The class file bytes cache. */
+	private final ClassBytesCache classBytesCache;
+	/** The internal names the decorated type loader could not load, in access order. */
+	private final LinkedHashMap<String, Boolean> missingTypes;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeLoader
+	 *            The type loader to decorate.
+	 * @param maxSize
+	 *            The cache budget (in bytes).
+	 */
+	public CachingTypeLoader(ITypeLoader typeLoader, long maxSize) {
+		this(typeLoader, new ClassBytesCache(maxSize));
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeLoader
+	 *            The type loader to decorate.
+	 * @param classBytesCache
+	 *            The class file bytes cache (may be shared with other type loaders).
+	 */
+	public CachingTypeLoader(ITypeLoader typeLoader, ClassBytesCache classBytesCache) {
+		this.typeLoader = typeLoader;
+		this.classBytesCache = classBytesCache;
+		this.missingTypes = new LinkedHashMap<String, Boolean>(256, 0.75f, true) {
+			private static final long serialVersionUID = -2459316390548406337L;
+
+			@Override
+			protected boolean removeEldestEntry(Entry<String, Boolean> eldest) {
+				return this.size()>CachingTypeLoader.MAX_MISSING_TYPES;
+			}
+		};
+	}
+
+	@Override
+	public boolean tryLoadType(String internalName, Buffer buffer) {
+		// Check file path
+		if (!CachingTypeLoader.isCacheable(internalName))
+			return this.load(internalName, buffer);
+		// Check cached class file bytes
+		byte[] bytes = this.classBytesCache.get(this, internalName);
+		if (bytes==null) {
+			synchronized (this) {
+				if (this.missingTypes.get(internalName)!=null)
+					return false;
+			}
+		}
+		if (bytes!=null) {
+			buffer.reset(bytes.length);
+			System.arraycopy(bytes, 0, buffer.array(), 0, bytes.length);
+			buffer.position(0);
+			return true;
+		}
+		// Load class file bytes
+		if (!this.load(internalName, buffer)) {
+			synchronized (this) {
+				this.missingTypes.put(internalName, Boolean.TRUE);
+			}
+			return false;
+		}
+		this.classBytesCache.put(this, internalName, Arrays.copyOf(buffer.array(), buffer.size()));
+		return true;
+	}
+
+	/**
+	 * Load class file bytes with the decorated type loader.
+	 * 
+	 * @param internalName
+	 *            The internal name of the type to load.
+	 * @param buffer
+	 *            The buffer to load class file bytes into.
+	 * @return <code>true</code> if the type was loaded, <code>false</code> otherwise.
+	 */
+	private boolean load(String internalName, Buffer buffer) {
+		// synchronized: type loaders keep unsynchronized lookup state
+		synchronized (this.typeLoader) {
+			return this.typeLoader.tryLoadType(internalName, buffer);
+		}
+	}
+
+	/**
+	 * Release the class file bytes of the type loader, when it is not used anymore.
+	 */
+	public void release() {
+		this.classBytesCache.remove(this);
+	}
+
+	/**
+	 * Check whether the loading result of a name could be cached.
+	 * 
+	 * @param internalName
+	 *            The name to load.
+	 * @return <code>true</code> if the name is a type internal name, <code>false</code> if it is a file path.
+	 */
+	private static boolean isCacheable(String internalName) {
+		return !internalName.endsWith(CachingTypeLoader.CLASS_EXTENSION)&&!new File(internalName).isAbsolute();
+	}
+}
@@ -0,0 +1,120 @@
+package com.modcrafting.luyten;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * This class represents the class file bytes kept by {@link CachingTypeLoader}s within a single byte budget.<br>
+ * Type loaders sharing the cache (the jars of a workspace for example) evict each other's class file bytes in least
+ * recently used order, so memory does not grow with the number of type loaders.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ClassBytesCache {
+	/** The cache budget (in bytes). */
+	private final long maxSize;
+	/** The cached class file bytes by type loader and internal name, in access order. */
+	private final LinkedHashMap<Key, byte[]> classBytes;
+	/** The size of the cached class file bytes (in bytes). */
+	private long size;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxSize
+	 *            The cache budget (in bytes).
+	 */
+	public ClassBytesCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.classBytes = new LinkedHashMap<>(256, 0.75f, true);
+		this.size = 0;
+	}
+
+	/**
+	 * Get cached class file bytes.
+	 * 
+	 * @param owner
+	 *            The type loader the class file bytes were loaded by.
+	 * @param internalName
+	 *            The internal name of the type.
+	 * @return The cached class file bytes, <code>null</code> if not cached.
+	 */
+	public synchronized byte[] get(Object owner, String internalName) {
+		return this.classBytes.get(new Key(owner, internalName));
+	}
+
+	/**
+	 * Put class file bytes into the cache.
+	 * 
+	 * @param owner
+	 *            The type loader the class file bytes were loaded by.
+	 * @param internalName
+	 *            The internal name of the type.
+	 * @param bytes
+	 *            The class file bytes.
+	 */
+	public synchronized void put(Object owner, String internalName, byte[] bytes) {
+		// Check class file size
+		if (bytes.length>this.maxSize)
+			return;
+		// Add class file bytes
+		byte[] previousBytes = this.classBytes.put(new Key(owner, internalName), bytes);
+		if (previousBytes!=null)
+			this.size -= previousBytes.length;
+		this.size += bytes.length;
+		// Evict least recently used class file bytes
+		Iterator<Entry<Key, byte[]>> iterator = this.classBytes.entrySet().iterator();
+		while (this.size>this.maxSize&&iterator.hasNext()) {
+			Entry<Key, byte[]> eldest = iterator.next();
+			iterator.remove();
+			this.size -= eldest.getValue().length;
+		}
+	}
+
+	/**
+	 * Remove the class file bytes of a type loader.
+	 * 
+	 * @param owner
+	 *            The type loader the class file bytes were loaded by.
+	 */
+	public synchronized void remove(Object owner) {
+		Iterator<Entry<Key, byte[]>> iterator = this.classBytes.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<Key, byte[]> entry = iterator.next();
+			if (entry.getKey().owner==owner) {
+				iterator.remove();
+				this.size -= entry.getValue().length;
+			}
+		}
+	}
+
+	/**
+	 * This class represents the key of cached class file bytes.
+	 */
+	private static class Key {
+		/** The type loader the class file bytes were loaded by. */
+		private final Object owner;
+		/** The internal name of the type. */
+		private final String internalName;
+
+		private Key(Object owner, String internalName) {
+			this.owner = owner;
+			this.internalName = internalName;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*System.identityHashCode(this.owner)+this.internalName.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key key = (Key) obj;
+			return this.owner==key.owner&&this.internalName.equals(key.internalName);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+package com.modcrafting.luyten;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.modcrafting.luyten.cache.DecompiledCache;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilerSettings;
+
+/**
+ * This class represents the prefetcher of the classes likely opened after a class: the types it references and its
+ * package siblings.<br>
+ * They are decompiled into the {@link DecompiledCache} by an idle task, which is cancelled as soon as the user opens
+ * or updates a class.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class DecompilationPrefetcher {
+	/** The key of the prefetch task (a new prefetch supersedes the previous one). */
+	private static final String PREFETCH_TASK_KEY = "prefetch";
+	/** The maximum number of referenced types to prefetch. */
+	private static final int MAX_REFERENCED_TYPES = 8;
+	/** The maximum number of package siblings to prefetch. */
+	private static final int MAX_SIBLING_TYPES = 4;
+	/** The type link prefix (see {@link DecompilerLinkProvider}). */
+	private static final String TYPE_LINK_PREFIX = "type|";
+	/** The class file extension. */
+	private static final String CLASS_EXTENSION = ".class";
+
+	/** The metadata systems to resolve types. */
+	private final MetadataSystemPool metadataSystemPool;
+	/** The decompiler settings. */
+	private final DecompilerSettings settings;
+	/** The type loader to read class file bytes from. */
+	private final ITypeLoader typeLoader;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param metadataSystemPool
+	 *            The metadata systems to resolve types.
+	 * @param settings
+	 *            The decompiler settings.
+	 * @param typeLoader
+	 *            The type loader to read class file bytes from.
+	 */
+	public DecompilationPrefetcher(MetadataSystemPool metadataSystemPool, DecompilerSettings settings,
+			ITypeLoader typeLoader) {
+		this.metadataSystemPool = metadataSystemPool;
+		this.settings = settings;
+		this.typeLoader = typeLoader;
+	}
+
+	/**
+	 * Prefetch the classes likely opened after a class.
+	 * 
+	 * @param classPath
+	 *            The path of the opened class file (<code>com/acme/Model.class</code> for example).
+	 * @param linkProvider
+	 *            The link provider of the opened class (<code>null</code> if links are not available).
+	 * @param index
+	 *            The index of the opened jar.
+	 */
+	public void prefetch(String classPath, LinkProvider linkProvider, PackageIndex index) {
+		// Check cache status
+		if (!DecompiledCache.getLoadedInstance().isEnabled())
+			return;
+		// Collect prefetch candidates, the most likely first
+		Set<String> candidates = new LinkedHashSet<>();
+		DecompilationPrefetcher.addReferencedTypes(candidates, classPath, linkProvider, index);
+		DecompilationPrefetcher.addSiblingTypes(candidates, classPath, index);
+		candidates.remove(classPath);
+		if (candidates.isEmpty())
+			return;
+		// Decompile candidates in an idle task
+		final List<String> classPaths = new ArrayList<>(candidates);
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.IDLE, DecompilationPrefetcher.PREFETCH_TASK_KEY,
+				new Runnable() {
+					@Override
+					public void run() {
+						DecompilationPrefetcher.this.decompile(classPaths);
+					}
+				});
+	}
+
+	/**
+	 * Add the types referenced by a class, in order of first reference.
+	 * 
+	 * @param candidates
+	 *            The candidates to add class paths to.
+	 * @param classPath
+	 *            The path of the opened class file.
+	 * @param linkProvider
+	 *            The link provider of the opened class (<code>null</code> if links are not available).
+	 * @param index
+	 *            The index of the opened jar.
+	 */
+	private static void addReferencedTypes(Set<String> candidates, String classPath, LinkProvider linkProvider,
+			PackageIndex index) {
+		// Check link provider
+		if (linkProvider==null)
+			return;
+		// Get the first reference offset of each referenced top-level type
+		final Map<String, Set<Selection>> referenceToSelectionsMap = linkProvider.getReferenceToSelectionsMap();
+		Map<String, Integer> firstOffsets = new HashMap<>();
+		for (Entry<String, Set<Selection>> entry : referenceToSelectionsMap.entrySet()) {
+			String uniqueStr = entry.getKey();
+			if (!uniqueStr.startsWith(DecompilationPrefetcher.TYPE_LINK_PREFIX))
+				continue;
+			// type|com/acme/Outer|com.acme.Outer$Inner -> com/acme/Outer.class
+			String[] linkParts = uniqueStr.split("\\|");
+			if (linkParts.length<=1)
+				continue;
+			String referencedPath = linkParts[1]+DecompilationPrefetcher.CLASS_EXTENSION;
+			int firstOffset = Integer.MAX_VALUE;
+			for (Selection selection : entry.getValue()) {
+				firstOffset = Math.min(firstOffset, selection.from);
+			}
+			Integer previousOffset = firstOffsets.get(referencedPath);
+			if (previousOffset==null||previousOffset>firstOffset)
+				firstOffsets.put(referencedPath, firstOffset);
+		}
+		List<Entry<String, Integer>> references = new ArrayList<>(firstOffsets.entrySet());
+		Collections.sort(references, new Comparator<Entry<String, Integer>>() {
+			@Override
+			public int compare(Entry<String, Integer> reference1, Entry<String, Integer> reference2) {
+				return reference1.getValue().compareTo(reference2.getValue());
+			}
+		});
+		// Add the referenced types of the jar
+		int count = 0;
+		for (Entry<String, Integer> reference : references) {
+			if (count>=DecompilationPrefetcher.MAX_REFERENCED_TYPES)
+				break;
+			String referencedPath = reference.getKey();
+			if (referencedPath.equals(classPath)||!DecompilationPrefetcher.isIndexed(referencedPath, index))
+				continue;
+			if (candidates.add(referencedPath))
+				count++;
+		}
+	}
+
+	/**
+	 * Add the classes next to a class in its package, the nearest first.
+	 * 
+	 * @param candidates
+	 *            The candidates to add class paths to.
+	 * @param classPath
+	 *            The path of the opened class file.
+	 * @param index
+	 *            The index of the opened jar.
+	 */
+	private static void addSiblingTypes(Set<String> candidates, String classPath, PackageIndex index) {
+		// Get package directory
+		int separatorIndex = classPath.lastIndexOf('/');
+		String packagePath = separatorIndex==-1 ? "" : classPath.substring(0, separatorIndex);
+		PackageIndex.Directory directory = index.getDirectory(packagePath);
+		if (directory==null)
+			return;
+		List<String> files = directory.getFiles();
+		int position = files.indexOf(classPath.substring(separatorIndex+1));
+		if (position==-1)
+			return;
+		// Add the next and previous classes (as browsed in the tree)
+		String prefix = separatorIndex==-1 ? "" : packagePath+"/";
+		int count = 0;
+		for (int distance = 1; distance<files.size()&&count<DecompilationPrefetcher.MAX_SIBLING_TYPES; distance++) {
+			for (int sibling : new int[] { position+distance, position-distance }) {
+				if (sibling<0||sibling>=files.size()||count>=DecompilationPrefetcher.MAX_SIBLING_TYPES)
+					continue;
+				String fileName = files.get(sibling);
+				if (fileName.endsWith(DecompilationPrefetcher.CLASS_EXTENSION)&&fileName.indexOf('$')==-1
+						&&candidates.add(prefix+fileName))
+					count++;
+			}
+		}
+	}
+
+	/**
+	 * Check if a file is part of the opened jar.
+	 * 
+	 * @param path
+	 *            The file path.
+	 * @param index
+	 *            The index of the opened jar.
+	 * @return <code>true</code> if the file is indexed, <code>false</code> otherwise.
+	 */
+	private static boolean isIndexed(String path, PackageIndex index) {
+		int separatorIndex = path.lastIndexOf('/');
+		PackageIndex.Directory directory = index.getDirectory(separatorIndex==-1 ? "" : path.substring(0,
+				separatorIndex));
+		return directory!=null&&directory.getFiles().contains(path.substring(separatorIndex+1));
+	}
+
+	/**
+	 * Decompile classes into the cache, until the task is cancelled.
+	 * 
+	 * @param classPaths
+	 *            The paths of the class files to decompile.
+	 */
+	private void decompile(List<String> classPaths) {
+		DecompiledCache decompiledCache = DecompiledCache.getLoadedInstance();
+		// Decompile with the settings of the prefetch request
+		DecompilerSettings settingsSnapshot = JarExporter.cloneSettings(this.settings);
+		DecompilationOptions decompilationOptions = MetadataSystemPool.createOptions(settingsSnapshot);
+		MetadataSystem metadataSystem = this.metadataSystemPool.acquire();
+		try {
+			this.decompile(classPaths, decompiledCache, metadataSystem, settingsSnapshot, decompilationOptions);
+		} finally {
+			this.metadataSystemPool.release(metadataSystem);
+		}
+	}
+
+	/**
+	 * Decompile classes into the cache with a borrowed metadata system, until the task is cancelled.
+	 * 
+	 * @param classPaths
+	 *            The paths of the class files to decompile.
+	 * @param decompiledCache
+	 *            The decompiled content cache.
+	 * @param metadataSystem
+	 *            The borrowed metadata system.
+	 * @param settingsSnapshot
+	 *            The decompiler settings snapshot.
+	 * @param decompilationOptions
+	 *            The decompilation options.
+	 */
+	private void decompile(List<String> classPaths, DecompiledCache decompiledCache, MetadataSystem metadataSystem,
+			DecompilerSettings settingsSnapshot, DecompilationOptions decompilationOptions) {
+		for (String classPath : classPaths) {
+			// Back off once a foreground request arrives
+			if (TaskScheduler.isCurrentTaskCancelled())
+				return;
+			try {
+				// Resolve type
+				String internalName = classPath.substring(0, classPath.length()-
+						DecompilationPrefetcher.CLASS_EXTENSION.length());
+				TypeReference type = metadataSystem.lookupType(internalName);
+				TypeDefinition resolvedType = type==null ? null : type.resolve();
+				if (resolvedType==null)
+					continue;
+				// Check already cached content (no key if the class bytes could not be read)
+				String key = decompiledCache.createKey(this.typeLoader, resolvedType, settingsSnapshot);
+				if (key==null||decompiledCache.contains(key))
+					continue;
+				// Decompile type (the link provider caches its content)
+				DecompilerLinkProvider linkProvider = new DecompilerLinkProvider();
+				linkProvider.setDecompilerReferences(metadataSystem, settingsSnapshot, decompilationOptions);
+				linkProvider.setTypeLoader(this.typeLoader);
+				linkProvider.setType(resolvedType);
+				linkProvider.generateContent();
+			} catch (RuntimeException exception) {
+				// Cancelled while writing or not decompilable: the class is decompiled when opened
+				if (TaskScheduler.isCurrentTaskCancelled())
+					return;
+			}
+		}
+	}
+}
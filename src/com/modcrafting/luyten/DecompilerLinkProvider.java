@@ -6,8 +6,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+
+import com.modcrafting.luyten.cache.DecompiledCache;
+import com.modcrafting.luyten.cache.DecompiledContent;
+import com.modcrafting.luyten.task.CancellableStringWriter;
 import com.strobel.assembler.metadata.FieldDefinition;
 import com.strobel.assembler.metadata.FieldReference;
+import com.strobel.assembler.metadata.ITypeLoader;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.assembler.metadata.MethodDefinition;
 import com.strobel.assembler.metadata.MethodReference;
@@ -28,6 +33,7 @@ public class DecompilerLinkProvider implements LinkProvider {
 	private DecompilerSettings settings;
 	private DecompilationOptions decompilationOptions;
 	private TypeDefinition type;
+	private ITypeLoader typeLoader;
 
 	private String currentTypeQualifiedName;
 	private String textContent = "";
@@ -37,7 +43,19 @@ public class DecompilerLinkProvider implements LinkProvider {
 		definitionToSelectionMap = new HashMap<>();
 		referenceToSelectionsMap = new HashMap<>();
 		currentTypeQualifiedName = type.getPackageName() + "." + type.getName();
-		final StringWriter stringwriter = new StringWriter();
+		// reuse the content decompiled from the same class bytes with the same settings
+		DecompiledCache decompiledCache = DecompiledCache.getLoadedInstance();
+		String cacheKey = decompiledCache.createKey(typeLoader, type, settings);
+		DecompiledContent cachedContent = decompiledCache.get(cacheKey);
+		if (cachedContent != null) {
+			definitionToSelectionMap = cachedContent.getDefinitionToSelectionMap();
+			referenceToSelectionsMap = cachedContent.getReferenceToSelectionsMap();
+			textContent = cachedContent.getTextContent();
+			isSelectionMapsPopulated = true;
+			return;
+		}
+		// aborts the decompilation if the requesting task is superseded
+		final StringWriter stringwriter = new CancellableStringWriter();
 		settings.getLanguage().decompileType(type, new PlainTextOutput(stringwriter) {
 			@Override
 			public void writeDefinition(String text, Object definition, boolean isLocal) {
@@ -94,6 +112,7 @@ public class DecompilerLinkProvider implements LinkProvider {
 		}, decompilationOptions);
 		textContent = stringwriter.toString();
 		isSelectionMapsPopulated = true;
+		decompiledCache.put(cacheKey, new DecompiledContent(textContent, definitionToSelectionMap, referenceToSelectionsMap));
 	}
 
 	private String createUniqueStrForReference(Object reference) {
@@ -380,4 +399,8 @@ public class DecompilerLinkProvider implements LinkProvider {
 	public void setType(TypeDefinition type) {
 		this.type = type;
 	}
+
+	public void setTypeLoader(ITypeLoader typeLoader) {
+		this.typeLoader = typeLoader;
+	}
 }
@@ -36,11 +36,10 @@ public class DropListener implements DropTargetListener {
 					if (flavor.isFlavorJavaFileListType()) {
 						List<File> files = (List<File>) transferable
 								.getTransferData(flavor);
+						// several files are opened as a workspace
 						if (files.size() > 1) {
-							event.rejectDrop();
-							return;
-						}
-						if (files.size() == 1) {
+							mainWindow.onFilesDropped(files);
+						} else if (files.size() == 1) {
 							mainWindow.onFileDropped(files.get(0));
 						}
 					}
@@ -70,10 +69,8 @@ public class DropListener implements DropTargetListener {
 							}
 						}
 						if (list.size() > 1) {
-							event.rejectDrop();
-							return;
-						}
-						if (list.size() == 1) {
+							mainWindow.onFilesDropped(list);
+						} else if (list.size() == 1) {
 							mainWindow.onFileDropped(list.get(0));
 						}
 						event.getDropTargetContext().dropComplete(true);
@@ -5,6 +5,9 @@ import java.io.File;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileFilter;
 
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
 /**
  * FileChoosers for Open and Save
  */
@@ -21,19 +24,26 @@ public class FileDialog {
 		configSaver = ConfigSaver.getLoadedInstance();
 		luytenPrefs = configSaver.getLuytenPreferences();
 
-		new Thread() {
+		// prepare the dialogs in background
+		TaskScheduler taskScheduler = TaskScheduler.getLoadedInstance();
+		taskScheduler.execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
 			public void run() {
-				try {
-					initOpenDialog();
-					Thread.sleep(500);
-					initSaveAllDialog();
-					Thread.sleep(500);
-					initSaveDialog();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			};
-		}.start();
+				initOpenDialog();
+			}
+		});
+		taskScheduler.execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				initSaveAllDialog();
+			}
+		});
+		taskScheduler.execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				initSaveDialog();
+			}
+		});
 	}
 
 	public File doOpenDialog() {
@@ -50,6 +60,42 @@ public class FileDialog {
 		return selectedFile;
 	}
 
+	public File[] doAddToWorkspaceDialog() {
+		File[] selectedFiles = null;
+		initOpenDialog();
+
+		retrieveOpenDialogDir(fcOpen);
+		fcOpen.setMultiSelectionEnabled(true);
+		int returnVal;
+		try {
+			returnVal = fcOpen.showOpenDialog(parent);
+		} finally {
+			fcOpen.setMultiSelectionEnabled(false);
+		}
+		saveOpenDialogDir(fcOpen);
+
+		if (returnVal == JFileChooser.APPROVE_OPTION) {
+			selectedFiles = fcOpen.getSelectedFiles();
+		}
+		return selectedFiles;
+	}
+
+	public File doSelectJdkDialog(String currentJdkHome) {
+		File selectedDirectory = null;
+		JFileChooser fcJdk = new JFileChooser();
+		fcJdk.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+		fcJdk.setDialogTitle("Select JDK Home");
+		if (currentJdkHome != null && !currentJdkHome.isEmpty()) {
+			fcJdk.setCurrentDirectory(new File(currentJdkHome));
+		}
+		int returnVal = fcJdk.showOpenDialog(parent);
+
+		if (returnVal == JFileChooser.APPROVE_OPTION) {
+			selectedDirectory = fcJdk.getSelectedFile();
+		}
+		return selectedDirectory;
+	}
+
 	public File doSaveDialog(String recommendedFileName) {
 		File selectedFile = null;
 		initSaveDialog();
@@ -82,7 +128,7 @@ public class FileDialog {
 
 	public synchronized void initOpenDialog() {
 		if (fcOpen == null) {
-			fcOpen = createFileChooser("*.jar", "*.zip", "*.class");
+			fcOpen = createFileChooser("*.jar", "*.zip", "*.war", "*.ear", "*.class");
 			retrieveOpenDialogDir(fcOpen);
 		}
 	}
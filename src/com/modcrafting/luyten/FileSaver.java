@@ -1,43 +1,37 @@
 package com.modcrafting.luyten;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
-import java.io.InputStream;
-import java.io.OutputStreamWriter;
 import java.io.StringWriter;
-import java.io.Writer;
-import java.util.Enumeration;
-import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
 
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JProgressBar;
 
+import com.modcrafting.luyten.export.ExportListener;
+import com.modcrafting.luyten.export.ExportThreadFactory;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.export.ZipExportOutput;
 import com.modcrafting.luyten.model.JarLister;
-import com.strobel.assembler.metadata.ITypeLoader;
-import com.strobel.assembler.metadata.JarTypeLoader;
+import com.modcrafting.luyten.model.zip.ZipArchiveWriter;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.assembler.metadata.TypeReference;
-import com.strobel.core.StringUtilities;
 import com.strobel.decompiler.DecompilationOptions;
 import com.strobel.decompiler.DecompilerSettings;
 import com.strobel.decompiler.PlainTextOutput;
-import com.strobel.decompiler.languages.java.JavaFormattingOptions;
 
 /**
  * Performs Save and Save All
  */
 public class FileSaver {
-
 	private JProgressBar bar;
 	private JLabel label;
 
@@ -47,7 +41,7 @@ public class FileSaver {
 	}
 
 	public void saveText(final String text, final File file) {
-		new Thread(new Runnable() {
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, new Runnable() {
 			@Override
 			public void run() {
 				try (FileWriter fw = new FileWriter(file);
@@ -65,11 +59,13 @@ public class FileSaver {
 					bar.setVisible(false);
 				}
 			}
-		}).start();
+		});
 	}
 
 	public void saveAllDecompiled(final File inFile, final File outFile) {
-		new Thread(new Runnable() {
+		// The export writes entries for as long as it lasts: keep it off the scheduler pools, only its
+		// decompilations run on the shared background workers
+		new ExportThreadFactory().newThread(new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -77,7 +73,7 @@ public class FileSaver {
 					label.setText("Extracting: " + outFile.getName());
 					String inFileName = inFile.getName().toLowerCase();
 
-					if (inFileName.endsWith(".jar") || inFileName.endsWith(".zip")) {
+					if (JarLister.isArchive(inFileName)) {
 						doSaveJarDecompiled(inFile, outFile);
 					} else if (inFileName.endsWith(".class")) {
 						doSaveClassDecompiled(inFile, outFile);
@@ -98,86 +94,46 @@ public class FileSaver {
 	}
 
 	private void doSaveJarDecompiled(File inFile, File outFile) throws Exception {
-		try (JarFile jfile = new JarFile(inFile);
-				FileOutputStream dest = new FileOutputStream(outFile);
-				BufferedOutputStream buffDest = new BufferedOutputStream(dest);
-				ZipOutputStream out = new ZipOutputStream(buffDest);) {
-
-			byte data[] = new byte[1024];
-			DecompilerSettings settings = cloneSettings();
-			LuytenTypeLoader typeLoader = new LuytenTypeLoader();
-			MetadataSystem metadataSystem = new MetadataSystem(typeLoader);
-			ITypeLoader jarLoader = new JarTypeLoader(jfile);
-			typeLoader.getTypeLoaders().add(jarLoader);
-
-			DecompilationOptions decompilationOptions = new DecompilationOptions();
-			decompilationOptions.setSettings(settings);
-			decompilationOptions.setFullDecompilation(true);
-
-			LuytenPreferences luytenPrefs = ConfigSaver.getLoadedInstance().getLuytenPreferences();
-			List<String> mass = JarLister.listFiles(jfile, !luytenPrefs.isFilterOutInnerClassEntries());
-			this.bar.setMaximum(mass.size());
-			this.bar.setIndeterminate(false);
-
-			Enumeration<JarEntry> ent = jfile.entries();
-			int entryCount = 0;
-			Writer writer = new OutputStreamWriter(out);	// Use the same writer
-			while (ent.hasMoreElements()) {
-				JarEntry entry = ent.nextElement();
-				if (!mass.contains(entry.getName()))
-					continue;
-				label.setText("Extracting: " + entry.getName());
-				bar.setValue(entryCount);
-				entryCount++;
-				if (entry.getName().endsWith(".class")) {
-					JarEntry etn = new JarEntry(entry.getName().replace(".class", ".java"));
-					label.setText("Extracting: " + etn.getName());
-					out.putNextEntry(etn);
-					try {
-						String internalName = StringUtilities.removeRight(entry.getName(), ".class");
-						TypeReference type = metadataSystem.lookupType(internalName);
-						TypeDefinition resolvedType = null;
-						if ((type == null) || ((resolvedType = type.resolve()) == null)) {
-							throw new Exception("Unable to resolve type.");
-						}
-						settings.getLanguage().decompileType(resolvedType,
-								new PlainTextOutput(writer), decompilationOptions);
-						writer.flush();
-					} finally {
-						out.closeEntry();
-					}
-				} else {
-					try {
-						JarEntry etn = new JarEntry(entry.getName());
-						out.putNextEntry(etn);
-						try {
-							InputStream in = jfile.getInputStream(entry);
-							if (in != null) {
-								try {
-									int count;
-									while ((count = in.read(data, 0, 1024)) != -1) {
-										out.write(data, 0, count);
-									}
-								} finally {
-									in.close();
-								}
-							}
-						} finally {
-							out.closeEntry();
-						}
-					} catch (ZipException ze) {
-						// some jar-s contain duplicate pom.xml entries: ignore it
-						if (!ze.getMessage().contains("duplicate")) {
-							throw ze;
-						}
-					}
+		LuytenPreferences luytenPrefs = ConfigSaver.getLoadedInstance().getLuytenPreferences();
+		int threadCount = getExportThreadCount(luytenPrefs);
+		ExecutorService executor = TaskScheduler.getLoadedInstance().getWorkers(TaskPriority.BACKGROUND);
+		try (FileOutputStream dest = new FileOutputStream(outFile);
+				ZipArchiveWriter out = new ZipArchiveWriter(dest.getChannel(), luytenPrefs.getExportCompressionLevel());) {
+			// Snapshot settings once: every worker clones the same settings even if the menu changes meanwhile
+			JarExporter exporter = new JarExporter(ConfigSaver.getLoadedInstance().getDecompilerSettings(), executor,
+					threadCount, !luytenPrefs.isFilterOutInnerClassEntries());
+			exporter.export(inFile, new ZipExportOutput(out, ""), new ExportListener() {
+				@Override
+				public void exportStarted(File inFile, int entryCount) {
+					bar.setMaximum(entryCount);
+					bar.setIndeterminate(false);
 				}
-			}
-			
+
+				@Override
+				public void entryExporting(String entryName, int entryIndex) {
+					label.setText("Extracting: " + entryName);
+					bar.setValue(entryIndex);
+				}
+
+				@Override
+				public void entryFailed(String entryName, Exception exception) throws Exception {
+					// Abort the whole export as the serial export did
+					throw exception;
+				}
+			});
 			this.bar.setIndeterminate(true);
 		}
 	}
 
+	private int getExportThreadCount(LuytenPreferences luytenPrefs) {
+		// The shared workers do not run more decompilations than processors
+		int processorCount = Runtime.getRuntime().availableProcessors();
+		int threadCount = luytenPrefs.getExportThreadCount();
+		if (threadCount <= 0 || threadCount > processorCount)
+			threadCount = processorCount;
+		return threadCount;
+	}
+
 	private void doSaveClassDecompiled(File inFile, File outFile) throws Exception {
 		DecompilerSettings settings = cloneSettings();
 		LuytenTypeLoader typeLoader = new LuytenTypeLoader();
@@ -206,42 +162,19 @@ public class FileSaver {
 
 	private void doSaveUnknownFile(File inFile, File outFile) throws Exception {
 		try (FileInputStream in = new FileInputStream(inFile);
-				FileOutputStream out = new FileOutputStream(outFile);) {
-
-			byte data[] = new byte[1024];
-			int count;
-			while ((count = in.read(data, 0, 1024)) != -1) {
-				out.write(data, 0, count);
+				FileOutputStream out = new FileOutputStream(outFile);
+				FileChannel inChannel = in.getChannel();
+				FileChannel outChannel = out.getChannel();) {
+			// Let the system copy the file without going through user space
+			long position = 0;
+			long size = inChannel.size();
+			while (position < size) {
+				position += inChannel.transferTo(position, size - position, outChannel);
 			}
 		}
 	}
 
 	private DecompilerSettings cloneSettings() {
-		DecompilerSettings settings = ConfigSaver.getLoadedInstance().getDecompilerSettings();
-		DecompilerSettings newSettings = new DecompilerSettings();
-		if (newSettings.getFormattingOptions() == null) {
-			newSettings.setFormattingOptions(JavaFormattingOptions.createDefault());
-		}
-		// synchronized: against main menu changes
-		synchronized (settings) {
-			newSettings.setExcludeNestedTypes(settings.getExcludeNestedTypes());
-			newSettings.setFlattenSwitchBlocks(settings.getFlattenSwitchBlocks());
-			newSettings.setForceExplicitImports(settings.getForceExplicitImports());
-			newSettings.setForceExplicitTypeArguments(settings.getForceExplicitTypeArguments());
-			newSettings.setOutputFileHeaderText(settings.getOutputFileHeaderText());
-			newSettings.setLanguage(settings.getLanguage());
-			newSettings.setShowSyntheticMembers(settings.getShowSyntheticMembers());
-			newSettings.setAlwaysGenerateExceptionVariableForCatchBlocks(settings
-					.getAlwaysGenerateExceptionVariableForCatchBlocks());
-			newSettings.setOutputDirectory(settings.getOutputDirectory());
-			newSettings.setRetainRedundantCasts(settings.getRetainRedundantCasts());
-			newSettings.setIncludeErrorDiagnostics(settings.getIncludeErrorDiagnostics());
-			newSettings.setIncludeLineNumbersInBytecode(settings.getIncludeLineNumbersInBytecode());
-			newSettings.setRetainPointlessSwitches(settings.getRetainPointlessSwitches());
-			newSettings.setUnicodeOutputEnabled(settings.isUnicodeOutputEnabled());
-			newSettings.setMergeVariables(settings.getMergeVariables());
-			newSettings.setShowDebugLineNumbers(settings.getShowDebugLineNumbers());
-		}
-		return newSettings;
+		return JarExporter.cloneSettings(ConfigSaver.getLoadedInstance().getDecompilerSettings());
 	}
 }
@@ -0,0 +1,87 @@
+package com.modcrafting.luyten;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.jar.JarFile;
+
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.JarTypeLoader;
+
+/**
+ * This class represents a jar type loader opening its jar file the first time it is used.<br>
+ * The jars of a workspace which no opened class depends on are never opened.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class LazyJarTypeLoader implements ITypeLoader, Closeable {
+	/** The jar file to load types from. */
+	private final File file;
+	/** The opened jar file (<code>null</code> if not opened yet). */
+	private JarFile jarFile;
+	/** The type loader of the opened jar file (<code>null</code> if not opened yet). */
+	private JarTypeLoader jarTypeLoader;
+	/** The closed status. */
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file to load types from.
+	 */
+	public LazyJarTypeLoader(File file) {
+		this.file = file;
+		this.closed = false;
+	}
+
+	/**
+	 * Get the jar file to load types from.
+	 * 
+	 * @return The jar file to load types from.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Get the opened jar file, opening it if needed.
+	 * 
+	 * @return The opened jar file.
+	 * @throws IOException
+	 *             Throws exception if the jar file could not be opened or if the loader is closed.
+	 */
+	public synchronized JarFile getJarFile() throws IOException {
+		// Check closed status
+		if (this.closed)
+			throw new IOException("Jar file closed: "+this.file);
+		// Open jar file
+		if (this.jarFile==null) {
+			this.jarFile = new JarFile(this.file);
+			this.jarTypeLoader = new JarTypeLoader(this.jarFile);
+		}
+		return this.jarFile;
+	}
+
+	@Override
+	public synchronized boolean tryLoadType(String internalName, Buffer buffer) {
+		try {
+			this.getJarFile();
+		} catch (IOException exception) {
+			return false;
+		}
+		return this.jarTypeLoader.tryLoadType(internalName, buffer);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.closed = true;
+		if (this.jarFile!=null) {
+			this.jarFile.close();
+			this.jarFile = null;
+			this.jarTypeLoader = null;
+		}
+	}
+}
@@ -10,6 +10,12 @@ import javax.swing.UIManager;
 public class Luyten {
 
 	public static void main(String[] args) {
+		// Headless batch mode: return before any AWT or Swing initialization
+		if (args.length > 0 && args[0].equals(BatchDecompiler.BATCH_OPTION)) {
+			BatchDecompiler.main(args);
+			return;
+		}
+
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 		} catch (Exception e) {
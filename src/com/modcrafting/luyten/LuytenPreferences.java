@@ -17,12 +17,20 @@ public class LuytenPreferences {
 	private String themeXml = DEFAULT_THEME_XML;
 	private String fileOpenCurrentDirectory = "";
 	private String fileSaveCurrentDirectory = "";
+	private String runtimeJdkHome = "";
 
 	private boolean isPackageExplorerStyle = true;
 	private boolean isFilterOutInnerClassEntries = true;
 	private boolean isSingleClickOpenEnabled = true;
 	private boolean isExitByEscEnabled = false;
 
+	private int exportThreadCount = 0;
+	private int exportCompressionLevel = -1;
+	private int decompiledCacheMaxSizeMb = 256;
+	private int indexMaxSizeMb = 256;
+	private int closedEditorCacheMaxSizeMb = 32;
+	private int classBytesCacheMaxSizeMb = 32;
+
 	public String getThemeXml() {
 		return themeXml;
 	}
@@ -47,6 +55,14 @@ public class LuytenPreferences {
 		this.fileSaveCurrentDirectory = fileSaveCurrentDirectory;
 	}
 
+	public String getRuntimeJdkHome() {
+		return runtimeJdkHome;
+	}
+
+	public void setRuntimeJdkHome(String runtimeJdkHome) {
+		this.runtimeJdkHome = runtimeJdkHome;
+	}
+
 	public boolean isPackageExplorerStyle() {
 		return isPackageExplorerStyle;
 	}
@@ -78,4 +94,52 @@ public class LuytenPreferences {
 	public void setExitByEscEnabled(boolean isExitByEscEnabled) {
 		this.isExitByEscEnabled = isExitByEscEnabled;
 	}
+
+	public int getExportThreadCount() {
+		return exportThreadCount;
+	}
+
+	public void setExportThreadCount(int exportThreadCount) {
+		this.exportThreadCount = exportThreadCount;
+	}
+
+	public int getDecompiledCacheMaxSizeMb() {
+		return decompiledCacheMaxSizeMb;
+	}
+
+	public void setDecompiledCacheMaxSizeMb(int decompiledCacheMaxSizeMb) {
+		this.decompiledCacheMaxSizeMb = decompiledCacheMaxSizeMb;
+	}
+
+	public int getIndexMaxSizeMb() {
+		return indexMaxSizeMb;
+	}
+
+	public void setIndexMaxSizeMb(int indexMaxSizeMb) {
+		this.indexMaxSizeMb = indexMaxSizeMb;
+	}
+
+	public int getClosedEditorCacheMaxSizeMb() {
+		return closedEditorCacheMaxSizeMb;
+	}
+
+	public void setClosedEditorCacheMaxSizeMb(int closedEditorCacheMaxSizeMb) {
+		this.closedEditorCacheMaxSizeMb = closedEditorCacheMaxSizeMb;
+	}
+
+	public int getClassBytesCacheMaxSizeMb() {
+		return classBytesCacheMaxSizeMb;
+	}
+
+	public void setClassBytesCacheMaxSizeMb(int classBytesCacheMaxSizeMb) {
+		this.classBytesCacheMaxSizeMb = classBytesCacheMaxSizeMb;
+	}
+
+	public int getExportCompressionLevel() {
+		return exportCompressionLevel;
+	}
+
+	public void setExportCompressionLevel(int exportCompressionLevel) {
+		this.exportCompressionLevel = exportCompressionLevel;
+	}
 }
@@ -1,34 +1,216 @@
 package com.modcrafting.luyten;
 
+import com.modcrafting.luyten.model.JarLister;
 import com.strobel.assembler.InputTypeLoader;
 import com.strobel.assembler.metadata.Buffer;
 import com.strobel.assembler.metadata.ITypeLoader;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Type loader delegating to the loaders of the opened files.<br>
+ * It is safe for concurrent decompilations: the loader list may change while types are loaded and each delegate,
+ * which may keep unsynchronized lookup state, loads one type at a time.<br>
+ * The loaders added with their type names are indexed: a type is loaded by the first of them owning it, without
+ * probing the others. Loaders without type names are still probed in order, so shadowing is unchanged.<br>
+ * The JDK classes are loaded first, from the indexed runtime image of the selected JDK when available (see
+ * {@link RuntimeImageTypeLoader}).
+ */
 public final class LuytenTypeLoader implements ITypeLoader {
+    /** The loader of runtime classes and class files, with the class bytes cache shared by all loaders. */
+    private static final ITypeLoader RUNTIME_TYPE_LOADER = new CachingTypeLoader(new InputTypeLoader(),
+            CachingTypeLoader.DEFAULT_MAX_SIZE);
+
     private final List<ITypeLoader> _typeLoaders;
+    /** The type names owned by the indexed loaders. */
+    private final Map<ITypeLoader, Set<String>> _typeNames;
+    /** The owning loader by type name (<code>null</code> until built again). */
+    private volatile Map<String, ITypeLoader> _index;
 
     public LuytenTypeLoader() {
-        _typeLoaders = new ArrayList<ITypeLoader>();
-        _typeLoaders.add(new InputTypeLoader());
+        _typeLoaders = new CopyOnWriteArrayList<ITypeLoader>();
+        _typeNames = new ConcurrentHashMap<ITypeLoader, Set<String>>();
+        _typeLoaders.add(RUNTIME_TYPE_LOADER);
+    }
+
+    /**
+     * Index the runtime classes ahead of the first type lookup.
+     */
+    public static void prepareRuntimeIndex() {
+        RuntimeTypeNames.initialize();
     }
 
+    /**
+     * Get the type loaders, in lookup order.
+     *
+     * @return The type loaders (read only).
+     */
     public final List<ITypeLoader> getTypeLoaders() {
-        return _typeLoaders;
+        return Collections.unmodifiableList(_typeLoaders);
+    }
+
+    /**
+     * Add a type loader probed for every type.
+     *
+     * @param typeLoader
+     *            The type loader to add after the others.
+     */
+    public void addTypeLoader(final ITypeLoader typeLoader) {
+        addTypeLoader(typeLoader, null);
+    }
+
+    /**
+     * Add a type loader.
+     *
+     * @param typeLoader
+     *            The type loader to add after the others.
+     * @param typeNames
+     *            The internal names of the types it owns (<code>null</code> to probe it for every type).
+     */
+    public synchronized void addTypeLoader(final ITypeLoader typeLoader, final Set<String> typeNames) {
+        if (typeNames != null) {
+            _typeNames.put(typeLoader, typeNames);
+        }
+        _typeLoaders.add(typeLoader);
+        _index = null;
+    }
+
+    /**
+     * Remove a type loader.
+     *
+     * @param typeLoader
+     *            The type loader to remove.
+     */
+    public synchronized void removeTypeLoader(final ITypeLoader typeLoader) {
+        _typeLoaders.remove(typeLoader);
+        _typeNames.remove(typeLoader);
+        _index = null;
     }
 
     @Override
     public boolean tryLoadType(final String internalName, final Buffer buffer) {
-        for (final ITypeLoader typeLoader : _typeLoaders) {
-            if (typeLoader.tryLoadType(internalName, buffer)) {
+        // file paths are not indexed: every loader is probed
+        final boolean isTypeName = !internalName.endsWith(".class") && !new File(internalName).isAbsolute();
+        final ITypeLoader owner = isTypeName ? getIndex().get(internalName) : null;
+        if (owner != null && owner == RuntimeTypeNames.RUNTIME_IMAGE_TYPE_LOADER) {
+            if (owner.tryLoadType(internalName, buffer)) {
                 return true;
             }
+            buffer.reset();
+        }
+        for (final ITypeLoader typeLoader : _typeLoaders) {
+            // indexed loaders not owning the type are skipped
+            if (isTypeName && typeLoader != owner && isIndexed(typeLoader)) {
+                continue;
+            }
+
+            if (typeLoader instanceof CachingTypeLoader) {
+                // synchronized itself: cached class bytes are read concurrently
+                if (typeLoader.tryLoadType(internalName, buffer)) {
+                    return true;
+                }
+            } else {
+                synchronized (typeLoader) {
+                    if (typeLoader.tryLoadType(internalName, buffer)) {
+                        return true;
+                    }
+                }
+            }
 
             buffer.reset();
         }
 
         return false;
     }
-}
\ No newline at end of file
+
+    private boolean isIndexed(final ITypeLoader typeLoader) {
+        if (typeLoader == RUNTIME_TYPE_LOADER) {
+            return RuntimeTypeNames.TYPE_NAMES != null;
+        }
+        return _typeNames.containsKey(typeLoader);
+    }
+
+    private Map<String, ITypeLoader> getIndex() {
+        Map<String, ITypeLoader> index = _index;
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            if (_index == null) {
+                // the first loader owning a type shadows the next ones
+                index = new HashMap<String, ITypeLoader>();
+                if (RuntimeTypeNames.RUNTIME_IMAGE_TYPE_LOADER != null) {
+                    for (final String typeName : RuntimeImageTypeLoader.getLoadedInstanceTypeNames()) {
+                        index.put(typeName, RuntimeTypeNames.RUNTIME_IMAGE_TYPE_LOADER);
+                    }
+                }
+                for (final ITypeLoader typeLoader : _typeLoaders) {
+                    Set<String> typeNames = typeLoader == RUNTIME_TYPE_LOADER ? RuntimeTypeNames.TYPE_NAMES
+                            : _typeNames.get(typeLoader);
+                    if (typeNames == null) {
+                        continue;
+                    }
+                    for (final String typeName : typeNames) {
+                        if (!index.containsKey(typeName)) {
+                            index.put(typeName, typeLoader);
+                        }
+                    }
+                }
+                _index = index;
+            }
+            return _index;
+        }
+    }
+
+    /**
+     * The type names of the runtime loader, listed once from the class path jars, and the runtime image loader.
+     */
+    private static final class RuntimeTypeNames {
+        /** The JDK runtime image loader (<code>null</code> if not available). */
+        private static final ITypeLoader RUNTIME_IMAGE_TYPE_LOADER = RuntimeImageTypeLoader.getLoadedInstance();
+        /** The runtime type names (<code>null</code> if the class path could not be listed). */
+        private static final Set<String> TYPE_NAMES = listTypeNames();
+
+        private static void initialize() {
+            // the type names are listed by the class initialization
+        }
+
+        private static Set<String> listTypeNames() {
+            String bootClassPath = System.getProperty("sun.boot.class.path");
+            // no boot class path jars since Java 9: JDK classes are only listed by the runtime image
+            if (bootClassPath == null && RUNTIME_IMAGE_TYPE_LOADER == null) {
+                return null;
+            }
+            Set<String> typeNames = new HashSet<String>();
+            String classPath = System.getProperty("java.class.path", "");
+            if (bootClassPath != null) {
+                classPath = classPath + File.pathSeparator + bootClassPath;
+            }
+            for (final String path : classPath.split(File.pathSeparator)) {
+                File file = new File(path);
+                if (path.isEmpty() || !file.exists()) {
+                    continue;
+                }
+                // class directories are not listed
+                if (!file.isFile()) {
+                    return null;
+                }
+                try {
+                    typeNames.addAll(JarLister.listTypeNames(file));
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            return Collections.unmodifiableSet(typeNames);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.awt.event.KeyEvent;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 import javax.swing.AbstractAction;
 import javax.swing.AbstractButton;
 import javax.swing.ButtonGroup;
@@ -18,6 +19,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.KeyStroke;
 import javax.swing.text.DefaultEditorKit;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
 import com.strobel.decompiler.DecompilerSettings;
 import com.strobel.decompiler.languages.Language;
 import com.strobel.decompiler.languages.Languages;
@@ -76,7 +79,8 @@ public class MainMenuBar extends JMenuBar {
 		this.add(helpMenu);
 
 		// start quicker
-		new Thread() {
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.INTERACTIVE, new Runnable() {
+			@Override
 			public void run() {
 				try {
 					// build menu later
@@ -114,7 +118,7 @@ public class MainMenuBar extends JMenuBar {
 					e.printStackTrace();
 				}
 			}
-		}.start();
+		});
 	}
 
 	private void buildFileMenu(final JMenu fileMenu) {
@@ -128,6 +132,15 @@ public class MainMenuBar extends JMenuBar {
 			}
 		});
 		fileMenu.add(menuItem);
+
+		menuItem = new JMenuItem("Add to Workspace...");
+		menuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mainWindow.onAddToWorkspaceMenu();
+			}
+		});
+		fileMenu.add(menuItem);
 		fileMenu.addSeparator();
 
 		menuItem = new JMenuItem("Close");
@@ -217,6 +230,26 @@ public class MainMenuBar extends JMenuBar {
 			}
 		});
 		editMenu.add(menuItem);
+
+		menuItem = new JMenuItem("Find in Jar...");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, ActionEvent.CTRL_MASK | ActionEvent.SHIFT_MASK));
+		menuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mainWindow.onFindInJarMenu();
+			}
+		});
+		editMenu.add(menuItem);
+
+		menuItem = new JMenuItem("Go to Type/Member...");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, ActionEvent.CTRL_MASK | ActionEvent.SHIFT_MASK));
+		menuItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mainWindow.onQuickOpenMenu();
+			}
+		});
+		editMenu.add(menuItem);
 	}
 
 	private void buildThemesMenu(JMenu themesMenu) {
@@ -291,6 +324,52 @@ public class MainMenuBar extends JMenuBar {
 			}
 		});
 		operationMenu.add(exitByEscEnabled);
+
+		JMenu exportCompressionMenu = new JMenu("Save All Compression");
+		ButtonGroup exportCompressionGroup = new ButtonGroup();
+		String[] levelNames = { "Default", "Store", "Fastest", "Best" };
+		int[] levels = { Deflater.DEFAULT_COMPRESSION, Deflater.NO_COMPRESSION, Deflater.BEST_SPEED,
+				Deflater.BEST_COMPRESSION };
+		for (int index = 0; index < levels.length; index++) {
+			final int level = levels[index];
+			JRadioButtonMenuItem levelItem = new JRadioButtonMenuItem(levelNames[index]);
+			levelItem.setSelected(luytenPrefs.getExportCompressionLevel() == level);
+			levelItem.addActionListener(new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					luytenPrefs.setExportCompressionLevel(level);
+				}
+			});
+			exportCompressionGroup.add(levelItem);
+			exportCompressionMenu.add(levelItem);
+		}
+		operationMenu.add(exportCompressionMenu);
+
+		JMenu runtimeJdkMenu = new JMenu("Runtime JDK");
+		ButtonGroup runtimeJdkGroup = new ButtonGroup();
+		JRadioButtonMenuItem runningJdkItem = new JRadioButtonMenuItem("Running JDK");
+		runningJdkItem.setSelected(luytenPrefs.getRuntimeJdkHome().isEmpty());
+		runningJdkItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mainWindow.onRuntimeJdkChanged("");
+			}
+		});
+		runtimeJdkGroup.add(runningJdkItem);
+		runtimeJdkMenu.add(runningJdkItem);
+		final JRadioButtonMenuItem otherJdkItem = new JRadioButtonMenuItem("Other JDK...");
+		otherJdkItem.setSelected(!luytenPrefs.getRuntimeJdkHome().isEmpty());
+		otherJdkItem.setToolTipText(luytenPrefs.getRuntimeJdkHome());
+		otherJdkItem.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				mainWindow.onRuntimeJdkMenu();
+				otherJdkItem.setToolTipText(luytenPrefs.getRuntimeJdkHome());
+			}
+		});
+		runtimeJdkGroup.add(otherJdkItem);
+		runtimeJdkMenu.add(otherJdkItem);
+		operationMenu.add(runtimeJdkMenu);
 	}
 
 	private void buildSettingsMenu(JMenu settingsMenu) {
@@ -298,13 +377,15 @@ public class MainMenuBar extends JMenuBar {
 		ActionListener settingsChanged = new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				new Thread() {
-					@Override
-					public void run() {
-						populateSettingsFromSettingsMenu();
-						mainWindow.onSettingsChanged();
-					}
-				}.start();
+				// the latest change reads all settings: the waiting ones are superseded
+				TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, "settings-changed",
+						new Runnable() {
+							@Override
+							public void run() {
+								populateSettingsFromSettingsMenu();
+								mainWindow.onSettingsChanged();
+							}
+						});
 			}
 		};
 		flattenSwitchBlocks = new JCheckBox("Flatten Switch Blocks");
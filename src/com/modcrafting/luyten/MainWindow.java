@@ -14,6 +14,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.List;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -22,13 +23,23 @@ import javax.swing.BoxLayout;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.KeyStroke;
 
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 
+import com.modcrafting.luyten.search.HierarchySearch;
+import com.modcrafting.luyten.search.SymbolSearch;
+import com.modcrafting.luyten.search.UsageSearch;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
 import com.modcrafting.luyten.view.find.FindBox;
+import com.modcrafting.luyten.view.find.FindInJarBox;
+import com.modcrafting.luyten.view.find.FindUsagesBox;
+import com.modcrafting.luyten.view.find.QuickOpenBox;
+import com.modcrafting.luyten.view.find.TypeHierarchyBox;
 
 /**
  * Dispatcher
@@ -41,6 +52,10 @@ public class MainWindow extends JFrame {
 	private JProgressBar bar;
 	private JLabel label;
 	private FindBox findBox;
+	private FindInJarBox findInJarBox;
+	private FindUsagesBox findUsagesBox;
+	private QuickOpenBox quickOpenBox;
+	private TypeHierarchyBox typeHierarchyBox;
 	private ConfigSaver configSaver;
 	private WindowPosition windowPosition;
 	private LuytenPreferences luytenPrefs;
@@ -106,6 +121,28 @@ public class MainWindow extends JFrame {
 		}
 	}
 
+	public void onAddToWorkspaceMenu() {
+		File[] selectedFiles = fileDialog.doAddToWorkspaceDialog();
+		if (selectedFiles != null) {
+			this.getModel().addToWorkspace(selectedFiles);
+		}
+	}
+
+	public void onRuntimeJdkMenu() {
+		File selectedDirectory = fileDialog.doSelectJdkDialog(luytenPrefs.getRuntimeJdkHome());
+		if (selectedDirectory != null) {
+			this.onRuntimeJdkChanged(selectedDirectory.getAbsolutePath());
+		}
+	}
+
+	public void onRuntimeJdkChanged(String jdkHome) {
+		if (jdkHome.equals(luytenPrefs.getRuntimeJdkHome()))
+			return;
+		luytenPrefs.setRuntimeJdkHome(jdkHome);
+		JOptionPane.showMessageDialog(this, "The runtime JDK will be used after restart.", "Runtime JDK",
+				JOptionPane.INFORMATION_MESSAGE);
+	}
+
 	public void onCloseFileMenu() {
 		this.getModel().closeFile();
 	}
@@ -139,8 +176,8 @@ public class MainWindow extends JFrame {
 		String fileName = openedFile.getName();
 		if (fileName.endsWith(".class")) {
 			fileName = fileName.substring(0, fileName.length()-6)+".java";
-		} else if (fileName.toLowerCase().endsWith(".jar")) {
-			fileName = "decompiled-" + fileName.replaceAll("\\.[jJ][aA][rR]", ".zip");
+		} else if (fileName.toLowerCase().matches(".*\\.(jar|war|ear)")) {
+			fileName = "decompiled-" + fileName.substring(0, fileName.length() - 4) + ".zip";
 		} else {
 			fileName = "saved-" + fileName;
 		}
@@ -180,8 +217,90 @@ public class MainWindow extends JFrame {
 		this.findBox.showFindBox();
 	}
 
+	public void onFindInJarMenu() {
+		// Check if a jar is opened
+		if (this.getModel().getSourceSearch() == null)
+			return;
+		// Check if find in jar box is instantiated
+		if (this.findInJarBox == null)
+			this.findInJarBox = new FindInJarBox(this);
+		// Show find in jar box
+		this.findInJarBox.showFindInJarBox();
+	}
+
+	public void onQuickOpenMenu() {
+		// Check if a jar is opened
+		SymbolSearch symbolSearch = this.getModel().getSymbolSearch();
+		if (symbolSearch == null)
+			return;
+		// Check if quick open box is instantiated
+		if (this.quickOpenBox == null)
+			this.quickOpenBox = new QuickOpenBox(this);
+		// Show quick open box
+		this.quickOpenBox.showQuickOpenBox(symbolSearch);
+	}
+
+	/**
+	 * Show the usages of a type, a field or a method in the opened jar.
+	 * 
+	 * @param uniqueStr
+	 *            The navigation link of the used type, field or method.
+	 * @param description
+	 *            The description of the used type, field or method.
+	 */
+	public void onFindUsages(String uniqueStr, String description) {
+		// Check if a jar is opened
+		UsageSearch usageSearch = this.getModel().getUsageSearch();
+		if (usageSearch == null)
+			return;
+		// Check if find usages box is instantiated
+		if (this.findUsagesBox == null)
+			this.findUsagesBox = new FindUsagesBox(this);
+		// Show usages
+		this.findUsagesBox.showUsages(usageSearch, uniqueStr, description);
+	}
+
+	/**
+	 * Show the super and sub types of a type, or of the declaring type of a field or a method.
+	 * 
+	 * @param uniqueStr
+	 *            The navigation link of the type, field or method.
+	 */
+	public void onTypeHierarchy(String uniqueStr) {
+		// Check if a jar is opened and a type is linked
+		HierarchySearch hierarchySearch = this.getModel().getHierarchySearch();
+		String typeName = HierarchySearch.getTypeName(uniqueStr);
+		if (hierarchySearch == null || typeName == null)
+			return;
+		// Check if type hierarchy box is instantiated
+		if (this.typeHierarchyBox == null)
+			this.typeHierarchyBox = new TypeHierarchyBox(this);
+		// Show hierarchy
+		this.typeHierarchyBox.showHierarchy(hierarchySearch, typeName);
+	}
+
+	/**
+	 * Go to the implementations of a type, or of the declaring type of a field or a method.
+	 * 
+	 * @param uniqueStr
+	 *            The navigation link of the type, field or method.
+	 */
+	public void onGoToImplementations(String uniqueStr) {
+		// Check if a jar is opened and a type is linked
+		HierarchySearch hierarchySearch = this.getModel().getHierarchySearch();
+		String typeName = HierarchySearch.getTypeName(uniqueStr);
+		if (hierarchySearch == null || typeName == null)
+			return;
+		// Check if type hierarchy box is instantiated
+		if (this.typeHierarchyBox == null)
+			this.typeHierarchyBox = new TypeHierarchyBox(this);
+		// Show or open implementations
+		this.typeHierarchyBox.showImplementations(hierarchySearch, typeName);
+	}
+
 	public void onLegalMenu() {
-		new Thread() {
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.INTERACTIVE, "legal", new Runnable() {
+			@Override
 			public void run() {
 				try {
 					bar.setVisible(true);
@@ -191,7 +310,7 @@ public class MainWindow extends JFrame {
 					bar.setVisible(false);
 				}
 			}
-		}.start();
+		});
 	}
 
 	private String getLegalStr() {
@@ -231,6 +350,12 @@ public class MainWindow extends JFrame {
 		}
 	}
 
+	public void onFilesDropped(List<File> files) {
+		if (files != null && !files.isEmpty()) {
+			this.getModel().addToWorkspace(files.toArray(new File[files.size()]));
+		}
+	}
+
 	public void onFileLoadEnded(File file, boolean isSuccess) {
 		try {
 			if (file != null && isSuccess) {
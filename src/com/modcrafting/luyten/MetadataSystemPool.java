@@ -0,0 +1,88 @@
+package com.modcrafting.luyten;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilerSettings;
+
+/**
+ * This class represents the metadata systems used to decompile in parallel.<br>
+ * A metadata system is not safe for concurrent decompilations: each decompilation borrows one for itself, and gives
+ * it back to be reused (with its resolved types) by a later decompilation. All of them load types from the same
+ * thread-safe type loader.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class MetadataSystemPool {
+	/** The type loader of the metadata systems. */
+	private final ITypeLoader typeLoader;
+	/** The metadata systems not used by a decompilation. */
+	private final Queue<MetadataSystem> idleMetadataSystems;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeLoader
+	 *            The type loader of the metadata systems (must be thread-safe).
+	 */
+	public MetadataSystemPool(ITypeLoader typeLoader) {
+		this.typeLoader = typeLoader;
+		this.idleMetadataSystems = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Borrow a metadata system for a decompilation.
+	 * 
+	 * @return A metadata system used by no other decompilation.
+	 */
+	public MetadataSystem acquire() {
+		MetadataSystem metadataSystem = this.idleMetadataSystems.poll();
+		if (metadataSystem==null)
+			metadataSystem = new MetadataSystem(this.typeLoader);
+		return metadataSystem;
+	}
+
+	/**
+	 * Give back a borrowed metadata system.
+	 * 
+	 * @param metadataSystem
+	 *            The metadata system not used anymore by the decompilation.
+	 */
+	public void release(MetadataSystem metadataSystem) {
+		this.idleMetadataSystems.add(metadataSystem);
+	}
+
+	/**
+	 * Resolve a type in a borrowed metadata system.
+	 * 
+	 * @param metadataSystem
+	 *            The borrowed metadata system.
+	 * @param type
+	 *            The type resolved by another metadata system.
+	 * @return The type resolved by the borrowed metadata system, <code>null</code> if it could not be resolved.
+	 */
+	public static TypeDefinition resolve(MetadataSystem metadataSystem, TypeDefinition type) {
+		TypeReference typeReference = metadataSystem.lookupType(type.getInternalName());
+		return typeReference==null ? null : typeReference.resolve();
+	}
+
+	/**
+	 * Create the decompilation options of a decompilation.
+	 * 
+	 * @param settings
+	 *            The decompiler settings snapshot of the decompilation.
+	 * @return The decompilation options.
+	 */
+	public static DecompilationOptions createOptions(DecompilerSettings settings) {
+		DecompilationOptions decompilationOptions = new DecompilationOptions();
+		decompilationOptions.setSettings(settings);
+		decompilationOptions.setFullDecompilation(true);
+		return decompilationOptions;
+	}
+}
@@ -6,18 +6,16 @@ import java.awt.event.MouseEvent;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -42,18 +40,32 @@ import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
 import org.fife.ui.rsyntaxtextarea.Theme;
 import org.fife.ui.rtextarea.RTextScrollPane;
 
+import com.modcrafting.luyten.cache.DecompiledCache;
 import com.modcrafting.luyten.model.JarLister;
-import com.modcrafting.luyten.model.JarModel;
 import com.modcrafting.luyten.model.exception.FileEntryNotFoundException;
 import com.modcrafting.luyten.model.exception.FileIsBinaryException;
 import com.modcrafting.luyten.model.exception.TooLargeFileException;
-import com.modcrafting.luyten.model.tree.ResourceNode;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.modcrafting.luyten.search.ConstantPoolSearch;
+import com.modcrafting.luyten.search.HierarchySearch;
+import com.modcrafting.luyten.search.JarIndexer;
+import com.modcrafting.luyten.search.SourceSearch;
+import com.modcrafting.luyten.search.SymbolSearch;
+import com.modcrafting.luyten.search.UsageSearch;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
 import com.modcrafting.luyten.view.editor.FileEditor;
+import com.modcrafting.luyten.view.editor.FileEditorContent;
+import com.modcrafting.luyten.view.editor.FileEditorContentCache;
 import com.modcrafting.luyten.view.editor.Tab;
+import com.modcrafting.luyten.view.tree.DirectoryTreeNode;
 import com.modcrafting.luyten.view.tree.FileCellRenderer;
+import com.modcrafting.luyten.view.tree.FlatRootTreeNode;
+import com.modcrafting.luyten.view.tree.JarTreeNode;
+import com.modcrafting.luyten.view.tree.NestedJarTreeNode;
 import com.strobel.assembler.InputTypeLoader;
-import com.strobel.assembler.metadata.ITypeLoader;
-import com.strobel.assembler.metadata.JarTypeLoader;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.assembler.metadata.TypeReference;
@@ -70,9 +82,12 @@ public class Model extends JSplitPane {
 
 	private static final long MAX_JAR_FILE_SIZE_BYTES = 1_000_000_000;
 	private static final long MAX_UNPACKED_FILE_SIZE_BYTES = 1_000_000;
+	/** The key of the tasks opening an entry in the editor area. */
+	private static final String OPEN_ENTRY_TASK_KEY = "open-entry";
 
 	private final LuytenTypeLoader typeLoader = new LuytenTypeLoader();
 	private MetadataSystem metadataSystem = new MetadataSystem(typeLoader);
+	private MetadataSystemPool metadataSystemPool = new MetadataSystemPool(typeLoader);
 
 	private JTree tree;
 	private JTabbedPane tabbedPane;
@@ -83,10 +98,23 @@ public class Model extends JSplitPane {
 	private MainWindow mainWindow;
 	private JProgressBar bar;
 	private JLabel label;
-	private HashSet<FileEditor> fileEditors = new HashSet<FileEditor>();
+	// concurrent: updated classes are checked by background tasks
+	private Set<FileEditor> fileEditors = Collections.newSetFromMap(new ConcurrentHashMap<FileEditor, Boolean>());
+	private FileEditorContentCache closedFileEditorContents;
 	private Set<String> treeExpansionState;
 	private boolean open = false;
 	private State state;
+	/** The jars added to the workspace of the opened jar, in type resolution order. */
+	private final List<File> workspaceFiles = new CopyOnWriteArrayList<>();
+	/** The states of the workspace jars. */
+	private final List<State> workspaceStates = new CopyOnWriteArrayList<>();
+	/** The class file bytes budget shared by the loaders of the opened jars. */
+	private ClassBytesCache classBytesCache;
+	private volatile PackageIndex packageIndex;
+	private SourceSearch sourceSearch;
+	private UsageSearch usageSearch;
+	private SymbolSearch symbolSearch;
+	private HierarchySearch hierarchySearch;
 	private ConfigSaver configSaver;
 	private LuytenPreferences luytenPrefs;
 
@@ -98,6 +126,8 @@ public class Model extends JSplitPane {
 		configSaver = ConfigSaver.getLoadedInstance();
 		settings = configSaver.getDecompilerSettings();
 		luytenPrefs = configSaver.getLuytenPreferences();
+		closedFileEditorContents = new FileEditorContentCache(luytenPrefs.getClosedEditorCacheMaxSizeMb()*1024L*1024L);
+		classBytesCache = new ClassBytesCache(luytenPrefs.getClassBytesCacheMaxSizeMb()*1024L*1024L);
 
 		try {
 			String themeXml = luytenPrefs.getThemeXml();
@@ -131,6 +161,14 @@ public class Model extends JSplitPane {
 		decompilationOptions = new DecompilationOptions();
 		decompilationOptions.setSettings(settings);
 		decompilationOptions.setFullDecompilation(true);
+
+		// index the JDK classes before the first decompilation needs them
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				LuytenTypeLoader.prepareRuntimeIndex();
+			}
+		});
 	}
 
 	public void showLegal(String legalStr) {
@@ -202,6 +240,10 @@ public class Model extends JSplitPane {
 				continue;
 			// Remove file editor from collection
 			fileEditorIterator.remove();
+			// Keep rendered content for a later reopening
+			FileEditorContent content = fileEditor.getContent();
+			if (content!=null)
+				this.closedFileEditorContents.put(fileEditor.getResourcePath(), content);
 			// Close file editor
 			fileEditor.close();
 		}
@@ -262,11 +304,13 @@ public class Model extends JSplitPane {
 			if (!isLeaf)
 				return;
 
-			new Thread() {
+			// a newer open request supersedes the previous one (its tab is decompiled when selected)
+			TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, OPEN_ENTRY_TASK_KEY, new Runnable() {
+				@Override
 				public void run() {
 					openEntryByTreePath(trp);
 				}
-			}.start();
+			});
 		}
 	}
 
@@ -275,11 +319,20 @@ public class Model extends JSplitPane {
 		String path = "";
 		try {
 			bar.setVisible(true);
+			// workspace entries are under the node of their jar
+			JarTreeNode jarNode = null;
+			if (trp.getPathCount()>1&&trp.getPathComponent(1) instanceof JarTreeNode)
+				jarNode = (JarTreeNode) trp.getPathComponent(1);
+			// nested jar entries are under the node of their nested jar
+			String nestedJarPath = null;
 			if (trp.getPathCount()>1) {
-				for (int i = 1; i<trp.getPathCount(); i++) {
+				for (int i = jarNode==null ? 1 : 2; i<trp.getPathCount(); i++) {
 					DefaultMutableTreeNode node = (DefaultMutableTreeNode) trp.getPathComponent(i);
 					TreeNodeUserObject userObject = (TreeNodeUserObject) node.getUserObject();
-					if (i==trp.getPathCount()-1) {
+					if (node instanceof NestedJarTreeNode) {
+						nestedJarPath = path+userObject.getOriginalName();
+						path = "";
+					} else if (i==trp.getPathCount()-1) {
 						name = userObject.getOriginalName();
 					} else {
 						path = path+userObject.getOriginalName()+"/";
@@ -287,32 +340,62 @@ public class Model extends JSplitPane {
 				}
 				path = path+name;
 
-				if (file.getName().endsWith(".jar")||file.getName().endsWith(".zip")) {
+				if (JarLister.isArchive(file.getName())) {
 					if (state==null) {
-						JarFile jfile = new JarFile(file);
-						ITypeLoader jarLoader = new JarTypeLoader(jfile);
-
-						typeLoader.getTypeLoaders().add(jarLoader);
-						state = new State(file.getCanonicalPath(), file, jfile, jarLoader);
+						state = createState(file);
 					}
-
-					JarEntry entry = state.jarFile.getJarEntry(path);
-					if (entry==null) {
+					State entryState = jarNode==null ? state : getState(jarNode.getFile());
+					if (entryState==null) {
 						throw new FileEntryNotFoundException();
 					}
-					if (entry.getSize()>MAX_UNPACKED_FILE_SIZE_BYTES) {
-						throw new TooLargeFileException(entry.getSize());
+
+					JarFile jarFile = null;
+					JarEntry entry = null;
+					ZipArchive nestedArchive = null;
+					ZipArchiveEntry nestedEntry = null;
+					long entrySize;
+					if (nestedJarPath==null) {
+						jarFile = entryState.getJarFile();
+						entry = jarFile.getJarEntry(path);
+						if (entry==null) {
+							throw new FileEntryNotFoundException();
+						}
+						entrySize = entry.getSize();
+					} else {
+						NestedJarTypeLoader nestedJarLoader = entryState.nestedJarLoaders.get(nestedJarPath);
+						if (nestedJarLoader==null) {
+							throw new FileEntryNotFoundException();
+						}
+						nestedArchive = nestedJarLoader.getArchive();
+						nestedEntry = nestedArchive.getEntry(path);
+						if (nestedEntry==null) {
+							throw new FileEntryNotFoundException();
+						}
+						entrySize = nestedEntry.getSize();
 					}
-					String entryName = entry.getName();
+					if (entrySize>MAX_UNPACKED_FILE_SIZE_BYTES) {
+						throw new TooLargeFileException(entrySize);
+					}
+					String entryName = path;
 					if (entryName.endsWith(".class")) {
 						label.setText("Extracting: "+name);
 						String internalName = StringUtilities.removeRight(entryName, ".class");
+						// a class defined by several jars resolves to the first one
 						TypeReference type = metadataSystem.lookupType(internalName);
 						extractClassToTextPane(type, name, path, null);
+						if (entryState==state&&nestedJarPath==null) {
+							prefetchNeighbours(path, path);
+						}
 					} else {
 						label.setText("Opening: "+name);
-						try (InputStream inputStream = state.jarFile.getInputStream(entry);) {
-							extractSimpleFileEntryToTextPane(inputStream, name, path);
+						// resources of several jars may have the same path
+						String resourcePath = nestedJarPath==null ? path : nestedJarPath+"!/"+path;
+						if (entryState!=state) {
+							resourcePath = entryState.getFile().getName()+"!/"+resourcePath;
+						}
+						try (InputStream inputStream = nestedEntry==null ? jarFile.getInputStream(entry)
+								: nestedArchive.getInputStream(nestedEntry);) {
+							extractSimpleFileEntryToTextPane(inputStream, name, resourcePath);
 						} catch (Exception exception) {
 							exception.printStackTrace();
 						}
@@ -370,6 +453,8 @@ public class Model extends JSplitPane {
 			if (!type.equals(openFile.getType())||!openFile.isValidContent()) {
 				// Update file editor content
 				openFile.setDecompilerReferences(this.metadataSystem, this.settings, this.decompilationOptions);
+				openFile.setTypeLoader(this.typeLoader);
+				openFile.setMetadataSystemPool(this.metadataSystemPool);
 				openFile.setType(resolvedType);
 				openFile.setInitialNavigationLink(navigatonLink);
 				openFile.decompile();
@@ -382,13 +467,52 @@ public class Model extends JSplitPane {
 		// Add opened file editor tab
 		this.fileEditors.add(fileEditor);
 		this.addOrSwitchToTab(fileEditor);
+		// Restore content of the recently closed file editor
+		FileEditorContent closedContent = this.closedFileEditorContents.remove(path);
+		if (closedContent!=null&&resolvedType.getInternalName().equals(closedContent.getType().getInternalName())) {
+			fileEditor.setDecompilerReferences(this.metadataSystem, this.settings, this.decompilationOptions);
+			fileEditor.setTypeLoader(this.typeLoader);
+			fileEditor.setMetadataSystemPool(this.metadataSystemPool);
+			fileEditor.restoreContent(closedContent);
+			fileEditor.setInitialNavigationLink(navigatonLink);
+			return;
+		}
 		// Update file editor content
 		fileEditor.setDecompilerReferences(this.metadataSystem, this.settings, this.decompilationOptions);
+		fileEditor.setTypeLoader(this.typeLoader);
+		fileEditor.setMetadataSystemPool(this.metadataSystemPool);
 		fileEditor.setType(resolvedType);
 		fileEditor.setInitialNavigationLink(navigatonLink);
 		fileEditor.decompile();
 	}
 
+	/**
+	 * Prefetch the classes likely opened after a class, once it is displayed.
+	 * 
+	 * @param resourcePath
+	 *            The resource path of the class file editor.
+	 * @param classPath
+	 *            The path of the class file in the jar.
+	 */
+	private void prefetchNeighbours(String resourcePath, String classPath) {
+		// Check jar index
+		PackageIndex index = this.packageIndex;
+		if (index==null)
+			return;
+		// Get the class file editor
+		for (FileEditor fileEditor : this.fileEditors) {
+			if (!resourcePath.equals(fileEditor.getResourcePath()))
+				continue;
+			// Check the class is displayed and not superseded
+			if (!fileEditor.isValidContent()||TaskScheduler.isCurrentTaskCancelled())
+				return;
+			DecompilationPrefetcher prefetcher = new DecompilationPrefetcher(this.metadataSystemPool, this.settings,
+					this.typeLoader);
+			prefetcher.prefetch(classPath, fileEditor.getLinkProvider(), index);
+			return;
+		}
+	}
+
 	private void extractSimpleFileEntryToTextPane(InputStream inputStream, String tabTitle, String path) throws Exception {
 		// Check parameter
 		if (inputStream==null||tabTitle==null||tabTitle.trim().length()<1||path==null)
@@ -436,7 +560,7 @@ public class Model extends JSplitPane {
 			}
 			for (FileEditor open : fileEditors) {
 				if (tabbedPane.indexOfTab(open.getResourceName())==selectedIndex) {
-					if (open.getType()!=null&&!open.isValidContent()) {
+					if (open.getType()!=null&&!open.isValidContent()&&!open.isDecompiling()) {
 						updateOpenClass(open);
 						break;
 					}
@@ -447,13 +571,16 @@ public class Model extends JSplitPane {
 	}
 
 	public void updateOpenClasses() {
+		// drop closed class contents rendered with previous settings
+		closedFileEditorContents.clear();
 		// invalidate all open classes (update will happen at tab change)
 		for (FileEditor open : fileEditors) {
 			if (open.getType()!=null) {
 				open.invalidateContent();
 			}
 		}
-		// update the current open tab - if it is a class
+		// update the current open tab only - if it is a class
+		// (hidden tabs would delay its links, they are updated when selected)
 		for (FileEditor open : fileEditors) {
 			if (open.getType()!=null&&isTabInForeground(open)) {
 				updateOpenClass(open);
@@ -466,7 +593,8 @@ public class Model extends JSplitPane {
 		if (open.getType()==null) {
 			return;
 		}
-		new Thread(new Runnable() {
+		// supersede the update of the same class with previous settings
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, getUpdateTaskKey(open), new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -480,7 +608,34 @@ public class Model extends JSplitPane {
 					bar.setVisible(false);
 				}
 			}
-		}).start();
+		});
+	}
+
+	private static String getUpdateTaskKey(FileEditor open) {
+		return "update:"+open.getResourcePath();
+	}
+
+	private State createState(File jar) throws IOException {
+		// the jar is opened by its first loaded type
+		LazyJarTypeLoader jarLoader = new LazyJarTypeLoader(jar);
+		// keep inflated class bytes: types are resolved again by each metadata system
+		CachingTypeLoader cachingLoader = new CachingTypeLoader(jarLoader, classBytesCache);
+		// index the jar classes: other loaders are not probed for them
+		Set<String> typeNames = JarLister.listTypeNames(jar);
+		typeLoader.addTypeLoader(cachingLoader, typeNames);
+		return new State(jar.getCanonicalPath(), jar, jarLoader, cachingLoader, typeNames);
+	}
+
+	private State getState(File jar) {
+		if (state!=null&&state.getFile().equals(jar)) {
+			return state;
+		}
+		for (State workspaceState : workspaceStates) {
+			if (workspaceState.getFile().equals(jar)) {
+				return workspaceState;
+			}
+		}
+		return null;
 	}
 
 	private boolean isTabInForeground(FileEditor open) {
@@ -492,28 +647,44 @@ public class Model extends JSplitPane {
 	private final class State implements AutoCloseable {
 		private final String key;
 		private final File file;
-		final JarFile jarFile;
-		final ITypeLoader typeLoader;
-
-		private State(String key, File file, JarFile jarFile, ITypeLoader typeLoader) {
+		final LazyJarTypeLoader jarLoader;
+		final CachingTypeLoader typeLoader;
+		final Set<String> typeNames;
+		final Map<String, NestedJarTypeLoader> nestedJarLoaders = new ConcurrentHashMap<>();
+		final List<CachingTypeLoader> nestedTypeLoaders = new CopyOnWriteArrayList<>();
+
+		private State(String key, File file, LazyJarTypeLoader jarLoader, CachingTypeLoader typeLoader,
+				Set<String> typeNames) {
 			this.key = VerifyArgument.notNull(key, "key");
 			this.file = VerifyArgument.notNull(file, "file");
-			this.jarFile = jarFile;
+			this.jarLoader = jarLoader;
 			this.typeLoader = typeLoader;
+			this.typeNames = typeNames;
+		}
+
+		JarFile getJarFile() throws IOException {
+			return jarLoader.getJarFile();
 		}
 
 		@Override
 		public void close() {
 			if (typeLoader!=null) {
-				Model.this.typeLoader.getTypeLoaders().remove(typeLoader);
+				Model.this.typeLoader.removeTypeLoader(typeLoader);
+				typeLoader.release();
+			}
+			for (CachingTypeLoader nestedTypeLoader : nestedTypeLoaders) {
+				Model.this.typeLoader.removeTypeLoader(nestedTypeLoader);
+				nestedTypeLoader.release();
+			}
+			for (NestedJarTypeLoader nestedJarLoader : nestedJarLoaders.values()) {
+				nestedJarLoader.close();
 			}
 			try {
-				this.jarFile.close();
+				this.jarLoader.close();
 			} catch (Throwable throwable) {
 			}
 		}
 
-		@SuppressWarnings("unused")
 		public File getFile() {
 			return file;
 		}
@@ -524,37 +695,6 @@ public class Model extends JSplitPane {
 		}
 	}
 
-	public DefaultMutableTreeNode loadNodesByNames(DefaultMutableTreeNode node, List<String> originalNames) {
-		List<TreeNodeUserObject> args = new ArrayList<>();
-		for (String originalName : originalNames) {
-			args.add(new TreeNodeUserObject(originalName));
-		}
-		return loadNodesByUserObj(node, args);
-	}
-
-	public DefaultMutableTreeNode loadNodesByUserObj(DefaultMutableTreeNode node, List<TreeNodeUserObject> args) {
-		if (args.size()>0) {
-			TreeNodeUserObject name = args.remove(0);
-			DefaultMutableTreeNode nod = getChild(node, name);
-			if (nod==null)
-				nod = new DefaultMutableTreeNode(name);
-			node.add(loadNodesByUserObj(nod, args));
-		}
-		return node;
-	}
-
-	@SuppressWarnings("unchecked")
-	public DefaultMutableTreeNode getChild(DefaultMutableTreeNode node, TreeNodeUserObject name) {
-		Enumeration<DefaultMutableTreeNode> entry = node.children();
-		while (entry.hasMoreElements()) {
-			DefaultMutableTreeNode nods = entry.nextElement();
-			if (((TreeNodeUserObject) nods.getUserObject()).getOriginalName().equals(name.getOriginalName())) {
-				return nods;
-			}
-		}
-		return null;
-	}
-
 	public void loadFile(File file) {
 		if (open)
 			closeFile();
@@ -562,6 +702,32 @@ public class Model extends JSplitPane {
 		loadTree();
 	}
 
+	/**
+	 * Add jars to the workspace of the opened jar.<br>
+	 * Their classes are resolved and linked with the classes of the opened jar, and they are listed under it in the
+	 * tree. If no file is opened, the first jar is opened.
+	 * 
+	 * @param files
+	 *            The jars to add.
+	 */
+	public void addToWorkspace(File... files) {
+		if (files.length==0)
+			return;
+		int index = 0;
+		if (file==null) {
+			loadFile(files[0]);
+			index++;
+		} else {
+			TreeUtil treeUtil = new TreeUtil(tree);
+			treeExpansionState = treeUtil.getExpansionState();
+		}
+		for (; index<files.length; index++) {
+			if (!files[index].equals(file)&&!workspaceFiles.contains(files[index]))
+				workspaceFiles.add(files[index]);
+		}
+		loadTree();
+	}
+
 	public void updateTree() {
 		TreeUtil treeUtil = new TreeUtil(tree);
 		treeExpansionState = treeUtil.getExpansionState();
@@ -569,7 +735,8 @@ public class Model extends JSplitPane {
 	}
 
 	public void loadTree() {
-		new Thread(new Runnable() {
+		// a newer load supersedes the waiting one
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, "load-tree", new Runnable() {
 			@Override
 			public void run() {
 				try {
@@ -581,22 +748,30 @@ public class Model extends JSplitPane {
 					if (file.length()>MAX_JAR_FILE_SIZE_BYTES) {
 						throw new TooLargeFileException(file.length());
 					}
-					if (file.getName().endsWith(".zip")||file.getName().endsWith(".jar")) {
-						JarFile jfile;
-						jfile = new JarFile(file);
-						label.setText("Loading: "+jfile.getName());
+					if (JarLister.isArchive(file.getName())) {
+						label.setText("Loading: "+file.getPath());
 						bar.setVisible(true);
 
-						List<String> mass = JarLister.listFiles(jfile, !luytenPrefs.isFilterOutInnerClassEntries());
-						tree.setModel(buildTree(mass));
-
+						List<String> mass = JarLister.listFiles(file, !luytenPrefs.isFilterOutInnerClassEntries());
 						if (state==null) {
-							ITypeLoader jarLoader = new JarTypeLoader(jfile);
-							typeLoader.getTypeLoaders().add(jarLoader);
-							state = new State(file.getCanonicalPath(), file, jfile, jarLoader);
+							state = createState(file);
 						}
+						PackageIndex index = new PackageIndex(mass);
+						openNestedJars(state, index, mass);
+						tree.setModel(buildTree(index));
+
+						openWorkspaceStates();
 						open = true;
 						label.setText("Complete");
+						// Index hierarchy, symbols and usages in a single scan while the jar is browsed
+						HierarchySearch jarHierarchySearch = getHierarchySearch();
+						SymbolSearch jarSymbolSearch = getSymbolSearch();
+						UsageSearch jarUsageSearch = getUsageSearch();
+						if (jarHierarchySearch!=null&&jarSymbolSearch!=null&&jarUsageSearch!=null) {
+							JarIndexer.startIndexing(file, jarHierarchySearch, jarSymbolSearch, jarUsageSearch);
+							// the workspace jars are indexed after the opened jar
+							jarHierarchySearch.startIndexing(workspaceFiles);
+						}
 					} else {
 						TreeNodeUserObject topNodeUserObject = new TreeNodeUserObject(getName(file.getName()));
 						final DefaultMutableTreeNode top = new DefaultMutableTreeNode(topNodeUserObject);
@@ -606,12 +781,13 @@ public class Model extends JSplitPane {
 						label.setText("Complete");
 
 						// open it automatically
-						new Thread() {
+						TaskScheduler.getLoadedInstance().execute(TaskPriority.INTERACTIVE, new Runnable() {
+							@Override
 							public void run() {
 								TreePath trp = new TreePath(top.getPath());
 								openEntryByTreePath(trp);
 							};
-						}.start();
+						});
 					}
 
 					if (treeExpansionState!=null) {
@@ -635,191 +811,108 @@ public class Model extends JSplitPane {
 				}
 			}
 
-		}).start();
+		});
 	}
 
 	/**
-	 * Build tree from JAR entries.
+	 * Build tree from JAR entries.<br>
+	 * Only the first level nodes are created, the others are created when their parent node is expanded.
 	 * 
-	 * @param jarEntries
-	 *            The JAR entries to build tree.
+	 * @param index
+	 *            The JAR entries index to build tree.
 	 * @return The build tree model.
 	 */
-	private TreeModel buildTree(List<String> jarEntries) {
+	private TreeModel buildTree(PackageIndex index) {
+		this.packageIndex = index;
+		// Create workspace root node with a lazy node per jar
+		if (!this.workspaceFiles.isEmpty()) {
+			boolean packageExplorerStyle = this.luytenPrefs.isPackageExplorerStyle();
+			boolean includeInnerClasses = !this.luytenPrefs.isFilterOutInnerClassEntries();
+			DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode(new TreeNodeUserObject("Workspace"));
+			rootNode.add(new JarTreeNode(this.file, index, packageExplorerStyle, includeInnerClasses));
+			for (File workspaceFile : this.workspaceFiles) {
+				rootNode.add(new JarTreeNode(workspaceFile, null, packageExplorerStyle, includeInnerClasses));
+			}
+			return new DefaultTreeModel(rootNode);
+		}
 		// Create root node according preferences
+		TreeNodeUserObject rootUserObject = new TreeNodeUserObject(getName(file.getName()));
 		TreeNode rootNode;
 		if (this.luytenPrefs.isPackageExplorerStyle()) {
-			rootNode = buildFlatTreeNode(jarEntries);
+			rootNode = new FlatRootTreeNode(rootUserObject, index);
 		} else {
-			rootNode = buildHierarchicalTreeNode(jarEntries);
+			rootNode = new DirectoryTreeNode(rootUserObject, index.getRoot(), false);
 		}
 		// Create tree model from root node
 		return new DefaultTreeModel(rootNode);
 	}
 
 	/**
-	 * Build recursively resource node from paths.
-	 * 
-	 * @param node
-	 *            The node from which to build paths.
-	 * @param depth
-	 *            The current recursive depth (from <code>0</code> to <code>entryPaths.length-1</code>).
-	 * @param entryPaths
-	 *            The entry paths to build resource nodes.
-	 */
-	private void buildRecursiveResourceNode(ResourceNode node, int depth, String[] entryPaths) {
-		// Get entry path of the depth
-		String entryPath = entryPaths[depth];
-		// Ensure related child node exits
-		ResourceNode pathNode = node.getChild(entryPath);
-		if (pathNode==null) {
-			pathNode = new ResourceNode(entryPath, !entryPath.contains("."));
-			node.addChild(pathNode);
-		}
-		// Go deeper in path
-		depth++;
-		if (depth<entryPaths.length)
-			this.buildRecursiveResourceNode(pathNode, depth, entryPaths);
-	}
-
-	/**
-	 * Convert recursively resource node to tree node.
-	 * 
-	 * @param resourceNode
-	 *            The resource node to convert.
-	 * @param treeNode
-	 *            The converted tree node.
-	 */
-	private void convertRecursiveTreeNode(ResourceNode resourceNode, DefaultMutableTreeNode treeNode) {
-		// Convert each children
-		for (ResourceNode childNode : resourceNode.getChildren()) {
-			// Create related child tree node
-			DefaultMutableTreeNode childTreeNode = new DefaultMutableTreeNode(new TreeNodeUserObject(childNode.getName()));
-			// Append child tree node
-			treeNode.add(childTreeNode);
-			// Convert sub children
-			this.convertRecursiveTreeNode(childNode, childTreeNode);
-		}
-	}
-
-	/**
-	 * Build a hierarchical tree node.
+	 * Open the jars nested in a jar (Spring Boot <code>BOOT-INF/lib</code> or WAR <code>WEB-INF/lib</code> jars for
+	 * example) without extracting them.<br>
+	 * Their classes are resolved after the jar classes, and they are indexed to be expanded in the tree.
 	 * 
+	 * @param jarState
+	 *            The state of the jar.
+	 * @param index
+	 *            The jar entries index.
 	 * @param jarEntries
-	 *            The JAR entries to build tree.
-	 * @return The hierarchical root tree node.
+	 *            The jar entries.
 	 */
-	private TreeNode buildHierarchicalTreeNode(List<String> jarEntries) {
-		// Get root name
-		String fileName = this.getName(this.file.getName());
-		// // Create resource nodes
-		// ResourceNode rootNode = new ResourceNode(getName(file.getName()), true);
-		// for (String jarEntry : jarEntries) {
-		// String[] entryPaths = jarEntry.split("/");
-		// this.buildRecursiveResourceNode(rootNode, 0, entryPaths);
-		// }
-		// // Sort resource nodes
-		// rootNode.sort();
-
-		JarModel jarModel = null;
-		try {
-			jarModel = new JarModel(this.file.toPath());
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		ResourceNode rootNode = jarModel.getResources();
-
-		// Create tree nodes
-		DefaultMutableTreeNode rootTreeNode = new DefaultMutableTreeNode(new TreeNodeUserObject(fileName));
-		this.convertRecursiveTreeNode(rootNode, rootTreeNode);
-		// Return root tree node
-		return rootTreeNode;
-	}
-
-	private TreeNode buildFlatTreeNode(List<String> mass) {
-		TreeNodeUserObject topNodeUserObject = new TreeNodeUserObject(getName(file.getName()));
-		DefaultMutableTreeNode top = new DefaultMutableTreeNode(topNodeUserObject);
-
-		TreeMap<String, TreeSet<String>> packages = new TreeMap<>();
-		HashSet<String> classContainingPackageRoots = new HashSet<>();
-
-		Comparator<String> sortByFileExtensionsComparator = new Comparator<String>() {
-			// (assertion: mass does not contain null elements)
-			@Override
-			public int compare(String o1, String o2) {
-				int comp = o1.replaceAll("[^\\.]*\\.", "").compareTo(o2.replaceAll("[^\\.]*\\.", ""));
-				if (comp!=0)
-					return comp;
-				return o1.compareTo(o2);
-			}
-		};
-
-		for (String entry : mass) {
-			String packagePath = "";
-			String packageRoot = "";
-			if (entry.contains("/")) {
-				packagePath = entry.replaceAll("/[^/]*$", "");
-				packageRoot = entry.replaceAll("/.*$", "");
-			}
-			String packageEntry = entry.replace(packagePath+"/", "");
-			if (!packages.containsKey(packagePath)) {
-				packages.put(packagePath, new TreeSet<String>(sortByFileExtensionsComparator));
-			}
-			packages.get(packagePath).add(packageEntry);
-			if (!entry.startsWith("META-INF")&&packageRoot.trim().length()>0&&entry.matches(".*\\.(class|java|prop|properties)$")) {
-				classContainingPackageRoots.add(packageRoot);
-			}
-		}
-
-		// META-INF comes first -> not flat
-		for (String packagePath : packages.keySet()) {
-			if (packagePath.startsWith("META-INF")) {
-				List<String> packagePathElements = Arrays.asList(packagePath.split("/"));
-				for (String entry : packages.get(packagePath)) {
-					ArrayList<String> list = new ArrayList<>(packagePathElements);
-					list.add(entry);
-					loadNodesByNames(top, list);
-				}
-			}
-		}
-
-		// real packages: path starts with a classContainingPackageRoot -> flat
-		for (String packagePath : packages.keySet()) {
-			String packageRoot = packagePath.replaceAll("/.*$", "");
-			if (classContainingPackageRoots.contains(packageRoot)) {
-				for (String entry : packages.get(packagePath)) {
-					ArrayList<TreeNodeUserObject> list = new ArrayList<>();
-					list.add(new TreeNodeUserObject(packagePath, packagePath.replaceAll("/", ".")));
-					list.add(new TreeNodeUserObject(entry));
-					loadNodesByUserObj(top, list);
+	private void openNestedJars(State jarState, PackageIndex index, List<String> jarEntries) {
+		boolean includeInnerClasses = !this.luytenPrefs.isFilterOutInnerClassEntries();
+		for (String entryName : jarEntries) {
+			// Check nested jar (or EAR web module)
+			if (!JarLister.isNestedArchive(entryName))
+				continue;
+			try {
+				// Register nested jar type loader
+				NestedJarTypeLoader nestedJarLoader = jarState.nestedJarLoaders.get(entryName);
+				if (nestedJarLoader==null) {
+					nestedJarLoader = new NestedJarTypeLoader(jarState.getFile(), entryName);
+					CachingTypeLoader cachingLoader = new CachingTypeLoader(nestedJarLoader, this.classBytesCache);
+					this.typeLoader.addTypeLoader(cachingLoader, JarLister.listTypeNames(nestedJarLoader.getArchive()));
+					jarState.nestedJarLoaders.put(entryName, nestedJarLoader);
+					jarState.nestedTypeLoaders.add(cachingLoader);
 				}
+				// Index nested jar entries
+				List<String> nestedEntries = JarLister.listFiles(nestedJarLoader.getArchive(), includeInnerClasses);
+				index.addNestedIndex(entryName, new PackageIndex(nestedEntries));
+			} catch (IOException exception) {
+				// Not a valid jar: displayed as a binary file
+				exception.printStackTrace();
 			}
 		}
+	}
 
-		// the rest, not real packages but directories -> not flat
-		for (String packagePath : packages.keySet()) {
-			String packageRoot = packagePath.replaceAll("/.*$", "");
-			if (!classContainingPackageRoots.contains(packageRoot)&&!packagePath.startsWith("META-INF")&&packagePath.length()>0) {
-				List<String> packagePathElements = Arrays.asList(packagePath.split("/"));
-				for (String entry : packages.get(packagePath)) {
-					ArrayList<String> list = new ArrayList<>(packagePathElements);
-					list.add(entry);
-					loadNodesByNames(top, list);
-				}
+	/**
+	 * Register the type loaders of the workspace jars not registered yet.<br>
+	 * The open classes are decompiled again as they may now link to the new jar classes.
+	 */
+	private void openWorkspaceStates() {
+		// Register new workspace jars
+		boolean added = false;
+		for (File workspaceFile : this.workspaceFiles) {
+			if (this.getState(workspaceFile)!=null)
+				continue;
+			try {
+				this.workspaceStates.add(this.createState(workspaceFile));
+				added = true;
+			} catch (IOException exception) {
+				exception.printStackTrace();
+				this.workspaceFiles.remove(workspaceFile);
 			}
 		}
-
-		// the default package -> not flat
-		String packagePath = "";
-		if (packages.containsKey(packagePath)) {
-			for (String entry : packages.get(packagePath)) {
-				ArrayList<String> list = new ArrayList<>();
-				list.add(entry);
-				loadNodesByNames(top, list);
-			}
+		if (!added)
+			return;
+		// Forget the types previously resolved without the new jars
+		this.metadataSystem = new MetadataSystem(this.typeLoader);
+		this.metadataSystemPool = new MetadataSystemPool(this.typeLoader);
+		for (FileEditor fileEditor : this.fileEditors) {
+			fileEditor.setDecompilerReferences(this.metadataSystem, this.settings, this.decompilationOptions);
+			fileEditor.setMetadataSystemPool(this.metadataSystemPool);
 		}
-		return top;
+		this.updateOpenClasses();
 	}
 
 	public void closeFile() {
@@ -838,10 +931,22 @@ public class Model extends JSplitPane {
 			} catch (Throwable throwable) {
 			}
 		}
+		for (State workspaceState : workspaceStates) {
+			workspaceState.close();
+		}
+		workspaceStates.clear();
+		workspaceFiles.clear();
+		closeSourceSearch();
+		closeUsageSearch();
+		closeSymbolSearch();
+		closeHierarchySearch();
 
 		fileEditors.clear();
+		closedFileEditorContents.clear();
 		tree.setModel(new DefaultTreeModel(null));
+		packageIndex = null;
 		metadataSystem = new MetadataSystem(typeLoader);
+		metadataSystemPool = new MetadataSystemPool(typeLoader);
 		file = null;
 		treeExpansionState = null;
 		open = false;
@@ -908,7 +1013,19 @@ public class Model extends JSplitPane {
 	}
 
 	public void navigateTo(final String uniqueStr) {
-		new Thread(new Runnable() {
+		navigateTo(uniqueStr, null);
+	}
+
+	/**
+	 * Navigate to a type and select a text range of its decompiled source.
+	 * 
+	 * @param uniqueStr
+	 *            The unique string of the type link (see {@link DecompilerLinkProvider}).
+	 * @param selection
+	 *            The text range to select (<code>null</code> to select the link definition).
+	 */
+	public void navigateTo(final String uniqueStr, final Selection selection) {
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, OPEN_ENTRY_TASK_KEY, new Runnable() {
 			@Override
 			public void run() {
 				if (uniqueStr==null)
@@ -929,7 +1046,11 @@ public class Model extends JSplitPane {
 						throw new RuntimeException("Cannot resolve type: "+destinationTypeStr);
 
 					String tabTitle = typeDef.getName()+".class";
-					extractClassToTextPane(typeDef, tabTitle, destinationTypeStr, uniqueStr);
+					extractClassToTextPane(typeDef, tabTitle, destinationTypeStr, selection==null ? uniqueStr : null);
+					if (selection!=null) {
+						selectText(destinationTypeStr, selection);
+					}
+					prefetchNeighbours(destinationTypeStr, destinationTypeStr+".class");
 
 					label.setText("Complete");
 				} catch (Exception e) {
@@ -939,6 +1060,155 @@ public class Model extends JSplitPane {
 					bar.setVisible(false);
 				}
 			}
-		}).start();
+		});
+	}
+
+	/**
+	 * Select a text range in a file editor.
+	 * 
+	 * @param resourcePath
+	 *            The resource path of the file editor.
+	 * @param selection
+	 *            The text range to select.
+	 */
+	private void selectText(String resourcePath, Selection selection) {
+		for (FileEditor fileEditor : this.fileEditors) {
+			if (resourcePath.equals(fileEditor.getResourcePath())) {
+				fileEditor.selectText(selection);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the full-text search of the opened jar decompiled sources.<br>
+	 * The search is created again when the decompiler settings change, as the sources change too.
+	 * 
+	 * @return The full-text search, <code>null</code> if no jar is opened.
+	 */
+	public synchronized SourceSearch getSourceSearch() {
+		// Check opened jar
+		File openedFile = this.file;
+		if (openedFile==null||!this.open||this.state==null)
+			return null;
+		// Check search settings
+		if (this.sourceSearch!=null&&(!this.sourceSearch.getFile().equals(openedFile)||!this.sourceSearch
+				.getSettingsKey().equals(DecompiledCache.getSettingsKey(this.settings))))
+			this.closeSourceSearch();
+		// Create search (with the type names listed when the jar was loaded: no jar read on the event thread)
+		if (this.sourceSearch==null)
+			this.sourceSearch = new SourceSearch(openedFile, this.state.typeNames, this.typeLoader,
+					this.metadataSystemPool, this.settings);
+		return this.sourceSearch;
+	}
+
+	/**
+	 * Get the constant pool search of the opened jar class files.
+	 * 
+	 * @return The constant pool search, <code>null</code> if no jar is opened.
+	 */
+	public ConstantPoolSearch getConstantPoolSearch() {
+		// Check opened jar
+		File openedFile = this.file;
+		if (openedFile==null||!this.open)
+			return null;
+		return new ConstantPoolSearch(openedFile);
+	}
+
+	/**
+	 * Close the full-text search of the opened jar.
+	 */
+	private synchronized void closeSourceSearch() {
+		if (this.sourceSearch!=null) {
+			this.sourceSearch.close();
+			this.sourceSearch = null;
+		}
+	}
+
+	/**
+	 * Get the usage search of the opened jar.
+	 * 
+	 * @return The usage search, <code>null</code> if no jar is opened.
+	 */
+	public synchronized UsageSearch getUsageSearch() {
+		// Check opened jar
+		File openedFile = this.file;
+		if (openedFile==null||!this.open||this.state==null)
+			return null;
+		// Check searched jar
+		if (this.usageSearch!=null&&!this.usageSearch.getFile().equals(openedFile))
+			this.closeUsageSearch();
+		// Create search
+		if (this.usageSearch==null)
+			this.usageSearch = new UsageSearch(openedFile);
+		return this.usageSearch;
+	}
+
+	/**
+	 * Close the usage search of the opened jar.
+	 */
+	private synchronized void closeUsageSearch() {
+		if (this.usageSearch!=null) {
+			this.usageSearch.close();
+			this.usageSearch = null;
+		}
+	}
+
+	/**
+	 * Get the symbol search of the opened jar.
+	 * 
+	 * @return The symbol search, <code>null</code> if no jar is opened.
+	 */
+	public synchronized SymbolSearch getSymbolSearch() {
+		// Check opened jar
+		File openedFile = this.file;
+		if (openedFile==null||!this.open||this.state==null)
+			return null;
+		// Check searched jar
+		if (this.symbolSearch!=null&&!this.symbolSearch.getFile().equals(openedFile))
+			this.closeSymbolSearch();
+		// Create search
+		if (this.symbolSearch==null)
+			this.symbolSearch = new SymbolSearch(openedFile);
+		return this.symbolSearch;
+	}
+
+	/**
+	 * Close the symbol search of the opened jar.
+	 */
+	private synchronized void closeSymbolSearch() {
+		if (this.symbolSearch!=null) {
+			this.symbolSearch.close();
+			this.symbolSearch = null;
+		}
+	}
+
+	/**
+	 * Get the type hierarchy search of the opened jar and its workspace.
+	 * 
+	 * @return The hierarchy search, <code>null</code> if no jar is opened.
+	 */
+	public synchronized HierarchySearch getHierarchySearch() {
+		// Check opened jar
+		File openedFile = this.file;
+		if (openedFile==null||!this.open||this.state==null)
+			return null;
+		// Check searched jar
+		if (this.hierarchySearch!=null&&!this.hierarchySearch.getFile().equals(openedFile))
+			this.closeHierarchySearch();
+		// Create search
+		if (this.hierarchySearch==null)
+			this.hierarchySearch = new HierarchySearch(openedFile);
+		return this.hierarchySearch;
+	}
+
+	/**
+	 * Close the type hierarchy search of the opened jar.
+	 */
+	private synchronized void closeHierarchySearch() {
+		if (this.hierarchySearch!=null) {
+			this.hierarchySearch.close();
+			this.hierarchySearch = null;
+		}
 	}
 }
@@ -0,0 +1,119 @@
+package com.modcrafting.luyten;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+
+/**
+ * This class represents a type loader of a jar nested in another jar (<code>BOOT-INF/lib/*.jar</code> of a Spring
+ * Boot jar or <code>WEB-INF/lib/*.jar</code> of a WAR for example).<br>
+ * The nested jar is never extracted: a stored jar is memory-mapped from the outer jar and a deflated jar is inflated
+ * in memory. The opened jar is softly referenced, so inflated jars are released under memory pressure and opened
+ * again when used.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class NestedJarTypeLoader implements ITypeLoader, Closeable {
+	/** The class file extension. */
+	private static final String CLASS_EXTENSION = ".class";
+
+	/** The outer jar file. */
+	private final File file;
+	/** The nested jar entry name. */
+	private final String entryName;
+	/** The opened nested jar (<code>null</code> if not opened yet). */
+	private SoftReference<ZipArchive> archive;
+	/** The closed status. */
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The outer jar file.
+	 * @param entryName
+	 *            The nested jar entry name.
+	 */
+	public NestedJarTypeLoader(File file, String entryName) {
+		this.file = file;
+		this.entryName = entryName;
+		this.archive = null;
+		this.closed = false;
+	}
+
+	/**
+	 * Get the nested jar entry name.
+	 * 
+	 * @return The nested jar entry name.
+	 */
+	public String getEntryName() {
+		return this.entryName;
+	}
+
+	/**
+	 * Get the opened nested jar, opening it if needed.
+	 * 
+	 * @return The opened nested jar.
+	 * @throws IOException
+	 *             Throws exception if the nested jar could not be opened or if the loader is closed.
+	 */
+	public synchronized ZipArchive getArchive() throws IOException {
+		// Check closed status
+		if (this.closed)
+			throw new IOException("Jar file closed: "+this.file);
+		// Check opened nested jar
+		ZipArchive nestedArchive = this.archive==null ? null : this.archive.get();
+		if (nestedArchive!=null)
+			return nestedArchive;
+		// Open nested jar from outer jar
+		try (ZipArchive outerArchive = new ZipArchive(this.file)) {
+			ZipArchiveEntry entry = outerArchive.getEntry(this.entryName);
+			if (entry==null)
+				throw new IOException("Nested jar not found: "+this.entryName);
+			nestedArchive = outerArchive.openNestedArchive(entry);
+		}
+		this.archive = new SoftReference<>(nestedArchive);
+		return nestedArchive;
+	}
+
+	@Override
+	public synchronized boolean tryLoadType(String internalName, Buffer buffer) {
+		try {
+			// Get class entry
+			ZipArchive nestedArchive = this.getArchive();
+			ZipArchiveEntry entry = nestedArchive.getEntry(internalName+NestedJarTypeLoader.CLASS_EXTENSION);
+			if (entry==null||entry.getSize()>Integer.MAX_VALUE)
+				return false;
+			// Read class file bytes
+			int size = (int) entry.getSize();
+			buffer.reset(size);
+			try (InputStream inputStream = nestedArchive.getInputStream(entry)) {
+				int offset = 0;
+				while (offset<size) {
+					int count = inputStream.read(buffer.array(), offset, size-offset);
+					if (count<0)
+						return false;
+					offset += count;
+				}
+			}
+			buffer.position(0);
+			return true;
+		} catch (IOException exception) {
+			return false;
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		this.closed = true;
+		this.archive = null;
+	}
+}
@@ -0,0 +1,206 @@
+package com.modcrafting.luyten;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.modcrafting.luyten.model.JarLister;
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+
+/**
+ * This class represents a type loader of the classes of a Java runtime image (the <code>lib/modules</code> file of a
+ * JDK 9+), read through the <code>jrt:/</code> file system.<br>
+ * The image is indexed once: each class name is mapped to its module, so a class is read at its path without
+ * scanning the modules, and names the image does not own are rejected without any file system access.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class RuntimeImageTypeLoader implements ITypeLoader {
+	/** The class file extension. */
+	private static final String CLASS_EXTENSION = ".class";
+	/** The module descriptor file name. */
+	private static final String MODULE_INFO = "module-info.class";
+	/** The loaded instance (<code>null</code> if no runtime image is available). */
+	private static volatile ITypeLoader instance;
+	/** The loaded instance type names (<code>null</code> if no runtime image is available). */
+	private static volatile Set<String> instanceTypeNames;
+	/** The loaded instance creation status. */
+	private static boolean instanceCreated = false;
+
+	/** The modules directory of the runtime image. */
+	private final Path modulesPath;
+	/** The module names by class internal name. */
+	private final Map<String, String> modules;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param fileSystem
+	 *            The <code>jrt:/</code> file system of the runtime image.
+	 * @throws IOException
+	 *             Throws exception if the runtime image could not be indexed.
+	 */
+	public RuntimeImageTypeLoader(FileSystem fileSystem) throws IOException {
+		this.modulesPath = fileSystem.getPath("/modules");
+		this.modules = new HashMap<>(32768);
+		this.index();
+	}
+
+	/**
+	 * Index the classes of the runtime image by module.
+	 * 
+	 * @throws IOException
+	 *             Throws exception if the runtime image could not be walked.
+	 */
+	private void index() throws IOException {
+		try (DirectoryStream<Path> moduleStream = Files.newDirectoryStream(this.modulesPath)) {
+			for (final Path modulePath : moduleStream) {
+				// Share module name between all its classes
+				final String module = modulePath.getFileName().toString();
+				Files.walkFileTree(modulePath, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+						String path = modulePath.relativize(file).toString();
+						if (path.endsWith(RuntimeImageTypeLoader.CLASS_EXTENSION)
+								&&!path.equals(RuntimeImageTypeLoader.MODULE_INFO)) {
+							String internalName = path.substring(0,
+									path.length()-RuntimeImageTypeLoader.CLASS_EXTENSION.length());
+							// The first module owning a class shadows the next ones
+							if (!RuntimeImageTypeLoader.this.modules.containsKey(internalName))
+								RuntimeImageTypeLoader.this.modules.put(internalName, module);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Get the internal names of the runtime image classes.
+	 * 
+	 * @return The internal names of the classes (read only).
+	 */
+	public Set<String> getTypeNames() {
+		return Collections.unmodifiableSet(this.modules.keySet());
+	}
+
+	@Override
+	public boolean tryLoadType(String internalName, Buffer buffer) {
+		// Check indexed class
+		String module = this.modules.get(internalName);
+		if (module==null)
+			return false;
+		// Read class file bytes
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(this.modulesPath.resolve(module).resolve(internalName+
+					RuntimeImageTypeLoader.CLASS_EXTENSION));
+		} catch (IOException exception) {
+			return false;
+		}
+		buffer.reset(bytes.length);
+		System.arraycopy(bytes, 0, buffer.array(), 0, bytes.length);
+		buffer.position(0);
+		return true;
+	}
+
+	/**
+	 * Get the loaded instance, the type loader of the JDK selected in preferences (the running JDK by default), with
+	 * the class bytes cache.<br>
+	 * A JDK 9+ is read from its runtime image and a JDK 8 from its <code>rt.jar</code>. The instance is created and
+	 * indexed on first call.
+	 * 
+	 * @return The loaded instance, <code>null</code> if the runtime classes could not be found (the running JRE 8
+	 *         classes are loaded from the class path).
+	 */
+	public static ITypeLoader getLoadedInstance() {
+		RuntimeImageTypeLoader.ensureInstanceCreated();
+		return RuntimeImageTypeLoader.instance;
+	}
+
+	/**
+	 * Get the loaded instance type names.
+	 * 
+	 * @return The internal names of the classes of the loaded instance (read only), <code>null</code> if there is no
+	 *         loaded instance.
+	 */
+	public static Set<String> getLoadedInstanceTypeNames() {
+		RuntimeImageTypeLoader.ensureInstanceCreated();
+		return RuntimeImageTypeLoader.instanceTypeNames;
+	}
+
+	/**
+	 * Ensure the loaded instance is created.
+	 */
+	private static synchronized void ensureInstanceCreated() {
+		// Check instance creation
+		if (RuntimeImageTypeLoader.instanceCreated)
+			return;
+		RuntimeImageTypeLoader.instanceCreated = true;
+		// Get selected JDK
+		String jdkHome = ConfigSaver.getLoadedInstance().getLuytenPreferences().getRuntimeJdkHome();
+		try {
+			if (jdkHome==null||jdkHome.trim().isEmpty()) {
+				// Check running JDK runtime image (JDK 9+)
+				if (System.getProperty("sun.boot.class.path")!=null)
+					return;
+				RuntimeImageTypeLoader typeLoader = new RuntimeImageTypeLoader(FileSystems.getFileSystem(URI
+						.create("jrt:/")));
+				RuntimeImageTypeLoader.setInstance(typeLoader, typeLoader.getTypeNames());
+				return;
+			}
+			File jdkDirectory = new File(jdkHome);
+			// Check JDK 8 runtime jar
+			File runtimeJar = new File(jdkDirectory, "jre/lib/rt.jar");
+			if (!runtimeJar.isFile())
+				runtimeJar = new File(jdkDirectory, "lib/rt.jar");
+			if (runtimeJar.isFile()) {
+				RuntimeImageTypeLoader.setInstance(new LazyJarTypeLoader(runtimeJar), JarLister
+						.listTypeNames(runtimeJar));
+				return;
+			}
+			// Check JDK 9+ runtime image, read by the file system provider of the JDK
+			File providerJar = new File(jdkDirectory, "lib/jrt-fs.jar");
+			if (!providerJar.isFile())
+				throw new IOException("No runtime image found in JDK: "+jdkHome);
+			Map<String, String> environment = Collections.singletonMap("java.home", jdkDirectory.getAbsolutePath());
+			ClassLoader providerLoader = new URLClassLoader(new URL[] { providerJar.toURI().toURL() });
+			FileSystem fileSystem = FileSystems.newFileSystem(URI.create("jrt:/"), environment, providerLoader);
+			RuntimeImageTypeLoader typeLoader = new RuntimeImageTypeLoader(fileSystem);
+			RuntimeImageTypeLoader.setInstance(typeLoader, typeLoader.getTypeNames());
+		} catch (IOException|RuntimeException exception) {
+			// Fall back to the class path runtime classes
+			exception.printStackTrace();
+		}
+	}
+
+	/**
+	 * Set the loaded instance.
+	 * 
+	 * @param typeLoader
+	 *            The runtime classes type loader.
+	 * @param typeNames
+	 *            The runtime classes internal names.
+	 */
+	private static void setInstance(ITypeLoader typeLoader, Set<String> typeNames) {
+		RuntimeImageTypeLoader.instance = new CachingTypeLoader(typeLoader, CachingTypeLoader.DEFAULT_MAX_SIZE);
+		RuntimeImageTypeLoader.instanceTypeNames = typeNames;
+	}
+}
@@ -0,0 +1,442 @@
+package com.modcrafting.luyten.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.modcrafting.luyten.ConfigSaver;
+import com.modcrafting.luyten.Selection;
+import com.strobel.assembler.metadata.Buffer;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilerSettings;
+
+/**
+ * This class represents a persistent cache of decompiled content.<br>
+ * Entries are addressed by a hash of the class file bytes (including nested types) and of the decompiler settings, so
+ * they never need to be invalidated. The cache size is capped by evicting the least recently used entries.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class DecompiledCache {
+	/** The cache format version (change it to drop entries written by a previous format). */
+	private static final int FORMAT_VERSION = 1;
+	/** The cache entry file extension. */
+	private static final String ENTRY_EXTENSION = ".cache";
+	/** The charset used to store texts. */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/** The number of bytes in a megabyte. */
+	private static final long MEGABYTE = 1024*1024;
+
+	/** The loaded instance. */
+	private static volatile DecompiledCache theLoadedInstance;
+
+	/** The cache directory. */
+	private final File directory;
+	/** The entry sizes by key, in access order (<code>null</code> until the cache directory is scanned). */
+	private LinkedHashMap<String, Long> entrySizes;
+	/** The size of all entries (in bytes). */
+	private long totalSize;
+
+	/**
+	 * Do not instantiate, get the loaded instance.
+	 * 
+	 * @param directory
+	 *            The cache directory.
+	 */
+	private DecompiledCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Get the loaded instance.
+	 * 
+	 * @return The loaded instance.
+	 */
+	public static DecompiledCache getLoadedInstance() {
+		if (theLoadedInstance==null) {
+			synchronized (DecompiledCache.class) {
+				if (theLoadedInstance==null) {
+					File directory = new File(System.getProperty("user.home"), ".luyten"+File.separator+"cache");
+					theLoadedInstance = new DecompiledCache(directory);
+				}
+			}
+		}
+		return theLoadedInstance;
+	}
+
+	/**
+	 * Check whether the cache is enabled.
+	 * 
+	 * @return <code>true</code> if the cache is enabled, <code>false</code> otherwise.
+	 */
+	public boolean isEnabled() {
+		return this.getMaxSize()>0;
+	}
+
+	/**
+	 * Create the key of a type decompilation.
+	 * 
+	 * @param typeLoader
+	 *            The type loader to read class file bytes from.
+	 * @param type
+	 *            The type to decompile.
+	 * @param settings
+	 *            The decompiler settings.
+	 * @return The key of the type decompilation, <code>null</code> if the type could not be read.
+	 */
+	public String createKey(ITypeLoader typeLoader, TypeDefinition type, DecompilerSettings settings) {
+		// Check cache status
+		if (!this.isEnabled()||typeLoader==null||type==null||settings==null)
+			return null;
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			// Hash decompiler settings
+			digest.update(DecompiledCache.getSettingsKey(settings).getBytes(DecompiledCache.UTF8));
+			// Hash class file bytes of the type and its nested types
+			if (!DecompiledCache.hashType(digest, typeLoader, type))
+				return null;
+			// Convert digest to hexadecimal key
+			StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest()) {
+				key.append(Character.forDigit((b>>4)&0xF, 16));
+				key.append(Character.forDigit(b&0xF, 16));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException exception) {
+			exception.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Hash the class file bytes of a type and of its nested types.
+	 * 
+	 * @param digest
+	 *            The digest to update.
+	 * @param typeLoader
+	 *            The type loader to read class file bytes from.
+	 * @param type
+	 *            The type to hash.
+	 * @return <code>true</code> if the type and its nested types were hashed, <code>false</code> otherwise.
+	 */
+	private static boolean hashType(MessageDigest digest, ITypeLoader typeLoader, TypeDefinition type) {
+		String internalName = type.getInternalName();
+		if (internalName==null)
+			return false;
+		Buffer buffer = new Buffer();
+		if (!typeLoader.tryLoadType(internalName, buffer))
+			return false;
+		digest.update(internalName.getBytes(DecompiledCache.UTF8));
+		digest.update(buffer.array(), 0, buffer.size());
+		List<TypeDefinition> declaredTypes = type.getDeclaredTypes();
+		if (declaredTypes!=null) {
+			for (TypeDefinition declaredType : declaredTypes) {
+				if (!DecompiledCache.hashType(digest, typeLoader, declaredType))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the key of the decompiler settings (the settings saved by {@link ConfigSaver}).
+	 * 
+	 * @param settings
+	 *            The decompiler settings.
+	 * @return The key of the decompiler settings.
+	 */
+	public static String getSettingsKey(DecompilerSettings settings) {
+		StringBuilder builder = new StringBuilder();
+		builder.append(DecompiledCache.FORMAT_VERSION).append('|');
+		builder.append(DecompilerSettings.class.getPackage().getImplementationVersion()).append('|');
+		// synchronized: against main menu changes
+		synchronized (settings) {
+			builder.append(settings.getLanguage().getName()).append('|');
+			builder.append(settings.getFlattenSwitchBlocks()).append('|');
+			builder.append(settings.getForceExplicitImports()).append('|');
+			builder.append(settings.getShowSyntheticMembers()).append('|');
+			builder.append(settings.getExcludeNestedTypes()).append('|');
+			builder.append(settings.getForceExplicitTypeArguments()).append('|');
+			builder.append(settings.getRetainRedundantCasts()).append('|');
+			builder.append(settings.getIncludeErrorDiagnostics());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Check whether a decompiled content is cached, without reading it.
+	 * 
+	 * @param key
+	 *            The key of the type decompilation.
+	 * @return <code>true</code> if the content is cached, <code>false</code> otherwise.
+	 */
+	public boolean contains(String key) {
+		if (key==null)
+			return false;
+		synchronized (this) {
+			return this.getEntrySizes().containsKey(key);
+		}
+	}
+
+	/**
+	 * Get a cached decompiled content.
+	 * 
+	 * @param key
+	 *            The key of the type decompilation.
+	 * @return The cached decompiled content, <code>null</code> if not cached.
+	 */
+	public DecompiledContent get(String key) {
+		// Check key
+		if (key==null)
+			return null;
+		// Check entry existence and mark it as recently used
+		File entryFile = this.getEntryFile(key);
+		synchronized (this) {
+			// get (unlike containsKey) moves the entry to the end of the access order
+			if (this.getEntrySizes().get(key)==null)
+				return null;
+			// the modification date restores the access order in the next session
+			entryFile.setLastModified(System.currentTimeMillis());
+		}
+		// Read entry file
+		try {
+			return DecompiledCache.readEntry(entryFile);
+		} catch (IOException exception) {
+			// Drop unreadable entry
+			exception.printStackTrace();
+			this.remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Put a decompiled content into the cache.
+	 * 
+	 * @param key
+	 *            The key of the type decompilation.
+	 * @param content
+	 *            The decompiled content to cache.
+	 */
+	public void put(String key, DecompiledContent content) {
+		// Check parameters
+		if (key==null||content==null||!this.isEnabled())
+			return;
+		// Write entry to a temporary file
+		File entryFile = this.getEntryFile(key);
+		File temporaryFile = new File(this.directory, key+"."+Thread.currentThread().getId()+".tmp");
+		try {
+			if (!this.directory.isDirectory()&&!this.directory.mkdirs())
+				return;
+			DecompiledCache.writeEntry(temporaryFile, content);
+		} catch (IOException exception) {
+			exception.printStackTrace();
+			temporaryFile.delete();
+			return;
+		}
+		// Publish entry
+		synchronized (this) {
+			LinkedHashMap<String, Long> entrySizes = this.getEntrySizes();
+			entryFile.delete();
+			if (!temporaryFile.renameTo(entryFile)) {
+				temporaryFile.delete();
+				return;
+			}
+			Long previousSize = entrySizes.put(key, entryFile.length());
+			if (previousSize!=null)
+				this.totalSize -= previousSize;
+			this.totalSize += entryFile.length();
+			// Evict least recently used entries
+			long maxSize = this.getMaxSize();
+			Iterator<Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+			while (this.totalSize>maxSize&&iterator.hasNext()) {
+				Entry<String, Long> eldest = iterator.next();
+				iterator.remove();
+				this.totalSize -= eldest.getValue();
+				this.getEntryFile(eldest.getKey()).delete();
+			}
+		}
+	}
+
+	/**
+	 * Remove an entry from the cache.
+	 * 
+	 * @param key
+	 *            The key of the entry to remove.
+	 */
+	private synchronized void remove(String key) {
+		Long size = this.getEntrySizes().remove(key);
+		if (size!=null)
+			this.totalSize -= size;
+		this.getEntryFile(key).delete();
+	}
+
+	/**
+	 * Get the entry sizes, scanning the cache directory the first time.
+	 * 
+	 * @return The entry sizes by key, in access order.
+	 */
+	private LinkedHashMap<String, Long> getEntrySizes() {
+		if (this.entrySizes==null) {
+			this.entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+			this.totalSize = 0;
+			File[] entryFiles = this.directory.listFiles(new FileFilter() {
+				@Override
+				public boolean accept(File file) {
+					return file.isFile()&&file.getName().endsWith(DecompiledCache.ENTRY_EXTENSION);
+				}
+			});
+			if (entryFiles!=null) {
+				// Restore access order from last modification dates
+				Arrays.sort(entryFiles, new Comparator<File>() {
+					@Override
+					public int compare(File file1, File file2) {
+						return Long.compare(file1.lastModified(), file2.lastModified());
+					}
+				});
+				for (File entryFile : entryFiles) {
+					String fileName = entryFile.getName();
+					String key = fileName.substring(0, fileName.length()-DecompiledCache.ENTRY_EXTENSION.length());
+					this.entrySizes.put(key, entryFile.length());
+					this.totalSize += entryFile.length();
+				}
+			}
+		}
+		return this.entrySizes;
+	}
+
+	/**
+	 * Get the cache maximum size.
+	 * 
+	 * @return The cache maximum size (in bytes).
+	 */
+	private long getMaxSize() {
+		return ConfigSaver.getLoadedInstance().getLuytenPreferences().getDecompiledCacheMaxSizeMb()*DecompiledCache.MEGABYTE;
+	}
+
+	/**
+	 * Get the file of a cache entry.
+	 * 
+	 * @param key
+	 *            The key of the entry.
+	 * @return The file of the cache entry.
+	 */
+	private File getEntryFile(String key) {
+		return new File(this.directory, key+DecompiledCache.ENTRY_EXTENSION);
+	}
+
+	/**
+	 * Write a cache entry.
+	 * 
+	 * @param file
+	 *            The file to write.
+	 * @param content
+	 *            The decompiled content to write.
+	 * @throws IOException
+	 *             Throws exception if the entry could not be written.
+	 */
+	private static void writeEntry(File file, DecompiledContent content) throws IOException {
+		try (FileOutputStream fileOutputStream = new FileOutputStream(file);
+				GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fileOutputStream);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzipOutputStream))) {
+			out.writeInt(DecompiledCache.FORMAT_VERSION);
+			DecompiledCache.writeString(out, content.getTextContent());
+			Map<String, Selection> definitionToSelectionMap = content.getDefinitionToSelectionMap();
+			out.writeInt(definitionToSelectionMap.size());
+			for (Entry<String, Selection> entry : definitionToSelectionMap.entrySet()) {
+				DecompiledCache.writeString(out, entry.getKey());
+				DecompiledCache.writeSelection(out, entry.getValue());
+			}
+			Map<String, Set<Selection>> referenceToSelectionsMap = content.getReferenceToSelectionsMap();
+			out.writeInt(referenceToSelectionsMap.size());
+			for (Entry<String, Set<Selection>> entry : referenceToSelectionsMap.entrySet()) {
+				DecompiledCache.writeString(out, entry.getKey());
+				out.writeInt(entry.getValue().size());
+				for (Selection selection : entry.getValue()) {
+					DecompiledCache.writeSelection(out, selection);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read a cache entry.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @return The read decompiled content.
+	 * @throws IOException
+	 *             Throws exception if the entry could not be read.
+	 */
+	private static DecompiledContent readEntry(File file) throws IOException {
+		try (FileInputStream fileInputStream = new FileInputStream(file);
+				GZIPInputStream gzipInputStream = new GZIPInputStream(fileInputStream);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(gzipInputStream))) {
+			if (in.readInt()!=DecompiledCache.FORMAT_VERSION)
+				throw new IOException("Unsupported cache entry format: "+file.getName());
+			String textContent = DecompiledCache.readString(in);
+			int definitionCount = in.readInt();
+			Map<String, Selection> definitionToSelectionMap = new HashMap<>();
+			for (int i = 0; i<definitionCount; i++) {
+				definitionToSelectionMap.put(DecompiledCache.readString(in), DecompiledCache.readSelection(in));
+			}
+			int referenceCount = in.readInt();
+			Map<String, Set<Selection>> referenceToSelectionsMap = new HashMap<>();
+			for (int i = 0; i<referenceCount; i++) {
+				String uniqueStr = DecompiledCache.readString(in);
+				int selectionCount = in.readInt();
+				Set<Selection> selections = new HashSet<>();
+				for (int j = 0; j<selectionCount; j++) {
+					selections.add(DecompiledCache.readSelection(in));
+				}
+				referenceToSelectionsMap.put(uniqueStr, selections);
+			}
+			return new DecompiledContent(textContent, definitionToSelectionMap, referenceToSelectionsMap);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(DecompiledCache.UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, DecompiledCache.UTF8);
+	}
+
+	private static void writeSelection(DataOutputStream out, Selection selection) throws IOException {
+		out.writeInt(selection.from);
+		out.writeInt(selection.to);
+	}
+
+	private static Selection readSelection(DataInputStream in) throws IOException {
+		int from = in.readInt();
+		int to = in.readInt();
+		return new Selection(from, to);
+	}
+}
@@ -0,0 +1,65 @@
+package com.modcrafting.luyten.cache;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.modcrafting.luyten.Selection;
+
+/**
+ * This class represents the decompiled content of a type: its text and its navigation links.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class DecompiledContent {
+	/** The decompiled text. */
+	private final String textContent;
+	/** The definition selections by unique string. */
+	private final Map<String, Selection> definitionToSelectionMap;
+	/** The reference selections by unique string. */
+	private final Map<String, Set<Selection>> referenceToSelectionsMap;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param textContent
+	 *            The decompiled text.
+	 * @param definitionToSelectionMap
+	 *            The definition selections by unique string.
+	 * @param referenceToSelectionsMap
+	 *            The reference selections by unique string.
+	 */
+	public DecompiledContent(String textContent, Map<String, Selection> definitionToSelectionMap,
+			Map<String, Set<Selection>> referenceToSelectionsMap) {
+		this.textContent = textContent;
+		this.definitionToSelectionMap = definitionToSelectionMap;
+		this.referenceToSelectionsMap = referenceToSelectionsMap;
+	}
+
+	/**
+	 * Get the decompiled text.
+	 * 
+	 * @return The decompiled text.
+	 */
+	public String getTextContent() {
+		return this.textContent;
+	}
+
+	/**
+	 * Get the definition selections by unique string.
+	 * 
+	 * @return The definition selections by unique string.
+	 */
+	public Map<String, Selection> getDefinitionToSelectionMap() {
+		return this.definitionToSelectionMap;
+	}
+
+	/**
+	 * Get the reference selections by unique string.
+	 * 
+	 * @return The reference selections by unique string.
+	 */
+	public Map<String, Set<Selection>> getReferenceToSelectionsMap() {
+		return this.referenceToSelectionsMap;
+	}
+}
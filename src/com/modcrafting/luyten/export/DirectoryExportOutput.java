@@ -0,0 +1,82 @@
+package com.modcrafting.luyten.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+
+/**
+ * This class represents an export to a directory.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class DirectoryExportOutput implements ExportOutput {
+	/** The output directory. */
+	private final Path directory;
+	/** The written entry names. */
+	private final Set<String> names;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory
+	 *            The output directory.
+	 */
+	public DirectoryExportOutput(File directory) {
+		this.directory = directory.toPath().toAbsolutePath().normalize();
+		this.names = Collections.synchronizedSet(new HashSet<String>());
+	}
+
+	@Override
+	public boolean writeEntry(String name, byte[] data) throws IOException {
+		// Check duplicate entry
+		if (!this.names.add(name))
+			return false;
+		Path path = this.resolve(name);
+		Files.createDirectories(path.getParent());
+		Files.write(path, data);
+		return true;
+	}
+
+	@Override
+	public boolean copyEntry(ZipArchive archive, ZipArchiveEntry entry) throws IOException {
+		// Check duplicate entry
+		if (!this.names.add(entry.getName()))
+			return false;
+		Path path = this.resolve(entry.getName());
+		if (entry.isDirectory()) {
+			Files.createDirectories(path);
+			return true;
+		}
+		Files.createDirectories(path.getParent());
+		try (InputStream in = archive.getInputStream(entry)) {
+			Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		return true;
+	}
+
+	/**
+	 * Get the file of an entry.
+	 *
+	 * @param name
+	 *            The entry name.
+	 * @return The entry file.
+	 * @throws IOException
+	 *             Throws exception if the entry name points outside the output directory.
+	 */
+	private Path resolve(String name) throws IOException {
+		Path path = this.directory.resolve(name).normalize();
+		if (!path.startsWith(this.directory)||path.equals(this.directory))
+			throw new IOException("Invalid entry name: "+name);
+		return path;
+	}
+}
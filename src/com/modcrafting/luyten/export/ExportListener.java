@@ -0,0 +1,43 @@
+package com.modcrafting.luyten.export;
+
+import java.io.File;
+
+/**
+ * This interface represents a listener of jar exports.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public interface ExportListener {
+	/**
+	 * Notify an export is started.
+	 *
+	 * @param inFile
+	 *            The exported jar file.
+	 * @param entryCount
+	 *            The number of entries to export.
+	 */
+	public void exportStarted(File inFile, int entryCount);
+
+	/**
+	 * Notify an entry is being written.
+	 *
+	 * @param entryName
+	 *            The name of the written entry (the source name for classes).
+	 * @param entryIndex
+	 *            The index of the written entry.
+	 */
+	public void entryExporting(String entryName, int entryIndex);
+
+	/**
+	 * Notify an entry could not be exported.
+	 *
+	 * @param entryName
+	 *            The name of the failed entry.
+	 * @param exception
+	 *            The export failure.
+	 * @throws Exception
+	 *             Throws the exception to abort the export, or nothing to skip the entry.
+	 */
+	public void entryFailed(String entryName, Exception exception) throws Exception;
+}
@@ -0,0 +1,43 @@
+package com.modcrafting.luyten.export;
+
+import java.io.IOException;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+
+/**
+ * This interface represents the destination of jar exports.<br>
+ * Implementations must be thread-safe if shared between concurrent exports.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public interface ExportOutput {
+	/**
+	 * Write a decompiled source.
+	 *
+	 * @param name
+	 *            The source entry name.
+	 * @param data
+	 *            The encoded source.
+	 * @return <code>true</code> if the source was written, <code>false</code> if the output already contains an entry
+	 *         with the same name.
+	 * @throws IOException
+	 *             Throws exception if the source could not be written.
+	 */
+	public boolean writeEntry(String name, byte[] data) throws IOException;
+
+	/**
+	 * Copy a resource from the exported jar.
+	 *
+	 * @param archive
+	 *            The exported jar archive.
+	 * @param entry
+	 *            The resource entry to copy.
+	 * @return <code>true</code> if the resource was copied, <code>false</code> if the output already contains an entry
+	 *         with the same name.
+	 * @throws IOException
+	 *             Throws exception if the resource could not be copied.
+	 */
+	public boolean copyEntry(ZipArchive archive, ZipArchiveEntry entry) throws IOException;
+}
@@ -0,0 +1,22 @@
+package com.modcrafting.luyten.export;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents the thread factory of export workers.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class ExportThreadFactory implements ThreadFactory {
+	/** The number of the next thread. */
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "Luyten export worker #"+this.threadNumber.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	}
+}
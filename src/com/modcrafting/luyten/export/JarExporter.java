@@ -0,0 +1,308 @@
+package com.modcrafting.luyten.export;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarFile;
+
+import com.modcrafting.luyten.CachingTypeLoader;
+import com.modcrafting.luyten.LuytenTypeLoader;
+import com.modcrafting.luyten.model.JarLister;
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.JarTypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.core.StringUtilities;
+import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilerSettings;
+import com.strobel.decompiler.PlainTextOutput;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+
+/**
+ * This class represents the jar export engine shared by Save All and the batch decompiler.<br>
+ * Classes are decompiled in parallel and entries are written in jar order by the calling thread. It does not depend on
+ * Swing.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class JarExporter {
+	/** The number of decompiled entries each worker thread may have waiting for the writer. */
+	private static final int PENDING_ENTRIES_PER_THREAD = 4;
+
+	/** The decompiler settings snapshot. */
+	private final DecompilerSettings settings;
+	/** The executor to decompile classes. */
+	private final ExecutorService executor;
+	/** The number of threads of the executor. */
+	private final int threadCount;
+	/** Whether inner class entries are exported. */
+	private final boolean includeInnerClass;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param settings
+	 *            The decompiler settings (cloned, later changes are ignored).
+	 * @param executor
+	 *            The executor to decompile classes (may be shared by concurrent exports).
+	 * @param threadCount
+	 *            The number of threads of the executor.
+	 * @param includeInnerClass
+	 *            <code>true</code> to export inner class entries, <code>false</code> otherwise.
+	 */
+	public JarExporter(DecompilerSettings settings, ExecutorService executor, int threadCount,
+			boolean includeInnerClass) {
+		this.settings = JarExporter.cloneSettings(settings);
+		this.executor = executor;
+		this.threadCount = threadCount;
+		this.includeInnerClass = includeInnerClass;
+	}
+
+	/**
+	 * Export a jar file.
+	 *
+	 * @param inFile
+	 *            The jar file to export.
+	 * @param output
+	 *            The export destination.
+	 * @param listener
+	 *            The export listener.
+	 * @throws Exception
+	 *             Throws exception if the jar could not be read, the output could not be written or the listener
+	 *             aborted the export.
+	 */
+	public void export(File inFile, ExportOutput output, ExportListener listener) throws Exception {
+		try (final JarFile jfile = new JarFile(inFile);
+				ZipArchive archive = new ZipArchive(inFile);) {
+			// Single pass over the mapped central directory, already filtered
+			List<ZipArchiveEntry> entries = JarLister.listEntries(archive, this.includeInnerClass);
+			listener.exportStarted(inFile, entries.size());
+			// Each decompiler is used by a single thread at a time and released with the export
+			final Queue<ExportWorker> workers = new ConcurrentLinkedQueue<>();
+			// Class bytes are inflated once for all decompilers
+			final ITypeLoader jarTypeLoader = new CachingTypeLoader(new JarTypeLoader(jfile),
+					CachingTypeLoader.DEFAULT_MAX_SIZE);
+			// Type names from the already opened central directory
+			final Set<String> jarTypeNames = JarLister.listTypeNames(archive);
+			// Decompilations not started when the export aborts are skipped
+			final AtomicBoolean aborted = new AtomicBoolean();
+			// Bound the decompiled sources waiting to be written
+			int maxPendingEntries = this.threadCount*JarExporter.PENDING_ENTRIES_PER_THREAD;
+			Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+			try {
+				int entryCount = 0;
+				for (ZipArchiveEntry entry : entries) {
+					Future<String> decompiledSource = null;
+					if (entry.getName().endsWith(".class")) {
+						final String internalName = StringUtilities.removeRight(entry.getName(), ".class");
+						decompiledSource = this.executor.submit(new Callable<String>() {
+							@Override
+							public String call() throws Exception {
+								if (aborted.get())
+									return null;
+								ExportWorker worker = workers.poll();
+								if (worker==null)
+									worker = new ExportWorker(jarTypeLoader, jarTypeNames,
+											JarExporter.cloneSettings(settings));
+								try {
+									return worker.decompile(internalName);
+								} finally {
+									workers.add(worker);
+								}
+							}
+						});
+					}
+					pendingEntries.add(new PendingEntry(entry, decompiledSource));
+					// Write entries in jar order as soon as the window is full
+					while (pendingEntries.size()>=maxPendingEntries) {
+						this.writeEntry(archive, output, listener, pendingEntries.poll(), entryCount);
+						entryCount++;
+					}
+				}
+				while (!pendingEntries.isEmpty()) {
+					this.writeEntry(archive, output, listener, pendingEntries.poll(), entryCount);
+					entryCount++;
+				}
+			} finally {
+				// Drain remaining decompilations if the export was aborted: the running ones still read the jar
+				aborted.set(true);
+				JarExporter.awaitDecompilations(pendingEntries);
+			}
+		}
+	}
+
+	/**
+	 * Write a jar entry to the output (the single ordered writer stage of the export).
+	 *
+	 * @param archive
+	 *            The exported jar archive.
+	 * @param output
+	 *            The export destination.
+	 * @param listener
+	 *            The export listener.
+	 * @param pendingEntry
+	 *            The entry to write.
+	 * @param entryCount
+	 *            The number of already written entries.
+	 * @throws Exception
+	 *             Throws exception if the entry could not be written or the listener aborted the export.
+	 */
+	private void writeEntry(ZipArchive archive, ExportOutput output, ExportListener listener,
+			PendingEntry pendingEntry, int entryCount) throws Exception {
+		ZipArchiveEntry entry = pendingEntry.entry;
+		if (pendingEntry.decompiledSource!=null) {
+			String javaEntryName = entry.getName().replace(".class", ".java");
+			listener.entryExporting(javaEntryName, entryCount);
+			String decompiledSource;
+			try {
+				decompiledSource = JarExporter.getDecompiledSource(pendingEntry.decompiledSource);
+			} catch (Exception exception) {
+				listener.entryFailed(entry.getName(), exception);
+				return;
+			}
+			// Same encoding as the former OutputStreamWriter
+			output.writeEntry(javaEntryName, decompiledSource.getBytes(Charset.defaultCharset()));
+		} else {
+			listener.entryExporting(entry.getName(), entryCount);
+			// some jar-s contain duplicate pom.xml entries: the output ignores them
+			output.copyEntry(archive, entry);
+		}
+	}
+
+	/**
+	 * Wait for the decompilations of pending entries to end, ignoring their results.
+	 *
+	 * @param pendingEntries
+	 *            The pending entries.
+	 */
+	private static void awaitDecompilations(Deque<PendingEntry> pendingEntries) {
+		for (PendingEntry pendingEntry : pendingEntries) {
+			if (pendingEntry.decompiledSource==null)
+				continue;
+			try {
+				pendingEntry.decompiledSource.get();
+			} catch (ExecutionException exception) {
+				// The export already failed
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the decompiled source of a class.
+	 *
+	 * @param decompiledSource
+	 *            The pending decompiled source.
+	 * @return The decompiled source.
+	 * @throws Exception
+	 *             Throws the decompilation failure.
+	 */
+	private static String getDecompiledSource(Future<String> decompiledSource) throws Exception {
+		try {
+			return decompiledSource.get();
+		} catch (ExecutionException e) {
+			// Report the decompilation failure as the serial export did
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Clone decompiler settings.
+	 *
+	 * @param settings
+	 *            The settings to clone.
+	 * @return The cloned settings.
+	 */
+	public static DecompilerSettings cloneSettings(DecompilerSettings settings) {
+		DecompilerSettings newSettings = new DecompilerSettings();
+		if (newSettings.getFormattingOptions() == null) {
+			newSettings.setFormattingOptions(JavaFormattingOptions.createDefault());
+		}
+		// synchronized: against main menu changes
+		synchronized (settings) {
+			newSettings.setExcludeNestedTypes(settings.getExcludeNestedTypes());
+			newSettings.setFlattenSwitchBlocks(settings.getFlattenSwitchBlocks());
+			newSettings.setForceExplicitImports(settings.getForceExplicitImports());
+			newSettings.setForceExplicitTypeArguments(settings.getForceExplicitTypeArguments());
+			newSettings.setOutputFileHeaderText(settings.getOutputFileHeaderText());
+			newSettings.setLanguage(settings.getLanguage());
+			newSettings.setShowSyntheticMembers(settings.getShowSyntheticMembers());
+			newSettings.setAlwaysGenerateExceptionVariableForCatchBlocks(settings
+					.getAlwaysGenerateExceptionVariableForCatchBlocks());
+			newSettings.setOutputDirectory(settings.getOutputDirectory());
+			newSettings.setRetainRedundantCasts(settings.getRetainRedundantCasts());
+			newSettings.setIncludeErrorDiagnostics(settings.getIncludeErrorDiagnostics());
+			newSettings.setIncludeLineNumbersInBytecode(settings.getIncludeLineNumbersInBytecode());
+			newSettings.setRetainPointlessSwitches(settings.getRetainPointlessSwitches());
+			newSettings.setUnicodeOutputEnabled(settings.isUnicodeOutputEnabled());
+			newSettings.setMergeVariables(settings.getMergeVariables());
+			newSettings.setShowDebugLineNumbers(settings.getShowDebugLineNumbers());
+		}
+		return newSettings;
+	}
+
+	/**
+	 * This class represents the decompiler of an export worker thread.
+	 */
+	private static class ExportWorker {
+		private final DecompilerSettings settings;
+		private final MetadataSystem metadataSystem;
+		private final DecompilationOptions decompilationOptions;
+
+		private ExportWorker(ITypeLoader jarTypeLoader, Set<String> jarTypeNames, DecompilerSettings settings) {
+			this.settings = settings;
+			LuytenTypeLoader typeLoader = new LuytenTypeLoader();
+			typeLoader.addTypeLoader(jarTypeLoader, jarTypeNames);
+			this.metadataSystem = new MetadataSystem(typeLoader);
+			this.decompilationOptions = new DecompilationOptions();
+			this.decompilationOptions.setSettings(settings);
+			this.decompilationOptions.setFullDecompilation(true);
+		}
+
+		private String decompile(String internalName) throws Exception {
+			TypeReference type = metadataSystem.lookupType(internalName);
+			TypeDefinition resolvedType = null;
+			if ((type == null) || ((resolvedType = type.resolve()) == null)) {
+				throw new Exception("Unable to resolve type.");
+			}
+			StringWriter stringwriter = new StringWriter();
+			settings.getLanguage().decompileType(resolvedType,
+					new PlainTextOutput(stringwriter), decompilationOptions);
+			return stringwriter.toString();
+		}
+	}
+
+	/**
+	 * This class represents a jar entry waiting to be written to the export output.
+	 */
+	private static class PendingEntry {
+		private final ZipArchiveEntry entry;
+		/** The decompiled source (<code>null</code> if the entry is not a class). */
+		private final Future<String> decompiledSource;
+
+		private PendingEntry(ZipArchiveEntry entry, Future<String> decompiledSource) {
+			this.entry = entry;
+			this.decompiledSource = decompiledSource;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.modcrafting.luyten.export;
+
+import java.io.IOException;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.modcrafting.luyten.model.zip.ZipArchiveWriter;
+
+/**
+ * This class represents an export to a ZIP archive.<br>
+ * Resources are copied without being uncompressed.
+ *
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ *
+ */
+public class ZipExportOutput implements ExportOutput {
+	/** The archive writer (shared by concurrent exports). */
+	private final ZipArchiveWriter writer;
+	/** The prefix of the entry names. */
+	private final String prefix;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param writer
+	 *            The archive writer.
+	 * @param prefix
+	 *            The prefix of the entry names (empty to export at archive root).
+	 */
+	public ZipExportOutput(ZipArchiveWriter writer, String prefix) {
+		this.writer = writer;
+		this.prefix = prefix;
+	}
+
+	@Override
+	public boolean writeEntry(String name, byte[] data) throws IOException {
+		synchronized (this.writer) {
+			return this.writer.writeEntry(this.prefix+name, data);
+		}
+	}
+
+	@Override
+	public boolean copyEntry(ZipArchive archive, ZipArchiveEntry entry) throws IOException {
+		synchronized (this.writer) {
+			return this.writer.copyRawEntry(archive, entry, this.prefix+entry.getName());
+		}
+	}
+}
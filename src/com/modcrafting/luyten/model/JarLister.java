@@ -1,5 +1,7 @@
 package com.modcrafting.luyten.model;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
@@ -9,6 +11,10 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Pattern;
 
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.modcrafting.luyten.model.zip.ZipCentralDirectory;
+
 /**
  * This class represents a jar file content lister utility.
  * 
@@ -18,6 +24,51 @@ import java.util.regex.Pattern;
 public class JarLister {
 	/** The inner class pattern (ex: com/acme/Model$16.class). */
 	private static final Pattern INNER_CLASS_PATTERN = Pattern.compile(".*[^(/|\\\\)]+\\$[^(/|\\\\)]+$");
+	/** The class file extension (in ASCII). */
+	private static final byte[] CLASS_EXTENSION = { '.', 'c', 'l', 'a', 's', 's' };
+	/** The extensions of the archives opened as jars. */
+	private static final String[] ARCHIVE_EXTENSIONS = { ".jar", ".zip", ".war", ".ear" };
+	/** The extensions of the archives nested in an archive expanded as jars. */
+	private static final String[] NESTED_ARCHIVE_EXTENSIONS = { ".jar", ".war" };
+
+	/**
+	 * Check whether a file is an archive opened as a jar (jar, zip, WAR or EAR file).
+	 * 
+	 * @param fileName
+	 *            The file name.
+	 * @return <code>true</code> if the file is opened as a jar, <code>false</code> otherwise.
+	 */
+	public static boolean isArchive(String fileName) {
+		return JarLister.hasExtension(fileName, JarLister.ARCHIVE_EXTENSIONS);
+	}
+
+	/**
+	 * Check whether an archive entry is a nested archive expanded as a jar (library jars or EAR modules).
+	 * 
+	 * @param entryName
+	 *            The archive entry name.
+	 * @return <code>true</code> if the entry is expanded as a jar, <code>false</code> otherwise.
+	 */
+	public static boolean isNestedArchive(String entryName) {
+		return JarLister.hasExtension(entryName, JarLister.NESTED_ARCHIVE_EXTENSIONS);
+	}
+
+	/**
+	 * Check whether a name ends with one of the extensions, ignoring case.
+	 * 
+	 * @param name
+	 *            The name to check.
+	 * @param extensions
+	 *            The extensions.
+	 * @return <code>true</code> if the name ends with one of the extensions, <code>false</code> otherwise.
+	 */
+	private static boolean hasExtension(String name, String[] extensions) {
+		for (String extension : extensions) {
+			if (name.regionMatches(true, name.length()-extension.length(), extension, 0, extension.length()))
+				return true;
+		}
+		return false;
+	}
 
 	/**
 	 * Get all files from a jar file.
@@ -44,27 +95,170 @@ public class JarLister {
 		List<String> files = new ArrayList<>();
 		// Get all jar entries
 		Enumeration<JarEntry> entries = jarFile.entries();
-		// Declare class collections
-		Set<String> possibleInnerClasses = new HashSet<>();
-		Set<String> baseClasses = new HashSet<>();
 		// Check each jar entry
 		while (entries.hasMoreElements()) {
 			JarEntry entry = entries.nextElement();
 			// Skip directory entry
 			if (entry.isDirectory())
 				continue;
-			// Get entry name
-			String entryName = entry.getName();
-			// Check inner class filter
-			if (includeInnerClass) {
-				files.add(entryName);
+			files.add(entry.getName());
+		}
+		// Remove inner classes
+		if (!includeInnerClass)
+			files.removeAll(JarLister.getInnerClasses(files));
+		// Return listed files
+		return files;
+	}
+
+	/**
+	 * Get all files except inner class from a jar file, reading its memory-mapped central directory.<br>
+	 * Only the names of the listed files are allocated.
+	 * 
+	 * @param file
+	 *            The jar file to get files.
+	 * @param includeInnerClass
+	 *            <code>true</code> to include inner class to listing, <code>false</code> otherwise.
+	 * @return All files except inner class of the jar file.
+	 * @throws IOException
+	 *             Throws exception if the jar central directory could not be read.
+	 */
+	public static List<String> listFiles(File file, boolean includeInnerClass) throws IOException {
+		ZipCentralDirectory centralDirectory = new ZipCentralDirectory(file);
+		// Create file collection
+		List<String> files = new ArrayList<>((int) Math.min(centralDirectory.getEntryCount(), Integer.MAX_VALUE));
+		// Check each central directory entry
+		ZipCentralDirectory.Cursor cursor = centralDirectory.cursor();
+		while (cursor.next()) {
+			// Skip directory entry
+			if (cursor.isDirectory())
+				continue;
+			files.add(cursor.getName());
+		}
+		// Remove inner classes
+		if (!includeInnerClass)
+			files.removeAll(JarLister.getInnerClasses(files));
+		// Return listed files
+		return files;
+	}
+
+	/**
+	 * Get the internal names of the classes of a jar file, reading its memory-mapped central directory.
+	 * 
+	 * @param file
+	 *            The jar file to get class names.
+	 * @return The internal names of the classes of the jar file (<code>com/acme/Model$16</code> for example).
+	 * @throws IOException
+	 *             Throws exception if the jar central directory could not be read.
+	 */
+	public static Set<String> listTypeNames(File file) throws IOException {
+		ZipCentralDirectory centralDirectory = new ZipCentralDirectory(file);
+		// Create type name collection
+		Set<String> typeNames = new HashSet<>();
+		// Check each central directory entry
+		ZipCentralDirectory.Cursor cursor = centralDirectory.cursor();
+		while (cursor.next()) {
+			// Skip directory and non class entry (without allocating their name)
+			if (cursor.isDirectory()||!cursor.nameEndsWith(JarLister.CLASS_EXTENSION))
 				continue;
+			String name = cursor.getName();
+			typeNames.add(name.substring(0, name.length()-JarLister.CLASS_EXTENSION.length));
+		}
+		// Return listed type names
+		return typeNames;
+	}
+
+	/**
+	 * Get all files except inner class from a jar archive (a nested one for example).
+	 * 
+	 * @param archive
+	 *            The jar archive to get files.
+	 * @param includeInnerClass
+	 *            <code>true</code> to include inner class to listing, <code>false</code> otherwise.
+	 * @return All files except inner class of the jar archive.
+	 */
+	public static List<String> listFiles(ZipArchive archive, boolean includeInnerClass) {
+		// Create file collection
+		List<String> files = new ArrayList<>(archive.getEntries().size());
+		for (ZipArchiveEntry entry : JarLister.listEntries(archive, includeInnerClass)) {
+			files.add(entry.getName());
+		}
+		// Return listed files
+		return files;
+	}
+
+	/**
+	 * Get the internal names of the classes of a jar archive (a nested one for example).
+	 * 
+	 * @param archive
+	 *            The jar archive to get class names.
+	 * @return The internal names of the classes of the jar archive (<code>com/acme/Model$16</code> for example).
+	 */
+	public static Set<String> listTypeNames(ZipArchive archive) {
+		// Create type name collection
+		Set<String> typeNames = new HashSet<>();
+		// Check each entry
+		for (ZipArchiveEntry entry : archive.getEntries()) {
+			String name = entry.getName();
+			if (!entry.isDirectory()&&name.endsWith(".class"))
+				typeNames.add(name.substring(0, name.length()-JarLister.CLASS_EXTENSION.length));
+		}
+		// Return listed type names
+		return typeNames;
+	}
+
+	/**
+	 * Get all file entries except inner class from a jar archive, in central directory order.
+	 * 
+	 * @param archive
+	 *            The jar archive to get file entries.
+	 * @param includeInnerClass
+	 *            <code>true</code> to include inner class to listing, <code>false</code> otherwise.
+	 * @return All file entries except inner class of the jar archive.
+	 */
+	public static List<ZipArchiveEntry> listEntries(ZipArchive archive, boolean includeInnerClass) {
+		// Create entry collection
+		List<ZipArchiveEntry> entries = new ArrayList<>(archive.getEntries().size());
+		List<String> files = new ArrayList<>(archive.getEntries().size());
+		for (ZipArchiveEntry entry : archive.getEntries()) {
+			// Skip directory entry
+			if (entry.isDirectory())
+				continue;
+			entries.add(entry);
+			files.add(entry.getName());
+		}
+		// Remove inner classes
+		if (!includeInnerClass) {
+			Set<String> innerClasses = JarLister.getInnerClasses(files);
+			if (!innerClasses.isEmpty()) {
+				// Copy kept entries (removing from the list would shift it at each inner class)
+				List<ZipArchiveEntry> outerEntries = new ArrayList<>(Math.max(0, entries.size()-innerClasses.size()));
+				for (ZipArchiveEntry entry : entries) {
+					if (!innerClasses.contains(entry.getName()))
+						outerEntries.add(entry);
+				}
+				entries = outerEntries;
 			}
+		}
+		// Return listed entries
+		return entries;
+	}
+
+	/**
+	 * Get the inner classes of a file listing.
+	 * 
+	 * @param files
+	 *            The listed files.
+	 * @return The inner class files whose base class is listed.
+	 */
+	private static Set<String> getInnerClasses(List<String> files) {
+		// Declare class collections
+		Set<String> possibleInnerClasses = new HashSet<>();
+		Set<String> baseClasses = new HashSet<>();
+		// Check each file
+		for (String entryName : files) {
 			// Check not class file
-			if (!entryName.endsWith(".class")) {
-				files.add(entryName);
+			if (!entryName.endsWith(".class"))
 				continue;
-			}
 			// Check inner class pattern
 			if (JarLister.INNER_CLASS_PATTERN.matcher(entryName).matches()) {
 				possibleInnerClasses.add(entryName);
@@ -72,22 +266,17 @@ public class JarLister {
 			}
 			// Add class to base class
 			baseClasses.add(entryName);
-			files.add(entryName);
 		}
-		// Check inner class filter
-		if (!includeInnerClass) {
-			// Check each inner class
-			for (String inner : possibleInnerClasses) {
-				// com/acme/Connection$Conn$1.class -> com/acme/Connection
-				String innerWithoutTail = inner.replaceAll("\\$[^(/|\\\\)]+\\.class$", "");
-				// Skip inner class
-				if (baseClasses.contains(innerWithoutTail+".class"))
-					continue;
-				// Keep Badly$Named but not inner classes
-				files.add(inner);
-			}
+		// Check each inner class
+		Set<String> innerClasses = new HashSet<>();
+		for (String entryName : possibleInnerClasses) {
+			// com/acme/Connection$Conn$1.class -> com/acme/Connection
+			String innerWithoutTail = entryName.replaceAll("\\$[^(/|\\\\)]+\\.class$", "");
+			// Skip inner class but keep Badly$Named
+			if (baseClasses.contains(innerWithoutTail+".class"))
+				innerClasses.add(entryName);
 		}
-		// Return listed files
-		return files;
+		// Return inner classes
+		return innerClasses;
 	}
-}
\ No newline at end of file
+}
@@ -1,15 +1,9 @@
 package com.modcrafting.luyten.model;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystemNotFoundException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 
+import com.modcrafting.luyten.model.tree.PackageIndex;
 import com.modcrafting.luyten.model.tree.ResourceNode;
 
 /**
@@ -32,34 +26,40 @@ public class JarModel extends AbstractModel {
 	 */
 	public JarModel(Path path) throws Exception {
 		super(path);
-		// Create ZIP file system
-		String originalUri = path.toUri().toString();
-		String jarUri = "jar:file:"+originalUri.substring(5);
-		FileSystem fileSystem = null;
+		// Index JAR entries
+		PackageIndex index;
 		try {
-			URI uri = new URI(jarUri);
-			try {
-				fileSystem = FileSystems.getFileSystem(uri);
-			} catch (FileSystemNotFoundException exception) {
-				fileSystem = FileSystems.newFileSystem(uri, new HashMap<String, String>(), null);
-			}
-		} catch (IOException|URISyntaxException exception) {
-			throw new Exception("Unable to create JAR file system.", exception);
+			index = new PackageIndex(JarLister.listFiles(path.toFile(), true));
+		} catch (IOException exception) {
+			throw new Exception("Unable to read JAR.", exception);
 		}
 		// Create resource nodes
 		this.rootResourceNode = new ResourceNode(this.path.getFileName().toString(), true);
-		try {
-			for (Path rootPath : fileSystem.getRootDirectories()) {
-				Files.walkFileTree(rootPath, new ResourceVisitor(this.rootResourceNode));
-			}
-		} catch (IOException exception) {
-			throw new Exception("Unable to visit JAR.", exception);
-		}
+		this.addResourceNodes(this.rootResourceNode, index.getRoot());
 		this.rootResourceNode.sort();
 	}
 
+	/**
+	 * Add resource nodes of an indexed directory.
+	 * 
+	 * @param node
+	 *            The resource node of the directory.
+	 * @param directory
+	 *            The indexed directory.
+	 */
+	private void addResourceNodes(ResourceNode node, PackageIndex.Directory directory) {
+		for (PackageIndex.Directory subDirectory : directory.getDirectories()) {
+			ResourceNode directoryNode = new ResourceNode(subDirectory.getName(), true);
+			node.addChild(directoryNode);
+			this.addResourceNodes(directoryNode, subDirectory);
+		}
+		for (String fileName : directory.getFiles()) {
+			node.addChild(new ResourceNode(fileName, false));
+		}
+	}
+
 	@Override
 	public ResourceNode getResources() {
 		return this.rootResourceNode;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,667 @@
+package com.modcrafting.luyten.model.classfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class reads the constant pool, the header and the members of a class file, without loading the class.<br>
+ * The constant pool is indexed when the reader is created, constants and members are decoded on demand. A reader is
+ * not thread safe: use one reader per thread.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ClassFileReader {
+	/** The class file magic number. */
+	public static final int MAGIC = 0xCAFEBABE;
+	/** The UTF-8 constant tag. */
+	public static final int CONSTANT_UTF8 = 1;
+	/** The integer constant tag. */
+	public static final int CONSTANT_INTEGER = 3;
+	/** The float constant tag. */
+	public static final int CONSTANT_FLOAT = 4;
+	/** The long constant tag. */
+	public static final int CONSTANT_LONG = 5;
+	/** The double constant tag. */
+	public static final int CONSTANT_DOUBLE = 6;
+	/** The class reference constant tag. */
+	public static final int CONSTANT_CLASS = 7;
+	/** The string constant tag. */
+	public static final int CONSTANT_STRING = 8;
+	/** The field reference constant tag. */
+	public static final int CONSTANT_FIELDREF = 9;
+	/** The method reference constant tag. */
+	public static final int CONSTANT_METHODREF = 10;
+	/** The interface method reference constant tag. */
+	public static final int CONSTANT_INTERFACE_METHODREF = 11;
+	/** The name and type constant tag. */
+	public static final int CONSTANT_NAME_AND_TYPE = 12;
+	/** The method handle constant tag. */
+	public static final int CONSTANT_METHOD_HANDLE = 15;
+	/** The method type constant tag. */
+	public static final int CONSTANT_METHOD_TYPE = 16;
+	/** The dynamic constant tag. */
+	public static final int CONSTANT_DYNAMIC = 17;
+	/** The invoke dynamic constant tag. */
+	public static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	/** The module constant tag. */
+	public static final int CONSTANT_MODULE = 19;
+	/** The package constant tag. */
+	public static final int CONSTANT_PACKAGE = 20;
+	/** The name of the method bytecode attribute. */
+	private static final String CODE_ATTRIBUTE = "Code";
+	/** The name of the class bootstrap methods attribute. */
+	private static final String BOOTSTRAP_METHODS_ATTRIBUTE = "BootstrapMethods";
+	/**
+	 * The length of the instructions by opcode (<code>0</code> for the variable length instructions and the undefined
+	 * opcodes).
+	 */
+	private static final byte[] INSTRUCTION_LENGTHS = new byte[256];
+	static {
+		Arrays.fill(ClassFileReader.INSTRUCTION_LENGTHS, 0x00, 0xCA, (byte) 1);
+		// bipush, ldc, loads, stores, ret and newarray take a byte operand
+		for (int opcode : new int[] { 0x10, 0x12, 0x15, 0x16, 0x17, 0x18, 0x19, 0x36, 0x37, 0x38, 0x39, 0x3A, 0xA9,
+				0xBC })
+			ClassFileReader.INSTRUCTION_LENGTHS[opcode] = 2;
+		// sipush, wide ldc, iinc, branches and constant pool references take a short operand
+		for (int opcode : new int[] { 0x11, 0x13, 0x14, 0x84, 0xB2, 0xB3, 0xB4, 0xB5, 0xB6, 0xB7, 0xB8, 0xBB, 0xBD,
+				0xC0, 0xC1, 0xC6, 0xC7 })
+			ClassFileReader.INSTRUCTION_LENGTHS[opcode] = 3;
+		Arrays.fill(ClassFileReader.INSTRUCTION_LENGTHS, 0x99, 0xA9, (byte) 3);
+		// multianewarray
+		ClassFileReader.INSTRUCTION_LENGTHS[0xC5] = 4;
+		// invokeinterface, invokedynamic and wide branches
+		for (int opcode : new int[] { 0xB9, 0xBA, 0xC8, 0xC9 })
+			ClassFileReader.INSTRUCTION_LENGTHS[opcode] = 5;
+		// tableswitch, lookupswitch and wide have a variable length
+		for (int opcode : new int[] { 0xAA, 0xAB, 0xC4 })
+			ClassFileReader.INSTRUCTION_LENGTHS[opcode] = 0;
+	}
+
+	/** The class file bytes. */
+	private final byte[] bytes;
+	/** The constant tags, by constant index. */
+	private final byte[] tags;
+	/** The offsets of the constant data (after the tag), by constant index. */
+	private final int[] offsets;
+	/** The decoded UTF-8 constants, by constant index. */
+	private final String[] utf8s;
+	/** The offset of the class header (access flags), after the constant pool. */
+	private final int headerOffset;
+	/** The declared fields (<code>null</code> until read). */
+	private List<ClassMember> fields;
+	/** The declared methods (<code>null</code> until read). */
+	private List<ClassMember> methods;
+	/** The offset of the class attributes, after the member tables (<code>-1</code> until members are read). */
+	private int attributesOffset = -1;
+	/** The offsets of the bootstrap methods, by bootstrap method index (<code>null</code> until read). */
+	private int[] bootstrapMethodOffsets;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param bytes
+	 *            The class file bytes.
+	 * @throws IOException
+	 *             Throws exception if the bytes are not a valid class file.
+	 */
+	public ClassFileReader(byte[] bytes) throws IOException {
+		this.bytes = bytes;
+		try {
+			// Check magic number
+			if (this.readInt(0)!=ClassFileReader.MAGIC)
+				throw new IOException("Not a class file");
+			// Index constant pool
+			int count = this.readUnsignedShort(8);
+			this.tags = new byte[count];
+			this.offsets = new int[count];
+			this.utf8s = new String[count];
+			int offset = 10;
+			for (int index = 1; index<count; index++) {
+				int tag = bytes[offset];
+				this.tags[index] = (byte) tag;
+				this.offsets[index] = offset+1;
+				switch (tag) {
+					case ClassFileReader.CONSTANT_UTF8:
+						offset += 3+this.readUnsignedShort(offset+1);
+						break;
+					case ClassFileReader.CONSTANT_CLASS:
+					case ClassFileReader.CONSTANT_STRING:
+					case ClassFileReader.CONSTANT_METHOD_TYPE:
+					case ClassFileReader.CONSTANT_MODULE:
+					case ClassFileReader.CONSTANT_PACKAGE:
+						offset += 3;
+						break;
+					case ClassFileReader.CONSTANT_METHOD_HANDLE:
+						offset += 4;
+						break;
+					case ClassFileReader.CONSTANT_INTEGER:
+					case ClassFileReader.CONSTANT_FLOAT:
+					case ClassFileReader.CONSTANT_FIELDREF:
+					case ClassFileReader.CONSTANT_METHODREF:
+					case ClassFileReader.CONSTANT_INTERFACE_METHODREF:
+					case ClassFileReader.CONSTANT_NAME_AND_TYPE:
+					case ClassFileReader.CONSTANT_DYNAMIC:
+					case ClassFileReader.CONSTANT_INVOKE_DYNAMIC:
+						offset += 5;
+						break;
+					case ClassFileReader.CONSTANT_LONG:
+					case ClassFileReader.CONSTANT_DOUBLE:
+						// Eight byte constants take two indexes
+						offset += 9;
+						index++;
+						break;
+					default:
+						throw new IOException("Invalid constant tag "+tag+" at index "+index);
+				}
+			}
+			this.headerOffset = offset;
+			// Check header is complete
+			if (offset+8>bytes.length)
+				throw new IOException("Truncated class file");
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated class file", exception);
+		}
+	}
+
+	/**
+	 * Get the number of constant pool indexes.
+	 * 
+	 * @return The number of constant pool indexes (valid indexes are from <code>1</code> to count excluded).
+	 */
+	public int getConstantCount() {
+		return this.tags.length;
+	}
+
+	/**
+	 * Get the tag of a constant.
+	 * 
+	 * @param index
+	 *            The constant index.
+	 * @return The constant tag, <code>0</code> for the unusable index following an eight byte constant.
+	 */
+	public int getTag(int index) {
+		return this.tags[index];
+	}
+
+	/**
+	 * Get the first index a constant references (the name of a class, the value of a string, the owner of a member
+	 * reference, etc).
+	 * 
+	 * @param index
+	 *            The constant index.
+	 * @return The first referenced constant index.
+	 */
+	public int getReference(int index) {
+		return this.readUnsignedShort(this.offsets[index]);
+	}
+
+	/**
+	 * Get the second index a constant references (the name and type of a member reference, the descriptor of a
+	 * name and type, etc).
+	 * 
+	 * @param index
+	 *            The constant index.
+	 * @return The second referenced constant index.
+	 */
+	public int getSecondReference(int index) {
+		return this.readUnsignedShort(this.offsets[index]+2);
+	}
+
+	/**
+	 * Get the value of a UTF-8 constant.
+	 * 
+	 * @param index
+	 *            The UTF-8 constant index.
+	 * @return The decoded value.
+	 * @throws IllegalArgumentException
+	 *             Throws exception if the constant is not a UTF-8 constant.
+	 */
+	public String getUtf8(int index) {
+		// Check cached value
+		String value = this.utf8s[index];
+		if (value!=null)
+			return value;
+		this.checkTag(index, ClassFileReader.CONSTANT_UTF8);
+		// Decode modified UTF-8 value
+		int offset = this.offsets[index];
+		int end = offset+2+this.readUnsignedShort(offset);
+		char[] chars = new char[end-offset-2];
+		int length = 0;
+		for (int position = offset+2; position<end;) {
+			int b = this.bytes[position]&0xFF;
+			if (b<0x80) {
+				chars[length++] = (char) b;
+				position++;
+			} else if ((b&0xE0)==0xC0) {
+				chars[length++] = (char) ((b&0x1F)<<6|this.bytes[position+1]&0x3F);
+				position += 2;
+			} else {
+				chars[length++] = (char) ((b&0x0F)<<12|(this.bytes[position+1]&0x3F)<<6|this.bytes[position+2]&0x3F);
+				position += 3;
+			}
+		}
+		value = new String(chars, 0, length);
+		this.utf8s[index] = value;
+		return value;
+	}
+
+	/**
+	 * Get the internal name of a class reference constant.
+	 * 
+	 * @param index
+	 *            The class constant index.
+	 * @return The internal name of the class (or the descriptor of an array class), <code>null</code> for the index
+	 *         <code>0</code>.
+	 */
+	public String getClassName(int index) {
+		if (index==0)
+			return null;
+		this.checkTag(index, ClassFileReader.CONSTANT_CLASS);
+		return this.getUtf8(this.getReference(index));
+	}
+
+	/**
+	 * Get the value of a string constant.
+	 * 
+	 * @param index
+	 *            The string constant index.
+	 * @return The string value.
+	 */
+	public String getString(int index) {
+		this.checkTag(index, ClassFileReader.CONSTANT_STRING);
+		return this.getUtf8(this.getReference(index));
+	}
+
+	/**
+	 * Get the field or method reference constant of a method handle constant.
+	 * 
+	 * @param index
+	 *            The method handle constant index.
+	 * @return The referenced field or method reference constant index.
+	 */
+	public int getMethodHandleMember(int index) {
+		this.checkTag(index, ClassFileReader.CONSTANT_METHOD_HANDLE);
+		// Skip reference kind
+		return this.readUnsignedShort(this.offsets[index]+1);
+	}
+
+	/**
+	 * Get the bootstrap method handle and the static arguments of a dynamic or invoke dynamic constant (the method
+	 * handles of lambdas and method references for example).
+	 * 
+	 * @param index
+	 *            The dynamic or invoke dynamic constant index.
+	 * @return The constant index of the bootstrap method handle followed by the constant indexes of its arguments.
+	 * @throws IOException
+	 *             Throws exception if the bootstrap methods attribute is truncated or misses the bootstrap method.
+	 */
+	public int[] getBootstrapReferences(int index) throws IOException {
+		int tag = this.tags[index];
+		if (tag!=ClassFileReader.CONSTANT_DYNAMIC&&tag!=ClassFileReader.CONSTANT_INVOKE_DYNAMIC)
+			throw new IllegalArgumentException("Constant "+index+" is not a dynamic constant: "+tag);
+		this.readBootstrapMethods();
+		int bootstrapMethodIndex = this.getReference(index);
+		if (bootstrapMethodIndex>=this.bootstrapMethodOffsets.length)
+			throw new IOException("Missing bootstrap method "+bootstrapMethodIndex);
+		try {
+			int offset = this.bootstrapMethodOffsets[bootstrapMethodIndex];
+			int[] references = new int[1+this.readUnsignedShort(offset+2)];
+			references[0] = this.readUnsignedShort(offset);
+			for (int i = 1; i<references.length; i++) {
+				references[i] = this.readUnsignedShort(offset+2+2*i);
+			}
+			return references;
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated bootstrap methods", exception);
+		}
+	}
+
+	/**
+	 * Get the owner internal name of a field or method reference constant.
+	 * 
+	 * @param index
+	 *            The member reference constant index.
+	 * @return The owner internal name.
+	 */
+	public String getMemberOwner(int index) {
+		this.checkMemberReference(index);
+		return this.getClassName(this.getReference(index));
+	}
+
+	/**
+	 * Get the name of a field or method reference constant.
+	 * 
+	 * @param index
+	 *            The member reference constant index.
+	 * @return The member name.
+	 */
+	public String getMemberName(int index) {
+		this.checkMemberReference(index);
+		int nameAndType = this.getSecondReference(index);
+		this.checkTag(nameAndType, ClassFileReader.CONSTANT_NAME_AND_TYPE);
+		return this.getUtf8(this.getReference(nameAndType));
+	}
+
+	/**
+	 * Get the descriptor of a field or method reference constant.
+	 * 
+	 * @param index
+	 *            The member reference constant index.
+	 * @return The member descriptor.
+	 */
+	public String getMemberDescriptor(int index) {
+		this.checkMemberReference(index);
+		int nameAndType = this.getSecondReference(index);
+		this.checkTag(nameAndType, ClassFileReader.CONSTANT_NAME_AND_TYPE);
+		return this.getUtf8(this.getSecondReference(nameAndType));
+	}
+
+	/**
+	 * Get the access flags of the class.
+	 * 
+	 * @return The class access flags.
+	 */
+	public int getAccessFlags() {
+		return this.readUnsignedShort(this.headerOffset);
+	}
+
+	/**
+	 * Get the internal name of the class.
+	 * 
+	 * @return The class internal name.
+	 */
+	public String getThisClass() {
+		return this.getClassName(this.readUnsignedShort(this.headerOffset+2));
+	}
+
+	/**
+	 * Get the internal name of the super class.
+	 * 
+	 * @return The super class internal name, <code>null</code> for <code>java/lang/Object</code> and modules.
+	 */
+	public String getSuperClass() {
+		return this.getClassName(this.readUnsignedShort(this.headerOffset+4));
+	}
+
+	/**
+	 * Get the internal names of the implemented interfaces (the extended interfaces for an interface).
+	 * 
+	 * @return The interface internal names.
+	 * @throws IOException
+	 *             Throws exception if the interface table is truncated.
+	 */
+	public String[] getInterfaces() throws IOException {
+		try {
+			int count = this.readUnsignedShort(this.headerOffset+6);
+			String[] interfaces = new String[count];
+			for (int i = 0; i<count; i++) {
+				interfaces[i] = this.getClassName(this.readUnsignedShort(this.headerOffset+8+2*i));
+			}
+			return interfaces;
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated class file", exception);
+		}
+	}
+
+	/**
+	 * Get the fields declared by the class.
+	 * 
+	 * @return The declared fields, in class file order.
+	 * @throws IOException
+	 *             Throws exception if the member tables are truncated.
+	 */
+	public List<ClassMember> getFields() throws IOException {
+		this.readMembers();
+		return this.fields;
+	}
+
+	/**
+	 * Get the methods declared by the class.
+	 * 
+	 * @return The declared methods (constructors and initializers included), in class file order.
+	 * @throws IOException
+	 *             Throws exception if the member tables are truncated.
+	 */
+	public List<ClassMember> getMethods() throws IOException {
+		this.readMembers();
+		return this.methods;
+	}
+
+	/**
+	 * Get the constants referenced by the bytecode of a method: field and method references of field accesses and
+	 * invocations, invoke dynamic constants of dynamic invocations (lambdas, method references, string
+	 * concatenations), classes of allocations, casts and type checks, and loaded constants.
+	 * 
+	 * @param method
+	 *            The method to read bytecode from (a method of this reader).
+	 * @return The referenced constant indexes, in bytecode order (an index is repeated for each of its instructions).
+	 * @throws IOException
+	 *             Throws exception if the bytecode is not valid.
+	 */
+	public int[] getCodeReferences(ClassMember method) throws IOException {
+		int[] references = new int[16];
+		int count = 0;
+		int start = method.codeOffset;
+		int end = start+method.codeLength;
+		try {
+			int position = start;
+			while (position<end) {
+				int opcode = this.bytes[position]&0xFF;
+				int reference = 0;
+				int length = ClassFileReader.INSTRUCTION_LENGTHS[opcode];
+				switch (opcode) {
+					case 0x12:
+						// ldc
+						reference = this.bytes[position+1]&0xFF;
+						break;
+					case 0x13: // ldc_w
+					case 0x14: // ldc2_w
+					case 0xB2: // getstatic
+					case 0xB3: // putstatic
+					case 0xB4: // getfield
+					case 0xB5: // putfield
+					case 0xB6: // invokevirtual
+					case 0xB7: // invokespecial
+					case 0xB8: // invokestatic
+					case 0xB9: // invokeinterface
+					case 0xBA: // invokedynamic
+					case 0xBB: // new
+					case 0xBD: // anewarray
+					case 0xC0: // checkcast
+					case 0xC1: // instanceof
+					case 0xC5: // multianewarray
+						reference = this.readUnsignedShort(position+1);
+						break;
+					case 0xAA: {
+						// tableswitch: padding, default, low, high and the offsets
+						int aligned = start+(position-start+4&~3);
+						int low = this.readInt(aligned+4);
+						int high = this.readInt(aligned+8);
+						length = aligned-position+12+4*(high-low+1);
+						break;
+					}
+					case 0xAB: {
+						// lookupswitch: padding, default, pair count and the pairs
+						int aligned = start+(position-start+4&~3);
+						length = aligned-position+8+8*this.readInt(aligned+4);
+						break;
+					}
+					case 0xC4:
+						// wide: iinc has a short constant too
+						length = (this.bytes[position+1]&0xFF)==0x84 ? 6 : 4;
+						break;
+					default:
+						break;
+				}
+				// Check instruction
+				if (length<=0)
+					throw new IOException("Invalid opcode "+opcode+" at "+(position-start));
+				if (reference!=0) {
+					if (count==references.length)
+						references = Arrays.copyOf(references, count*2);
+					references[count++] = reference;
+				}
+				position += length;
+			}
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated bytecode", exception);
+		}
+		return Arrays.copyOf(references, count);
+	}
+
+	/**
+	 * Read the field and method tables, unless already read.
+	 * 
+	 * @throws IOException
+	 *             Throws exception if the member tables are truncated.
+	 */
+	private void readMembers() throws IOException {
+		// Check members are read
+		if (this.methods!=null)
+			return;
+		try {
+			int offset = this.headerOffset+6;
+			offset += 2+2*this.readUnsignedShort(offset);
+			List<ClassMember> readFields = new ArrayList<>();
+			offset = this.readMemberTable(offset, readFields);
+			List<ClassMember> readMethods = new ArrayList<>();
+			this.attributesOffset = this.readMemberTable(offset, readMethods);
+			this.fields = readFields;
+			this.methods = readMethods;
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated class file", exception);
+		}
+	}
+
+	/**
+	 * Read the bootstrap methods attribute of the class, unless already read.
+	 * 
+	 * @throws IOException
+	 *             Throws exception if the class attributes are truncated.
+	 */
+	private void readBootstrapMethods() throws IOException {
+		// Check bootstrap methods are read
+		if (this.bootstrapMethodOffsets!=null)
+			return;
+		this.readMembers();
+		int[] offsets = new int[0];
+		try {
+			int offset = this.attributesOffset;
+			int attributeCount = this.readUnsignedShort(offset);
+			offset += 2;
+			for (int attributeIndex = 0; attributeIndex<attributeCount; attributeIndex++) {
+				String attributeName = this.getUtf8(this.readUnsignedShort(offset));
+				int attributeLength = this.readInt(offset+2);
+				if (ClassFileReader.BOOTSTRAP_METHODS_ATTRIBUTE.equals(attributeName)) {
+					// Index each bootstrap method: method handle, argument count and arguments
+					offsets = new int[this.readUnsignedShort(offset+6)];
+					int methodOffset = offset+8;
+					for (int i = 0; i<offsets.length; i++) {
+						offsets[i] = methodOffset;
+						methodOffset += 4+2*this.readUnsignedShort(methodOffset+2);
+					}
+					break;
+				}
+				offset += 6+attributeLength;
+			}
+		} catch (ArrayIndexOutOfBoundsException exception) {
+			throw new IOException("Truncated class attributes", exception);
+		}
+		this.bootstrapMethodOffsets = offsets;
+	}
+
+	/**
+	 * Read a field or method table.
+	 * 
+	 * @param offset
+	 *            The offset of the table.
+	 * @param members
+	 *            The list to add the read members to.
+	 * @return The offset following the table.
+	 * @throws IOException
+	 *             Throws exception if the table is truncated.
+	 */
+	private int readMemberTable(int offset, List<ClassMember> members) throws IOException {
+		int memberCount = this.readUnsignedShort(offset);
+		offset += 2;
+		for (int memberIndex = 0; memberIndex<memberCount; memberIndex++) {
+			int accessFlags = this.readUnsignedShort(offset);
+			String name = this.getUtf8(this.readUnsignedShort(offset+2));
+			String descriptor = this.getUtf8(this.readUnsignedShort(offset+4));
+			int attributeCount = this.readUnsignedShort(offset+6);
+			offset += 8;
+			int codeOffset = -1;
+			int codeLength = 0;
+			for (int attributeIndex = 0; attributeIndex<attributeCount; attributeIndex++) {
+				String attributeName = this.getUtf8(this.readUnsignedShort(offset));
+				int attributeLength = this.readInt(offset+2);
+				if (ClassFileReader.CODE_ATTRIBUTE.equals(attributeName)) {
+					// Skip max stack and max locals
+					codeLength = this.readInt(offset+10);
+					codeOffset = offset+14;
+				}
+				offset += 6+attributeLength;
+			}
+			// Check member is complete
+			if (offset>this.bytes.length||codeOffset+codeLength>this.bytes.length)
+				throw new IOException("Truncated member: "+name);
+			members.add(new ClassMember(accessFlags, name, descriptor, codeOffset, codeLength));
+		}
+		return offset;
+	}
+
+	/**
+	 * Check the tag of a constant.
+	 * 
+	 * @param index
+	 *            The constant index.
+	 * @param tag
+	 *            The expected tag.
+	 * @throws IllegalArgumentException
+	 *             Throws exception if the constant has another tag.
+	 */
+	private void checkTag(int index, int tag) {
+		if (this.tags[index]!=tag)
+			throw new IllegalArgumentException("Constant "+index+" is not of tag "+tag+": "+this.tags[index]);
+	}
+
+	/**
+	 * Check a constant is a field or method reference.
+	 * 
+	 * @param index
+	 *            The constant index.
+	 * @throws IllegalArgumentException
+	 *             Throws exception if the constant is not a member reference.
+	 */
+	private void checkMemberReference(int index) {
+		int tag = this.tags[index];
+		if (tag!=ClassFileReader.CONSTANT_FIELDREF&&tag!=ClassFileReader.CONSTANT_METHODREF
+				&&tag!=ClassFileReader.CONSTANT_INTERFACE_METHODREF)
+			throw new IllegalArgumentException("Constant "+index+" is not a member reference: "+tag);
+	}
+
+	/**
+	 * Read an unsigned short from the class file bytes.
+	 * 
+	 * @param offset
+	 *            The offset to read from.
+	 * @return The read value.
+	 */
+	private int readUnsignedShort(int offset) {
+		return (this.bytes[offset]&0xFF)<<8|this.bytes[offset+1]&0xFF;
+	}
+
+	/**
+	 * Read an integer from the class file bytes.
+	 * 
+	 * @param offset
+	 *            The offset to read from.
+	 * @return The read value.
+	 */
+	private int readInt(int offset) {
+		return this.readUnsignedShort(offset)<<16|this.readUnsignedShort(offset+2);
+	}
+}
@@ -0,0 +1,146 @@
+package com.modcrafting.luyten.model.classfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+import com.modcrafting.luyten.task.ScheduledTask;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class scans the class files of a jar in parallel, without loading them.<br>
+ * The jar is memory-mapped and its class files are parsed by {@link ClassFileReader}, on the shared workers of the
+ * task it runs in (see {@link TaskScheduler#getWorkers(TaskPriority)}). The scan stops when this task is cancelled.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ClassFileScanner {
+	/** The class file extension. */
+	private static final String CLASS_EXTENSION = ".class";
+	/** The metadata folder (its versioned classes are not part of the jar types). */
+	private static final String META_INF = "META-INF/";
+
+	/** The jar file. */
+	private final File file;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 */
+	public ClassFileScanner(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Scan the class files of the jar.<br>
+	 * Classes are visited concurrently, in no particular order. Invalid class files are skipped.
+	 * 
+	 * @param visitor
+	 *            The class file visitor (called from several threads).
+	 * @return <code>true</code> if all class files were visited, <code>false</code> if the scan was cancelled or
+	 *         stopped by the visitor.
+	 * @throws IOException
+	 *             Throws exception if the jar could not be read.
+	 */
+	public boolean scan(final Visitor visitor) throws IOException {
+		TaskScheduler scheduler = TaskScheduler.getLoadedInstance();
+		final ScheduledTask task = scheduler.getCurrentTask();
+		try (final ZipArchive archive = ZipArchive.openMapped(this.file)) {
+			// List class entries
+			final List<ZipArchiveEntry> entries = new ArrayList<>();
+			for (ZipArchiveEntry entry : archive.getEntries()) {
+				if (entry.getName().endsWith(ClassFileScanner.CLASS_EXTENSION)
+						&&!entry.getName().startsWith(ClassFileScanner.META_INF))
+					entries.add(entry);
+			}
+			// Start workers
+			int workerCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), entries.size()));
+			final AtomicInteger nextEntry = new AtomicInteger();
+			final AtomicBoolean stopped = new AtomicBoolean();
+			ExecutorService executor = scheduler.getWorkers(task==null ? TaskPriority.BACKGROUND : task.getPriority());
+			List<Future<?>> workers = new ArrayList<>();
+			boolean complete = false;
+			try {
+				for (int i = 0; i<workerCount; i++) {
+					workers.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							int index;
+							while (!stopped.get()&&(index = nextEntry.getAndIncrement())<entries.size()) {
+								// Check cancellation
+								if (task!=null&&task.isCancelled()) {
+									stopped.set(true);
+									return;
+								}
+								ZipArchiveEntry entry = entries.get(index);
+								ClassFileReader reader;
+								try {
+									reader = new ClassFileReader(archive.getBytes(entry));
+								} catch (IOException exception) {
+									continue;
+								}
+								String typeName = entry.getName().substring(0,
+										entry.getName().length()-ClassFileScanner.CLASS_EXTENSION.length());
+								try {
+									if (!visitor.visitClass(typeName, reader))
+										stopped.set(true);
+								} catch (IllegalArgumentException|IndexOutOfBoundsException exception) {
+									// Skip malformed class file
+								}
+							}
+						}
+					}));
+				}
+				// Wait for workers
+				for (Future<?> worker : workers) {
+					try {
+						worker.get();
+					} catch (ExecutionException exception) {
+						throw new IOException(exception.getCause());
+					}
+				}
+				complete = !stopped.get();
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			} finally {
+				// Release the shared workers from the remaining work
+				stopped.set(true);
+				for (Future<?> worker : workers) {
+					worker.cancel(false);
+				}
+			}
+			return complete;
+		}
+	}
+
+	/**
+	 * This interface visits the class files of a scan.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public interface Visitor {
+		/**
+		 * Visit a class file.
+		 * 
+		 * @param typeName
+		 *            The internal name of the class (from its entry name).
+		 * @param reader
+		 *            The class file reader (not shared with other threads).
+		 * @return <code>true</code> to continue the scan, <code>false</code> to stop it.
+		 */
+		boolean visitClass(String typeName, ClassFileReader reader);
+	}
+}
@@ -0,0 +1,78 @@
+package com.modcrafting.luyten.model.classfile;
+
+/**
+ * This class represents a field or a method declared in a class file.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ClassMember {
+	/** The member access flags. */
+	private final int accessFlags;
+	/** The member name. */
+	private final String name;
+	/** The member descriptor. */
+	private final String descriptor;
+	/** The offset of the method bytecode in the class file (<code>-1</code> if none). */
+	final int codeOffset;
+	/** The length of the method bytecode (<code>0</code> if none). */
+	final int codeLength;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param accessFlags
+	 *            The member access flags.
+	 * @param name
+	 *            The member name.
+	 * @param descriptor
+	 *            The member descriptor.
+	 * @param codeOffset
+	 *            The offset of the method bytecode in the class file (<code>-1</code> if none).
+	 * @param codeLength
+	 *            The length of the method bytecode (<code>0</code> if none).
+	 */
+	ClassMember(int accessFlags, String name, String descriptor, int codeOffset, int codeLength) {
+		this.accessFlags = accessFlags;
+		this.name = name;
+		this.descriptor = descriptor;
+		this.codeOffset = codeOffset;
+		this.codeLength = codeLength;
+	}
+
+	/**
+	 * Get the member access flags.
+	 * 
+	 * @return The member access flags.
+	 */
+	public int getAccessFlags() {
+		return this.accessFlags;
+	}
+
+	/**
+	 * Get the member name.
+	 * 
+	 * @return The member name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Get the member descriptor.
+	 * 
+	 * @return The member descriptor.
+	 */
+	public String getDescriptor() {
+		return this.descriptor;
+	}
+
+	/**
+	 * Check whether the member has bytecode.
+	 * 
+	 * @return <code>true</code> if the member is a method with bytecode, <code>false</code> otherwise.
+	 */
+	public boolean hasCode() {
+		return this.codeOffset>=0;
+	}
+}
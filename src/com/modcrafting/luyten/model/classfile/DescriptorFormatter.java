@@ -0,0 +1,102 @@
+package com.modcrafting.luyten.model.classfile;
+
+/**
+ * This class formats the names and descriptors read from class files for display.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class DescriptorFormatter {
+	/**
+	 * Do not instantiate, use static methods.
+	 */
+	private DescriptorFormatter() {
+	}
+
+	/**
+	 * Get the simple name of a type, without its package.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The type name without its package (nested type names keep their outer type names).
+	 */
+	public static String getSimpleName(String typeName) {
+		return typeName.substring(typeName.lastIndexOf('/')+1);
+	}
+
+	/**
+	 * Format a method with its simple parameter type names, as <code>name(String, int[])</code>.
+	 * 
+	 * @param owner
+	 *            The internal name of the declaring type.
+	 * @param name
+	 *            The method name.
+	 * @param descriptor
+	 *            The method descriptor.
+	 * @return The formatted method (the simple type name for constructors).
+	 */
+	public static String formatMethod(String owner, String name, String descriptor) {
+		// Check initializers
+		if ("<clinit>".equals(name))
+			return "static initializer";
+		if ("<init>".equals(name))
+			name = owner.substring(Math.max(owner.lastIndexOf('/'), owner.lastIndexOf('$'))+1);
+		StringBuilder description = new StringBuilder(name).append('(');
+		int index = 1;
+		while (index<descriptor.length()&&descriptor.charAt(index)!=')') {
+			// Skip array dimensions
+			int dimensions = 0;
+			while (descriptor.charAt(index)=='[') {
+				dimensions++;
+				index++;
+			}
+			String parameterType;
+			char code = descriptor.charAt(index);
+			if (code=='L') {
+				int end = descriptor.indexOf(';', index);
+				parameterType = DescriptorFormatter.getSimpleName(descriptor.substring(index+1, end)).replace('$', '.');
+				index = end+1;
+			} else {
+				parameterType = DescriptorFormatter.getPrimitiveName(code);
+				index++;
+			}
+			if (description.charAt(description.length()-1)!='(')
+				description.append(", ");
+			description.append(parameterType);
+			for (int dimension = 0; dimension<dimensions; dimension++) {
+				description.append("[]");
+			}
+		}
+		return description.append(')').toString();
+	}
+
+	/**
+	 * Get the name of a primitive type.
+	 * 
+	 * @param code
+	 *            The descriptor code of the primitive type.
+	 * @return The primitive type name.
+	 */
+	private static String getPrimitiveName(char code) {
+		switch (code) {
+			case 'B':
+				return "byte";
+			case 'C':
+				return "char";
+			case 'D':
+				return "double";
+			case 'F':
+				return "float";
+			case 'I':
+				return "int";
+			case 'J':
+				return "long";
+			case 'S':
+				return "short";
+			case 'Z':
+				return "boolean";
+			default:
+				return String.valueOf(code);
+		}
+	}
+}
@@ -0,0 +1,409 @@
+package com.modcrafting.luyten.model.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents a compact index of jar entries: a trie of directories.<br>
+ * It is built in a single pass over the entry names, without regular expressions. Path segments and file extensions
+ * are interned so the same strings are shared by all directories and files. Children are sorted on first access only,
+ * which lets tree nodes be created when their parent is expanded.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class PackageIndex {
+	/** The root directory. */
+	private final Directory root;
+	/** The interned path segments and extensions (only used while building). */
+	private Map<String, String> strings;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param entries
+	 *            The jar entries (files only) to index.
+	 */
+	public PackageIndex(List<String> entries) {
+		this.root = new Directory(null, "");
+		this.strings = new HashMap<>();
+		// Keep the directory of the previous entry: entries of a directory are usually contiguous
+		Directory lastDirectory = this.root;
+		String lastDirectoryPath = "";
+		for (String entry : entries) {
+			int separatorIndex = entry.lastIndexOf('/');
+			// Check same directory as previous entry
+			if (separatorIndex!=lastDirectoryPath.length()-1||!entry.startsWith(lastDirectoryPath)) {
+				lastDirectory = this.getDirectory(entry, separatorIndex);
+				lastDirectoryPath = entry.substring(0, separatorIndex+1);
+			}
+			this.addFile(lastDirectory, entry, separatorIndex);
+		}
+		// Release building resources
+		this.strings = null;
+	}
+
+	/**
+	 * Get (or create) the directory of an entry.
+	 * 
+	 * @param entry
+	 *            The entry name.
+	 * @param separatorIndex
+	 *            The index of the last separator of the entry name (<code>-1</code> for default package).
+	 * @return The entry directory.
+	 */
+	private Directory getDirectory(String entry, int separatorIndex) {
+		Directory directory = this.root;
+		int segmentStart = 0;
+		while (segmentStart<=separatorIndex) {
+			int segmentEnd = entry.indexOf('/', segmentStart);
+			String segment = this.intern(entry.substring(segmentStart, segmentEnd));
+			Directory child = directory.directories.get(segment);
+			if (child==null) {
+				child = new Directory(directory, segment);
+				directory.directories.put(segment, child);
+			}
+			directory = child;
+			segmentStart = segmentEnd+1;
+		}
+		return directory;
+	}
+
+	/**
+	 * Add a file to its directory.
+	 * 
+	 * @param directory
+	 *            The file directory.
+	 * @param entry
+	 *            The entry name.
+	 * @param separatorIndex
+	 *            The index of the last separator of the entry name (<code>-1</code> for default package).
+	 */
+	private void addFile(Directory directory, String entry, int separatorIndex) {
+		String fileName = separatorIndex==-1 ? entry : entry.substring(separatorIndex+1);
+		String extension = this.intern(fileName.substring(fileName.lastIndexOf('.')+1));
+		directory.files.add(new IndexedFile(fileName, extension));
+		// Check class containing package root: META-INF and default package are not packages
+		if (separatorIndex!=-1&&fileName.length()>extension.length()&&PackageIndex.isClassLike(extension)) {
+			Directory packageRoot = directory;
+			while (packageRoot.parent!=this.root) {
+				packageRoot = packageRoot.parent;
+			}
+			if (!packageRoot.name.startsWith("META-INF")&&packageRoot.name.trim().length()>0)
+				packageRoot.containsClasses = true;
+		}
+	}
+
+	/**
+	 * Intern a string for the index.
+	 * 
+	 * @param string
+	 *            The string to intern.
+	 * @return The interned string.
+	 */
+	private String intern(String string) {
+		String interned = this.strings.get(string);
+		if (interned==null) {
+			interned = string;
+			this.strings.put(interned, interned);
+		}
+		return interned;
+	}
+
+	/**
+	 * Check if a file extension looks like a Java source or class.
+	 * 
+	 * @param extension
+	 *            The file extension to check.
+	 * @return <code>true</code> for class, java and properties files, <code>false</code> otherwise.
+	 */
+	private static boolean isClassLike(String extension) {
+		return extension.equals("class")||extension.equals("java")||extension.equals("prop")||
+				extension.equals("properties");
+	}
+
+	/**
+	 * Get the root directory.
+	 * 
+	 * @return The root directory (its files are the default package).
+	 */
+	public Directory getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * Get a directory from its path.
+	 * 
+	 * @param path
+	 *            The directory path, without trailing separator (<code>""</code> for the root).
+	 * @return The directory, <code>null</code> if the index has no such directory.
+	 */
+	public Directory getDirectory(String path) {
+		Directory directory = this.root;
+		int start = 0;
+		while (directory!=null&&start<path.length()) {
+			int separatorIndex = path.indexOf('/', start);
+			if (separatorIndex==-1)
+				separatorIndex = path.length();
+			directory = directory.directories.get(path.substring(start, separatorIndex));
+			start = separatorIndex+1;
+		}
+		return directory;
+	}
+
+	/**
+	 * Add the index of an archive nested in the indexed jar.
+	 * 
+	 * @param path
+	 *            The path of the nested archive entry.
+	 * @param index
+	 *            The nested archive index.
+	 */
+	public void addNestedIndex(String path, PackageIndex index) {
+		int separatorIndex = path.lastIndexOf('/');
+		Directory directory = this.getDirectory(separatorIndex==-1 ? "" : path.substring(0, separatorIndex));
+		if (directory!=null)
+			directory.addNestedIndex(path.substring(separatorIndex+1), index);
+	}
+
+	/**
+	 * Get the directories containing files.
+	 * 
+	 * @return The directories containing files, in depth-first order of sorted names (the root excluded).
+	 */
+	public List<Directory> getFileDirectories() {
+		List<Directory> fileDirectories = new ArrayList<>();
+		for (Directory directory : this.root.getDirectories()) {
+			directory.collectFileDirectories(fileDirectories);
+		}
+		return fileDirectories;
+	}
+
+	/**
+	 * This class represents a directory of the index.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public static class Directory {
+		/** The parent directory (<code>null</code> for the root). */
+		private final Directory parent;
+		/** The directory name (interned segment). */
+		private final String name;
+		/** The sub-directories by name. */
+		private final Map<String, Directory> directories;
+		/** The files. */
+		private final List<IndexedFile> files;
+		/** Whether the directory is a root directory containing classes (Java packages rather than directories). */
+		private boolean containsClasses;
+		/** The sorted sub-directories (<code>null</code> until first access). */
+		private List<Directory> sortedDirectories;
+		/** The sorted file names (<code>null</code> until first access). */
+		private List<String> sortedFiles;
+		/** The indexes of the nested archives by file name (<code>null</code> if none). */
+		private Map<String, PackageIndex> nestedIndexes;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param parent
+		 *            The parent directory (<code>null</code> for the root).
+		 * @param name
+		 *            The directory name.
+		 */
+		private Directory(Directory parent, String name) {
+			this.parent = parent;
+			this.name = name;
+			this.directories = new HashMap<>(4);
+			this.files = new ArrayList<>(4);
+			this.containsClasses = false;
+		}
+
+		/**
+		 * Get the directory name.
+		 * 
+		 * @return The directory name (<code>""</code> for the root).
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Get the directory path.
+		 * 
+		 * @return The directory path, without trailing separator (<code>""</code> for the root).
+		 */
+		public String getPath() {
+			if (this.parent==null)
+				return "";
+			StringBuilder builder = new StringBuilder();
+			this.appendPath(builder);
+			return builder.toString();
+		}
+
+		/**
+		 * Append the directory path to a builder.
+		 * 
+		 * @param builder
+		 *            The builder to append path.
+		 */
+		private void appendPath(StringBuilder builder) {
+			if (this.parent.parent!=null) {
+				this.parent.appendPath(builder);
+				builder.append('/');
+			}
+			builder.append(this.name);
+		}
+
+		/**
+		 * Check if the directory is a root directory containing classes.
+		 * 
+		 * @return <code>true</code> if the directory is a Java package root, <code>false</code> otherwise.
+		 */
+		public boolean isClassContainingPackageRoot() {
+			return this.containsClasses;
+		}
+
+		/**
+		 * Get the package root of the directory.
+		 * 
+		 * @return The root level directory containing this directory.
+		 */
+		public Directory getPackageRoot() {
+			Directory packageRoot = this;
+			while (packageRoot.parent!=null&&packageRoot.parent.parent!=null) {
+				packageRoot = packageRoot.parent;
+			}
+			return packageRoot;
+		}
+
+		/**
+		 * Get the sub-directories.
+		 * 
+		 * @return The sub-directories, sorted by name.
+		 */
+		public synchronized List<Directory> getDirectories() {
+			if (this.sortedDirectories==null) {
+				List<String> names = new ArrayList<>(this.directories.keySet());
+				Collections.sort(names);
+				List<Directory> sorted = new ArrayList<>(names.size());
+				for (String directoryName : names) {
+					sorted.add(this.directories.get(directoryName));
+				}
+				this.sortedDirectories = Collections.unmodifiableList(sorted);
+			}
+			return this.sortedDirectories;
+		}
+
+		/**
+		 * Get the file names.
+		 * 
+		 * @return The file names, sorted by extension then name.
+		 */
+		public synchronized List<String> getFiles() {
+			if (this.sortedFiles==null) {
+				Collections.sort(this.files);
+				List<String> sorted = new ArrayList<>(this.files.size());
+				for (IndexedFile file : this.files) {
+					sorted.add(file.name);
+				}
+				this.sortedFiles = Collections.unmodifiableList(sorted);
+			}
+			return this.sortedFiles;
+		}
+
+		/**
+		 * Add the index of a nested archive file.
+		 * 
+		 * @param fileName
+		 *            The nested archive file name.
+		 * @param index
+		 *            The nested archive index.
+		 */
+		private synchronized void addNestedIndex(String fileName, PackageIndex index) {
+			if (this.nestedIndexes==null)
+				this.nestedIndexes = new HashMap<>(4);
+			this.nestedIndexes.put(fileName, index);
+		}
+
+		/**
+		 * Get the index of a nested archive file.
+		 * 
+		 * @param fileName
+		 *            The file name.
+		 * @return The nested archive index, <code>null</code> if the file is not an indexed archive.
+		 */
+		public synchronized PackageIndex getNestedIndex(String fileName) {
+			return this.nestedIndexes==null ? null : this.nestedIndexes.get(fileName);
+		}
+
+		/**
+		 * Check if the directory contains files.
+		 * 
+		 * @return <code>true</code> if the directory contains files (sub-directories excluded), <code>false</code>
+		 *         otherwise.
+		 */
+		public boolean hasFiles() {
+			return !this.files.isEmpty();
+		}
+
+		/**
+		 * Collect this directory and its sub-directories if they contains files.
+		 * 
+		 * @param fileDirectories
+		 *            The collected directories.
+		 */
+		private void collectFileDirectories(List<Directory> fileDirectories) {
+			if (this.hasFiles())
+				fileDirectories.add(this);
+			for (Directory directory : this.getDirectories()) {
+				directory.collectFileDirectories(fileDirectories);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return this.getPath();
+		}
+	}
+
+	/**
+	 * This class represents a file of the index with its precomputed sort key.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	private static class IndexedFile implements Comparable<IndexedFile> {
+		/** The file name. */
+		private final String name;
+		/** The file extension (interned, the whole name if it has no extension). */
+		private final String extension;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param name
+		 *            The file name.
+		 * @param extension
+		 *            The file extension.
+		 */
+		private IndexedFile(String name, String extension) {
+			this.name = name;
+			this.extension = extension;
+		}
+
+		@Override
+		public int compareTo(IndexedFile file) {
+			// Sort by extension then by name (extensions are interned)
+			if (this.extension!=file.extension) {
+				int comp = this.extension.compareTo(file.extension);
+				if (comp!=0)
+					return comp;
+			}
+			return this.name.compareTo(file.name);
+		}
+	}
+}
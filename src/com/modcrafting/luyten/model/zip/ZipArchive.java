@@ -0,0 +1,302 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * This class represents a ZIP archive reader giving access to the central directory and to the raw (still compressed)
+ * entry data.<br>
+ * The central directory is read from a memory mapping (see {@link ZipCentralDirectory}). An archive stored in another
+ * one is opened from a memory mapping of its entry too, and an archive deflated in another one is inflated in memory:
+ * nested archives are never extracted to a file.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ZipArchive implements Closeable {
+	/** The stored (uncompressed) method. */
+	public static final int STORED = 0;
+	/** The deflated method. */
+	public static final int DEFLATED = 8;
+	/** The UTF-8 name general purpose flag. */
+	public static final int UTF8_FLAG = 0x800;
+	/** The data descriptor general purpose flag. */
+	public static final int DATA_DESCRIPTOR_FLAG = 0x8;
+	/** The local file header signature. */
+	static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	/** The central directory file header signature. */
+	static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	/** The end of central directory record signature. */
+	static final int END_SIGNATURE = 0x06054b50;
+	/** The ZIP64 end of central directory record signature. */
+	static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	/** The ZIP64 end of central directory locator signature. */
+	static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	/** The ZIP64 extended information extra field header id. */
+	static final int ZIP64_EXTRA_ID = 0x0001;
+	/** The value of 32-bit fields stored in ZIP64 extra field. */
+	static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+	/** The local file header fixed size. */
+	static final int LOCAL_HEADER_SIZE = 30;
+	/** The central directory file header fixed size. */
+	static final int CENTRAL_HEADER_SIZE = 46;
+	/** The end of central directory record fixed size. */
+	static final int END_SIZE = 22;
+	/** The ZIP64 end of central directory locator size. */
+	static final int ZIP64_LOCATOR_SIZE = 20;
+	/** The entry name charset. */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** The archive bytes. */
+	private final ZipSource source;
+	/** The archive entries, in central directory order. */
+	private final List<ZipArchiveEntry> entries;
+	/** The archive entries by name (the first one for duplicate names). */
+	private final Map<String, ZipArchiveEntry> entriesByName;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The ZIP archive file.
+	 * @throws IOException
+	 *             Throws exception if the archive could not be read.
+	 */
+	public ZipArchive(File file) throws IOException {
+		this(new ZipSource.FileSource(FileChannel.open(file.toPath(), StandardOpenOption.READ)));
+	}
+
+	/**
+	 * Open a ZIP archive from a read-only memory mapping of the whole file.<br>
+	 * Entries of a mapped archive are read without any system call, which suits scanning all its entries. The
+	 * archive is read from its file channel if too large to be mapped.
+	 * 
+	 * @param file
+	 *            The ZIP archive file.
+	 * @return The opened archive.
+	 * @throws IOException
+	 *             Throws exception if the archive could not be read.
+	 */
+	public static ZipArchive openMapped(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			// Check archive size
+			long size = channel.size();
+			if (size>Integer.MAX_VALUE)
+				return new ZipArchive(file);
+			// The mapping remains valid once the channel is closed
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new ZipArchive(new ZipSource.BufferSource(buffer));
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source
+	 *            The ZIP archive bytes (closed with the archive).
+	 * @throws IOException
+	 *             Throws exception if the archive could not be read.
+	 */
+	private ZipArchive(ZipSource source) throws IOException {
+		this.source = source;
+		try {
+			this.entries = new ArrayList<>();
+			this.entriesByName = new HashMap<>();
+			this.readCentralDirectory();
+		} catch (IOException|RuntimeException exception) {
+			this.source.close();
+			throw exception;
+		}
+	}
+
+	/**
+	 * Read the central directory of the archive.
+	 * 
+	 * @throws IOException
+	 *             Throws exception if the central directory could not be read.
+	 */
+	private void readCentralDirectory() throws IOException {
+		ZipCentralDirectory.Cursor cursor = new ZipCentralDirectory(this.source).cursor();
+		while (cursor.next()) {
+			ZipArchiveEntry entry = cursor.toEntry();
+			this.entries.add(entry);
+			if (!this.entriesByName.containsKey(entry.getName()))
+				this.entriesByName.put(entry.getName(), entry);
+		}
+	}
+
+	/**
+	 * Read a part of the archive.
+	 * 
+	 * @param offset
+	 *            The offset of the part to read.
+	 * @param length
+	 *            The length of the part to read.
+	 * @return The read part (little endian ordered).
+	 * @throws IOException
+	 *             Throws exception if the part could not be read.
+	 */
+	private ByteBuffer read(long offset, int length) throws IOException {
+		return this.source.read(offset, length);
+	}
+
+	/**
+	 * Get the archive entries.
+	 * 
+	 * @return The archive entries, in central directory order.
+	 */
+	public List<ZipArchiveEntry> getEntries() {
+		return Collections.unmodifiableList(this.entries);
+	}
+
+	/**
+	 * Get an archive entry from its name.
+	 * 
+	 * @param name
+	 *            The name of the entry to get.
+	 * @return The archive entry, <code>null</code> if the archive has no such entry.
+	 */
+	public ZipArchiveEntry getEntry(String name) {
+		return this.entriesByName.get(name);
+	}
+
+	/**
+	 * Get the offset of the entry data.
+	 * 
+	 * @param entry
+	 *            The entry to get data offset.
+	 * @return The offset of the entry data.
+	 * @throws IOException
+	 *             Throws exception if the local file header could not be read.
+	 */
+	long getDataOffset(ZipArchiveEntry entry) throws IOException {
+		ByteBuffer localHeader = this.read(entry.getLocalHeaderOffset(), ZipArchive.LOCAL_HEADER_SIZE);
+		if (localHeader.getInt(0)!=ZipArchive.LOCAL_HEADER_SIGNATURE)
+			throw new IOException("Invalid local file header: "+entry.getName());
+		int nameLength = localHeader.getShort(26)&0xFFFF;
+		int extraLength = localHeader.getShort(28)&0xFFFF;
+		return entry.getLocalHeaderOffset()+ZipArchive.LOCAL_HEADER_SIZE+nameLength+extraLength;
+	}
+
+	/**
+	 * Transfer the raw (still compressed) data of an entry.
+	 * 
+	 * @param entry
+	 *            The entry to transfer data.
+	 * @param target
+	 *            The channel to transfer data to.
+	 * @throws IOException
+	 *             Throws exception if the data could not be transferred.
+	 */
+	public void transferRawData(ZipArchiveEntry entry, WritableByteChannel target) throws IOException {
+		long position = this.getDataOffset(entry);
+		long remaining = entry.getCompressedSize();
+		while (remaining>0) {
+			long transferred = this.source.transferTo(position, remaining, target);
+			if (transferred<=0)
+				throw new IOException("Unexpected end of ZIP archive: "+entry.getName());
+			position += transferred;
+			remaining -= transferred;
+		}
+	}
+
+	/**
+	 * Get an input stream of the uncompressed entry data.<br>
+	 * Streams of the same archive may be read concurrently.
+	 * 
+	 * @param entry
+	 *            The entry to read data.
+	 * @return The uncompressed data input stream.
+	 * @throws IOException
+	 *             Throws exception if the entry compression method is not supported.
+	 */
+	public InputStream getInputStream(ZipArchiveEntry entry) throws IOException {
+		InputStream rawData = new ZipEntryInputStream(this.source, this.getDataOffset(entry),
+				entry.getCompressedSize());
+		switch (entry.getMethod()) {
+			case ZipArchive.STORED:
+				return rawData;
+			case ZipArchive.DEFLATED:
+				return new ZipInflaterInputStream(rawData, entry.getSize());
+			default:
+				rawData.close();
+				throw new ZipException("Unsupported compression method "+entry.getMethod()+": "+entry.getName());
+		}
+	}
+
+	/**
+	 * Get the uncompressed data of an entry.<br>
+	 * Entries of the same archive may be read concurrently.
+	 * 
+	 * @param entry
+	 *            The entry to read data.
+	 * @return The uncompressed data.
+	 * @throws IOException
+	 *             Throws exception if the entry data could not be read.
+	 */
+	public byte[] getBytes(ZipArchiveEntry entry) throws IOException {
+		// Check entry size
+		if (entry.getSize()>Integer.MAX_VALUE)
+			throw new ZipException("Entry too large: "+entry.getName());
+		byte[] bytes = new byte[(int) entry.getSize()];
+		try (InputStream inputStream = this.getInputStream(entry)) {
+			int offset = 0;
+			while (offset<bytes.length) {
+				int count = inputStream.read(bytes, offset, bytes.length-offset);
+				if (count<0)
+					throw new IOException("Unexpected end of entry: "+entry.getName());
+				offset += count;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Open an archive which is an entry of this archive, without extracting it.<br>
+	 * A stored archive is memory-mapped and an archive deflated in this archive is inflated in memory. The opened
+	 * archive does not depend on this archive: it remains readable once this archive is closed.
+	 * 
+	 * @param entry
+	 *            The entry of the archive to open.
+	 * @return The nested archive.
+	 * @throws IOException
+	 *             Throws exception if the nested archive could not be read.
+	 */
+	public ZipArchive openNestedArchive(ZipArchiveEntry entry) throws IOException {
+		// Check entry size
+		if (entry.getSize()>Integer.MAX_VALUE)
+			throw new ZipException("Nested archive too large: "+entry.getName());
+		ByteBuffer buffer;
+		switch (entry.getMethod()) {
+			case ZipArchive.STORED:
+				// Map stored archive bytes
+				buffer = this.source.map(this.getDataOffset(entry), entry.getSize());
+				break;
+			case ZipArchive.DEFLATED:
+				// Inflate deflated archive bytes
+				buffer = ByteBuffer.wrap(this.getBytes(entry));
+				break;
+			default:
+				throw new ZipException("Unsupported compression method "+entry.getMethod()+": "+entry.getName());
+		}
+		return new ZipArchive(new ZipSource.BufferSource(buffer));
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.source.close();
+	}
+}
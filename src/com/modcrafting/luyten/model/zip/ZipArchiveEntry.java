@@ -0,0 +1,158 @@
+package com.modcrafting.luyten.model.zip;
+
+/**
+ * This class represents an entry of the central directory of a ZIP archive.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ZipArchiveEntry {
+	/** The entry name. */
+	private final String name;
+	/** The raw entry name bytes (as stored in the archive). */
+	private final byte[] nameBytes;
+	/** The general purpose bit flags. */
+	private final int flags;
+	/** The compression method. */
+	private final int method;
+	/** The last modification DOS time (time in the low word, date in the high word). */
+	private final int dosTime;
+	/** The CRC-32 of the uncompressed data. */
+	private final int crc;
+	/** The compressed size (in bytes). */
+	private final long compressedSize;
+	/** The uncompressed size (in bytes). */
+	private final long size;
+	/** The offset of the local file header. */
+	private final long localHeaderOffset;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param name
+	 *            The entry name.
+	 * @param nameBytes
+	 *            The raw entry name bytes.
+	 * @param flags
+	 *            The general purpose bit flags.
+	 * @param method
+	 *            The compression method.
+	 * @param dosTime
+	 *            The last modification DOS time.
+	 * @param crc
+	 *            The CRC-32 of the uncompressed data.
+	 * @param compressedSize
+	 *            The compressed size.
+	 * @param size
+	 *            The uncompressed size.
+	 * @param localHeaderOffset
+	 *            The offset of the local file header.
+	 */
+	public ZipArchiveEntry(String name, byte[] nameBytes, int flags, int method, int dosTime, int crc,
+			long compressedSize, long size, long localHeaderOffset) {
+		this.name = name;
+		this.nameBytes = nameBytes;
+		this.flags = flags;
+		this.method = method;
+		this.dosTime = dosTime;
+		this.crc = crc;
+		this.compressedSize = compressedSize;
+		this.size = size;
+		this.localHeaderOffset = localHeaderOffset;
+	}
+
+	/**
+	 * Get the entry name.
+	 * 
+	 * @return The entry name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Get the raw entry name bytes.
+	 * 
+	 * @return The raw entry name bytes (as stored in the archive).
+	 */
+	public byte[] getNameBytes() {
+		return this.nameBytes;
+	}
+
+	/**
+	 * Get the general purpose bit flags.
+	 * 
+	 * @return The general purpose bit flags.
+	 */
+	public int getFlags() {
+		return this.flags;
+	}
+
+	/**
+	 * Get the compression method.
+	 * 
+	 * @return The compression method ({@link ZipArchive#STORED} or {@link ZipArchive#DEFLATED} for example).
+	 */
+	public int getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Get the last modification DOS time.
+	 * 
+	 * @return The last modification DOS time (time in the low word, date in the high word).
+	 */
+	public int getDosTime() {
+		return this.dosTime;
+	}
+
+	/**
+	 * Get the CRC-32 of the uncompressed data.
+	 * 
+	 * @return The CRC-32 of the uncompressed data.
+	 */
+	public int getCrc() {
+		return this.crc;
+	}
+
+	/**
+	 * Get the compressed size.
+	 * 
+	 * @return The compressed size (in bytes).
+	 */
+	public long getCompressedSize() {
+		return this.compressedSize;
+	}
+
+	/**
+	 * Get the uncompressed size.
+	 * 
+	 * @return The uncompressed size (in bytes).
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Get the offset of the local file header.
+	 * 
+	 * @return The offset of the local file header.
+	 */
+	public long getLocalHeaderOffset() {
+		return this.localHeaderOffset;
+	}
+
+	/**
+	 * Check if the entry is a directory.
+	 * 
+	 * @return <code>true</code> if the entry is a directory, <code>false</code> otherwise.
+	 */
+	public boolean isDirectory() {
+		return this.name.endsWith("/");
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
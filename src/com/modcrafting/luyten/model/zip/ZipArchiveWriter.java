@@ -0,0 +1,348 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * This class represents a ZIP archive writer able to copy raw (still compressed) entries from another archive.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ZipArchiveWriter implements Closeable {
+	/** The version needed to extract entries (2.0: deflate). */
+	private static final int VERSION = 20;
+	/** The version needed to extract ZIP64 records (4.5). */
+	private static final int ZIP64_VERSION = 45;
+	/** The size of the deflate output buffer. */
+	private static final int DEFLATE_BUFFER_SIZE = 64*1024;
+
+	/** The archive file channel. */
+	private final FileChannel channel;
+	/** The compression level of new entries. */
+	private final int level;
+	/** The written entries (to write the central directory). */
+	private final List<ZipArchiveEntry> entries;
+	/** The written entry names. */
+	private final Set<String> names;
+	/** The deflater of new entries. */
+	private final Deflater deflater;
+	/** The CRC-32 of new entries. */
+	private final CRC32 crc;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param channel
+	 *            The archive file channel to write (closed with the writer).
+	 * @param level
+	 *            The compression level of new entries (from {@link Deflater#NO_COMPRESSION} to
+	 *            {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}).
+	 */
+	public ZipArchiveWriter(FileChannel channel, int level) {
+		this.channel = channel;
+		this.level = level;
+		this.entries = new ArrayList<>();
+		this.names = new HashSet<>();
+		this.deflater = new Deflater(level, true);
+		this.crc = new CRC32();
+	}
+
+	/**
+	 * Write a new entry.
+	 * 
+	 * @param name
+	 *            The entry name.
+	 * @param data
+	 *            The uncompressed entry data.
+	 * @return <code>true</code> if the entry was written, <code>false</code> if the archive already contains an entry
+	 *         with the same name.
+	 * @throws IOException
+	 *             Throws exception if the entry could not be written.
+	 */
+	public boolean writeEntry(String name, byte[] data) throws IOException {
+		// Check duplicate entry
+		if (!this.names.add(name))
+			return false;
+		// Compute CRC
+		this.crc.reset();
+		this.crc.update(data, 0, data.length);
+		// Compress data
+		byte[] compressedData = this.deflate(data);
+		int method = ZipArchive.DEFLATED;
+		if (compressedData==null) {
+			compressedData = data;
+			method = ZipArchive.STORED;
+		}
+		// Write entry
+		byte[] nameBytes = name.getBytes(ZipArchive.UTF8);
+		int flags = ZipArchiveWriter.isAscii(nameBytes) ? 0 : ZipArchive.UTF8_FLAG;
+		ZipArchiveEntry entry = new ZipArchiveEntry(name, nameBytes, flags, method,
+				ZipArchiveWriter.toDosTime(System.currentTimeMillis()), (int) this.crc.getValue(), compressedData.length,
+				data.length, this.channel.position());
+		this.writeLocalHeader(entry);
+		this.write(ByteBuffer.wrap(compressedData));
+		this.entries.add(entry);
+		return true;
+	}
+
+	/**
+	 * Copy an entry from another archive without uncompressing it.
+	 * 
+	 * @param archive
+	 *            The archive to copy entry from.
+	 * @param sourceEntry
+	 *            The entry to copy.
+	 * @return <code>true</code> if the entry was copied, <code>false</code> if the archive already contains an entry
+	 *         with the same name.
+	 * @throws IOException
+	 *             Throws exception if the entry could not be copied.
+	 */
+	public boolean copyRawEntry(ZipArchive archive, ZipArchiveEntry sourceEntry) throws IOException {
+		return this.copyRawEntry(archive, sourceEntry, sourceEntry.getName());
+	}
+
+	/**
+	 * Copy an entry from another archive under a new name without uncompressing it.
+	 * 
+	 * @param archive
+	 *            The archive to copy entry from.
+	 * @param sourceEntry
+	 *            The entry to copy.
+	 * @param name
+	 *            The name of the copied entry.
+	 * @return <code>true</code> if the entry was copied, <code>false</code> if the archive already contains an entry
+	 *         with the same name.
+	 * @throws IOException
+	 *             Throws exception if the entry could not be copied.
+	 */
+	public boolean copyRawEntry(ZipArchive archive, ZipArchiveEntry sourceEntry, String name) throws IOException {
+		// Check duplicate entry
+		if (!this.names.add(name))
+			return false;
+		// Compute name
+		byte[] nameBytes = sourceEntry.getNameBytes();
+		int flags = sourceEntry.getFlags()&~ZipArchive.DATA_DESCRIPTOR_FLAG;
+		if (!name.equals(sourceEntry.getName())) {
+			nameBytes = name.getBytes(ZipArchive.UTF8);
+			flags = ZipArchiveWriter.isAscii(nameBytes) ? flags&~ZipArchive.UTF8_FLAG : flags|ZipArchive.UTF8_FLAG;
+		}
+		// Write entry header with sizes known from the central directory (no data descriptor needed)
+		ZipArchiveEntry entry = new ZipArchiveEntry(name, nameBytes, flags, sourceEntry.getMethod(),
+				sourceEntry.getDosTime(), sourceEntry.getCrc(), sourceEntry.getCompressedSize(), sourceEntry.getSize(),
+				this.channel.position());
+		this.writeLocalHeader(entry);
+		// Let the system copy the compressed data
+		archive.transferRawData(sourceEntry, this.channel);
+		this.entries.add(entry);
+		return true;
+	}
+
+	/**
+	 * Compress entry data.
+	 * 
+	 * @param data
+	 *            The data to compress.
+	 * @return The compressed data, <code>null</code> if the data should be stored.
+	 */
+	private byte[] deflate(byte[] data) {
+		if (this.level==Deflater.NO_COMPRESSION)
+			return null;
+		this.deflater.reset();
+		this.deflater.setInput(data);
+		this.deflater.finish();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(data.length/2, 64));
+		byte[] buffer = new byte[Math.min(ZipArchiveWriter.DEFLATE_BUFFER_SIZE, Math.max(data.length, 64))];
+		while (!this.deflater.finished()) {
+			int count = this.deflater.deflate(buffer);
+			outputStream.write(buffer, 0, count);
+		}
+		// Store data when compression does not help (or is disabled)
+		if (outputStream.size()>=data.length)
+			return null;
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Write the local file header of an entry.
+	 * 
+	 * @param entry
+	 *            The entry to write local file header.
+	 * @throws IOException
+	 *             Throws exception if the header could not be written.
+	 */
+	private void writeLocalHeader(ZipArchiveEntry entry) throws IOException {
+		if (entry.getCompressedSize()>=ZipArchive.ZIP64_MAGIC||entry.getSize()>=ZipArchive.ZIP64_MAGIC)
+			throw new IOException("Entry too large: "+entry.getName());
+		byte[] nameBytes = entry.getNameBytes();
+		ByteBuffer header = ZipArchiveWriter.allocate(ZipArchive.LOCAL_HEADER_SIZE+nameBytes.length);
+		header.putInt(ZipArchive.LOCAL_HEADER_SIGNATURE);
+		header.putShort((short) ZipArchiveWriter.VERSION);
+		header.putShort((short) entry.getFlags());
+		header.putShort((short) entry.getMethod());
+		header.putInt(entry.getDosTime());
+		header.putInt(entry.getCrc());
+		header.putInt((int) entry.getCompressedSize());
+		header.putInt((int) entry.getSize());
+		header.putShort((short) nameBytes.length);
+		header.putShort((short) 0);
+		header.put(nameBytes);
+		header.flip();
+		this.write(header);
+	}
+
+	/**
+	 * Write the central directory file header of an entry.
+	 * 
+	 * @param entry
+	 *            The entry to write central directory file header.
+	 * @throws IOException
+	 *             Throws exception if the header could not be written.
+	 */
+	private void writeCentralHeader(ZipArchiveEntry entry) throws IOException {
+		byte[] nameBytes = entry.getNameBytes();
+		boolean isZip64 = entry.getLocalHeaderOffset()>=ZipArchive.ZIP64_MAGIC;
+		int extraLength = isZip64 ? 12 : 0;
+		ByteBuffer header = ZipArchiveWriter.allocate(ZipArchive.CENTRAL_HEADER_SIZE+nameBytes.length+extraLength);
+		header.putInt(ZipArchive.CENTRAL_HEADER_SIGNATURE);
+		int version = isZip64 ? ZipArchiveWriter.ZIP64_VERSION : ZipArchiveWriter.VERSION;
+		header.putShort((short) version);
+		header.putShort((short) version);
+		header.putShort((short) entry.getFlags());
+		header.putShort((short) entry.getMethod());
+		header.putInt(entry.getDosTime());
+		header.putInt(entry.getCrc());
+		header.putInt((int) entry.getCompressedSize());
+		header.putInt((int) entry.getSize());
+		header.putShort((short) nameBytes.length);
+		header.putShort((short) extraLength);
+		header.putShort((short) 0); // Comment length
+		header.putShort((short) 0); // Disk number start
+		header.putShort((short) 0); // Internal file attributes
+		header.putInt(0); // External file attributes
+		header.putInt(isZip64 ? (int) ZipArchive.ZIP64_MAGIC : (int) entry.getLocalHeaderOffset());
+		header.put(nameBytes);
+		if (isZip64) {
+			header.putShort((short) ZipArchive.ZIP64_EXTRA_ID);
+			header.putShort((short) 8);
+			header.putLong(entry.getLocalHeaderOffset());
+		}
+		header.flip();
+		this.write(header);
+	}
+
+	/**
+	 * Write the end of central directory records.
+	 * 
+	 * @param centralDirectoryOffset
+	 *            The offset of the central directory.
+	 * @param centralDirectorySize
+	 *            The size of the central directory.
+	 * @throws IOException
+	 *             Throws exception if the records could not be written.
+	 */
+	private void writeEnd(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+		int entryCount = this.entries.size();
+		boolean isZip64 = entryCount>=0xFFFF||centralDirectoryOffset>=ZipArchive.ZIP64_MAGIC
+				||centralDirectorySize>=ZipArchive.ZIP64_MAGIC;
+		if (isZip64) {
+			long zip64EndOffset = this.channel.position();
+			ByteBuffer zip64End = ZipArchiveWriter.allocate(56+ZipArchive.ZIP64_LOCATOR_SIZE);
+			zip64End.putInt(ZipArchive.ZIP64_END_SIGNATURE);
+			zip64End.putLong(44); // Size of the remaining record
+			zip64End.putShort((short) ZipArchiveWriter.ZIP64_VERSION);
+			zip64End.putShort((short) ZipArchiveWriter.ZIP64_VERSION);
+			zip64End.putInt(0); // Number of this disk
+			zip64End.putInt(0); // Disk of the central directory
+			zip64End.putLong(entryCount);
+			zip64End.putLong(entryCount);
+			zip64End.putLong(centralDirectorySize);
+			zip64End.putLong(centralDirectoryOffset);
+			zip64End.putInt(ZipArchive.ZIP64_LOCATOR_SIGNATURE);
+			zip64End.putInt(0); // Disk of the ZIP64 end of central directory record
+			zip64End.putLong(zip64EndOffset);
+			zip64End.putInt(1); // Total number of disks
+			zip64End.flip();
+			this.write(zip64End);
+		}
+		ByteBuffer end = ZipArchiveWriter.allocate(ZipArchive.END_SIZE);
+		end.putInt(ZipArchive.END_SIGNATURE);
+		end.putShort((short) 0); // Number of this disk
+		end.putShort((short) 0); // Disk of the central directory
+		end.putShort((short) Math.min(entryCount, 0xFFFF));
+		end.putShort((short) Math.min(entryCount, 0xFFFF));
+		end.putInt((int) Math.min(centralDirectorySize, ZipArchive.ZIP64_MAGIC));
+		end.putInt((int) Math.min(centralDirectoryOffset, ZipArchive.ZIP64_MAGIC));
+		end.putShort((short) 0); // Comment length
+		end.flip();
+		this.write(end);
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+	}
+
+	private static ByteBuffer allocate(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static boolean isAscii(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b<0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Convert a Java time to a DOS time.
+	 * 
+	 * @param time
+	 *            The Java time to convert.
+	 * @return The DOS time (time in the low word, date in the high word).
+	 */
+	private static int toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		int year = calendar.get(Calendar.YEAR);
+		if (year<1980)
+			return (1<<21)|(1<<16);
+		return (year-1980)<<25|(calendar.get(Calendar.MONTH)+1)<<21|calendar.get(Calendar.DAY_OF_MONTH)<<16
+				|calendar.get(Calendar.HOUR_OF_DAY)<<11|calendar.get(Calendar.MINUTE)<<5
+				|calendar.get(Calendar.SECOND)>>1;
+	}
+
+	/**
+	 * Write the central directory and close the archive.
+	 * 
+	 * @throws IOException
+	 *             Throws exception if the central directory could not be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long centralDirectoryOffset = this.channel.position();
+			for (ZipArchiveEntry entry : this.entries) {
+				this.writeCentralHeader(entry);
+			}
+			long centralDirectorySize = this.channel.position()-centralDirectoryOffset;
+			this.writeEnd(centralDirectoryOffset, centralDirectorySize);
+		} finally {
+			this.deflater.end();
+			this.channel.close();
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents the memory-mapped central directory of a ZIP archive.<br>
+ * Entries are iterated with a {@link Cursor}, a flyweight view over the mapped file headers: no object is allocated
+ * per entry unless its name is decoded.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ZipCentralDirectory {
+	/** The maximum archive comment length. */
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+	/** The ZIP64 end of central directory record size (without extensible data). */
+	private static final int ZIP64_END_SIZE = 56;
+
+	/** The mapped central directory (shared, only read with absolute methods). */
+	private final ByteBuffer buffer;
+	/** The number of entries. */
+	private final long entryCount;
+
+	/**
+	 * Constructor.<br>
+	 * The archive file is closed once its central directory is mapped.
+	 * 
+	 * @param file
+	 *            The ZIP archive file.
+	 * @throws IOException
+	 *             Throws exception if the central directory could not be read.
+	 */
+	public ZipCentralDirectory(File file) throws IOException {
+		this(new ZipSource.FileSource(FileChannel.open(file.toPath(), StandardOpenOption.READ)), true);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source
+	 *            The ZIP archive bytes (left opened).
+	 * @throws IOException
+	 *             Throws exception if the central directory could not be read.
+	 */
+	ZipCentralDirectory(ZipSource source) throws IOException {
+		this(source, false);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source
+	 *            The ZIP archive bytes.
+	 * @param closeSource
+	 *            <code>true</code> to close the source once the central directory is mapped, <code>false</code>
+	 *            otherwise.
+	 * @throws IOException
+	 *             Throws exception if the central directory could not be read.
+	 */
+	private ZipCentralDirectory(ZipSource source, boolean closeSource) throws IOException {
+		try {
+			// Find end of central directory record
+			long archiveSize = source.size();
+			int tailSize = (int) Math.min(archiveSize, ZipArchive.END_SIZE+ZipCentralDirectory.MAX_COMMENT_LENGTH);
+			ByteBuffer tail = source.read(archiveSize-tailSize, tailSize);
+			int endPosition = -1;
+			for (int position = tailSize-ZipArchive.END_SIZE; position>=0; position--) {
+				if (tail.getInt(position)==ZipArchive.END_SIGNATURE) {
+					endPosition = position;
+					break;
+				}
+			}
+			if (endPosition==-1)
+				throw new IOException("Not a ZIP archive: end of central directory not found.");
+			long count = tail.getShort(endPosition+10)&0xFFFF;
+			long centralDirectorySize = tail.getInt(endPosition+12)&ZipArchive.ZIP64_MAGIC;
+			long centralDirectoryOffset = tail.getInt(endPosition+16)&ZipArchive.ZIP64_MAGIC;
+			// Check ZIP64 end of central directory locator
+			long endOffset = archiveSize-tailSize+endPosition;
+			if (endOffset>=ZipArchive.ZIP64_LOCATOR_SIZE) {
+				ByteBuffer locator = source.read(endOffset-ZipArchive.ZIP64_LOCATOR_SIZE, ZipArchive.ZIP64_LOCATOR_SIZE);
+				if (locator.getInt(0)==ZipArchive.ZIP64_LOCATOR_SIGNATURE) {
+					ByteBuffer zip64End = source.read(locator.getLong(8), ZipCentralDirectory.ZIP64_END_SIZE);
+					if (zip64End.getInt(0)!=ZipArchive.ZIP64_END_SIGNATURE)
+						throw new IOException("Invalid ZIP64 end of central directory record.");
+					count = zip64End.getLong(32);
+					centralDirectorySize = zip64End.getLong(40);
+					centralDirectoryOffset = zip64End.getLong(48);
+				}
+			}
+			if (centralDirectorySize>Integer.MAX_VALUE)
+				throw new IOException("Central directory too large.");
+			if (centralDirectoryOffset<0||centralDirectoryOffset+centralDirectorySize>archiveSize)
+				throw new IOException("Invalid central directory location.");
+			// Map central directory
+			this.buffer = source.map(centralDirectoryOffset, centralDirectorySize);
+			this.entryCount = count;
+		} finally {
+			// The mapping remains valid once the source is closed
+			if (closeSource)
+				source.close();
+		}
+	}
+
+	/**
+	 * Get the number of entries.
+	 * 
+	 * @return The number of entries, as declared by the end of central directory record.
+	 */
+	public long getEntryCount() {
+		return this.entryCount;
+	}
+
+	/**
+	 * Create a cursor before the first entry.<br>
+	 * Each thread must use its own cursor.
+	 * 
+	 * @return A new cursor.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * This class represents a flyweight view of the central directory file headers.<br>
+	 * Its values describe the current entry until the next call to {@link #next()}.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public class Cursor {
+		/** The number of visited entries. */
+		private long index;
+		/** The position of the next file header. */
+		private int nextPosition;
+		/** The position of the current entry name. */
+		private int namePosition;
+		/** The length of the current entry name. */
+		private int nameLength;
+		/** The compressed size of the current entry. */
+		private long compressedSize;
+		/** The uncompressed size of the current entry. */
+		private long size;
+		/** The local file header offset of the current entry. */
+		private long localHeaderOffset;
+		/** The view of the central directory to copy names (positioned by this cursor only). */
+		private final ByteBuffer nameView;
+		/** The name decoding buffer (reused between entries). */
+		private byte[] nameBuffer;
+
+		/**
+		 * Constructor.
+		 */
+		private Cursor() {
+			this.index = 0;
+			this.nextPosition = 0;
+			this.namePosition = -1;
+			this.nameView = ZipCentralDirectory.this.buffer.duplicate();
+			this.nameBuffer = new byte[256];
+		}
+
+		/**
+		 * Move to the next entry.
+		 * 
+		 * @return <code>true</code> if the cursor is on an entry, <code>false</code> if all entries were visited.
+		 * @throws IOException
+		 *             Throws exception if the file header is invalid.
+		 */
+		public boolean next() throws IOException {
+			// Check remaining entries
+			if (this.index>=ZipCentralDirectory.this.entryCount)
+				return false;
+			ByteBuffer buffer = ZipCentralDirectory.this.buffer;
+			int position = this.nextPosition;
+			if (position+ZipArchive.CENTRAL_HEADER_SIZE>buffer.limit()||
+					buffer.getInt(position)!=ZipArchive.CENTRAL_HEADER_SIGNATURE)
+				throw new IOException("Invalid central directory file header.");
+			this.compressedSize = buffer.getInt(position+20)&ZipArchive.ZIP64_MAGIC;
+			this.size = buffer.getInt(position+24)&ZipArchive.ZIP64_MAGIC;
+			this.nameLength = buffer.getShort(position+28)&0xFFFF;
+			int extraLength = buffer.getShort(position+30)&0xFFFF;
+			int commentLength = buffer.getShort(position+32)&0xFFFF;
+			this.localHeaderOffset = buffer.getInt(position+42)&ZipArchive.ZIP64_MAGIC;
+			this.namePosition = position+ZipArchive.CENTRAL_HEADER_SIZE;
+			// Read ZIP64 extended information
+			int extraPosition = this.namePosition+this.nameLength;
+			int extraEnd = extraPosition+extraLength;
+			if (extraEnd>buffer.limit())
+				throw new IOException("Invalid central directory file header.");
+			while (extraPosition+4<=extraEnd) {
+				int headerId = buffer.getShort(extraPosition)&0xFFFF;
+				int dataSize = buffer.getShort(extraPosition+2)&0xFFFF;
+				if (headerId==ZipArchive.ZIP64_EXTRA_ID) {
+					int dataPosition = extraPosition+4;
+					if (this.size==ZipArchive.ZIP64_MAGIC) {
+						this.size = buffer.getLong(dataPosition);
+						dataPosition += 8;
+					}
+					if (this.compressedSize==ZipArchive.ZIP64_MAGIC) {
+						this.compressedSize = buffer.getLong(dataPosition);
+						dataPosition += 8;
+					}
+					if (this.localHeaderOffset==ZipArchive.ZIP64_MAGIC) {
+						this.localHeaderOffset = buffer.getLong(dataPosition);
+					}
+					break;
+				}
+				extraPosition += 4+dataSize;
+			}
+			// Go to next entry
+			this.nextPosition = extraEnd+commentLength;
+			this.index++;
+			return true;
+		}
+
+		/**
+		 * Get the general purpose bit flags of the current entry.
+		 * 
+		 * @return The general purpose bit flags.
+		 */
+		public int getFlags() {
+			return ZipCentralDirectory.this.buffer.getShort(this.getHeaderPosition()+8)&0xFFFF;
+		}
+
+		/**
+		 * Get the compression method of the current entry.
+		 * 
+		 * @return The compression method.
+		 */
+		public int getMethod() {
+			return ZipCentralDirectory.this.buffer.getShort(this.getHeaderPosition()+10)&0xFFFF;
+		}
+
+		/**
+		 * Get the last modification DOS time of the current entry.
+		 * 
+		 * @return The last modification DOS time.
+		 */
+		public int getDosTime() {
+			return ZipCentralDirectory.this.buffer.getInt(this.getHeaderPosition()+12);
+		}
+
+		/**
+		 * Get the CRC-32 of the current entry uncompressed data.
+		 * 
+		 * @return The CRC-32 of the uncompressed data.
+		 */
+		public int getCrc() {
+			return ZipCentralDirectory.this.buffer.getInt(this.getHeaderPosition()+16);
+		}
+
+		/**
+		 * Get the compressed size of the current entry.
+		 * 
+		 * @return The compressed size (in bytes).
+		 */
+		public long getCompressedSize() {
+			return this.compressedSize;
+		}
+
+		/**
+		 * Get the uncompressed size of the current entry.
+		 * 
+		 * @return The uncompressed size (in bytes).
+		 */
+		public long getSize() {
+			return this.size;
+		}
+
+		/**
+		 * Get the local file header offset of the current entry.
+		 * 
+		 * @return The offset of the local file header.
+		 */
+		public long getLocalHeaderOffset() {
+			return this.localHeaderOffset;
+		}
+
+		/**
+		 * Get the name length of the current entry.
+		 * 
+		 * @return The length of the raw entry name (in bytes).
+		 */
+		public int getNameLength() {
+			return this.nameLength;
+		}
+
+		/**
+		 * Get a byte of the current entry name.
+		 * 
+		 * @param index
+		 *            The index of the byte to get.
+		 * @return The raw entry name byte.
+		 */
+		public byte getNameByte(int index) {
+			return ZipCentralDirectory.this.buffer.get(this.namePosition+index);
+		}
+
+		/**
+		 * Check if the current entry name ends with a suffix, without decoding it.
+		 * 
+		 * @param suffix
+		 *            The raw suffix bytes.
+		 * @return <code>true</code> if the raw entry name ends with the suffix, <code>false</code> otherwise.
+		 */
+		public boolean nameEndsWith(byte[] suffix) {
+			int offset = this.nameLength-suffix.length;
+			if (offset<0)
+				return false;
+			for (int index = 0; index<suffix.length; index++) {
+				if (this.getNameByte(offset+index)!=suffix[index])
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Check if the current entry is a directory.
+		 * 
+		 * @return <code>true</code> if the entry is a directory, <code>false</code> otherwise.
+		 */
+		public boolean isDirectory() {
+			return this.nameLength>0&&this.getNameByte(this.nameLength-1)=='/';
+		}
+
+		/**
+		 * Get the raw name of the current entry.
+		 * 
+		 * @return A copy of the raw entry name bytes.
+		 */
+		public byte[] getNameBytes() {
+			byte[] nameBytes = new byte[this.nameLength];
+			this.copyName(nameBytes);
+			return nameBytes;
+		}
+
+		/**
+		 * Decode the name of the current entry.
+		 * 
+		 * @return The entry name.
+		 */
+		public String getName() {
+			if (this.nameBuffer.length<this.nameLength)
+				this.nameBuffer = new byte[this.nameLength];
+			this.copyName(this.nameBuffer);
+			return new String(this.nameBuffer, 0, this.nameLength, ZipArchive.UTF8);
+		}
+
+		/**
+		 * Create a standalone entry from the current entry.
+		 * 
+		 * @return The archive entry.
+		 */
+		public ZipArchiveEntry toEntry() {
+			byte[] nameBytes = this.getNameBytes();
+			return new ZipArchiveEntry(new String(nameBytes, ZipArchive.UTF8), nameBytes, this.getFlags(),
+					this.getMethod(), this.getDosTime(), this.getCrc(), this.compressedSize, this.size,
+					this.localHeaderOffset);
+		}
+
+		/**
+		 * Copy the raw name of the current entry.
+		 * 
+		 * @param target
+		 *            The array to copy name bytes to (at least as long as the name).
+		 */
+		private void copyName(byte[] target) {
+			this.nameView.position(this.namePosition);
+			this.nameView.get(target, 0, this.nameLength);
+		}
+
+		/**
+		 * Get the position of the current file header.
+		 * 
+		 * @return The position of the current file header.
+		 */
+		private int getHeaderPosition() {
+			if (this.namePosition==-1)
+				throw new IllegalStateException("No current entry.");
+			return this.namePosition-ZipArchive.CENTRAL_HEADER_SIZE;
+		}
+	}
+}
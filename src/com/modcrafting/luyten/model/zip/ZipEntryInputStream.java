@@ -0,0 +1,72 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents an input stream of the raw data of an archive entry.<br>
+ * It reads the archive bytes at absolute positions so streams of the same archive may be read concurrently.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+class ZipEntryInputStream extends InputStream {
+	/** The archive bytes. */
+	private final ZipSource source;
+	/** The position of the next byte to read. */
+	private long position;
+	/** The number of bytes remaining to read. */
+	private long remaining;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source
+	 *            The archive bytes.
+	 * @param offset
+	 *            The offset of the entry data.
+	 * @param length
+	 *            The length of the entry data.
+	 */
+	ZipEntryInputStream(ZipSource source, long offset, long length) {
+		this.source = source;
+		this.position = offset;
+		this.remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] data = new byte[1];
+		return this.read(data, 0, 1)==-1 ? -1 : data[0]&0xFF;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+		// Check remaining data
+		if (this.remaining<=0)
+			return -1;
+		if (length==0)
+			return 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data, offset, (int) Math.min(length, this.remaining));
+		int count = this.source.read(buffer, this.position);
+		if (count<0)
+			throw new IOException("Unexpected end of ZIP archive.");
+		this.position += count;
+		this.remaining -= count;
+		return count;
+	}
+
+	@Override
+	public long skip(long count) {
+		long skipped = Math.max(0, Math.min(count, this.remaining));
+		this.position += skipped;
+		this.remaining -= skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(this.remaining, Integer.MAX_VALUE);
+	}
+}
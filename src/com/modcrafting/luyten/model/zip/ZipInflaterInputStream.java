@@ -0,0 +1,79 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * This class represents an input stream inflating the raw data of a deflated archive entry.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+class ZipInflaterInputStream extends InflaterInputStream {
+	/** The size of the compressed data buffer. */
+	private static final int BUFFER_SIZE = 64*1024;
+
+	/** The number of uncompressed bytes remaining to read. */
+	private long remaining;
+	/** Whether the raw data was fully read. */
+	private boolean eof;
+	/** Whether the stream is closed. */
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param in
+	 *            The raw data input stream.
+	 * @param size
+	 *            The uncompressed size.
+	 */
+	ZipInflaterInputStream(InputStream in, long size) {
+		super(in, new Inflater(true), ZipInflaterInputStream.BUFFER_SIZE);
+		this.remaining = size;
+		this.eof = false;
+		this.closed = false;
+	}
+
+	@Override
+	protected void fill() throws IOException {
+		if (this.eof)
+			throw new EOFException("Unexpected end of ZLIB input stream");
+		this.len = this.in.read(this.buf, 0, this.buf.length);
+		if (this.len==-1) {
+			// The inflater may need an extra dummy byte (as java.util.zip.ZipFile does)
+			this.buf[0] = 0;
+			this.len = 1;
+			this.eof = true;
+		}
+		this.inf.setInput(this.buf, 0, this.len);
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+		int count = super.read(data, offset, length);
+		if (count>0)
+			this.remaining -= count;
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		if (this.closed)
+			return 0;
+		return (int) Math.max(0, Math.min(this.remaining, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed)
+			return;
+		this.closed = true;
+		// Release the native inflater now instead of waiting for finalization
+		this.inf.end();
+		super.close();
+	}
+}
@@ -0,0 +1,202 @@
+package com.modcrafting.luyten.model.zip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class represents the bytes of a ZIP archive, read at absolute positions.<br>
+ * An archive is read either from its file channel or from a buffer: the memory mapping of an archive stored in
+ * another one, or the inflated bytes of an archive deflated in another one.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+abstract class ZipSource implements Closeable {
+	/**
+	 * Get the archive size.
+	 * 
+	 * @return The archive size (in bytes).
+	 * @throws IOException
+	 *             Throws exception if the size could not be read.
+	 */
+	abstract long size() throws IOException;
+
+	/**
+	 * Read bytes of the archive.
+	 * 
+	 * @param target
+	 *            The buffer to read bytes into.
+	 * @param position
+	 *            The position of the first byte to read.
+	 * @return The number of read bytes, <code>-1</code> if the position is at the end of the archive.
+	 * @throws IOException
+	 *             Throws exception if the bytes could not be read.
+	 */
+	abstract int read(ByteBuffer target, long position) throws IOException;
+
+	/**
+	 * Map a part of the archive.
+	 * 
+	 * @param position
+	 *            The offset of the part to map.
+	 * @param size
+	 *            The length of the part to map.
+	 * @return The read only mapped part (little endian ordered).
+	 * @throws IOException
+	 *             Throws exception if the part could not be mapped.
+	 */
+	abstract ByteBuffer map(long position, long size) throws IOException;
+
+	/**
+	 * Transfer a part of the archive.
+	 * 
+	 * @param position
+	 *            The offset of the part to transfer.
+	 * @param count
+	 *            The maximum number of bytes to transfer.
+	 * @param target
+	 *            The channel to transfer bytes to.
+	 * @return The number of transferred bytes.
+	 * @throws IOException
+	 *             Throws exception if the bytes could not be transferred.
+	 */
+	abstract long transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+	/**
+	 * Read a part of the archive.
+	 * 
+	 * @param offset
+	 *            The offset of the part to read.
+	 * @param length
+	 *            The length of the part to read.
+	 * @return The read part (little endian ordered).
+	 * @throws IOException
+	 *             Throws exception if the part could not be read.
+	 */
+	ByteBuffer read(long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (this.read(buffer, offset+buffer.position())<0)
+				throw new IOException("Unexpected end of ZIP archive.");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * This class represents the bytes of an archive file.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	static class FileSource extends ZipSource {
+		/** The archive file channel. */
+		private final FileChannel channel;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param channel
+		 *            The archive file channel.
+		 */
+		FileSource(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		long size() throws IOException {
+			return this.channel.size();
+		}
+
+		@Override
+		int read(ByteBuffer target, long position) throws IOException {
+			return this.channel.read(target, position);
+		}
+
+		@Override
+		ByteBuffer map(long position, long size) throws IOException {
+			return this.channel.map(MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return this.channel.transferTo(position, count, target);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	/**
+	 * This class represents the bytes of an archive in a buffer.<br>
+	 * The buffer is only read with absolute methods or through duplicates, so it may be read concurrently.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	static class BufferSource extends ZipSource {
+		/** The archive bytes (from position <code>0</code> to limit). */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param buffer
+		 *            The archive bytes (from position to limit).
+		 */
+		BufferSource(ByteBuffer buffer) {
+			this.buffer = buffer.slice();
+		}
+
+		@Override
+		long size() {
+			return this.buffer.limit();
+		}
+
+		@Override
+		int read(ByteBuffer target, long position) {
+			// Check end of archive
+			if (position>=this.buffer.limit())
+				return -1;
+			ByteBuffer view = this.buffer.duplicate();
+			view.position((int) position);
+			view.limit((int) Math.min(this.buffer.limit(), position+target.remaining()));
+			int count = view.remaining();
+			target.put(view);
+			return count;
+		}
+
+		@Override
+		ByteBuffer map(long position, long size) throws IOException {
+			if (position<0||position+size>this.buffer.limit())
+				throw new IOException("Unexpected end of ZIP archive.");
+			ByteBuffer view = this.buffer.duplicate();
+			view.position((int) position);
+			view.limit((int) (position+size));
+			return view.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			// Check end of archive
+			if (position>=this.buffer.limit())
+				return 0;
+			ByteBuffer view = this.buffer.duplicate();
+			view.position((int) position);
+			view.limit((int) Math.min(this.buffer.limit(), position+count));
+			return target.write(view);
+		}
+
+		@Override
+		public void close() {
+			// Nothing to release: the buffer is released once not referenced anymore
+		}
+	}
+}
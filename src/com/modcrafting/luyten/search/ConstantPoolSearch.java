@@ -0,0 +1,195 @@
+package com.modcrafting.luyten.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import com.modcrafting.luyten.model.classfile.ClassFileReader;
+import com.modcrafting.luyten.model.classfile.ClassFileScanner;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class represents the search of the constant pools of the jar class files.<br>
+ * String literals, class references, member references and the other symbols of the class files are matched
+ * directly from the memory-mapped jar, in parallel, without decompiling nor loading any class: it answers in the time
+ * of a jar scan.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ConstantPoolSearch {
+	/** The key of the search task (a new search supersedes the running one). */
+	private static final String SEARCH_TASK_KEY = "constant-pool-search";
+	/** The maximum number of reported matches. */
+	private static final int MAX_MATCHES = 10000;
+	/** The maximum length of a reported constant. */
+	private static final int MAX_DESCRIPTION_LENGTH = 200;
+
+	/** The jar file. */
+	private final File file;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 */
+	public ConstantPoolSearch(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the jar file.
+	 * 
+	 * @return The jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Search the constant pools.<br>
+	 * The search supersedes the running one.
+	 * 
+	 * @param query
+	 *            The search query.
+	 * @param listener
+	 *            The search listener.
+	 */
+	public void search(final SearchQuery query, final SearchListener listener) {
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, ConstantPoolSearch.SEARCH_TASK_KEY,
+				new Runnable() {
+					@Override
+					public void run() {
+						ConstantPoolSearch.this.runSearch(query, listener);
+					}
+				});
+	}
+
+	/**
+	 * Run a search.
+	 * 
+	 * @param query
+	 *            The search query.
+	 * @param listener
+	 *            The search listener.
+	 */
+	private void runSearch(SearchQuery query, final SearchListener listener) {
+		final Pattern pattern = query.getPattern();
+		final AtomicInteger matchCount = new AtomicInteger();
+		boolean complete;
+		try {
+			complete = new ClassFileScanner(this.file).scan(new ClassFileScanner.Visitor() {
+				@Override
+				public boolean visitClass(String typeName, ClassFileReader reader) {
+					return ConstantPoolSearch.searchClass(typeName, reader, pattern, listener, matchCount);
+				}
+			});
+		} catch (IOException exception) {
+			exception.printStackTrace();
+			complete = false;
+		}
+		// Check cancellation
+		if (TaskScheduler.isCurrentTaskCancelled())
+			return;
+		listener.searchEnded(Math.min(matchCount.get(), ConstantPoolSearch.MAX_MATCHES), complete);
+	}
+
+	/**
+	 * Search the constant pool of a class.
+	 * 
+	 * @param typeName
+	 *            The internal name of the class.
+	 * @param reader
+	 *            The class file reader.
+	 * @param pattern
+	 *            The pattern to match.
+	 * @param listener
+	 *            The search listener.
+	 * @param matchCount
+	 *            The number of reported matches.
+	 * @return <code>true</code> to continue the search, <code>false</code> if the maximum number of matches is reached.
+	 */
+	private static boolean searchClass(String typeName, ClassFileReader reader, Pattern pattern,
+			SearchListener listener, AtomicInteger matchCount) {
+		int count = reader.getConstantCount();
+		// Match references, remembering the symbols they use
+		BitSet referencedSymbols = new BitSet(count);
+		for (int index = 1; index<count; index++) {
+			String kind;
+			String text;
+			switch (reader.getTag(index)) {
+				case ClassFileReader.CONSTANT_STRING:
+					referencedSymbols.set(reader.getReference(index));
+					kind = "String";
+					text = reader.getString(index);
+					break;
+				case ClassFileReader.CONSTANT_CLASS:
+					referencedSymbols.set(reader.getReference(index));
+					kind = "Class";
+					text = reader.getClassName(index).replace('/', '.');
+					break;
+				case ClassFileReader.CONSTANT_FIELDREF:
+					kind = "Field";
+					text = reader.getMemberOwner(index).replace('/', '.')+"."+reader.getMemberName(index);
+					break;
+				case ClassFileReader.CONSTANT_METHODREF:
+				case ClassFileReader.CONSTANT_INTERFACE_METHODREF:
+					kind = "Method";
+					text = reader.getMemberOwner(index).replace('/', '.')+"."+reader.getMemberName(index);
+					break;
+				case ClassFileReader.CONSTANT_NAME_AND_TYPE:
+					referencedSymbols.set(reader.getReference(index));
+					referencedSymbols.set(reader.getSecondReference(index));
+					continue;
+				default:
+					continue;
+			}
+			if (pattern.matcher(text).find()&&!ConstantPoolSearch.report(typeName, kind, text, listener, matchCount))
+				return false;
+		}
+		// Match the other symbols (declared member names, descriptors, attributes)
+		for (int index = 1; index<count; index++) {
+			if (reader.getTag(index)!=ClassFileReader.CONSTANT_UTF8||referencedSymbols.get(index))
+				continue;
+			String text = reader.getUtf8(index);
+			if (pattern.matcher(text).find()&&!ConstantPoolSearch.report(typeName, "Symbol", text, listener,
+					matchCount))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Report a match.
+	 * 
+	 * @param typeName
+	 *            The internal name of the matching class.
+	 * @param kind
+	 *            The kind of the matching constant.
+	 * @param text
+	 *            The matching constant text.
+	 * @param listener
+	 *            The search listener.
+	 * @param matchCount
+	 *            The number of reported matches.
+	 * @return <code>true</code> if the match was reported, <code>false</code> if the maximum number of matches is
+	 *         reached.
+	 */
+	private static boolean report(String typeName, String kind, String text, SearchListener listener,
+			AtomicInteger matchCount) {
+		// Check match count
+		if (matchCount.incrementAndGet()>ConstantPoolSearch.MAX_MATCHES)
+			return false;
+		// Describe constant
+		if (text.length()>ConstantPoolSearch.MAX_DESCRIPTION_LENGTH)
+			text = text.substring(0, ConstantPoolSearch.MAX_DESCRIPTION_LENGTH)+"...";
+		if ("String".equals(kind))
+			text = "\""+text.replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t")+"\"";
+		listener.matchFound(new SearchMatch(typeName, null, 0, kind+" "+text));
+		return true;
+	}
+}
@@ -0,0 +1,22 @@
+package com.modcrafting.luyten.search;
+
+/**
+ * This interface receives the type hierarchy once the jars are indexed, from search threads.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public interface HierarchyListener {
+	/**
+	 * Notify the jars are being indexed before the hierarchy is available.
+	 */
+	void indexing();
+
+	/**
+	 * Notify the hierarchy of all the indexed jars is available.
+	 * 
+	 * @param hierarchy
+	 *            The type hierarchy.
+	 */
+	void hierarchyLoaded(TypeHierarchy hierarchy);
+}
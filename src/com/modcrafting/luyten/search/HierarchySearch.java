@@ -0,0 +1,284 @@
+package com.modcrafting.luyten.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.modcrafting.luyten.model.classfile.ClassFileReader;
+import com.modcrafting.luyten.search.TypeHierarchy.TypeHeader;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class represents the search of the super and sub types of the types of the opened jar and its workspace.<br>
+ * The class file headers of each jar are read once, in parallel and in a background task, without resolving any type
+ * through the metadata system. The opened jar is read in the scan shared with the other searches (see
+ * {@link JarIndexer}). Jars added to the workspace are indexed on top of the existing hierarchy.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class HierarchySearch implements JarIndexer.Indexable, Closeable {
+	/** The opened jar file. */
+	private final File file;
+	/** The type hierarchy of the indexed jars. */
+	private final TypeHierarchy hierarchy;
+	/** The jars waiting to be indexed, in type resolution order. */
+	private final List<File> pendingJars;
+	/** <code>true</code> if jars are being indexed, <code>false</code> otherwise. */
+	private boolean indexing;
+	/** The listener waiting for the hierarchy (<code>null</code> if none). */
+	private HierarchyListener pendingListener;
+	/** The closed status. */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The opened jar file.
+	 */
+	public HierarchySearch(File file) {
+		this.file = file;
+		this.hierarchy = new TypeHierarchy();
+		this.pendingJars = new ArrayList<>();
+	}
+
+	/**
+	 * Get the opened jar file.
+	 * 
+	 * @return The opened jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Get the type hierarchy once all the jars are indexed.<br>
+	 * The listener is notified immediately if no jar is being indexed. A newer request supersedes the waiting one.
+	 * 
+	 * @param listener
+	 *            The hierarchy listener.
+	 */
+	public void getHierarchy(HierarchyListener listener) {
+		boolean waiting;
+		synchronized (this) {
+			waiting = this.indexing;
+			if (waiting)
+				this.pendingListener = listener;
+		}
+		if (waiting) {
+			listener.indexing();
+		} else {
+			listener.hierarchyLoaded(this.hierarchy);
+		}
+	}
+
+	/**
+	 * Start indexing the jars not indexed yet.
+	 * 
+	 * @param jars
+	 *            The jars to index, in type resolution order.
+	 */
+	public synchronized void startIndexing(List<File> jars) {
+		// Queue jars not indexed
+		for (File jar : jars) {
+			if (!this.hierarchy.hasJar(jar)&&!this.pendingJars.contains(jar))
+				this.pendingJars.add(jar);
+		}
+		// Check indexing status
+		if (this.indexing||this.pendingJars.isEmpty()||this.closed)
+			return;
+		this.indexing = true;
+		this.executeIndexing();
+	}
+
+	/**
+	 * Index the pending jars in a background task.
+	 */
+	private void executeIndexing() {
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				HierarchySearch.this.indexPendingJars();
+			}
+		});
+	}
+
+	@Override
+	public synchronized boolean reserveIndexing() {
+		// Check opened jar
+		if (this.closed||this.hierarchy.hasJar(this.file))
+			return false;
+		// Queue opened jar first (it shadows the workspace jars)
+		if (!this.pendingJars.contains(this.file))
+			this.pendingJars.add(0, this.file);
+		// Check indexing status (running indexing reads the queued opened jar)
+		if (this.indexing)
+			return false;
+		this.indexing = true;
+		return true;
+	}
+
+	@Override
+	public JarIndexer.IndexBuilder createIndexBuilder() {
+		boolean pending;
+		synchronized (this) {
+			pending = !this.closed&&this.pendingJars.remove(this.file);
+		}
+		// Check opened jar is still pending
+		if (!pending) {
+			this.executeIndexing();
+			return null;
+		}
+		return new JarHeaders(this.file) {
+			@Override
+			public void scanEnded(boolean complete) {
+				super.scanEnded(complete);
+				// Index the workspace jars after the opened jar, without delaying the other searches
+				HierarchySearch.this.executeIndexing();
+			}
+		};
+	}
+
+	/**
+	 * Index the pending jars, one after the other to keep the type resolution order.
+	 */
+	private void indexPendingJars() {
+		while (true) {
+			File jar;
+			HierarchyListener listener;
+			synchronized (this) {
+				// Check pending jars
+				if (this.pendingJars.isEmpty()||this.closed) {
+					this.indexing = false;
+					listener = this.pendingListener;
+					this.pendingListener = null;
+					jar = null;
+				} else {
+					jar = this.pendingJars.remove(0);
+					listener = null;
+				}
+			}
+			if (jar==null) {
+				if (listener!=null&&!this.closed)
+					listener.hierarchyLoaded(this.hierarchy);
+				return;
+			}
+			this.indexJar(jar);
+		}
+	}
+
+	/**
+	 * Read the class file headers of a jar and add them to the hierarchy.
+	 * 
+	 * @param jar
+	 *            The jar to index.
+	 */
+	private void indexJar(File jar) {
+		JarHeaders jarHeaders = new JarHeaders(jar);
+		boolean complete;
+		try {
+			complete = JarIndexer.scan(jar, Collections.<JarIndexer.IndexBuilder> singletonList(jarHeaders));
+		} catch (IOException exception) {
+			exception.printStackTrace();
+			complete = false;
+		}
+		jarHeaders.scanEnded(complete);
+	}
+
+	/**
+	 * Get the type of a navigation link.
+	 * 
+	 * @param link
+	 *            The navigation link (see {@link com.modcrafting.luyten.DecompilerLinkProvider}).
+	 * @return The internal name of the linked type, or of the declaring type of the linked field or method,
+	 *         <code>null</code> if the link is not a type, field or method link.
+	 */
+	public static String getTypeName(String link) {
+		if (link==null)
+			return null;
+		String[] linkParts = link.split("\\|");
+		if (linkParts.length<3)
+			return null;
+		switch (linkParts[0]) {
+			case "type":
+			case "field":
+			case "method":
+				// Convert link type name to internal name
+				String typeName = linkParts[2].replace('.', '/');
+				return typeName.startsWith("/") ? typeName.substring(1) : typeName;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Get the navigation link of a type.
+	 * 
+	 * @param typeHierarchy
+	 *            The type hierarchy.
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The navigation link to the type definition.
+	 */
+	public static String getTypeLink(TypeHierarchy typeHierarchy, String typeName) {
+		return "type|"+typeHierarchy.getOutermostType(typeName)+"|"+typeName.replace('/', '.');
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this) {
+			this.pendingJars.clear();
+			this.pendingListener = null;
+		}
+	}
+
+	/**
+	 * This class reads the class file headers of a jar and adds them to the hierarchy once all read.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	private class JarHeaders implements JarIndexer.IndexBuilder {
+		/** The indexed jar. */
+		private final File jar;
+		/** The header of each type of the jar, by internal name. */
+		private final Map<String, TypeHeader> headers;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param jar
+		 *            The indexed jar.
+		 */
+		private JarHeaders(File jar) {
+			this.jar = jar;
+			this.headers = new ConcurrentHashMap<>();
+		}
+
+		@Override
+		public boolean addClass(String typeName, ClassFileReader reader) {
+			try {
+				this.headers.put(typeName, new TypeHeader(reader.getAccessFlags(), reader.getSuperClass(), reader
+						.getInterfaces()));
+			} catch (IOException exception) {
+				// Invalid class file: the class is not part of the hierarchy
+			}
+			return !HierarchySearch.this.closed;
+		}
+
+		@Override
+		public void scanEnded(boolean complete) {
+			// Check indexing completion (a jar that cannot be read is left out of the hierarchy)
+			if (complete)
+				HierarchySearch.this.hierarchy.addJar(this.jar, this.headers);
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.modcrafting.luyten.search;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a growable list of ids, the postings of an index being built.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+class IdList {
+	/** The ids. */
+	private int[] ids = new int[2];
+	/** The number of ids. */
+	private int size = 0;
+
+	void add(int id) {
+		if (this.size==this.ids.length)
+			this.ids = Arrays.copyOf(this.ids, this.size*2);
+		this.ids[this.size++] = id;
+	}
+
+	int[] toSortedArray() {
+		int[] sortedIds = Arrays.copyOf(this.ids, this.size);
+		Arrays.sort(sortedIds);
+		return sortedIds;
+	}
+}
@@ -0,0 +1,139 @@
+package com.modcrafting.luyten.search;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.modcrafting.luyten.ConfigSaver;
+
+import com.modcrafting.luyten.model.zip.ZipArchive;
+import com.modcrafting.luyten.model.zip.ZipArchiveEntry;
+
+/**
+ * This class computes the fingerprint of a jar, the name of its persisted indexes.<br>
+ * The fingerprint hashes the central directory (entry names, CRC and sizes) instead of the whole file: it is computed
+ * without inflating any entry and changes as soon as an entry content changes.<br>
+ * The index directory size is capped by deleting the least recently used indexes.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class JarFingerprint {
+	/** The charset used to hash texts. */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/** The extension of the index files being written. */
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	/** The number of bytes in a megabyte. */
+	private static final long MEGABYTE = 1024*1024;
+
+	/**
+	 * Do not instantiate, use static methods.
+	 */
+	private JarFingerprint() {
+	}
+
+	/**
+	 * Compute the fingerprint of a jar.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 * @param salt
+	 *            The additional key of the index (the decompiler settings for example, empty if none).
+	 * @return The hexadecimal fingerprint of the jar.
+	 * @throws IOException
+	 *             Throws exception if the jar could not be read.
+	 */
+	public static String compute(File file, String salt) throws IOException {
+		try (ZipArchive archive = new ZipArchive(file)) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(salt.getBytes(JarFingerprint.UTF8));
+			for (ZipArchiveEntry entry : archive.getEntries()) {
+				digest.update(entry.getNameBytes());
+				long crc = entry.getCrc()&0xFFFFFFFFL;
+				long size = entry.getSize();
+				for (int shift = 0; shift<64; shift += 8) {
+					digest.update((byte) (crc>>>shift));
+					digest.update((byte) (size>>>shift));
+				}
+			}
+			// Convert digest to hexadecimal fingerprint
+			StringBuilder fingerprint = new StringBuilder();
+			for (byte b : digest.digest()) {
+				fingerprint.append(Character.forDigit((b>>4)&0xF, 16));
+				fingerprint.append(Character.forDigit(b&0xF, 16));
+			}
+			return fingerprint.toString();
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IOException(exception);
+		}
+	}
+
+	/**
+	 * Get the file of a persisted jar index.<br>
+	 * An existing index is marked as recently used.
+	 * 
+	 * @param fingerprint
+	 *            The jar fingerprint.
+	 * @param extension
+	 *            The index file extension (the kind of index).
+	 * @return The index file.
+	 */
+	public static File getIndexFile(String fingerprint, String extension) {
+		File indexFile = new File(JarFingerprint.getIndexDirectory(), fingerprint+extension);
+		if (indexFile.isFile())
+			indexFile.setLastModified(System.currentTimeMillis());
+		return indexFile;
+	}
+
+	/**
+	 * Delete the least recently used indexes until the index directory fits its maximum size.
+	 * 
+	 * @param writtenFile
+	 *            The index file just written (it is kept).
+	 */
+	public static synchronized void trimIndexes(File writtenFile) {
+		File[] indexFiles = JarFingerprint.getIndexDirectory().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile()&&!file.getName().endsWith(JarFingerprint.TEMPORARY_EXTENSION);
+			}
+		});
+		// Check index files
+		if (indexFiles==null)
+			return;
+		long totalSize = 0;
+		for (File indexFile : indexFiles) {
+			totalSize += indexFile.length();
+		}
+		long maxSize = ConfigSaver.getLoadedInstance().getLuytenPreferences().getIndexMaxSizeMb()
+				*JarFingerprint.MEGABYTE;
+		// Evict least recently used indexes
+		Arrays.sort(indexFiles, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				return Long.compare(file1.lastModified(), file2.lastModified());
+			}
+		});
+		for (File indexFile : indexFiles) {
+			if (totalSize<=maxSize)
+				return;
+			long size = indexFile.length();
+			if (!indexFile.equals(writtenFile)&&indexFile.delete())
+				totalSize -= size;
+		}
+	}
+
+	/**
+	 * Get the directory of the persisted indexes.
+	 * 
+	 * @return The index directory.
+	 */
+	private static File getIndexDirectory() {
+		return new File(System.getProperty("user.home"), ".luyten"+File.separator+"index");
+	}
+}
@@ -0,0 +1,158 @@
+package com.modcrafting.luyten.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.modcrafting.luyten.model.classfile.ClassFileReader;
+import com.modcrafting.luyten.model.classfile.ClassFileScanner;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class indexes the class files of a jar for several searches in a single scan.<br>
+ * Each search first reserves the indexing of the jar, then provides its index builder once the background task starts:
+ * the class files are read once and each class is added to all the builders.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class JarIndexer {
+	/**
+	 * Start indexing a jar for the searches not indexed yet.
+	 * 
+	 * @param jar
+	 *            The jar to index.
+	 * @param searches
+	 *            The searches to index the jar for.
+	 */
+	public static void startIndexing(final File jar, Indexable... searches) {
+		// Reserve indexing of each search
+		final List<Indexable> indexedSearches = new ArrayList<>(searches.length);
+		for (Indexable search : searches) {
+			if (search.reserveIndexing())
+				indexedSearches.add(search);
+		}
+		// Check indexed searches
+		if (indexedSearches.isEmpty())
+			return;
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				JarIndexer.index(jar, indexedSearches);
+			}
+		});
+	}
+
+	/**
+	 * Index a jar for searches.
+	 * 
+	 * @param jar
+	 *            The jar to index.
+	 * @param searches
+	 *            The searches which reserved the indexing of the jar.
+	 */
+	private static void index(File jar, List<Indexable> searches) {
+		// Create index builders
+		List<IndexBuilder> builders = new ArrayList<>(searches.size());
+		for (Indexable search : searches) {
+			IndexBuilder builder = search.createIndexBuilder();
+			if (builder!=null)
+				builders.add(builder);
+		}
+		// Check builders
+		if (builders.isEmpty())
+			return;
+		boolean complete;
+		try {
+			complete = JarIndexer.scan(jar, builders);
+		} catch (IOException exception) {
+			exception.printStackTrace();
+			complete = false;
+		}
+		for (IndexBuilder builder : builders) {
+			builder.scanEnded(complete);
+		}
+	}
+
+	/**
+	 * Scan the class files of a jar and add them to index builders.
+	 * 
+	 * @param jar
+	 *            The jar to scan.
+	 * @param builders
+	 *            The index builders.
+	 * @return <code>true</code> if all class files were added, <code>false</code> if the scan was cancelled or no
+	 *         builder needed more classes.
+	 * @throws IOException
+	 *             Throws exception if the jar could not be read.
+	 */
+	static boolean scan(File jar, final List<IndexBuilder> builders) throws IOException {
+		return new ClassFileScanner(jar).scan(new ClassFileScanner.Visitor() {
+			@Override
+			public boolean visitClass(String typeName, ClassFileReader reader) {
+				boolean needed = false;
+				for (IndexBuilder builder : builders) {
+					try {
+						needed |= builder.addClass(typeName, reader);
+					} catch (IllegalArgumentException|IndexOutOfBoundsException exception) {
+						// Malformed class file: skipped by this builder only
+						needed = true;
+					}
+				}
+				return needed;
+			}
+		});
+	}
+
+	/**
+	 * This interface represents a search indexing the class files of its jar.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public interface Indexable {
+		/**
+		 * Reserve the indexing of the jar.
+		 * 
+		 * @return <code>true</code> if the jar must be indexed for the search, <code>false</code> if it is already
+		 *         indexed, being indexed or if the search is closed.
+		 */
+		boolean reserveIndexing();
+
+		/**
+		 * Create the index builder of the search, from the indexing task.
+		 * 
+		 * @return The index builder, <code>null</code> if the index is available without scanning the jar.
+		 */
+		IndexBuilder createIndexBuilder();
+	}
+
+	/**
+	 * This interface builds the index of a search from the class files of a scan shared with other searches.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public interface IndexBuilder {
+		/**
+		 * Add a class file to the index (called from several threads).
+		 * 
+		 * @param typeName
+		 *            The internal name of the class.
+		 * @param reader
+		 *            The class file reader.
+		 * @return <code>true</code> to continue the scan, <code>false</code> if the index is not needed anymore.
+		 */
+		boolean addClass(String typeName, ClassFileReader reader);
+
+		/**
+		 * Notify the scan ended.
+		 * 
+		 * @param complete
+		 *            <code>true</code> if all the class files were added, <code>false</code> otherwise.
+		 */
+		void scanEnded(boolean complete);
+	}
+}
@@ -0,0 +1,38 @@
+package com.modcrafting.luyten.search;
+
+/**
+ * This interface receives the progress and the matches of a search, from search threads.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public interface SearchListener {
+	/**
+	 * Notify the jar is being indexed before the search is run.
+	 * 
+	 * @param indexedCount
+	 *            The number of indexed classes.
+	 * @param classCount
+	 *            The number of classes to index.
+	 */
+	void indexing(int indexedCount, int classCount);
+
+	/**
+	 * Notify a match is found.
+	 * 
+	 * @param match
+	 *            The found match.
+	 */
+	void matchFound(SearchMatch match);
+
+	/**
+	 * Notify the search ended.
+	 * 
+	 * @param matchCount
+	 *            The number of found matches.
+	 * @param complete
+	 *            <code>true</code> if all matches were found, <code>false</code> if the search stopped at the maximum
+	 *            number of matches.
+	 */
+	void searchEnded(int matchCount, boolean complete);
+}
@@ -0,0 +1,122 @@
+package com.modcrafting.luyten.search;
+
+import com.modcrafting.luyten.Selection;
+
+/**
+ * This class represents a match of a search in a class of the jar.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SearchMatch {
+	/** The internal name of the matching type. */
+	private final String typeName;
+	/** The match selection (in the decompiled source for source searches). */
+	private final Selection selection;
+	/** The match line number (starting at <code>1</code>, <code>0</code> if not in a source). */
+	private final int lineNumber;
+	/** The match description (the matching source line for source searches). */
+	private final String description;
+	/** The navigation link of the match (<code>null</code> to navigate to the matching type). */
+	private final String link;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeName
+	 *            The internal name of the matching type.
+	 * @param selection
+	 *            The match selection (<code>null</code> if not in a source).
+	 * @param lineNumber
+	 *            The match line number (starting at <code>1</code>, <code>0</code> if not in a source).
+	 * @param description
+	 *            The match description.
+	 */
+	public SearchMatch(String typeName, Selection selection, int lineNumber, String description) {
+		this.typeName = typeName;
+		this.selection = selection;
+		this.lineNumber = lineNumber;
+		this.description = description;
+		this.link = null;
+	}
+
+	/**
+	 * Constructor of a match out of any source.
+	 * 
+	 * @param typeName
+	 *            The internal name of the matching type.
+	 * @param link
+	 *            The navigation link of the match (see {@link com.modcrafting.luyten.DecompilerLinkProvider}).
+	 * @param description
+	 *            The match description.
+	 */
+	public SearchMatch(String typeName, String link, String description) {
+		this.typeName = typeName;
+		this.selection = null;
+		this.lineNumber = 0;
+		this.description = description;
+		this.link = link;
+	}
+
+	/**
+	 * Get the internal name of the matching type.
+	 * 
+	 * @return The internal name of the matching type.
+	 */
+	public String getTypeName() {
+		return this.typeName;
+	}
+
+	/**
+	 * Get the type link of the match (see {@link com.modcrafting.luyten.DecompilerLinkProvider}).
+	 * 
+	 * @return The type link to navigate to the matching type.
+	 */
+	public String getTypeLink() {
+		return "type|"+this.typeName+"|"+this.typeName.replace('/', '.');
+	}
+
+	/**
+	 * Get the navigation link of the match.
+	 * 
+	 * @return The link to navigate to the match definition, the type link if none.
+	 */
+	public String getLink() {
+		return this.link!=null ? this.link : this.getTypeLink();
+	}
+
+	/**
+	 * Get the match selection.
+	 * 
+	 * @return The match selection, <code>null</code> if not in a source.
+	 */
+	public Selection getSelection() {
+		return this.selection;
+	}
+
+	/**
+	 * Get the match line number.
+	 * 
+	 * @return The match line number (starting at <code>1</code>, <code>0</code> if not in a source).
+	 */
+	public int getLineNumber() {
+		return this.lineNumber;
+	}
+
+	/**
+	 * Get the match description.
+	 * 
+	 * @return The match description.
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+	@Override
+	public String toString() {
+		String className = this.typeName.replace('/', '.');
+		if (this.lineNumber>0)
+			return className+":"+this.lineNumber+": "+this.description;
+		return className+": "+this.description;
+	}
+}
@@ -0,0 +1,95 @@
+package com.modcrafting.luyten.search;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * This class represents a text search query, with the options of the find box.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SearchQuery {
+	/** The searched text (or regular expression). */
+	private final String text;
+	/** <code>true</code> to match case, <code>false</code> otherwise. */
+	private final boolean matchCase;
+	/** <code>true</code> if the text is a regular expression, <code>false</code> otherwise. */
+	private final boolean regex;
+	/** <code>true</code> to match whole words only, <code>false</code> otherwise. */
+	private final boolean wholeWord;
+	/** The compiled pattern of the query. */
+	private final Pattern pattern;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param text
+	 *            The searched text (or regular expression).
+	 * @param matchCase
+	 *            <code>true</code> to match case, <code>false</code> otherwise.
+	 * @param regex
+	 *            <code>true</code> if the text is a regular expression, <code>false</code> otherwise.
+	 * @param wholeWord
+	 *            <code>true</code> to match whole words only, <code>false</code> otherwise.
+	 * @throws PatternSyntaxException
+	 *             Throws exception if the regular expression is not valid.
+	 */
+	public SearchQuery(String text, boolean matchCase, boolean regex, boolean wholeWord) {
+		this.text = text;
+		this.matchCase = matchCase;
+		this.regex = regex;
+		this.wholeWord = wholeWord;
+		// Build pattern
+		String expression = regex ? text : Pattern.quote(text);
+		if (wholeWord)
+			expression = "(?<![\\w$])(?:"+expression+")(?![\\w$])";
+		int flags = matchCase ? 0 : Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE;
+		this.pattern = Pattern.compile(expression, flags);
+	}
+
+	/**
+	 * Get the searched text.
+	 * 
+	 * @return The searched text (or regular expression).
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * Check whether the query matches case.
+	 * 
+	 * @return <code>true</code> to match case, <code>false</code> otherwise.
+	 */
+	public boolean isMatchCase() {
+		return this.matchCase;
+	}
+
+	/**
+	 * Check whether the text is a regular expression.
+	 * 
+	 * @return <code>true</code> if the text is a regular expression, <code>false</code> otherwise.
+	 */
+	public boolean isRegex() {
+		return this.regex;
+	}
+
+	/**
+	 * Check whether the query matches whole words only.
+	 * 
+	 * @return <code>true</code> to match whole words only, <code>false</code> otherwise.
+	 */
+	public boolean isWholeWord() {
+		return this.wholeWord;
+	}
+
+	/**
+	 * Get the compiled pattern of the query.
+	 * 
+	 * @return The compiled pattern.
+	 */
+	public Pattern getPattern() {
+		return this.pattern;
+	}
+}
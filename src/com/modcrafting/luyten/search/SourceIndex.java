@@ -0,0 +1,352 @@
+package com.modcrafting.luyten.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class represents an inverted index of the decompiled sources of a jar.<br>
+ * Each identifier token of the sources (lower cased) is mapped to the sorted ids of the types whose source contains
+ * it. A literal query only has to check the types containing all its tokens; the index never gives false negatives,
+ * the candidates are checked against their source.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SourceIndex {
+	/** The index format version (change it to drop indexes written by a previous format). */
+	private static final int FORMAT_VERSION = 1;
+	/** The maximum length of an indexed token (longer tokens are indexed by their start). */
+	private static final int MAX_TOKEN_LENGTH = 128;
+
+	/** The internal names of the indexed types, by id. */
+	private final String[] typeNames;
+	/** The sorted tokens. */
+	private final String[] tokens;
+	/** The sorted type ids of each token. */
+	private final int[][] postings;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeNames
+	 *            The internal names of the indexed types, by id.
+	 * @param tokens
+	 *            The sorted tokens.
+	 * @param postings
+	 *            The sorted type ids of each token.
+	 */
+	private SourceIndex(String[] typeNames, String[] tokens, int[][] postings) {
+		this.typeNames = typeNames;
+		this.tokens = tokens;
+		this.postings = postings;
+	}
+
+	/**
+	 * Get the number of indexed types.
+	 * 
+	 * @return The number of indexed types.
+	 */
+	public int getTypeCount() {
+		return this.typeNames.length;
+	}
+
+	/**
+	 * Get the internal name of an indexed type.
+	 * 
+	 * @param id
+	 *            The type id.
+	 * @return The internal name of the type.
+	 */
+	public String getTypeName(int id) {
+		return this.typeNames[id];
+	}
+
+	/**
+	 * Get the types which may contain a literal text.
+	 * 
+	 * @param text
+	 *            The searched text.
+	 * @param wholeWord
+	 *            <code>true</code> if the text is searched as whole words, <code>false</code> if it may be part of
+	 *            words.
+	 * @return The ids of the types which may contain the text.
+	 */
+	public BitSet getCandidates(String text, boolean wholeWord) {
+		BitSet candidates = new BitSet(this.typeNames.length);
+		candidates.set(0, this.typeNames.length);
+		List<String> queryTokens = SourceIndex.tokenize(text);
+		for (int index = 0; index<queryTokens.size()&&!candidates.isEmpty(); index++) {
+			String queryToken = queryTokens.get(index);
+			if (queryToken.length()>=SourceIndex.MAX_TOKEN_LENGTH)
+				continue;
+			// Inner tokens are whole tokens, outer ones may be part of a token
+			boolean first = index==0&&!SourceIndex.isTokenPart(text.charAt(0));
+			boolean last = index==queryTokens.size()-1&&!SourceIndex.isTokenPart(text.charAt(text.length()-1));
+			BitSet tokenCandidates;
+			if (wholeWord||index>0&&index<queryTokens.size()-1) {
+				tokenCandidates = this.getExactCandidates(queryToken);
+			} else {
+				tokenCandidates = this.getPartialCandidates(queryToken, index>0||first,
+						index<queryTokens.size()-1||last);
+			}
+			candidates.and(tokenCandidates);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Get the types containing a token.
+	 * 
+	 * @param queryToken
+	 *            The searched token.
+	 * @return The ids of the types containing the token.
+	 */
+	private BitSet getExactCandidates(String queryToken) {
+		BitSet candidates = new BitSet(this.typeNames.length);
+		int index = Arrays.binarySearch(this.tokens, queryToken);
+		if (index>=0) {
+			for (int id : this.postings[index]) {
+				candidates.set(id);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Get the types containing a token part.
+	 * 
+	 * @param queryToken
+	 *            The searched token part.
+	 * @param anchoredStart
+	 *            <code>true</code> if the part must start a token, <code>false</code> otherwise.
+	 * @param anchoredEnd
+	 *            <code>true</code> if the part must end a token, <code>false</code> otherwise.
+	 * @return The ids of the types containing a token with the part.
+	 */
+	private BitSet getPartialCandidates(String queryToken, boolean anchoredStart, boolean anchoredEnd) {
+		BitSet candidates = new BitSet(this.typeNames.length);
+		for (int index = 0; index<this.tokens.length; index++) {
+			String token = this.tokens[index];
+			boolean matches;
+			if (anchoredStart&&anchoredEnd) {
+				matches = token.equals(queryToken);
+			} else if (anchoredStart) {
+				matches = token.startsWith(queryToken);
+			} else if (anchoredEnd) {
+				matches = token.endsWith(queryToken);
+			} else {
+				matches = token.contains(queryToken);
+			}
+			if (matches) {
+				for (int id : this.postings[index]) {
+					candidates.set(id);
+				}
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Split a text into its lower cased identifier tokens.
+	 * 
+	 * @param text
+	 *            The text to split.
+	 * @return The tokens of the text, in text order.
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		int start = -1;
+		for (int index = 0; index<=text.length(); index++) {
+			boolean tokenPart = index<text.length()&&SourceIndex.isTokenPart(text.charAt(index));
+			if (tokenPart&&start==-1) {
+				start = index;
+			} else if (!tokenPart&&start!=-1) {
+				int end = Math.min(index, start+SourceIndex.MAX_TOKEN_LENGTH);
+				tokens.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Check whether a character is part of a token.
+	 * 
+	 * @param character
+	 *            The character to check.
+	 * @return <code>true</code> if the character is part of a token, <code>false</code> if it separates tokens.
+	 */
+	private static boolean isTokenPart(char character) {
+		return Character.isLetterOrDigit(character)||character=='_'||character=='$';
+	}
+
+	/**
+	 * Write the index to a file.
+	 * 
+	 * @param file
+	 *            The file to write.
+	 * @throws IOException
+	 *             Throws exception if the index could not be written.
+	 */
+	public void write(File file) throws IOException {
+		File directory = file.getParentFile();
+		if (directory!=null&&!directory.isDirectory()&&!directory.mkdirs())
+			throw new IOException("Unable to create index directory: "+directory);
+		// Write a temporary file then publish it
+		File temporaryFile = new File(file.getPath()+"."+Thread.currentThread().getId()+".tmp");
+		try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
+				GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fileOutputStream);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzipOutputStream))) {
+			out.writeInt(SourceIndex.FORMAT_VERSION);
+			out.writeInt(this.typeNames.length);
+			for (String typeName : this.typeNames) {
+				out.writeUTF(typeName);
+			}
+			out.writeInt(this.tokens.length);
+			for (int index = 0; index<this.tokens.length; index++) {
+				out.writeUTF(this.tokens[index]);
+				int[] ids = this.postings[index];
+				out.writeInt(ids.length);
+				// Store sorted ids as deltas: mostly small values, well compressed
+				int previousId = 0;
+				for (int id : ids) {
+					out.writeInt(id-previousId);
+					previousId = id;
+				}
+			}
+		}
+		file.delete();
+		if (!temporaryFile.renameTo(file)) {
+			temporaryFile.delete();
+			throw new IOException("Unable to write index file: "+file);
+		}
+	}
+
+	/**
+	 * Read an index from a file.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @return The read index.
+	 * @throws IOException
+	 *             Throws exception if the index could not be read.
+	 */
+	public static SourceIndex read(File file) throws IOException {
+		try (FileInputStream fileInputStream = new FileInputStream(file);
+				GZIPInputStream gzipInputStream = new GZIPInputStream(fileInputStream);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(gzipInputStream))) {
+			if (in.readInt()!=SourceIndex.FORMAT_VERSION)
+				throw new IOException("Unsupported index format: "+file.getName());
+			String[] typeNames = new String[in.readInt()];
+			for (int index = 0; index<typeNames.length; index++) {
+				typeNames[index] = in.readUTF();
+			}
+			int tokenCount = in.readInt();
+			String[] tokens = new String[tokenCount];
+			int[][] postings = new int[tokenCount][];
+			for (int index = 0; index<tokenCount; index++) {
+				tokens[index] = in.readUTF();
+				int[] ids = new int[in.readInt()];
+				int id = 0;
+				for (int idIndex = 0; idIndex<ids.length; idIndex++) {
+					id += in.readInt();
+					ids[idIndex] = id;
+				}
+				postings[index] = ids;
+			}
+			return new SourceIndex(typeNames, tokens, postings);
+		}
+	}
+
+	/**
+	 * This class builds a source index from sources added concurrently.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public static class Builder {
+		/** The internal names of the types to index, by id. */
+		private final String[] typeNames;
+		/** The type ids of each token, in addition order. */
+		private final Map<String, IdList> postings;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param typeNames
+		 *            The internal names of the types to index, by id.
+		 */
+		public Builder(List<String> typeNames) {
+			this.typeNames = typeNames.toArray(new String[typeNames.size()]);
+			this.postings = new HashMap<>();
+		}
+
+		/**
+		 * Add the source of a type (thread-safe).
+		 * 
+		 * @param id
+		 *            The type id.
+		 * @param source
+		 *            The decompiled source of the type.
+		 */
+		public void add(int id, String source) {
+			// Tokenize outside of the lock
+			Set<String> sourceTokens = new HashSet<>(SourceIndex.tokenize(source));
+			synchronized (this.postings) {
+				for (String token : sourceTokens) {
+					IdList ids = this.postings.get(token);
+					if (ids==null) {
+						ids = new IdList();
+						this.postings.put(token, ids);
+					}
+					ids.add(id);
+				}
+			}
+		}
+
+		/**
+		 * Build the index of the added sources.
+		 * 
+		 * @return The built index.
+		 */
+		public SourceIndex build() {
+			synchronized (this.postings) {
+				String[] tokens = this.postings.keySet().toArray(new String[this.postings.size()]);
+				Arrays.sort(tokens);
+				int[][] tokenPostings = new int[tokens.length][];
+				for (int index = 0; index<tokens.length; index++) {
+					tokenPostings[index] = this.postings.get(tokens[index]).toSortedArray();
+				}
+				return new SourceIndex(this.typeNames, tokens, tokenPostings);
+			}
+		}
+	}
+
+	/**
+	 * Check the index covers the given types.
+	 * 
+	 * @param typeNames
+	 *            The internal names of the types, by id.
+	 * @return <code>true</code> if the index types are the given ones, <code>false</code> otherwise.
+	 */
+	public boolean hasTypes(List<String> typeNames) {
+		return Arrays.asList(this.typeNames).equals(typeNames);
+	}
+}
@@ -0,0 +1,478 @@
+package com.modcrafting.luyten.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+import com.modcrafting.luyten.DecompilerLinkProvider;
+import com.modcrafting.luyten.MetadataSystemPool;
+import com.modcrafting.luyten.Selection;
+import com.modcrafting.luyten.cache.DecompiledCache;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+import com.strobel.assembler.metadata.ITypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilerSettings;
+
+/**
+ * This class represents the full-text search over the decompiled sources of a jar.<br>
+ * The jar is indexed once in background tasks, one per processor, reusing the decompiled content cache: the sources
+ * decompiled while indexing are cached too. The index is persisted by jar fingerprint and decompiler settings, so a
+ * jar opened again is searched without decompiling it. Searches only check the classes the index selects, and report
+ * matches as they are found.<br>
+ * The index keeps tokens, not the sources: a regular expression selects every class, and the sources no more in the
+ * decompiled content cache are decompiled again to be checked.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SourceSearch implements Closeable {
+	/** The index file extension. */
+	private static final String INDEX_EXTENSION = ".source.index";
+	/** The key of the search task (a new search supersedes the running one). */
+	private static final String SEARCH_TASK_KEY = "source-search";
+	/** The maximum number of reported matches. */
+	private static final int MAX_MATCHES = 10000;
+	/** The number of classes indexed between progress notifications. */
+	private static final int PROGRESS_STEP = 64;
+	/** The number of classes an indexing task decompiles before letting other background tasks run. */
+	private static final int CHUNK_SIZE = 16;
+
+	/** The jar file. */
+	private final File file;
+	/** The internal names of the types of the jar. */
+	private final Set<String> jarTypeNames;
+	/**
+	 * The internal names of the top-level types of the jar (nested types are part of their source, <code>null</code>
+	 * until listed).
+	 */
+	private List<String> typeNames;
+	/** The type loader to read class file bytes from. */
+	private final ITypeLoader typeLoader;
+	/** The metadata systems to resolve types. */
+	private final MetadataSystemPool metadataSystemPool;
+	/** The decompiler settings snapshot. */
+	private final DecompilerSettings settings;
+	/** The key of the decompiler settings snapshot. */
+	private final String settingsKey;
+	/** The number of indexed types. */
+	private final AtomicInteger indexedCount;
+	/** The source index (<code>null</code> until indexed). */
+	private volatile SourceIndex index;
+	/** <code>true</code> if the jar is being indexed, <code>false</code> otherwise. */
+	private boolean indexing;
+	/** The search waiting for the index (<code>null</code> if none). */
+	private Runnable pendingSearch;
+	/** The listener of the search waiting for the index (<code>null</code> if none). */
+	private SearchListener pendingListener;
+	/** The closed status. */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 * @param jarTypeNames
+	 *            The internal names of the types of the jar.
+	 * @param typeLoader
+	 *            The type loader to read class file bytes from (must be thread-safe).
+	 * @param metadataSystemPool
+	 *            The metadata systems to resolve types.
+	 * @param settings
+	 *            The decompiler settings (cloned, later changes are ignored).
+	 */
+	public SourceSearch(File file, Set<String> jarTypeNames, ITypeLoader typeLoader,
+			MetadataSystemPool metadataSystemPool, DecompilerSettings settings) {
+		this.file = file;
+		this.jarTypeNames = jarTypeNames;
+		this.typeLoader = typeLoader;
+		this.metadataSystemPool = metadataSystemPool;
+		this.settings = JarExporter.cloneSettings(settings);
+		this.settingsKey = DecompiledCache.getSettingsKey(this.settings);
+		this.indexedCount = new AtomicInteger();
+		this.index = null;
+		this.indexing = false;
+		this.pendingSearch = null;
+		this.pendingListener = null;
+		this.closed = false;
+	}
+
+	/**
+	 * Get the top-level types of the jar, listing them the first time (out of the event dispatch thread).
+	 * 
+	 * @return The internal names of the top-level types, in name order.
+	 */
+	private synchronized List<String> getTypeNames() {
+		if (this.typeNames==null)
+			this.typeNames = SourceSearch.getTopLevelTypeNames(this.jarTypeNames);
+		return this.typeNames;
+	}
+
+	/**
+	 * Get the top-level types of a jar, in name order.
+	 * 
+	 * @param jarTypeNames
+	 *            The internal names of the types of the jar.
+	 * @return The internal names of the top-level types.
+	 */
+	private static List<String> getTopLevelTypeNames(Set<String> jarTypeNames) {
+		List<String> topLevelTypeNames = new ArrayList<>();
+		for (String typeName : new TreeSet<>(jarTypeNames)) {
+			int separatorIndex = typeName.indexOf('$', typeName.lastIndexOf('/')+1);
+			// Keep types named with a $ but not nested in another type
+			if (separatorIndex>0&&jarTypeNames.contains(typeName.substring(0, separatorIndex)))
+				continue;
+			topLevelTypeNames.add(typeName);
+		}
+		return topLevelTypeNames;
+	}
+
+	/**
+	 * Get the jar file.
+	 * 
+	 * @return The jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Get the key of the decompiler settings the sources are searched with.
+	 * 
+	 * @return The key of the decompiler settings.
+	 */
+	public String getSettingsKey() {
+		return this.settingsKey;
+	}
+
+	/**
+	 * Search the decompiled sources.<br>
+	 * The search supersedes the running one. The jar is indexed first if needed.
+	 * 
+	 * @param query
+	 *            The search query.
+	 * @param listener
+	 *            The search listener.
+	 */
+	public void search(final SearchQuery query, final SearchListener listener) {
+		final Runnable search = new Runnable() {
+			@Override
+			public void run() {
+				SourceSearch.this.runSearch(query, listener);
+			}
+		};
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, SourceSearch.SEARCH_TASK_KEY,
+				new Runnable() {
+					@Override
+					public void run() {
+						// Check index
+						if (SourceSearch.this.index!=null) {
+							search.run();
+							return;
+						}
+						// Wait for the index
+						synchronized (SourceSearch.this) {
+							SourceSearch.this.pendingSearch = search;
+							SourceSearch.this.pendingListener = listener;
+						}
+						listener.indexing(SourceSearch.this.indexedCount.get(), SourceSearch.this.getTypeNames().size());
+						SourceSearch.this.startIndexing();
+					}
+				});
+	}
+
+	/**
+	 * Start indexing the jar, unless already indexing.
+	 */
+	private synchronized void startIndexing() {
+		// Check indexing status
+		if (this.indexing||this.index!=null||this.closed)
+			return;
+		this.indexing = true;
+		TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, new Runnable() {
+			@Override
+			public void run() {
+				SourceSearch.this.loadOrBuildIndex();
+			}
+		});
+	}
+
+	/**
+	 * Load the persisted index of the jar, or build it in parallel.
+	 */
+	private void loadOrBuildIndex() {
+		// Load persisted index
+		File indexFile = null;
+		try {
+			indexFile = JarFingerprint.getIndexFile(JarFingerprint.compute(this.file, this.settingsKey),
+					SourceSearch.INDEX_EXTENSION);
+			if (indexFile.isFile()) {
+				SourceIndex persistedIndex = SourceIndex.read(indexFile);
+				if (persistedIndex.hasTypes(this.getTypeNames())) {
+					this.setIndex(persistedIndex);
+					return;
+				}
+			}
+		} catch (IOException exception) {
+			// Build the index again
+			exception.printStackTrace();
+		}
+		// Index the types in a background task per processor
+		SourceIndex.Builder builder = new SourceIndex.Builder(this.getTypeNames());
+		AtomicInteger nextId = new AtomicInteger();
+		int workerCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), this.getTypeNames().size()));
+		AtomicInteger runningWorkers = new AtomicInteger(workerCount);
+		for (int worker = 0; worker<workerCount; worker++) {
+			TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND,
+					new IndexWorker(builder, nextId, runningWorkers, indexFile));
+		}
+	}
+
+	/**
+	 * Notify the indexing progress to the listener of the waiting search.
+	 * 
+	 * @param count
+	 *            The number of indexed types.
+	 */
+	private void notifyIndexing(int count) {
+		SearchListener listener;
+		synchronized (this) {
+			listener = this.pendingListener;
+		}
+		if (listener!=null)
+			listener.indexing(count, this.getTypeNames().size());
+	}
+
+	/**
+	 * Publish the built index, persist it and run the waiting search.
+	 * 
+	 * @param builtIndex
+	 *            The built index.
+	 * @param indexFile
+	 *            The file to persist the index to (<code>null</code> if the jar fingerprint is unknown).
+	 */
+	private void publishIndex(SourceIndex builtIndex, File indexFile) {
+		this.setIndex(builtIndex);
+		if (indexFile!=null) {
+			try {
+				builtIndex.write(indexFile);
+				JarFingerprint.trimIndexes(indexFile);
+			} catch (IOException exception) {
+				exception.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Set the index and run the search waiting for it.
+	 * 
+	 * @param sourceIndex
+	 *            The source index.
+	 */
+	private void setIndex(SourceIndex sourceIndex) {
+		Runnable search;
+		synchronized (this) {
+			this.index = sourceIndex;
+			this.indexing = false;
+			search = this.pendingSearch;
+			this.pendingSearch = null;
+			this.pendingListener = null;
+		}
+		if (search!=null&&!this.closed)
+			TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, SourceSearch.SEARCH_TASK_KEY,
+					search);
+	}
+
+	/**
+	 * Run a search on the index.
+	 * 
+	 * @param query
+	 *            The search query.
+	 * @param listener
+	 *            The search listener.
+	 */
+	private void runSearch(SearchQuery query, SearchListener listener) {
+		SourceIndex sourceIndex = this.index;
+		// Select candidate types (any type may match a regular expression: all are decompiled unless cached)
+		BitSet candidates;
+		if (query.isRegex()) {
+			candidates = new BitSet(sourceIndex.getTypeCount());
+			candidates.set(0, sourceIndex.getTypeCount());
+		} else {
+			candidates = sourceIndex.getCandidates(query.getText(), query.isWholeWord());
+		}
+		// Check candidate sources
+		int matchCount = 0;
+		boolean complete = true;
+		DecompilationOptions decompilationOptions = MetadataSystemPool.createOptions(this.settings);
+		MetadataSystem metadataSystem = this.metadataSystemPool.acquire();
+		try {
+			for (int id = candidates.nextSetBit(0); id>=0&&complete; id = candidates.nextSetBit(id+1)) {
+				// Back off once a new search is requested
+				if (this.closed||TaskScheduler.isCurrentTaskCancelled())
+					return;
+				String typeName = sourceIndex.getTypeName(id);
+				String source;
+				try {
+					source = this.getSource(metadataSystem, typeName, decompilationOptions);
+				} catch (RuntimeException exception) {
+					if (TaskScheduler.isCurrentTaskCancelled())
+						return;
+					continue;
+				}
+				if (source==null)
+					continue;
+				// Report each match with its line
+				Matcher matcher = query.getPattern().matcher(source);
+				int lineNumber = 1;
+				int lineStart = 0;
+				while (matcher.find()) {
+					if (matcher.end()==matcher.start())
+						continue;
+					if (matchCount>=SourceSearch.MAX_MATCHES) {
+						complete = false;
+						break;
+					}
+					for (int offset = lineStart; offset<matcher.start(); offset++) {
+						if (source.charAt(offset)=='\n') {
+							lineNumber++;
+							lineStart = offset+1;
+						}
+					}
+					int lineEnd = source.indexOf('\n', matcher.start());
+					String line = source.substring(lineStart, lineEnd==-1 ? source.length() : lineEnd).trim();
+					listener.matchFound(new SearchMatch(typeName, new Selection(matcher.start(), matcher.end()),
+							lineNumber, line));
+					matchCount++;
+				}
+			}
+		} finally {
+			this.metadataSystemPool.release(metadataSystem);
+		}
+		listener.searchEnded(matchCount, complete);
+	}
+
+	/**
+	 * Get the decompiled source of a type, from the decompiled content cache if available.
+	 * 
+	 * @param metadataSystem
+	 *            The borrowed metadata system.
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @param decompilationOptions
+	 *            The decompilation options.
+	 * @return The decompiled source, <code>null</code> if the type could not be resolved.
+	 */
+	private String getSource(MetadataSystem metadataSystem, String typeName,
+			DecompilationOptions decompilationOptions) {
+		// Resolve type
+		TypeReference type = metadataSystem.lookupType(typeName);
+		TypeDefinition resolvedType = type==null ? null : type.resolve();
+		if (resolvedType==null)
+			return null;
+		// Decompile type, or get its cached content (the link provider caches its content)
+		try {
+			DecompilerLinkProvider linkProvider = new DecompilerLinkProvider();
+			linkProvider.setDecompilerReferences(metadataSystem, this.settings, decompilationOptions);
+			linkProvider.setTypeLoader(this.typeLoader);
+			linkProvider.setType(resolvedType);
+			linkProvider.generateContent();
+			return linkProvider.getTextContent();
+		} catch (RuntimeException exception) {
+			// Not decompilable: the class is not searched
+			if (TaskScheduler.isCurrentTaskCancelled())
+				throw exception;
+			return null;
+		}
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this) {
+			this.pendingSearch = null;
+			this.pendingListener = null;
+		}
+	}
+
+	/**
+	 * This class represents an indexing worker.<br>
+	 * A worker indexes a chunk of types then submits itself again, so other background tasks are not delayed until the
+	 * whole jar is indexed.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	private class IndexWorker implements Runnable {
+		/** The index builder. */
+		private final SourceIndex.Builder builder;
+		/** The id of the next type to index. */
+		private final AtomicInteger nextId;
+		/** The number of workers still indexing. */
+		private final AtomicInteger runningWorkers;
+		/** The file to persist the index to (<code>null</code> if the jar fingerprint is unknown). */
+		private final File indexFile;
+
+		private IndexWorker(SourceIndex.Builder builder, AtomicInteger nextId, AtomicInteger runningWorkers,
+				File indexFile) {
+			this.builder = builder;
+			this.nextId = nextId;
+			this.runningWorkers = runningWorkers;
+			this.indexFile = indexFile;
+		}
+
+		@Override
+		public void run() {
+			boolean done = true;
+			try {
+				done = this.indexChunk();
+			} finally {
+				if (!done) {
+					TaskScheduler.getLoadedInstance().execute(TaskPriority.BACKGROUND, this);
+				} else if (this.runningWorkers.decrementAndGet()==0&&!SourceSearch.this.closed) {
+					// The last worker publishes the index
+					SourceSearch.this.publishIndex(this.builder.build(), this.indexFile);
+				}
+			}
+		}
+
+		/**
+		 * Index a chunk of the types not indexed yet by another worker.
+		 * 
+		 * @return <code>true</code> if there are no more types to index, <code>false</code> otherwise.
+		 */
+		private boolean indexChunk() {
+			DecompilationOptions decompilationOptions = MetadataSystemPool.createOptions(SourceSearch.this.settings);
+			MetadataSystem metadataSystem = SourceSearch.this.metadataSystemPool.acquire();
+			try {
+				for (int chunk = 0; chunk<SourceSearch.CHUNK_SIZE; chunk++) {
+					int id = this.nextId.getAndIncrement();
+					if (SourceSearch.this.closed||id>=SourceSearch.this.getTypeNames().size())
+						return true;
+					String source = SourceSearch.this.getSource(metadataSystem, SourceSearch.this.getTypeNames().get(id),
+							decompilationOptions);
+					if (source!=null)
+						this.builder.add(id, source);
+					int count = SourceSearch.this.indexedCount.incrementAndGet();
+					if (count%SourceSearch.PROGRESS_STEP==0)
+						SourceSearch.this.notifyIndexing(count);
+				}
+				return false;
+			} finally {
+				SourceSearch.this.metadataSystemPool.release(metadataSystem);
+			}
+		}
+	}
+}
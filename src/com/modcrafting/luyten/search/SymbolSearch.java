@@ -0,0 +1,239 @@
+package com.modcrafting.luyten.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import com.modcrafting.luyten.model.classfile.ClassFileReader;
+import com.modcrafting.luyten.model.classfile.ClassMember;
+import com.modcrafting.luyten.model.classfile.DescriptorFormatter;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class represents the fuzzy search of the types, fields and methods of a jar by name.<br>
+ * The symbol table is built from the class file headers and member tables when the jar is opened, in the background
+ * scan shared with the other searches (see {@link JarIndexer}): searches only score the table names and never load
+ * any class.<br>
+ * Anonymous and local classes, synthetic members and initializers are not part of the table.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SymbolSearch implements JarIndexer.Indexable, Closeable {
+	/** The key of the search task (a new search supersedes the running one). */
+	private static final String SEARCH_TASK_KEY = "symbol-search";
+	/** The maximum number of matches of a search. */
+	private static final int MAX_MATCHES = 200;
+	/** The synthetic access flag. */
+	private static final int ACC_SYNTHETIC = 0x1000;
+
+	/** The jar file. */
+	private final File file;
+	/** The symbol table (<code>null</code> until built). */
+	private volatile SymbolTable table;
+	/** <code>true</code> if the symbol table is being built, <code>false</code> otherwise. */
+	private boolean indexing;
+	/** The search waiting for the symbol table (<code>null</code> if none). */
+	private Runnable pendingSearch;
+	/** The closed status. */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 */
+	public SymbolSearch(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the jar file.
+	 * 
+	 * @return The jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Search the types, fields and methods matching a fuzzy query.<br>
+	 * The search supersedes the running one. It waits for the symbol table to be built if needed.
+	 * 
+	 * @param query
+	 *            The fuzzy query (<code>Type.member</code> to restrict members to the matching types).
+	 * @param listener
+	 *            The search listener.
+	 */
+	public void search(final String query, final SearchListener listener) {
+		final Runnable search = new Runnable() {
+			@Override
+			public void run() {
+				SymbolSearch.this.runSearch(query, listener);
+			}
+		};
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, SymbolSearch.SEARCH_TASK_KEY,
+				new Runnable() {
+					@Override
+					public void run() {
+						// Check symbol table
+						if (SymbolSearch.this.table!=null) {
+							search.run();
+							return;
+						}
+						// Wait for the symbol table
+						synchronized (SymbolSearch.this) {
+							SymbolSearch.this.pendingSearch = search;
+						}
+						listener.indexing(0, 0);
+						SymbolSearch.this.startIndexing();
+					}
+				});
+	}
+
+	/**
+	 * Start building the symbol table, unless already built or building.
+	 */
+	public void startIndexing() {
+		JarIndexer.startIndexing(this.file, this);
+	}
+
+	@Override
+	public synchronized boolean reserveIndexing() {
+		// Check indexing status
+		if (this.indexing||this.table!=null||this.closed)
+			return false;
+		this.indexing = true;
+		return true;
+	}
+
+	@Override
+	public JarIndexer.IndexBuilder createIndexBuilder() {
+		final SymbolTable.Builder builder = new SymbolTable.Builder();
+		return new JarIndexer.IndexBuilder() {
+			@Override
+			public boolean addClass(String typeName, ClassFileReader reader) {
+				try {
+					SymbolSearch.addSymbols(builder, typeName, reader);
+				} catch (IOException exception) {
+					// Invalid class file: the class members are not indexed
+				}
+				return !SymbolSearch.this.closed;
+			}
+
+			@Override
+			public void scanEnded(boolean complete) {
+				SymbolSearch.this.setTable(complete ? builder.build() : null);
+			}
+		};
+	}
+
+	/**
+	 * Set the built symbol table and run the search waiting for it.
+	 * 
+	 * @param symbolTable
+	 *            The symbol table, <code>null</code> if the jar could not be indexed.
+	 */
+	private void setTable(SymbolTable symbolTable) {
+		Runnable search;
+		synchronized (this) {
+			this.indexing = false;
+			// Check indexing completion
+			if (symbolTable==null)
+				return;
+			this.table = symbolTable;
+			search = this.pendingSearch;
+			this.pendingSearch = null;
+		}
+		if (search!=null&&!this.closed)
+			TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, SymbolSearch.SEARCH_TASK_KEY,
+					search);
+	}
+
+	/**
+	 * Add the symbols of a class.
+	 * 
+	 * @param builder
+	 *            The symbol table builder.
+	 * @param typeName
+	 *            The internal name of the class.
+	 * @param reader
+	 *            The class file reader.
+	 * @throws IOException
+	 *             Throws exception if the class file is not valid.
+	 */
+	private static void addSymbols(SymbolTable.Builder builder, String typeName, ClassFileReader reader)
+			throws IOException {
+		// Check anonymous and local classes
+		String simpleName = typeName.substring(Math.max(typeName.lastIndexOf('/'), typeName.lastIndexOf('$'))+1);
+		if (simpleName.isEmpty()||Character.isDigit(simpleName.charAt(0)))
+			return;
+		builder.add(SymbolTable.TYPE, typeName, simpleName, null);
+		for (ClassMember field : reader.getFields()) {
+			if ((field.getAccessFlags()&SymbolSearch.ACC_SYNTHETIC)==0)
+				builder.add(SymbolTable.FIELD, typeName, field.getName(), null);
+		}
+		for (ClassMember method : reader.getMethods()) {
+			if ((method.getAccessFlags()&SymbolSearch.ACC_SYNTHETIC)==0&&!method.getName().startsWith("<"))
+				builder.add(SymbolTable.METHOD, typeName, method.getName(), method.getDescriptor());
+		}
+	}
+
+	/**
+	 * Run a search on the symbol table.
+	 * 
+	 * @param query
+	 *            The fuzzy query.
+	 * @param listener
+	 *            The search listener.
+	 */
+	private void runSearch(String query, SearchListener listener) {
+		SymbolTable symbolTable = this.table;
+		int[] ids = symbolTable.find(query, SymbolSearch.MAX_MATCHES);
+		// Check cancellation
+		if (ids==null) {
+			listener.searchEnded(0, false);
+			return;
+		}
+		for (int id : ids) {
+			listener.matchFound(SymbolSearch.createMatch(symbolTable, id));
+		}
+		listener.searchEnded(ids.length, true);
+	}
+
+	/**
+	 * Create the match of a symbol.
+	 * 
+	 * @param symbolTable
+	 *            The symbol table.
+	 * @param id
+	 *            The symbol id.
+	 * @return The match of the symbol, linked to its definition.
+	 */
+	private static SearchMatch createMatch(SymbolTable symbolTable, int id) {
+		String owner = symbolTable.getOwner(id);
+		String pathAndType = symbolTable.getOutermostOwner(id)+"|"+owner.replace('/', '.');
+		switch (symbolTable.getKind(id)) {
+			case SymbolTable.TYPE:
+				return new SearchMatch(owner, "type|"+pathAndType, DescriptorFormatter.getSimpleName(owner).replace(
+						'$', '.'));
+			case SymbolTable.FIELD:
+				return new SearchMatch(owner, "field|"+pathAndType+"|"+symbolTable.getName(id), symbolTable.getName(id));
+			default:
+				String name = symbolTable.getName(id);
+				String descriptor = symbolTable.getDescriptor(id);
+				return new SearchMatch(owner, "method|"+pathAndType+"|"+name+"|"+descriptor,
+						DescriptorFormatter.formatMethod(owner, name, descriptor));
+		}
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this) {
+			this.pendingSearch = null;
+		}
+	}
+}
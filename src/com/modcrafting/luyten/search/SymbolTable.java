@@ -0,0 +1,455 @@
+package com.modcrafting.luyten.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class represents the symbol table of a jar: the names of its types, fields and methods.<br>
+ * Symbols are grouped by name in sorted arrays. Each distinct name has the mask of the characters it contains, so a
+ * fuzzy query only scores the names containing all its characters, once per name whatever the number of symbols
+ * sharing it.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class SymbolTable {
+	/** The type symbol kind. */
+	public static final int TYPE = 0;
+	/** The field symbol kind. */
+	public static final int FIELD = 1;
+	/** The method symbol kind. */
+	public static final int METHOD = 2;
+	/** The number of names scored between cancellation checks. */
+	private static final int CANCELLATION_STEP = 4096;
+
+	/** The sorted internal names of the types. */
+	private final String[] typeNames;
+	/** The id of the outermost type of each type (the type whose source contains it). */
+	private final int[] outerTypes;
+	/** The sorted (case-insensitive) distinct symbol names. */
+	private final String[] names;
+	/** The character mask of each name. */
+	private final long[] nameMasks;
+	/** The first symbol id of each name (and the symbol count at the end). */
+	private final int[] nameStarts;
+	/** The kind of each symbol. */
+	private final byte[] kinds;
+	/** The type id of each symbol owner (the type itself for a type). */
+	private final int[] owners;
+	/** The descriptor of each symbol (<code>null</code> but for methods). */
+	private final String[] descriptors;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeNames
+	 *            The sorted internal names of the types.
+	 * @param outerTypes
+	 *            The id of the outermost type of each type.
+	 * @param names
+	 *            The sorted distinct symbol names.
+	 * @param nameStarts
+	 *            The first symbol id of each name (and the symbol count at the end).
+	 * @param kinds
+	 *            The kind of each symbol.
+	 * @param owners
+	 *            The type id of each symbol owner.
+	 * @param descriptors
+	 *            The descriptor of each symbol.
+	 */
+	private SymbolTable(String[] typeNames, int[] outerTypes, String[] names, int[] nameStarts, byte[] kinds,
+			int[] owners, String[] descriptors) {
+		this.typeNames = typeNames;
+		this.outerTypes = outerTypes;
+		this.names = names;
+		this.nameStarts = nameStarts;
+		this.kinds = kinds;
+		this.owners = owners;
+		this.descriptors = descriptors;
+		this.nameMasks = new long[names.length];
+		for (int index = 0; index<names.length; index++) {
+			this.nameMasks[index] = SymbolTable.getMask(names[index].toLowerCase(Locale.ROOT));
+		}
+	}
+
+	/**
+	 * Get the number of symbols.
+	 * 
+	 * @return The number of symbols.
+	 */
+	public int getSymbolCount() {
+		return this.kinds.length;
+	}
+
+	/**
+	 * Get the kind of a symbol.
+	 * 
+	 * @param id
+	 *            The symbol id.
+	 * @return The symbol kind ({@link #TYPE}, {@link #FIELD} or {@link #METHOD}).
+	 */
+	public int getKind(int id) {
+		return this.kinds[id];
+	}
+
+	/**
+	 * Get the name of a symbol.
+	 * 
+	 * @param id
+	 *            The symbol id.
+	 * @return The symbol name (the simple name for a type).
+	 */
+	public String getName(int id) {
+		int index = Arrays.binarySearch(this.nameStarts, id);
+		// Skip the names without symbol
+		if (index<0) {
+			index = -index-2;
+		} else {
+			while (index+1<this.nameStarts.length&&this.nameStarts[index+1]==id)
+				index++;
+		}
+		return this.names[index];
+	}
+
+	/**
+	 * Get the internal name of the owner type of a symbol.
+	 * 
+	 * @param id
+	 *            The symbol id.
+	 * @return The owner internal name (the type internal name for a type).
+	 */
+	public String getOwner(int id) {
+		return this.typeNames[this.owners[id]];
+	}
+
+	/**
+	 * Get the internal name of the outermost type of the owner of a symbol.
+	 * 
+	 * @param id
+	 *            The symbol id.
+	 * @return The outermost type internal name.
+	 */
+	public String getOutermostOwner(int id) {
+		return this.typeNames[this.outerTypes[this.owners[id]]];
+	}
+
+	/**
+	 * Get the descriptor of a symbol.
+	 * 
+	 * @param id
+	 *            The symbol id.
+	 * @return The method descriptor, <code>null</code> for types and fields.
+	 */
+	public String getDescriptor(int id) {
+		return this.descriptors[id];
+	}
+
+	/**
+	 * Find the symbols matching a fuzzy query.<br>
+	 * The query characters must appear in order in the symbol name, word starts and consecutive characters rank first.
+	 * A query <code>Owner.name</code> matches the <code>name</code> members of the types matching <code>Owner</code>.
+	 * 
+	 * @param query
+	 *            The fuzzy query.
+	 * @param maxResults
+	 *            The maximum number of symbols to find.
+	 * @return The ids of the best matching symbols, best first (<code>null</code> if the task running the search was
+	 *         cancelled).
+	 */
+	public int[] find(String query, int maxResults) {
+		// Split owner and name queries
+		String nameQuery = query.trim().toLowerCase(Locale.ROOT);
+		String ownerQuery = null;
+		int separatorIndex = nameQuery.lastIndexOf('.');
+		if (separatorIndex>=0) {
+			ownerQuery = nameQuery.substring(0, separatorIndex);
+			nameQuery = nameQuery.substring(separatorIndex+1);
+		}
+		if (maxResults<=0||nameQuery.isEmpty()&&(ownerQuery==null||ownerQuery.isEmpty()))
+			return new int[0];
+		// Score the names containing the query characters
+		long queryMask = SymbolTable.getMask(nameQuery);
+		int[] ownerScores = null;
+		if (ownerQuery!=null) {
+			ownerScores = new int[this.typeNames.length];
+			Arrays.fill(ownerScores, Integer.MIN_VALUE);
+		}
+		PriorityQueue<long[]> bestSymbols = new PriorityQueue<>(maxResults+1, new Comparator<long[]>() {
+			@Override
+			public int compare(long[] symbol1, long[] symbol2) {
+				// Worst first: lowest score, then highest id
+				if (symbol1[0]!=symbol2[0])
+					return symbol1[0]<symbol2[0] ? -1 : 1;
+				return symbol1[1]>symbol2[1] ? -1 : symbol1[1]==symbol2[1] ? 0 : 1;
+			}
+		});
+		for (int nameIndex = 0; nameIndex<this.names.length; nameIndex++) {
+			// Check cancellation
+			if (nameIndex%SymbolTable.CANCELLATION_STEP==0&&TaskScheduler.isCurrentTaskCancelled())
+				return null;
+			if ((this.nameMasks[nameIndex]&queryMask)!=queryMask)
+				continue;
+			int nameScore = SymbolTable.score(nameQuery, this.names[nameIndex]);
+			if (nameScore<0)
+				continue;
+			// Skip names that cannot beat the worst best symbol (ids increase, ties keep the first symbols)
+			if (ownerQuery==null&&bestSymbols.size()==maxResults&&nameScore*4L+2<=bestSymbols.peek()[0])
+				continue;
+			for (int id = this.nameStarts[nameIndex]; id<this.nameStarts[nameIndex+1]; id++) {
+				long score = nameScore*4L+(this.kinds[id]==SymbolTable.TYPE ? 2 : 0);
+				if (ownerQuery!=null) {
+					int ownerScore = this.getOwnerScore(ownerScores, ownerQuery, this.owners[id]);
+					if (ownerScore<0)
+						continue;
+					score += ownerScore;
+				}
+				if (bestSymbols.size()==maxResults&&score<=bestSymbols.peek()[0])
+					continue;
+				bestSymbols.add(new long[] { score, id });
+				if (bestSymbols.size()>maxResults)
+					bestSymbols.poll();
+			}
+		}
+		// Sort best symbols, best first
+		int[] ids = new int[bestSymbols.size()];
+		for (int index = ids.length-1; index>=0; index--) {
+			ids[index] = (int) bestSymbols.poll()[1];
+		}
+		return ids;
+	}
+
+	/**
+	 * Get the score of a symbol owner against the owner query.
+	 * 
+	 * @param ownerScores
+	 *            The scores of the already scored owners.
+	 * @param ownerQuery
+	 *            The owner query (lower cased).
+	 * @param owner
+	 *            The owner type id.
+	 * @return The owner score, negative if the owner does not match.
+	 */
+	private int getOwnerScore(int[] ownerScores, String ownerQuery, int owner) {
+		int ownerScore = ownerScores[owner];
+		if (ownerScore==Integer.MIN_VALUE) {
+			String typeName = this.typeNames[owner];
+			ownerScore = ownerQuery.isEmpty() ? 0 : SymbolTable.score(ownerQuery,
+					typeName.substring(typeName.lastIndexOf('/')+1));
+			ownerScores[owner] = ownerScore;
+		}
+		return ownerScore;
+	}
+
+	/**
+	 * Score a name against a fuzzy query.
+	 * 
+	 * @param query
+	 *            The query (lower cased).
+	 * @param name
+	 *            The name to score.
+	 * @return The name score (the higher the better), <code>-1</code> if the query characters are not in the name.
+	 */
+	static int score(String query, String name) {
+		int score = 0;
+		int queryIndex = 0;
+		int previousIndex = -2;
+		for (int index = 0; index<name.length()&&queryIndex<query.length(); index++) {
+			char character = name.charAt(index);
+			if (Character.toLowerCase(character)!=query.charAt(queryIndex))
+				continue;
+			// Favor consecutive characters and word starts
+			score += index==previousIndex+1 ? 3 : 1;
+			if (index==0||Character.isUpperCase(character)&&!Character.isUpperCase(name.charAt(index-1))
+					||!Character.isLetterOrDigit(name.charAt(index-1)))
+				score += 2;
+			previousIndex = index;
+			queryIndex++;
+		}
+		// Check all query characters are matched
+		if (queryIndex<query.length())
+			return -1;
+		// Favor exact and prefix matches, then short names
+		if (name.length()==query.length()) {
+			score += 20;
+		} else if (name.regionMatches(true, 0, query, 0, query.length())) {
+			score += 10;
+		}
+		return Math.max(0, score*4-Math.min(name.length()-query.length(), 16));
+	}
+
+	/**
+	 * Get the mask of the characters of a text.
+	 * 
+	 * @param text
+	 *            The text (lower cased).
+	 * @return The character mask (a bit per letter, digit, <code>_</code> and <code>$</code>, one for the others).
+	 */
+	private static long getMask(String text) {
+		long mask = 0;
+		for (int index = 0; index<text.length(); index++) {
+			char character = text.charAt(index);
+			if (character>='a'&&character<='z') {
+				mask |= 1L<<character-'a';
+			} else if (character>='0'&&character<='9') {
+				mask |= 1L<<26+character-'0';
+			} else if (character=='_') {
+				mask |= 1L<<36;
+			} else if (character=='$') {
+				mask |= 1L<<37;
+			} else {
+				mask |= 1L<<38;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * This class builds a symbol table from classes added concurrently.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public static class Builder {
+		/** The added symbols. */
+		private final List<Symbol> symbols;
+		/** The distinct added names (to share name instances). */
+		private final Map<String, String> names;
+
+		/**
+		 * Constructor.
+		 */
+		public Builder() {
+			this.symbols = new ArrayList<>();
+			this.names = new HashMap<>();
+		}
+
+		/**
+		 * Add a symbol (thread-safe).
+		 * 
+		 * @param kind
+		 *            The symbol kind ({@link SymbolTable#TYPE}, {@link SymbolTable#FIELD} or
+		 *            {@link SymbolTable#METHOD}).
+		 * @param owner
+		 *            The internal name of the owner type (the type itself for a type).
+		 * @param name
+		 *            The symbol name (the simple name for a type).
+		 * @param descriptor
+		 *            The method descriptor (<code>null</code> for types and fields).
+		 */
+		public synchronized void add(int kind, String owner, String name, String descriptor) {
+			String sharedName = this.names.get(name);
+			if (sharedName==null) {
+				sharedName = name;
+				this.names.put(name, name);
+			}
+			this.symbols.add(new Symbol((byte) kind, owner, sharedName, descriptor));
+		}
+
+		/**
+		 * Build the symbol table of the added symbols.
+		 * 
+		 * @return The built symbol table.
+		 */
+		public synchronized SymbolTable build() {
+			// Sort symbols by name
+			Collections.sort(this.symbols, new Comparator<Symbol>() {
+				@Override
+				public int compare(Symbol symbol1, Symbol symbol2) {
+					int comparison = String.CASE_INSENSITIVE_ORDER.compare(symbol1.name, symbol2.name);
+					return comparison!=0 ? comparison : symbol1.name.compareTo(symbol2.name);
+				}
+			});
+			// Collect types and their outermost types
+			List<String> types = new ArrayList<>();
+			for (Symbol symbol : this.symbols) {
+				if (symbol.kind==SymbolTable.TYPE)
+					types.add(symbol.owner);
+			}
+			Collections.sort(types);
+			String[] typeNames = types.toArray(new String[types.size()]);
+			int[] outerTypes = new int[typeNames.length];
+			for (int id = 0; id<typeNames.length; id++) {
+				outerTypes[id] = Builder.getOutermostType(typeNames, id);
+			}
+			// Index symbols
+			List<String> distinctNames = new ArrayList<>();
+			int[] nameStarts = new int[this.symbols.size()+1];
+			byte[] kinds = new byte[this.symbols.size()];
+			int[] owners = new int[this.symbols.size()];
+			String[] descriptors = new String[this.symbols.size()];
+			int id = 0;
+			for (Symbol symbol : this.symbols) {
+				int owner = Arrays.binarySearch(typeNames, symbol.owner);
+				// Skip the members of the types not added
+				if (owner<0)
+					continue;
+				if (distinctNames.isEmpty()||!distinctNames.get(distinctNames.size()-1).equals(symbol.name)) {
+					nameStarts[distinctNames.size()] = id;
+					distinctNames.add(symbol.name);
+				}
+				kinds[id] = symbol.kind;
+				owners[id] = owner;
+				descriptors[id] = symbol.descriptor;
+				id++;
+			}
+			nameStarts[distinctNames.size()] = id;
+			return new SymbolTable(typeNames, outerTypes, distinctNames.toArray(new String[distinctNames.size()]),
+					Arrays.copyOf(nameStarts, distinctNames.size()+1), Arrays.copyOf(kinds, id),
+					Arrays.copyOf(owners, id), Arrays.copyOf(descriptors, id));
+		}
+
+		/**
+		 * Get the outermost type of a type, the type whose source contains the type.
+		 * 
+		 * @param typeNames
+		 *            The sorted internal names of the types.
+		 * @param id
+		 *            The type id.
+		 * @return The outermost type id.
+		 */
+		private static int getOutermostType(String[] typeNames, int id) {
+			String typeName = typeNames[id];
+			int index = typeName.indexOf('$');
+			while (index>0) {
+				int outerId = Arrays.binarySearch(typeNames, typeName.substring(0, index));
+				if (outerId>=0)
+					return outerId;
+				index = typeName.indexOf('$', index+1);
+			}
+			return id;
+		}
+	}
+
+	/**
+	 * This class represents a symbol added to a builder.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	private static class Symbol {
+		/** The symbol kind. */
+		private final byte kind;
+		/** The internal name of the owner type. */
+		private final String owner;
+		/** The symbol name. */
+		private final String name;
+		/** The method descriptor (<code>null</code> for types and fields). */
+		private final String descriptor;
+
+		private Symbol(byte kind, String owner, String name, String descriptor) {
+			this.kind = kind;
+			this.owner = owner;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+	}
+}
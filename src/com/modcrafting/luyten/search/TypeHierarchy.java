@@ -0,0 +1,254 @@
+package com.modcrafting.luyten.search;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class represents the type hierarchy of a set of jars, read from the class file headers only.<br>
+ * Each type knows its super class and interfaces, and the types directly extending or implementing it. Jars are
+ * added incrementally, in type resolution order: a type of a jar shadows the same type of the jars added after.<br>
+ * The hierarchy is thread-safe.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class TypeHierarchy {
+	/** The interface access flag. */
+	private static final int ACC_INTERFACE = 0x0200;
+	/** The abstract access flag. */
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	/** The added jars, in addition order. */
+	private final List<File> jars;
+	/** The header of each type, by internal name. */
+	private final Map<String, TypeHeader> headers;
+	/** The types directly extending or implementing each type, by internal name. */
+	private final Map<String, List<String>> subTypes;
+
+	/**
+	 * Constructor.
+	 */
+	public TypeHierarchy() {
+		this.jars = new ArrayList<>();
+		this.headers = new HashMap<>();
+		this.subTypes = new HashMap<>();
+	}
+
+	/**
+	 * Check whether a jar was added to the hierarchy.
+	 * 
+	 * @param jar
+	 *            The jar file.
+	 * @return <code>true</code> if the jar types are part of the hierarchy, <code>false</code> otherwise.
+	 */
+	public synchronized boolean hasJar(File jar) {
+		return this.jars.contains(jar);
+	}
+
+	/**
+	 * Add the types of a jar.
+	 * 
+	 * @param jar
+	 *            The jar file.
+	 * @param jarHeaders
+	 *            The header of each type of the jar, by internal name.
+	 */
+	synchronized void addJar(File jar, Map<String, TypeHeader> jarHeaders) {
+		// Check added jar
+		if (this.jars.contains(jar))
+			return;
+		this.jars.add(jar);
+		for (Map.Entry<String, TypeHeader> entry : jarHeaders.entrySet()) {
+			String typeName = entry.getKey();
+			TypeHeader header = entry.getValue();
+			// Check shadowed type
+			if (this.headers.containsKey(typeName))
+				continue;
+			this.headers.put(typeName, header);
+			if (header.superClass!=null)
+				this.addSubType(header.superClass, typeName);
+			for (String interfaceName : header.interfaces) {
+				this.addSubType(interfaceName, typeName);
+			}
+		}
+	}
+
+	/**
+	 * Add a direct sub type of a type.
+	 * 
+	 * @param typeName
+	 *            The internal name of the super type.
+	 * @param subTypeName
+	 *            The internal name of the sub type.
+	 */
+	private void addSubType(String typeName, String subTypeName) {
+		List<String> typeSubTypes = this.subTypes.get(typeName);
+		if (typeSubTypes==null) {
+			typeSubTypes = new ArrayList<>(1);
+			this.subTypes.put(typeName, typeSubTypes);
+		}
+		typeSubTypes.add(subTypeName);
+	}
+
+	/**
+	 * Check whether a type is part of the hierarchy.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return <code>true</code> if the type header was read, <code>false</code> otherwise.
+	 */
+	public synchronized boolean hasType(String typeName) {
+		return this.headers.containsKey(typeName);
+	}
+
+	/**
+	 * Check whether a type is an interface.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return <code>true</code> if the type is an interface (or an annotation), <code>false</code> otherwise or if
+	 *         the type is not part of the hierarchy.
+	 */
+	public synchronized boolean isInterface(String typeName) {
+		TypeHeader header = this.headers.get(typeName);
+		return header!=null&&(header.accessFlags&TypeHierarchy.ACC_INTERFACE)!=0;
+	}
+
+	/**
+	 * Check whether a type can be instantiated.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return <code>true</code> if the type is neither an interface nor an abstract class, <code>false</code>
+	 *         otherwise or if the type is not part of the hierarchy.
+	 */
+	public synchronized boolean isConcrete(String typeName) {
+		TypeHeader header = this.headers.get(typeName);
+		return header!=null&&(header.accessFlags&(TypeHierarchy.ACC_INTERFACE|TypeHierarchy.ACC_ABSTRACT))==0;
+	}
+
+	/**
+	 * Get the direct super types of a type.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The internal names of the super class then the interfaces (empty if the type is not part of the
+	 *         hierarchy).
+	 */
+	public synchronized List<String> getSuperTypes(String typeName) {
+		TypeHeader header = this.headers.get(typeName);
+		if (header==null)
+			return Collections.emptyList();
+		List<String> superTypes = new ArrayList<>(header.interfaces.length+1);
+		if (header.superClass!=null)
+			superTypes.add(header.superClass);
+		Collections.addAll(superTypes, header.interfaces);
+		return superTypes;
+	}
+
+	/**
+	 * Get the types directly extending or implementing a type.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The sorted internal names of the direct sub types.
+	 */
+	public synchronized List<String> getSubTypes(String typeName) {
+		List<String> typeSubTypes = this.subTypes.get(typeName);
+		if (typeSubTypes==null)
+			return Collections.emptyList();
+		List<String> sortedSubTypes = new ArrayList<>(typeSubTypes);
+		Collections.sort(sortedSubTypes);
+		return sortedSubTypes;
+	}
+
+	/**
+	 * Get the implementations of a type: the concrete classes extending or implementing it, directly or not.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The sorted internal names of the implementations.
+	 */
+	public synchronized List<String> getImplementations(String typeName) {
+		List<String> implementations = new ArrayList<>();
+		Set<String> visitedTypes = new HashSet<>();
+		Deque<String> pendingTypes = new ArrayDeque<>();
+		pendingTypes.add(typeName);
+		while (!pendingTypes.isEmpty()) {
+			List<String> typeSubTypes = this.subTypes.get(pendingTypes.poll());
+			if (typeSubTypes==null)
+				continue;
+			for (String subTypeName : typeSubTypes) {
+				// Check visited type (an interface may be reached through several paths)
+				if (!visitedTypes.add(subTypeName))
+					continue;
+				if (this.isConcrete(subTypeName))
+					implementations.add(subTypeName);
+				pendingTypes.add(subTypeName);
+			}
+		}
+		Collections.sort(implementations);
+		return implementations;
+	}
+
+	/**
+	 * Get the outermost type declaring a type, the type whose source contains the type.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The internal name of the outermost type of the hierarchy, the first type of the nesting chain if none.
+	 */
+	public synchronized String getOutermostType(String typeName) {
+		int index = typeName.indexOf('$');
+		// Check nested type
+		if (index<=0)
+			return typeName;
+		int firstIndex = index;
+		while (index>0) {
+			String outerTypeName = typeName.substring(0, index);
+			if (this.headers.containsKey(outerTypeName))
+				return outerTypeName;
+			index = typeName.indexOf('$', index+1);
+		}
+		return this.headers.containsKey(typeName) ? typeName : typeName.substring(0, firstIndex);
+	}
+
+	/**
+	 * This class represents the header of a class file: its access flags and direct super types.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	static class TypeHeader {
+		/** The class access flags. */
+		private final int accessFlags;
+		/** The internal name of the super class (<code>null</code> if none). */
+		private final String superClass;
+		/** The internal names of the implemented interfaces. */
+		private final String[] interfaces;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param accessFlags
+		 *            The class access flags.
+		 * @param superClass
+		 *            The internal name of the super class (<code>null</code> if none).
+		 * @param interfaces
+		 *            The internal names of the implemented interfaces.
+		 */
+		TypeHeader(int accessFlags, String superClass, String[] interfaces) {
+			this.accessFlags = accessFlags;
+			this.superClass = superClass;
+			this.interfaces = interfaces;
+		}
+	}
+}
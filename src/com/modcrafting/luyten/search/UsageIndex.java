@@ -0,0 +1,268 @@
+package com.modcrafting.luyten.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class represents a cross-reference index of the class files of a jar.<br>
+ * Each referenced type, field and method (the target) is mapped to the sorted ids of the sites referencing it: the
+ * methods whose bytecode uses it, the fields and methods whose descriptor uses it, and the classes extending or
+ * implementing it.<br>
+ * Targets are keyed like the navigation links, with internal type names: <code>type|owner</code>,
+ * <code>field|owner|name</code> and <code>method|owner|name|descriptor</code>. Sites are keyed
+ * <code>owner</code> for a class header, <code>owner|name</code> for a field and
+ * <code>owner|name|descriptor</code> for a method.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class UsageIndex {
+	/** The index format version (change it to drop indexes written by a previous format). */
+	private static final int FORMAT_VERSION = 2;
+
+	/** The sorted internal names of the indexed types. */
+	private final String[] typeNames;
+	/** The referencing sites, by id. */
+	private final String[] sites;
+	/** The sorted targets. */
+	private final String[] targets;
+	/** The sorted site ids of each target. */
+	private final int[][] postings;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param typeNames
+	 *            The sorted internal names of the indexed types.
+	 * @param sites
+	 *            The referencing sites, by id.
+	 * @param targets
+	 *            The sorted targets.
+	 * @param postings
+	 *            The sorted site ids of each target.
+	 */
+	private UsageIndex(String[] typeNames, String[] sites, String[] targets, int[][] postings) {
+		this.typeNames = typeNames;
+		this.sites = sites;
+		this.targets = targets;
+		this.postings = postings;
+	}
+
+	/**
+	 * Check whether a type is part of the indexed jar.
+	 * 
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return <code>true</code> if the type is indexed, <code>false</code> otherwise.
+	 */
+	public boolean hasType(String typeName) {
+		return Arrays.binarySearch(this.typeNames, typeName)>=0;
+	}
+
+	/**
+	 * Get the sites referencing a target.
+	 * 
+	 * @param target
+	 *            The referenced target.
+	 * @return The sorted ids of the referencing sites (empty if none).
+	 */
+	public int[] getSites(String target) {
+		int index = Arrays.binarySearch(this.targets, target);
+		return index>=0 ? this.postings[index] : new int[0];
+	}
+
+	/**
+	 * Get a referencing site.
+	 * 
+	 * @param id
+	 *            The site id.
+	 * @return The site key.
+	 */
+	public String getSite(int id) {
+		return this.sites[id];
+	}
+
+	/**
+	 * Write the index to a file.
+	 * 
+	 * @param file
+	 *            The file to write.
+	 * @throws IOException
+	 *             Throws exception if the index could not be written.
+	 */
+	public void write(File file) throws IOException {
+		File directory = file.getParentFile();
+		if (directory!=null&&!directory.isDirectory()&&!directory.mkdirs())
+			throw new IOException("Unable to create index directory: "+directory);
+		// Write a temporary file then publish it
+		File temporaryFile = new File(file.getPath()+"."+Thread.currentThread().getId()+".tmp");
+		try (FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
+				GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fileOutputStream);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzipOutputStream))) {
+			out.writeInt(UsageIndex.FORMAT_VERSION);
+			UsageIndex.writeStrings(out, this.typeNames);
+			UsageIndex.writeStrings(out, this.sites);
+			UsageIndex.writeStrings(out, this.targets);
+			for (int[] ids : this.postings) {
+				out.writeInt(ids.length);
+				// Store sorted ids as deltas: mostly small values, well compressed
+				int previousId = 0;
+				for (int id : ids) {
+					out.writeInt(id-previousId);
+					previousId = id;
+				}
+			}
+		}
+		file.delete();
+		if (!temporaryFile.renameTo(file)) {
+			temporaryFile.delete();
+			throw new IOException("Unable to write index file: "+file);
+		}
+	}
+
+	/**
+	 * Write a string array.
+	 * 
+	 * @param out
+	 *            The stream to write to.
+	 * @param strings
+	 *            The strings to write.
+	 * @throws IOException
+	 *             Throws exception if the strings could not be written.
+	 */
+	private static void writeStrings(DataOutputStream out, String[] strings) throws IOException {
+		out.writeInt(strings.length);
+		for (String string : strings) {
+			out.writeUTF(string);
+		}
+	}
+
+	/**
+	 * Read an index from a file.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @return The read index.
+	 * @throws IOException
+	 *             Throws exception if the index could not be read.
+	 */
+	public static UsageIndex read(File file) throws IOException {
+		try (FileInputStream fileInputStream = new FileInputStream(file);
+				GZIPInputStream gzipInputStream = new GZIPInputStream(fileInputStream);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(gzipInputStream))) {
+			if (in.readInt()!=UsageIndex.FORMAT_VERSION)
+				throw new IOException("Unsupported index format: "+file.getName());
+			String[] typeNames = UsageIndex.readStrings(in);
+			String[] sites = UsageIndex.readStrings(in);
+			String[] targets = UsageIndex.readStrings(in);
+			int[][] postings = new int[targets.length][];
+			for (int index = 0; index<targets.length; index++) {
+				int[] ids = new int[in.readInt()];
+				int id = 0;
+				for (int idIndex = 0; idIndex<ids.length; idIndex++) {
+					id += in.readInt();
+					ids[idIndex] = id;
+				}
+				postings[index] = ids;
+			}
+			return new UsageIndex(typeNames, sites, targets, postings);
+		}
+	}
+
+	/**
+	 * Read a string array.
+	 * 
+	 * @param in
+	 *            The stream to read from.
+	 * @return The read strings.
+	 * @throws IOException
+	 *             Throws exception if the strings could not be read.
+	 */
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		String[] strings = new String[in.readInt()];
+		for (int index = 0; index<strings.length; index++) {
+			strings[index] = in.readUTF();
+		}
+		return strings;
+	}
+
+	/**
+	 * This class builds a usage index from classes added concurrently.
+	 * 
+	 * @author Perfect Slayer (bruce.bujon@gmail.com)
+	 * 
+	 */
+	public static class Builder {
+		/** The internal names of the added types. */
+		private final List<String> typeNames;
+		/** The referencing sites, by id. */
+		private final List<String> sites;
+		/** The site ids of each target, in addition order. */
+		private final Map<String, IdList> postings;
+
+		/**
+		 * Constructor.
+		 */
+		public Builder() {
+			this.typeNames = new ArrayList<>();
+			this.sites = new ArrayList<>();
+			this.postings = new HashMap<>();
+		}
+
+		/**
+		 * Add the references of a class (thread-safe).
+		 * 
+		 * @param typeName
+		 *            The internal name of the class.
+		 * @param siteTargets
+		 *            The targets referenced by each site of the class.
+		 */
+		public synchronized void add(String typeName, Map<String, Set<String>> siteTargets) {
+			this.typeNames.add(typeName);
+			for (Map.Entry<String, Set<String>> entry : siteTargets.entrySet()) {
+				int siteId = this.sites.size();
+				this.sites.add(entry.getKey());
+				for (String target : entry.getValue()) {
+					IdList ids = this.postings.get(target);
+					if (ids==null) {
+						ids = new IdList();
+						this.postings.put(target, ids);
+					}
+					ids.add(siteId);
+				}
+			}
+		}
+
+		/**
+		 * Build the index of the added classes.
+		 * 
+		 * @return The built index.
+		 */
+		public synchronized UsageIndex build() {
+			String[] sortedTypeNames = this.typeNames.toArray(new String[this.typeNames.size()]);
+			Arrays.sort(sortedTypeNames);
+			String[] targets = this.postings.keySet().toArray(new String[this.postings.size()]);
+			Arrays.sort(targets);
+			int[][] targetPostings = new int[targets.length][];
+			for (int index = 0; index<targets.length; index++) {
+				targetPostings[index] = this.postings.get(targets[index]).toSortedArray();
+			}
+			return new UsageIndex(sortedTypeNames, this.sites.toArray(new String[this.sites.size()]), targets,
+					targetPostings);
+		}
+	}
+}
@@ -0,0 +1,464 @@
+package com.modcrafting.luyten.search;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.modcrafting.luyten.model.classfile.ClassFileReader;
+import com.modcrafting.luyten.model.classfile.ClassMember;
+import com.modcrafting.luyten.model.classfile.DescriptorFormatter;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+
+/**
+ * This class represents the search of the usages of the types, fields and methods of a jar.<br>
+ * The references of all the jar classes are indexed once from their bytecode, in the background scan shared with the
+ * other searches (see {@link JarIndexer}), and the index is persisted by jar fingerprint: usages are then answered
+ * from the index, without decompiling nor scanning anything.
+ * References are matched as compiled: a member used through a subtype of its declaring type is reported as a usage
+ * of the subtype member.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class UsageSearch implements JarIndexer.Indexable, Closeable {
+	/** The index file extension. */
+	private static final String INDEX_EXTENSION = ".usage.index";
+	/** The key of the search task (a new search supersedes the running one). */
+	private static final String SEARCH_TASK_KEY = "usage-search";
+	/** The key prefix of type targets. */
+	private static final String TYPE_PREFIX = "type|";
+	/** The key prefix of field targets. */
+	private static final String FIELD_PREFIX = "field|";
+	/** The key prefix of method targets. */
+	private static final String METHOD_PREFIX = "method|";
+
+	/** The jar file. */
+	private final File file;
+	/** The usage index (<code>null</code> until indexed). */
+	private volatile UsageIndex index;
+	/** <code>true</code> if the jar is being indexed, <code>false</code> otherwise. */
+	private boolean indexing;
+	/** The search waiting for the index (<code>null</code> if none). */
+	private Runnable pendingSearch;
+	/** The closed status. */
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 */
+	public UsageSearch(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the jar file.
+	 * 
+	 * @return The jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	/**
+	 * Find the usages of a type, a field or a method.<br>
+	 * The search supersedes the running one. It waits for the jar to be indexed if needed.
+	 * 
+	 * @param link
+	 *            The navigation link of the used type, field or method (see
+	 *            {@link com.modcrafting.luyten.DecompilerLinkProvider}).
+	 * @param listener
+	 *            The search listener.
+	 */
+	public void findUsages(String link, final SearchListener listener) {
+		final String target = UsageSearch.getTarget(link);
+		final Runnable search = new Runnable() {
+			@Override
+			public void run() {
+				UsageSearch.this.runSearch(target, listener);
+			}
+		};
+		TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, UsageSearch.SEARCH_TASK_KEY,
+				new Runnable() {
+					@Override
+					public void run() {
+						// Check index
+						if (UsageSearch.this.index!=null||target==null) {
+							search.run();
+							return;
+						}
+						// Wait for the index
+						synchronized (UsageSearch.this) {
+							UsageSearch.this.pendingSearch = search;
+						}
+						listener.indexing(0, 0);
+						UsageSearch.this.startIndexing();
+					}
+				});
+	}
+
+	/**
+	 * Start indexing the jar, unless already indexed or indexing.
+	 */
+	public void startIndexing() {
+		JarIndexer.startIndexing(this.file, this);
+	}
+
+	@Override
+	public synchronized boolean reserveIndexing() {
+		// Check indexing status
+		if (this.indexing||this.index!=null||this.closed)
+			return false;
+		this.indexing = true;
+		return true;
+	}
+
+	/**
+	 * Load the persisted index of the jar, or create the builder of the index from the jar class files.
+	 */
+	@Override
+	public JarIndexer.IndexBuilder createIndexBuilder() {
+		// Load persisted index
+		File persistedIndexFile = null;
+		try {
+			persistedIndexFile = JarFingerprint.getIndexFile(JarFingerprint.compute(this.file, ""),
+					UsageSearch.INDEX_EXTENSION);
+			if (persistedIndexFile.isFile()) {
+				this.setIndex(UsageIndex.read(persistedIndexFile));
+				return null;
+			}
+		} catch (IOException exception) {
+			// Build the index again
+			exception.printStackTrace();
+		}
+		// Index the class file references
+		final File indexFile = persistedIndexFile;
+		final UsageIndex.Builder builder = new UsageIndex.Builder();
+		return new JarIndexer.IndexBuilder() {
+			@Override
+			public boolean addClass(String typeName, ClassFileReader reader) {
+				try {
+					builder.add(typeName, UsageSearch.collectReferences(typeName, reader));
+				} catch (IOException exception) {
+					// Invalid bytecode: the class references are not indexed
+					builder.add(typeName, Collections.<String, Set<String>> emptyMap());
+				}
+				return !UsageSearch.this.closed;
+			}
+
+			@Override
+			public void scanEnded(boolean complete) {
+				// Check indexing completion
+				if (!complete) {
+					synchronized (UsageSearch.this) {
+						UsageSearch.this.indexing = false;
+					}
+					return;
+				}
+				UsageIndex builtIndex = builder.build();
+				UsageSearch.this.setIndex(builtIndex);
+				if (indexFile!=null) {
+					try {
+						builtIndex.write(indexFile);
+						JarFingerprint.trimIndexes(indexFile);
+					} catch (IOException exception) {
+						exception.printStackTrace();
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Set the index and run the search waiting for it.
+	 * 
+	 * @param usageIndex
+	 *            The usage index.
+	 */
+	private void setIndex(UsageIndex usageIndex) {
+		Runnable search;
+		synchronized (this) {
+			this.index = usageIndex;
+			this.indexing = false;
+			search = this.pendingSearch;
+			this.pendingSearch = null;
+		}
+		if (search!=null&&!this.closed)
+			TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.INTERACTIVE, UsageSearch.SEARCH_TASK_KEY,
+					search);
+	}
+
+	/**
+	 * Run a search on the index.
+	 * 
+	 * @param target
+	 *            The searched target (<code>null</code> if the link is not a type, field or method).
+	 * @param listener
+	 *            The search listener.
+	 */
+	private void runSearch(String target, SearchListener listener) {
+		// Check target
+		if (target==null) {
+			listener.searchEnded(0, true);
+			return;
+		}
+		UsageIndex usageIndex = this.index;
+		List<SearchMatch> matches = new ArrayList<>();
+		for (int siteId : usageIndex.getSites(target)) {
+			matches.add(UsageSearch.createMatch(usageIndex, usageIndex.getSite(siteId)));
+		}
+		Collections.sort(matches, new Comparator<SearchMatch>() {
+			@Override
+			public int compare(SearchMatch match1, SearchMatch match2) {
+				return match1.toString().compareTo(match2.toString());
+			}
+		});
+		for (SearchMatch match : matches) {
+			listener.matchFound(match);
+		}
+		listener.searchEnded(matches.size(), true);
+	}
+
+	/**
+	 * Get the target of a navigation link.
+	 * 
+	 * @param link
+	 *            The navigation link (<code>type|path|type</code>, <code>field|path|type|name</code> or
+	 *            <code>method|path|type|name|signature</code>).
+	 * @return The index target, <code>null</code> if the link is not a type, field or method link.
+	 */
+	static String getTarget(String link) {
+		if (link==null)
+			return null;
+		String[] linkParts = link.split("\\|");
+		if (linkParts.length<3)
+			return null;
+		// Convert link type name to internal name
+		String owner = linkParts[2].replace('.', '/');
+		if (owner.startsWith("/"))
+			owner = owner.substring(1);
+		switch (linkParts[0]) {
+			case "type":
+				return UsageSearch.TYPE_PREFIX+owner;
+			case "field":
+				return linkParts.length<4 ? null : UsageSearch.FIELD_PREFIX+owner+"|"+linkParts[3];
+			case "method":
+				return linkParts.length<5 ? null : UsageSearch.METHOD_PREFIX+owner+"|"+linkParts[3]+"|"+linkParts[4];
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Collect the references of a class, by site.
+	 * 
+	 * @param typeName
+	 *            The internal name of the class.
+	 * @param reader
+	 *            The class file reader.
+	 * @return The targets referenced by each site of the class.
+	 * @throws IOException
+	 *             Throws exception if the class file is not valid.
+	 */
+	private static Map<String, Set<String>> collectReferences(String typeName, ClassFileReader reader)
+			throws IOException {
+		Map<String, Set<String>> siteTargets = new HashMap<>();
+		// Collect super types
+		Set<String> targets = new HashSet<>();
+		UsageSearch.addType(targets, reader.getSuperClass());
+		for (String interfaceName : reader.getInterfaces()) {
+			UsageSearch.addType(targets, interfaceName);
+		}
+		UsageSearch.putSite(siteTargets, typeName, targets);
+		// Collect field types
+		for (ClassMember field : reader.getFields()) {
+			targets = new HashSet<>();
+			UsageSearch.addDescriptorTypes(targets, field.getDescriptor());
+			UsageSearch.putSite(siteTargets, typeName+"|"+field.getName(), targets);
+		}
+		// Collect method signature types and bytecode references
+		for (ClassMember method : reader.getMethods()) {
+			targets = new HashSet<>();
+			UsageSearch.addDescriptorTypes(targets, method.getDescriptor());
+			if (method.hasCode()) {
+				for (int reference : reader.getCodeReferences(method)) {
+					UsageSearch.addReference(targets, reader, reference);
+				}
+			}
+			UsageSearch.putSite(siteTargets, typeName+"|"+method.getName()+"|"+method.getDescriptor(), targets);
+		}
+		return siteTargets;
+	}
+
+	/**
+	 * Add the targets of a constant referenced by bytecode.
+	 * 
+	 * @param targets
+	 *            The targets to add to.
+	 * @param reader
+	 *            The class file reader.
+	 * @param reference
+	 *            The referenced constant index.
+	 * @throws IOException
+	 *             Throws exception if the bootstrap method of a dynamic constant could not be read.
+	 */
+	private static void addReference(Set<String> targets, ClassFileReader reader, int reference)
+			throws IOException {
+		switch (reader.getTag(reference)) {
+			case ClassFileReader.CONSTANT_CLASS:
+				UsageSearch.addType(targets, reader.getClassName(reference));
+				break;
+			case ClassFileReader.CONSTANT_FIELDREF: {
+				String owner = reader.getMemberOwner(reference);
+				UsageSearch.addType(targets, owner);
+				targets.add(UsageSearch.FIELD_PREFIX+owner+"|"+reader.getMemberName(reference));
+				break;
+			}
+			case ClassFileReader.CONSTANT_METHODREF:
+			case ClassFileReader.CONSTANT_INTERFACE_METHODREF: {
+				String owner = reader.getMemberOwner(reference);
+				UsageSearch.addType(targets, owner);
+				// Methods of arrays (clone) are not part of any type
+				if (!owner.startsWith("["))
+					targets.add(UsageSearch.METHOD_PREFIX+owner+"|"+reader.getMemberName(reference)+"|"
+							+reader.getMemberDescriptor(reference));
+				break;
+			}
+			case ClassFileReader.CONSTANT_METHOD_HANDLE:
+				// Method reference or lambda implementation method
+				UsageSearch.addReference(targets, reader, reader.getMethodHandleMember(reference));
+				break;
+			case ClassFileReader.CONSTANT_METHOD_TYPE:
+				UsageSearch.addDescriptorTypes(targets, reader.getUtf8(reader.getReference(reference)));
+				break;
+			case ClassFileReader.CONSTANT_DYNAMIC:
+			case ClassFileReader.CONSTANT_INVOKE_DYNAMIC:
+				for (int bootstrapReference : reader.getBootstrapReferences(reference)) {
+					// Skip nested dynamic constants (a malformed class could make them loop)
+					int tag = reader.getTag(bootstrapReference);
+					if (tag!=ClassFileReader.CONSTANT_DYNAMIC&&tag!=ClassFileReader.CONSTANT_INVOKE_DYNAMIC)
+						UsageSearch.addReference(targets, reader, bootstrapReference);
+				}
+				break;
+			default:
+				// Loaded value
+				break;
+		}
+	}
+
+	/**
+	 * Add a type target.
+	 * 
+	 * @param targets
+	 *            The targets to add to.
+	 * @param typeName
+	 *            The internal name of the type, or an array descriptor (<code>null</code> if none).
+	 */
+	private static void addType(Set<String> targets, String typeName) {
+		if (typeName==null)
+			return;
+		// Use array component type
+		if (typeName.startsWith("[")) {
+			UsageSearch.addDescriptorTypes(targets, typeName);
+			return;
+		}
+		targets.add(UsageSearch.TYPE_PREFIX+typeName);
+	}
+
+	/**
+	 * Add the type targets of a field or method descriptor.
+	 * 
+	 * @param targets
+	 *            The targets to add to.
+	 * @param descriptor
+	 *            The descriptor.
+	 */
+	private static void addDescriptorTypes(Set<String> targets, String descriptor) {
+		int index = descriptor.indexOf('L');
+		while (index>=0) {
+			int end = descriptor.indexOf(';', index);
+			if (end<0)
+				return;
+			targets.add(UsageSearch.TYPE_PREFIX+descriptor.substring(index+1, end));
+			index = descriptor.indexOf('L', end);
+		}
+	}
+
+	/**
+	 * Put the targets of a site, if any.
+	 * 
+	 * @param siteTargets
+	 *            The targets of each site.
+	 * @param site
+	 *            The site key.
+	 * @param targets
+	 *            The targets of the site.
+	 */
+	private static void putSite(Map<String, Set<String>> siteTargets, String site, Set<String> targets) {
+		if (!targets.isEmpty())
+			siteTargets.put(site, targets);
+	}
+
+	/**
+	 * Create the match of a referencing site.
+	 * 
+	 * @param usageIndex
+	 *            The usage index.
+	 * @param site
+	 *            The site key.
+	 * @return The match of the site, linked to the site definition.
+	 */
+	private static SearchMatch createMatch(UsageIndex usageIndex, String site) {
+		String[] siteParts = site.split("\\|");
+		String owner = siteParts[0];
+		String pathAndType = UsageSearch.getOutermostType(usageIndex, owner)+"|"+owner.replace('/', '.');
+		switch (siteParts.length) {
+			case 1:
+				return new SearchMatch(owner, UsageSearch.TYPE_PREFIX+pathAndType, "class declaration");
+			case 2:
+				return new SearchMatch(owner, UsageSearch.FIELD_PREFIX+pathAndType+"|"+siteParts[1], siteParts[1]);
+			default:
+				return new SearchMatch(owner, UsageSearch.METHOD_PREFIX+pathAndType+"|"+siteParts[1]+"|"
+						+siteParts[2], DescriptorFormatter.formatMethod(owner, siteParts[1], siteParts[2]));
+		}
+	}
+
+	/**
+	 * Get the outermost type declaring a type, the type whose source contains the type.
+	 * 
+	 * @param usageIndex
+	 *            The usage index.
+	 * @param typeName
+	 *            The internal name of the type.
+	 * @return The internal name of the outermost type of the jar.
+	 */
+	private static String getOutermostType(UsageIndex usageIndex, String typeName) {
+		int index = typeName.indexOf('$');
+		while (index>0) {
+			String outerTypeName = typeName.substring(0, index);
+			if (usageIndex.hasType(outerTypeName))
+				return outerTypeName;
+			index = typeName.indexOf('$', index+1);
+		}
+		return typeName;
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		synchronized (this) {
+			this.pendingSearch = null;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.modcrafting.luyten.task;
+
+import java.io.StringWriter;
+import java.util.concurrent.CancellationException;
+
+/**
+ * This class represents a string writer aborting the task of the writing thread once it is cancelled.<br>
+ * It lets decompilation outputs stop a superseded decompilation as soon as it writes, by throwing a
+ * {@link CancellationException}.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class CancellableStringWriter extends StringWriter {
+	/** The task to abort (<code>null</code> if the writer is not used from a scheduler thread). */
+	private final ScheduledTask task;
+
+	/**
+	 * Constructor.<br>
+	 * The writer aborts the task of the current thread.
+	 */
+	public CancellableStringWriter() {
+		this.task = TaskScheduler.getLoadedInstance().getCurrentTask();
+	}
+
+	/**
+	 * Check whether the task is cancelled.
+	 * 
+	 * @throws CancellationException
+	 *             Throws exception if the task is cancelled.
+	 */
+	private void checkCancelled() {
+		if (this.task!=null&&this.task.isCancelled())
+			throw new CancellationException("Task cancelled: "+this.task.getKey());
+	}
+
+	@Override
+	public void write(int character) {
+		this.checkCancelled();
+		super.write(character);
+	}
+
+	@Override
+	public void write(char[] buffer, int offset, int length) {
+		this.checkCancelled();
+		super.write(buffer, offset, length);
+	}
+
+	@Override
+	public void write(String string) {
+		this.checkCancelled();
+		super.write(string);
+	}
+
+	@Override
+	public void write(String string, int offset, int length) {
+		this.checkCancelled();
+		super.write(string, offset, length);
+	}
+}
@@ -0,0 +1,122 @@
+package com.modcrafting.luyten.task;
+
+import java.util.concurrent.FutureTask;
+
+/**
+ * This class represents a task submitted to the {@link TaskScheduler}.<br>
+ * Cancelling a running task does not interrupt its thread: long tasks should check {@link #isCancelled()} (or
+ * {@link TaskScheduler#isCurrentTaskCancelled()}) and return early.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class ScheduledTask extends FutureTask<Void> implements Comparable<ScheduledTask> {
+	/** The scheduler running the task. */
+	private final TaskScheduler scheduler;
+	/** The task key (<code>null</code> if the task is not coalesced). */
+	private final String key;
+	/** The task priority. */
+	private final TaskPriority priority;
+	/** The submission order (to run tasks of the same priority in order). */
+	private final long sequence;
+	/** Whether the task is started. */
+	private volatile boolean started;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param scheduler
+	 *            The scheduler running the task.
+	 * @param key
+	 *            The task key (<code>null</code> if the task is not coalesced).
+	 * @param priority
+	 *            The task priority.
+	 * @param sequence
+	 *            The submission order.
+	 * @param runnable
+	 *            The task to run.
+	 */
+	ScheduledTask(TaskScheduler scheduler, String key, TaskPriority priority, long sequence, Runnable runnable) {
+		super(runnable, null);
+		this.scheduler = scheduler;
+		this.key = key;
+		this.priority = priority;
+		this.sequence = sequence;
+		this.started = false;
+	}
+
+	/**
+	 * Get the task key.
+	 * 
+	 * @return The task key, <code>null</code> if the task is not coalesced.
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Get the task priority.
+	 * 
+	 * @return The task priority.
+	 */
+	public TaskPriority getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * Check whether the task is started.
+	 * 
+	 * @return <code>true</code> if the task is running or done, <code>false</code> if it is waiting for a thread.
+	 */
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	/**
+	 * Cancel the task without interrupting its thread.
+	 * 
+	 * @return <code>true</code> if the task was cancelled, <code>false</code> if it was already done or cancelled.
+	 */
+	public boolean cancel() {
+		return this.cancel(false);
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if (cancelled)
+			this.scheduler.cancelled(this);
+		return cancelled;
+	}
+
+	@Override
+	public void run() {
+		this.started = true;
+		this.scheduler.beforeRun(this);
+		try {
+			super.run();
+		} finally {
+			this.scheduler.afterRun(this);
+		}
+	}
+
+	@Override
+	protected void setException(Throwable throwable) {
+		// Nobody may wait for the result: report failures as the former threads did
+		throwable.printStackTrace();
+		super.setException(throwable);
+	}
+
+	@Override
+	public int compareTo(ScheduledTask other) {
+		int comparison = this.priority.compareTo(other.priority);
+		if (comparison!=0)
+			return comparison;
+		return Long.compare(this.sequence, other.sequence);
+	}
+
+	@Override
+	public String toString() {
+		return "ScheduledTask[key="+this.key+", priority="+this.priority+"]";
+	}
+}
@@ -0,0 +1,19 @@
+package com.modcrafting.luyten.task;
+
+/**
+ * This enumeration represents the priorities of scheduled tasks.<br>
+ * Interactive and visible tasks run on their own pool so background tasks never delay them.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public enum TaskPriority {
+	/** The tasks the user is waiting for (opening a class, navigating, loading a jar). */
+	INTERACTIVE,
+	/** The tasks completing what the user sees, run on the interactive pool after interactive tasks (processing links). */
+	VISIBLE,
+	/** The tasks the user requested but does not wait for (saving, indexing). */
+	BACKGROUND,
+	/** The speculative tasks, run when no background task is waiting and cancelled by any interactive task. */
+	IDLE;
+}
@@ -0,0 +1,313 @@
+package com.modcrafting.luyten.task;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents the scheduler of the application background work.<br>
+ * It replaces ad-hoc threads with two bounded pools: one for {@link TaskPriority#INTERACTIVE} and
+ * {@link TaskPriority#VISIBLE} tasks and one for {@link TaskPriority#BACKGROUND} and {@link TaskPriority#IDLE} tasks,
+ * each running its waiting tasks by priority then submission order. Tasks may be submitted with a key to coalesce
+ * duplicate requests for the same resource or to cancel the superseded ones. Idle tasks back off as soon as an
+ * interactive task is submitted: they are cancelled.<br>
+ * Tasks splitting their work in parallel (jar scans, exports) submit it to the shared worker pools instead of creating
+ * their own threads, so concurrent tasks never run more workers than processors.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class TaskScheduler {
+	/** The idle time after which pool threads stop (in seconds). */
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	/** The loaded instance. */
+	private static volatile TaskScheduler theLoadedInstance;
+
+	/** The pool of interactive tasks. */
+	private final ThreadPoolExecutor interactivePool;
+	/** The pool of background and idle tasks. */
+	private final ThreadPoolExecutor backgroundPool;
+	/** The workers of interactive and visible tasks. */
+	private final ThreadPoolExecutor interactiveWorkers;
+	/** The workers of background and idle tasks. */
+	private final ThreadPoolExecutor backgroundWorkers;
+	/** The submission counter. */
+	private final AtomicLong sequence;
+	/** The last submitted task of each key (until it is done). */
+	private final ConcurrentHashMap<String, ScheduledTask> tasksByKey;
+	/** The idle tasks not done yet. */
+	private final Set<ScheduledTask> idleTasks;
+	/** The task run by the current thread. */
+	private final ThreadLocal<ScheduledTask> currentTask;
+
+	/**
+	 * Do not instantiate, get the loaded instance.
+	 */
+	private TaskScheduler() {
+		int processorCount = Runtime.getRuntime().availableProcessors();
+		this.interactivePool = TaskScheduler.createPool(Math.max(2, Math.min(4, processorCount)),
+				new TaskThreadFactory("Luyten interactive worker", Thread.NORM_PRIORITY));
+		this.backgroundPool = TaskScheduler.createPool(Math.max(1, processorCount/2),
+				new TaskThreadFactory("Luyten background worker", Thread.MIN_PRIORITY));
+		this.interactiveWorkers = TaskScheduler.createWorkers(processorCount,
+				new TaskThreadFactory("Luyten interactive parallel worker", Thread.NORM_PRIORITY));
+		this.backgroundWorkers = TaskScheduler.createWorkers(processorCount,
+				new TaskThreadFactory("Luyten background parallel worker", Thread.MIN_PRIORITY));
+		this.sequence = new AtomicLong();
+		this.tasksByKey = new ConcurrentHashMap<>();
+		this.idleTasks = Collections.newSetFromMap(new ConcurrentHashMap<ScheduledTask, Boolean>());
+		this.currentTask = new ThreadLocal<>();
+	}
+
+	/**
+	 * Get the loaded instance.
+	 * 
+	 * @return The loaded instance.
+	 */
+	public static TaskScheduler getLoadedInstance() {
+		if (theLoadedInstance==null) {
+			synchronized (TaskScheduler.class) {
+				if (theLoadedInstance==null) {
+					theLoadedInstance = new TaskScheduler();
+				}
+			}
+		}
+		return theLoadedInstance;
+	}
+
+	/**
+	 * Create a pool running its waiting tasks by priority.
+	 * 
+	 * @param threadCount
+	 *            The maximum number of threads.
+	 * @param threadFactory
+	 *            The thread factory.
+	 * @return The created pool.
+	 */
+	private static ThreadPoolExecutor createPool(int threadCount, TaskThreadFactory threadFactory) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, TaskScheduler.KEEP_ALIVE_SECONDS,
+				TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), threadFactory);
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Create a pool of workers running their work in submission order.
+	 * 
+	 * @param threadCount
+	 *            The maximum number of threads.
+	 * @param threadFactory
+	 *            The thread factory.
+	 * @return The created pool.
+	 */
+	private static ThreadPoolExecutor createWorkers(int threadCount, TaskThreadFactory threadFactory) {
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(threadCount, threadCount,
+				TaskScheduler.KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		workers.allowCoreThreadTimeOut(true);
+		return workers;
+	}
+
+	/**
+	 * Execute a task.
+	 * 
+	 * @param priority
+	 *            The task priority.
+	 * @param runnable
+	 *            The task to execute.
+	 * @return The scheduled task.
+	 */
+	public ScheduledTask execute(TaskPriority priority, Runnable runnable) {
+		ScheduledTask task = this.createTask(null, priority, runnable);
+		this.schedule(task);
+		return task;
+	}
+
+	/**
+	 * Execute a task unless a task with the same key is already waiting (duplicate requests are coalesced).
+	 * 
+	 * @param priority
+	 *            The task priority.
+	 * @param key
+	 *            The task key (the resource it works on for example).
+	 * @param runnable
+	 *            The task to execute.
+	 * @return The scheduled task, or the waiting task with the same key.
+	 */
+	public ScheduledTask execute(TaskPriority priority, String key, Runnable runnable) {
+		ScheduledTask task = this.createTask(key, priority, runnable);
+		while (true) {
+			// Check waiting task with the same key
+			ScheduledTask existingTask = this.tasksByKey.get(key);
+			if (existingTask!=null&&!existingTask.isStarted()&&!existingTask.isDone())
+				return existingTask;
+			// Register the task as the last one of its key
+			boolean registered = existingTask==null ? this.tasksByKey.putIfAbsent(key, task)==null : this.tasksByKey
+					.replace(key, existingTask, task);
+			if (registered)
+				break;
+		}
+		this.schedule(task);
+		return task;
+	}
+
+	/**
+	 * Execute a task and cancel the previous task with the same key (superseded requests are dropped).<br>
+	 * A running superseded task is not interrupted, it is only flagged as cancelled.
+	 * 
+	 * @param priority
+	 *            The task priority.
+	 * @param key
+	 *            The task key (the view it updates for example).
+	 * @param runnable
+	 *            The task to execute.
+	 * @return The scheduled task.
+	 */
+	public ScheduledTask executeLatest(TaskPriority priority, String key, Runnable runnable) {
+		ScheduledTask task = this.createTask(key, priority, runnable);
+		ScheduledTask previousTask = this.tasksByKey.put(key, task);
+		if (previousTask!=null)
+			previousTask.cancel();
+		this.schedule(task);
+		return task;
+	}
+
+	/**
+	 * Get the shared workers to split the work of a task in parallel.<br>
+	 * The task waits for its work to complete. The workers are shared by all the tasks and must not be shut down.
+	 * 
+	 * @param priority
+	 *            The priority of the task splitting its work.
+	 * @return The workers of the task priority (processor count threads at most).
+	 */
+	public ExecutorService getWorkers(TaskPriority priority) {
+		switch (priority) {
+			case INTERACTIVE:
+			case VISIBLE:
+				return this.interactiveWorkers;
+			default:
+				return this.backgroundWorkers;
+		}
+	}
+
+	/**
+	 * Get the task run by the current thread.
+	 * 
+	 * @return The current task, <code>null</code> if the current thread is not a scheduler thread.
+	 */
+	public ScheduledTask getCurrentTask() {
+		return this.currentTask.get();
+	}
+
+	/**
+	 * Check whether the task run by the current thread is cancelled.
+	 * 
+	 * @return <code>true</code> if the current task is cancelled, <code>false</code> otherwise (or if the current thread
+	 *         is not a scheduler thread).
+	 */
+	public static boolean isCurrentTaskCancelled() {
+		ScheduledTask task = TaskScheduler.getLoadedInstance().currentTask.get();
+		return task!=null&&task.isCancelled();
+	}
+
+	/**
+	 * Create a task.
+	 * 
+	 * @param key
+	 *            The task key.
+	 * @param priority
+	 *            The task priority.
+	 * @param runnable
+	 *            The task to run.
+	 * @return The created task.
+	 */
+	private ScheduledTask createTask(String key, TaskPriority priority, Runnable runnable) {
+		if (priority==null||runnable==null)
+			throw new NullPointerException();
+		return new ScheduledTask(this, key, priority, this.sequence.getAndIncrement(), runnable);
+	}
+
+	/**
+	 * Schedule a task on the pool of its priority.
+	 * 
+	 * @param task
+	 *            The task to schedule.
+	 */
+	private void schedule(ScheduledTask task) {
+		switch (task.getPriority()) {
+			case INTERACTIVE:
+				// Back off speculative work in favor of the user request
+				for (ScheduledTask idleTask : this.idleTasks) {
+					idleTask.cancel();
+				}
+				break;
+			case IDLE:
+				this.idleTasks.add(task);
+				break;
+			default:
+				break;
+		}
+		this.getPool(task).execute(task);
+	}
+
+	/**
+	 * Get the pool of a task.
+	 * 
+	 * @param task
+	 *            The task to get pool.
+	 * @return The pool of the task priority.
+	 */
+	private ThreadPoolExecutor getPool(ScheduledTask task) {
+		switch (task.getPriority()) {
+			case INTERACTIVE:
+			case VISIBLE:
+				return this.interactivePool;
+			default:
+				return this.backgroundPool;
+		}
+	}
+
+	/**
+	 * Notify a task is about to run.
+	 * 
+	 * @param task
+	 *            The task about to run.
+	 */
+	void beforeRun(ScheduledTask task) {
+		this.currentTask.set(task);
+	}
+
+	/**
+	 * Notify a task is done.
+	 * 
+	 * @param task
+	 *            The done task.
+	 */
+	void afterRun(ScheduledTask task) {
+		this.currentTask.remove();
+		this.idleTasks.remove(task);
+		if (task.getKey()!=null)
+			this.tasksByKey.remove(task.getKey(), task);
+	}
+
+	/**
+	 * Notify a task is cancelled.
+	 * 
+	 * @param task
+	 *            The cancelled task.
+	 */
+	void cancelled(ScheduledTask task) {
+		// Release the pool queue from waiting tasks
+		if (!task.isStarted())
+			this.getPool(task).remove(task);
+		this.idleTasks.remove(task);
+		if (task.getKey()!=null)
+			this.tasksByKey.remove(task.getKey(), task);
+	}
+}
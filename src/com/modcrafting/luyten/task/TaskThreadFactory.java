@@ -0,0 +1,40 @@
+package com.modcrafting.luyten.task;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents the thread factory of a task scheduler pool, or of any pool of Luyten workers.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class TaskThreadFactory implements ThreadFactory {
+	/** The name prefix of the threads. */
+	private final String namePrefix;
+	/** The priority of the threads. */
+	private final int priority;
+	/** The number of the next thread. */
+	private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param namePrefix
+	 *            The name prefix of the threads.
+	 * @param priority
+	 *            The priority of the threads.
+	 */
+	public TaskThreadFactory(String namePrefix, int priority) {
+		this.namePrefix = namePrefix;
+		this.priority = priority;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, this.namePrefix+" #"+this.threadNumber.getAndIncrement());
+		thread.setDaemon(true);
+		thread.setPriority(this.priority);
+		return thread;
+	}
+}
@@ -2,20 +2,31 @@ package com.modcrafting.luyten.view.editor;
 
 import java.awt.Cursor;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
 import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.swing.AbstractAction;
+import javax.swing.Action;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollBar;
+import javax.swing.KeyStroke;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.event.HyperlinkEvent;
@@ -29,7 +40,16 @@ import org.fife.ui.rtextarea.RTextScrollPane;
 import com.modcrafting.luyten.DecompilerLinkProvider;
 import com.modcrafting.luyten.LinkProvider;
 import com.modcrafting.luyten.MainWindow;
+import com.modcrafting.luyten.MetadataSystemPool;
 import com.modcrafting.luyten.Selection;
+import com.modcrafting.luyten.cache.DecompiledCache;
+import com.modcrafting.luyten.cache.DecompiledContent;
+import com.modcrafting.luyten.export.JarExporter;
+import com.modcrafting.luyten.task.CancellableStringWriter;
+import com.modcrafting.luyten.task.ScheduledTask;
+import com.modcrafting.luyten.task.TaskPriority;
+import com.modcrafting.luyten.task.TaskScheduler;
+import com.strobel.assembler.metadata.ITypeLoader;
 import com.strobel.assembler.metadata.MetadataSystem;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.decompiler.DecompilationOptions;
@@ -55,6 +75,8 @@ public class FileEditor {
 	private LinkProvider linkProvider;
 	private String initialNavigationLink;
 	private boolean isFirstTimeRun = true;
+	/** The running decompilation (<code>null</code> if none). */
+	private final AtomicReference<Decompilation> currentDecompilation = new AtomicReference<>();
 
 	private MainWindow mainWindow;
 	private RSyntaxTextArea textArea;
@@ -119,6 +141,8 @@ public class FileEditor {
 	private MetadataSystem metadataSystem;
 	private DecompilerSettings settings;
 	private DecompilationOptions decompilationOptions;
+	private ITypeLoader typeLoader;
+	private MetadataSystemPool metadataSystemPool;
 	private TypeDefinition type;
 
 	public FileEditor(String resourceName, String resourcePath, MainWindow mainWindow) {
@@ -223,6 +247,78 @@ public class FileEditor {
 				return null;
 			}
 		});
+
+		this.addFindUsagesAction();
+		this.addHierarchyActions();
+	}
+
+	/**
+	 * Add the find usages action of the link at caret, to the text area key bindings and popup menu.
+	 */
+	private void addFindUsagesAction() {
+		Action findUsagesAction = new AbstractAction("Find Usages") {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				onFindUsagesRequest(textArea.getCaretPosition());
+			}
+		};
+		KeyStroke findUsagesKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_G,
+				InputEvent.CTRL_DOWN_MASK|InputEvent.SHIFT_DOWN_MASK);
+		findUsagesAction.putValue(Action.ACCELERATOR_KEY, findUsagesKeyStroke);
+		this.textArea.getInputMap().put(findUsagesKeyStroke, "FIND_USAGES");
+		this.textArea.getActionMap().put("FIND_USAGES", findUsagesAction);
+		JPopupMenu popupMenu = this.textArea.getPopupMenu();
+		if (popupMenu!=null) {
+			popupMenu.addSeparator();
+			popupMenu.add(new JMenuItem(findUsagesAction));
+		}
+		// Move caret to the right clicked link, unless text is selected
+		this.textArea.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mousePressed(MouseEvent e) {
+				if (SwingUtilities.isRightMouseButton(e)&&textArea.getSelectionStart()==textArea.getSelectionEnd())
+					textArea.setCaretPosition(textArea.viewToModel(e.getPoint()));
+			}
+		});
+	}
+
+	/**
+	 * Add the type hierarchy and go to implementations actions of the link at caret, to the text area key bindings and
+	 * popup menu.
+	 */
+	private void addHierarchyActions() {
+		Action typeHierarchyAction = new AbstractAction("Type Hierarchy") {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				onHierarchyRequest(textArea.getCaretPosition(), false);
+			}
+		};
+		KeyStroke typeHierarchyKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_F4, 0);
+		typeHierarchyAction.putValue(Action.ACCELERATOR_KEY, typeHierarchyKeyStroke);
+		this.textArea.getInputMap().put(typeHierarchyKeyStroke, "TYPE_HIERARCHY");
+		this.textArea.getActionMap().put("TYPE_HIERARCHY", typeHierarchyAction);
+		Action implementationsAction = new AbstractAction("Go to Implementations") {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				onHierarchyRequest(textArea.getCaretPosition(), true);
+			}
+		};
+		KeyStroke implementationsKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_B,
+				InputEvent.CTRL_DOWN_MASK|InputEvent.ALT_DOWN_MASK);
+		implementationsAction.putValue(Action.ACCELERATOR_KEY, implementationsKeyStroke);
+		this.textArea.getInputMap().put(implementationsKeyStroke, "GO_TO_IMPLEMENTATIONS");
+		this.textArea.getActionMap().put("GO_TO_IMPLEMENTATIONS", implementationsAction);
+		JPopupMenu popupMenu = this.textArea.getPopupMenu();
+		if (popupMenu!=null) {
+			popupMenu.add(new JMenuItem(typeHierarchyAction));
+			popupMenu.add(new JMenuItem(implementationsAction));
+		}
 	}
 
 	/**
@@ -246,37 +342,96 @@ public class FileEditor {
 		theme.apply(this.textArea);
 	}
 
+	/**
+	 * Decompile the type of the editor.<br>
+	 * A decompilation is abandoned, leaving the content invalid, if the editor is decompiled again or if the calling
+	 * task is cancelled. The content is then decompiled again when the tab is selected.
+	 */
 	public void decompile() {
-		this.invalidateContent();
-		// synchronized: do not accept changes from menu while running
-		boolean hasNavigationLinks = false;
-		synchronized (settings) {
-			hasNavigationLinks = Languages.java().equals(settings.getLanguage());
-		}
-		if (hasNavigationLinks) {
-			decompileWithNavigationLinks();
-		} else {
-			decompileWithoutLinks();
+		Decompilation decompilation = new Decompilation(TaskScheduler.getLoadedInstance().getCurrentTask());
+		this.currentDecompilation.set(decompilation);
+		// snapshot: menu changes do not affect a running decompilation
+		DecompilerSettings settingsSnapshot = JarExporter.cloneSettings(settings);
+		// borrow a metadata system: other editors decompile in parallel
+		MetadataSystem decompilationMetadataSystem = metadataSystemPool.acquire();
+		try {
+			this.invalidateContent();
+			if (isStale(decompilation))
+				return;
+			TypeDefinition decompilationType = MetadataSystemPool.resolve(decompilationMetadataSystem, type);
+			if (decompilationType==null)
+				throw new IllegalStateException("Unable to resolve type: "+type.getInternalName());
+			if (Languages.java().equals(settingsSnapshot.getLanguage())) {
+				decompileWithNavigationLinks(decompilation, decompilationMetadataSystem, decompilationType,
+						settingsSnapshot);
+			} else {
+				decompileWithoutLinks(decompilation, decompilationType, settingsSnapshot);
+			}
+		} catch (CancellationException e) {
+			// superseded while writing: the content remains invalid
+		} finally {
+			metadataSystemPool.release(decompilationMetadataSystem);
+			this.currentDecompilation.compareAndSet(decompilation, null);
 		}
 	}
 
-	private void decompileWithoutLinks() {
+	/**
+	 * Check whether a decompilation is running and not superseded.
+	 * 
+	 * @return <code>true</code> if the content is being decompiled, <code>false</code> otherwise.
+	 */
+	public boolean isDecompiling() {
+		Decompilation decompilation = this.currentDecompilation.get();
+		return decompilation!=null&&!decompilation.isCancelled();
+	}
+
+	private boolean isStale(Decompilation decompilation) {
+		return this.currentDecompilation.get()!=decompilation||decompilation.isCancelled();
+	}
+
+	private void decompileWithoutLinks(Decompilation decompilation, TypeDefinition decompilationType,
+			DecompilerSettings settingsSnapshot) {
 		this.invalidateContent();
 		isNavigationLinksValid = false;
 		textArea.setHyperlinksEnabled(false);
 
-		StringWriter stringwriter = new StringWriter();
-		settings.getLanguage().decompileType(type, new PlainTextOutput(stringwriter), decompilationOptions);
-		this.setContent(stringwriter.toString());
+		// reuse the content decompiled from the same class bytes with the same settings
+		DecompiledCache decompiledCache = DecompiledCache.getLoadedInstance();
+		String cacheKey = decompiledCache.createKey(typeLoader, decompilationType, settingsSnapshot);
+		DecompiledContent cachedContent = decompiledCache.get(cacheKey);
+		if (cachedContent!=null) {
+			if (!isStale(decompilation))
+				this.setContent(cachedContent.getTextContent());
+			return;
+		}
+
+		StringWriter stringwriter = new CancellableStringWriter();
+		settingsSnapshot.getLanguage().decompileType(decompilationType, new PlainTextOutput(stringwriter),
+				MetadataSystemPool.createOptions(settingsSnapshot));
+		String content = stringwriter.toString();
+		decompiledCache.put(cacheKey, new DecompiledContent(content, new HashMap<String, Selection>(),
+				new HashMap<String, Set<Selection>>()));
+		// discard the result of a superseded decompilation
+		if (!isStale(decompilation))
+			this.setContent(content);
 	}
 
-	private void decompileWithNavigationLinks() {
+	private void decompileWithNavigationLinks(Decompilation decompilation,
+			MetadataSystem decompilationMetadataSystem, TypeDefinition decompilationType,
+			DecompilerSettings settingsSnapshot) {
 		this.invalidateContent();
+		DecompilationOptions optionsSnapshot = MetadataSystemPool.createOptions(settingsSnapshot);
 		DecompilerLinkProvider newLinkProvider = new DecompilerLinkProvider();
-		newLinkProvider.setDecompilerReferences(metadataSystem, settings, decompilationOptions);
-		newLinkProvider.setType(type);
+		newLinkProvider.setDecompilerReferences(decompilationMetadataSystem, settingsSnapshot, optionsSnapshot);
+		newLinkProvider.setTypeLoader(typeLoader);
+		newLinkProvider.setType(decompilationType);
+		newLinkProvider.generateContent();
+		// links are processed once the borrowed metadata system is given back
+		newLinkProvider.setDecompilerReferences(metadataSystem, settingsSnapshot, optionsSnapshot);
+		// discard the result of a superseded decompilation
+		if (isStale(decompilation))
+			return;
 		linkProvider = newLinkProvider;
-		linkProvider.generateContent();
 		this.setContent(linkProvider.getTextContent());
 		enableLinks();
 	}
@@ -303,18 +458,20 @@ public class FileEditor {
 		if (initialNavigationLink!=null) {
 			doEnableLinks();
 		} else {
-			new Thread(new Runnable() {
-				@Override
-				public void run() {
-					try {
-						isWaitForLinksCursor = true;
-						doEnableLinks();
-					} finally {
-						isWaitForLinksCursor = false;
-						resetCursor();
-					}
-				}
-			}).start();
+			// links of a previous decompilation are not needed anymore
+			TaskScheduler.getLoadedInstance().executeLatest(TaskPriority.VISIBLE, "links:"+resourcePath,
+					new Runnable() {
+						@Override
+						public void run() {
+							try {
+								isWaitForLinksCursor = true;
+								doEnableLinks();
+							} finally {
+								isWaitForLinksCursor = false;
+								resetCursor();
+							}
+						}
+					});
 		}
 	}
 
@@ -443,6 +600,46 @@ public class FileEditor {
 		return null;
 	}
 
+	private void onFindUsagesRequest(int offset) {
+		String uniqueStr = getRequestedUniqueStr(offset);
+		if (uniqueStr!=null)
+			this.mainWindow.onFindUsages(uniqueStr, this.getLinkDescription(uniqueStr));
+	}
+
+	private void onHierarchyRequest(int offset, boolean implementations) {
+		String uniqueStr = getRequestedUniqueStr(offset);
+		if (uniqueStr==null)
+			return;
+		if (implementations) {
+			this.mainWindow.onGoToImplementations(uniqueStr);
+		} else {
+			this.mainWindow.onTypeHierarchy(uniqueStr);
+		}
+	}
+
+	/**
+	 * Get the link a request is made on, telling the user if there is none.
+	 * 
+	 * @param offset
+	 *            The text offset of the request.
+	 * @return The unique string of the link at offset, <code>null</code> if none.
+	 */
+	private String getRequestedUniqueStr(int offset) {
+		JLabel label = this.mainWindow.getLabel();
+		if (!isNavigationLinksValid) {
+			if (label!=null)
+				label.setText("Links are not ready yet");
+			return null;
+		}
+		String uniqueStr = getUniqueStrForOffset(offset);
+		if (uniqueStr==null) {
+			if (label!=null)
+				label.setText("No type, field or method at caret");
+			return null;
+		}
+		return uniqueStr;
+	}
+
 	private void onNavigationClicked(String clickedReferenceUniqueStr) {
 		if (isLocallyNavigable(clickedReferenceUniqueStr)) {
 			onLocalNavigationRequest(clickedReferenceUniqueStr);
@@ -529,6 +726,26 @@ public class FileEditor {
 		this.decompilationOptions = decompilationOptions;
 	}
 
+	/**
+	 * Set the metadata systems to decompile the type with.
+	 * 
+	 * @param metadataSystemPool
+	 *            The metadata systems sharing the type loader of the decompiled type.
+	 */
+	public void setMetadataSystemPool(MetadataSystemPool metadataSystemPool) {
+		this.metadataSystemPool = metadataSystemPool;
+	}
+
+	/**
+	 * Set the type loader to read class file bytes from (used to look up decompiled content cache).
+	 * 
+	 * @param typeLoader
+	 *            The type loader of the decompiled type.
+	 */
+	public void setTypeLoader(ITypeLoader typeLoader) {
+		this.typeLoader = typeLoader;
+	}
+
 	public TypeDefinition getType() {
 		return type;
 	}
@@ -541,6 +758,17 @@ public class FileEditor {
 		return validContent;
 	}
 
+	/**
+	 * Get the link provider of the decompiled content.
+	 * 
+	 * @return The link provider, <code>null</code> if the content is not decompiled with navigation links.
+	 */
+	public LinkProvider getLinkProvider() {
+		if (!validContent||!Languages.java().equals(settings.getLanguage()))
+			return null;
+		return linkProvider;
+	}
+
 	/**
 	 * Invalidate editor content.
 	 */
@@ -557,6 +785,23 @@ public class FileEditor {
 		this.initialNavigationLink = initialNavigationLink;
 	}
 
+	/**
+	 * Select a text range of the content and scroll to it, once the content is displayed.
+	 * 
+	 * @param selection
+	 *            The text range to select.
+	 */
+	public void selectText(final Selection selection) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (validContent && selection.to <= textArea.getDocument().getLength()) {
+					doLocalNavigation(selection);
+				}
+			}
+		});
+	}
+
 	public void onAddedToScreen() {
 		try {
 			if (initialNavigationLink!=null) {
@@ -571,6 +816,40 @@ public class FileEditor {
 		}
 	}
 
+	/**
+	 * Get the rendered content of the editor to restore it if the editor is reopened.
+	 * 
+	 * @return The rendered content, <code>null</code> if the editor has no valid decompiled content.
+	 */
+	public FileEditorContent getContent() {
+		if (type==null||!validContent)
+			return null;
+		LinkProvider contentLinkProvider = isNavigationLinksValid ? linkProvider : null;
+		TreeMap<Selection, String> contentSelectionMap = isNavigationLinksValid ? selectionToUniqueStrTreeMap
+				: new TreeMap<Selection, String>();
+		// copy link caches: they are cleared when the editor is closed
+		return new FileEditorContent(type, textArea.getText(), contentLinkProvider, contentSelectionMap,
+				new ConcurrentHashMap<>(isNavigableCache), new ConcurrentHashMap<>(readableLinksCache));
+	}
+
+	/**
+	 * Restore a rendered content instead of decompiling the type again.
+	 * 
+	 * @param content
+	 *            The content to restore.
+	 */
+	public void restoreContent(FileEditorContent content) {
+		this.invalidateContent();
+		this.type = content.type;
+		this.linkProvider = content.linkProvider;
+		this.selectionToUniqueStrTreeMap = content.selectionToUniqueStrTreeMap;
+		this.isNavigableCache = content.isNavigableCache;
+		this.readableLinksCache = content.readableLinksCache;
+		this.setContent(content.text);
+		this.isNavigationLinksValid = this.linkProvider!=null;
+		this.textArea.setHyperlinksEnabled(this.isNavigationLinksValid);
+	}
+
 	/**
 	 * sun.swing.CachedPainter holds on OpenFile for a while even after JTabbedPane.remove(component)
 	 */
@@ -581,6 +860,22 @@ public class FileEditor {
 		clearLinksCache();
 	}
 
+	/**
+	 * This class represents a decompilation of the editor content.
+	 */
+	private static class Decompilation {
+		/** The task running the decompilation (<code>null</code> if not run by the task scheduler). */
+		private final ScheduledTask task;
+
+		private Decompilation(ScheduledTask task) {
+			this.task = task;
+		}
+
+		private boolean isCancelled() {
+			return this.task!=null&&this.task.isCancelled();
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,103 @@
+package com.modcrafting.luyten.view.editor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.modcrafting.luyten.LinkProvider;
+import com.modcrafting.luyten.Selection;
+import com.strobel.assembler.metadata.TypeDefinition;
+
+/**
+ * This class represents the rendered content of a closed file editor (its text and its navigation links).
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class FileEditorContent {
+	/** The estimated size of an object header and its references (in bytes). */
+	private static final int OBJECT_SIZE = 48;
+	/** The estimated size of a link entry without its strings (in bytes). */
+	private static final int LINK_ENTRY_SIZE = 96;
+
+	/** The decompiled type. */
+	final TypeDefinition type;
+	/** The editor text. */
+	final String text;
+	/** The link provider (<code>null</code> if the content has no navigation links). */
+	final LinkProvider linkProvider;
+	/** The unique strings by selection. */
+	final TreeMap<Selection, String> selectionToUniqueStrTreeMap;
+	/** The navigable statuses by unique string. */
+	final Map<String, Boolean> isNavigableCache;
+	/** The link descriptions by unique string. */
+	final Map<String, String> readableLinksCache;
+	/** The estimated memory size (in bytes). */
+	private final long estimatedSize;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param type
+	 *            The decompiled type.
+	 * @param text
+	 *            The editor text.
+	 * @param linkProvider
+	 *            The link provider (<code>null</code> if the content has no navigation links).
+	 * @param selectionToUniqueStrTreeMap
+	 *            The unique strings by selection.
+	 * @param isNavigableCache
+	 *            The navigable statuses by unique string.
+	 * @param readableLinksCache
+	 *            The link descriptions by unique string.
+	 */
+	FileEditorContent(TypeDefinition type, String text, LinkProvider linkProvider,
+			TreeMap<Selection, String> selectionToUniqueStrTreeMap, Map<String, Boolean> isNavigableCache,
+			Map<String, String> readableLinksCache) {
+		this.type = type;
+		this.text = text;
+		this.linkProvider = linkProvider;
+		this.selectionToUniqueStrTreeMap = selectionToUniqueStrTreeMap;
+		this.isNavigableCache = isNavigableCache;
+		this.readableLinksCache = readableLinksCache;
+		this.estimatedSize = this.estimateSize();
+	}
+
+	/**
+	 * Estimate the memory size of the content.
+	 * 
+	 * @return The estimated memory size (in bytes).
+	 */
+	private long estimateSize() {
+		// The text is stored twice: in the editor document and in the link provider
+		long size = FileEditorContent.OBJECT_SIZE+this.text.length()*2L;
+		if (this.linkProvider!=null)
+			size += this.text.length()*2L;
+		// Unique strings are shared by the link maps
+		for (String uniqueStr : this.selectionToUniqueStrTreeMap.values()) {
+			size += FileEditorContent.LINK_ENTRY_SIZE+uniqueStr.length()*2L;
+		}
+		size += this.isNavigableCache.size()*(long) FileEditorContent.LINK_ENTRY_SIZE;
+		for (String description : this.readableLinksCache.values()) {
+			size += FileEditorContent.LINK_ENTRY_SIZE+description.length()*2L;
+		}
+		return size;
+	}
+
+	/**
+	 * Get the decompiled type.
+	 * 
+	 * @return The decompiled type.
+	 */
+	public TypeDefinition getType() {
+		return this.type;
+	}
+
+	/**
+	 * Get the estimated memory size of the content.
+	 * 
+	 * @return The estimated memory size (in bytes).
+	 */
+	public long getEstimatedSize() {
+		return this.estimatedSize;
+	}
+}
@@ -0,0 +1,81 @@
+package com.modcrafting.luyten.view.editor;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+/**
+ * This class represents a bounded cache of closed file editor contents.<br>
+ * Contents are evicted in least recently used order once their estimated size exceeds the cache budget.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class FileEditorContentCache {
+	/** The cache budget (in bytes). */
+	private final long maxSize;
+	/** The cached contents by resource path, in access order. */
+	private final LinkedHashMap<String, FileEditorContent> contents;
+	/** The estimated size of the cached contents (in bytes). */
+	private long size;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param maxSize
+	 *            The cache budget (in bytes).
+	 */
+	public FileEditorContentCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.contents = new LinkedHashMap<>(16, 0.75f, true);
+		this.size = 0;
+	}
+
+	/**
+	 * Put a closed file editor content into the cache.
+	 * 
+	 * @param resourcePath
+	 *            The resource path of the file editor.
+	 * @param content
+	 *            The content of the file editor.
+	 */
+	public synchronized void put(String resourcePath, FileEditorContent content) {
+		// Check content size
+		if (content.getEstimatedSize()>this.maxSize)
+			return;
+		// Add content
+		FileEditorContent previousContent = this.contents.put(resourcePath, content);
+		if (previousContent!=null)
+			this.size -= previousContent.getEstimatedSize();
+		this.size += content.getEstimatedSize();
+		// Evict least recently used contents
+		Iterator<Entry<String, FileEditorContent>> iterator = this.contents.entrySet().iterator();
+		while (this.size>this.maxSize&&iterator.hasNext()) {
+			Entry<String, FileEditorContent> eldest = iterator.next();
+			iterator.remove();
+			this.size -= eldest.getValue().getEstimatedSize();
+		}
+	}
+
+	/**
+	 * Take a content out of the cache.
+	 * 
+	 * @param resourcePath
+	 *            The resource path of the file editor.
+	 * @return The cached content, <code>null</code> if not cached.
+	 */
+	public synchronized FileEditorContent remove(String resourcePath) {
+		FileEditorContent content = this.contents.remove(resourcePath);
+		if (content!=null)
+			this.size -= content.getEstimatedSize();
+		return content;
+	}
+
+	/**
+	 * Invalidate all cached contents.
+	 */
+	public synchronized void clear() {
+		this.contents.clear();
+		this.size = 0;
+	}
+}
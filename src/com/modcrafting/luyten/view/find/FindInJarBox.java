@@ -0,0 +1,269 @@
+package com.modcrafting.luyten.view.find;
+
+import java.awt.Dimension;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.regex.PatternSyntaxException;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListModel;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+
+import com.modcrafting.luyten.MainWindow;
+import com.modcrafting.luyten.search.ConstantPoolSearch;
+import com.modcrafting.luyten.search.SearchListener;
+import com.modcrafting.luyten.search.SearchMatch;
+import com.modcrafting.luyten.search.SearchQuery;
+import com.modcrafting.luyten.search.SourceSearch;
+
+/**
+ * This class is the dialog to search the decompiled sources of the opened jar.<br>
+ * Matches are listed as they are found. Opening a match opens its class and selects the matching text. The class files
+ * only mode searches the constant pools instead, without decompiling.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class FindInJarBox extends JDialog {
+	private static final long serialVersionUID = 3916522476618283751L;
+
+	private JCheckBox mcase;
+	private JCheckBox regex;
+	private JCheckBox wholew;
+	private JCheckBox classFiles;
+	private JButton findButton;
+	private JTextField textField;
+	private JLabel statusLabel;
+	private DefaultListModel<SearchMatch> matchListModel;
+	private JList<SearchMatch> matchList;
+	private MainWindow mainWindow;
+	/** The listener of the running search (older searches are ignored). */
+	private SearchListener currentListener;
+
+	public FindInJarBox(MainWindow mainWindow) {
+		this.mainWindow = mainWindow;
+		this.setDefaultCloseOperation(HIDE_ON_CLOSE);
+		this.setHideOnEscapeButton();
+
+		JLabel label = new JLabel("Find What:");
+		textField = new JTextField();
+
+		RSyntaxTextArea textArea = mainWindow.getModel().getCurrentTextArea();
+		if (textArea != null) {
+			textField.setText(textArea.getSelectedText());
+		}
+		mcase = new JCheckBox("Match Case");
+		regex = new JCheckBox("Regex");
+		wholew = new JCheckBox("Whole Words");
+		classFiles = new JCheckBox("Class Files Only");
+		classFiles.setToolTipText("Search string literals, references and symbols of class files, without decompiling");
+
+		findButton = new JButton("Find");
+		findButton.addActionListener(new FindButton());
+		this.getRootPane().setDefaultButton(findButton);
+
+		mcase.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+		regex.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+		wholew.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+		classFiles.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+
+		statusLabel = new JLabel(" ");
+		matchListModel = new DefaultListModel<>();
+		matchList = new JList<>(matchListModel);
+		matchList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		matchList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent event) {
+				if (event.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(event)) {
+					openSelectedMatch();
+				}
+			}
+		});
+		matchList.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "OPEN");
+		matchList.getActionMap().put("OPEN", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedMatch();
+			}
+		});
+		JScrollPane matchScrollPane = new JScrollPane(matchList);
+
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		final Dimension center = new Dimension((int) (screenSize.width * 0.5), (int) (screenSize.height * 0.5));
+		final int x = (int) (center.width * 0.2);
+		final int y = (int) (center.height * 0.2);
+		this.setBounds(x, y, center.width, center.height);
+
+		GroupLayout layout = new GroupLayout(getRootPane());
+		getRootPane().setLayout(layout);
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addGroup(layout.createSequentialGroup()
+						.addComponent(label)
+						.addGroup(layout.createParallelGroup(Alignment.LEADING)
+								.addComponent(textField)
+								.addGroup(layout.createSequentialGroup()
+										.addComponent(mcase)
+										.addComponent(regex)
+										.addComponent(wholew)
+										.addComponent(classFiles)))
+						.addComponent(findButton))
+				.addComponent(matchScrollPane)
+				.addComponent(statusLabel)
+				);
+
+		layout.linkSize(SwingConstants.HORIZONTAL, findButton);
+		layout.setVerticalGroup(layout.createSequentialGroup()
+				.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+						.addComponent(label)
+						.addComponent(textField, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE,
+								GroupLayout.PREFERRED_SIZE)
+						.addComponent(findButton))
+				.addGroup(layout.createParallelGroup(Alignment.BASELINE)
+						.addComponent(mcase)
+						.addComponent(regex)
+						.addComponent(wholew)
+						.addComponent(classFiles))
+				.addComponent(matchScrollPane)
+				.addComponent(statusLabel)
+				);
+
+		this.setName("Find in Jar");
+		this.setTitle("Find in Jar");
+		this.setVisible(true);
+	}
+
+	public void showFindInJarBox() {
+		this.setVisible(true);
+		this.textField.requestFocus();
+		this.textField.selectAll();
+	}
+
+	private class FindButton extends AbstractAction {
+		private static final long serialVersionUID = -2784960322016154102L;
+
+		@Override
+		public void actionPerformed(ActionEvent event) {
+			if (textField.getText().length() == 0)
+				return;
+
+			ConstantPoolSearch constantPoolSearch = null;
+			SourceSearch sourceSearch = null;
+			if (classFiles.isSelected()) {
+				constantPoolSearch = mainWindow.getModel().getConstantPoolSearch();
+			} else {
+				sourceSearch = mainWindow.getModel().getSourceSearch();
+			}
+			if (constantPoolSearch == null && sourceSearch == null) {
+				statusLabel.setText("No open jar");
+				return;
+			}
+
+			SearchQuery query;
+			try {
+				query = new SearchQuery(textField.getText(), mcase.isSelected(), regex.isSelected(),
+						wholew.isSelected());
+			} catch (PatternSyntaxException e) {
+				statusLabel.setText("Invalid regex: " + e.getDescription());
+				return;
+			}
+
+			matchListModel.clear();
+			statusLabel.setText("Searching...");
+			currentListener = new MatchListener();
+			if (constantPoolSearch != null) {
+				constantPoolSearch.search(query, currentListener);
+			} else {
+				sourceSearch.search(query, currentListener);
+			}
+		}
+	}
+
+	private void openSelectedMatch() {
+		SearchMatch match = matchList.getSelectedValue();
+		if (match == null)
+			return;
+		mainWindow.getModel().navigateTo(match.getTypeLink(), match.getSelection());
+	}
+
+	/**
+	 * This class updates the dialog with the progress of a search.<br>
+	 * Notifications come from search threads and are applied in the event dispatch thread, unless a newer search
+	 * started meanwhile.
+	 */
+	private class MatchListener implements SearchListener {
+		@Override
+		public void indexing(final int indexedCount, final int classCount) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == MatchListener.this)
+						statusLabel.setText("Indexing: " + indexedCount + "/" + classCount + " classes");
+				}
+			});
+		}
+
+		@Override
+		public void matchFound(final SearchMatch match) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == MatchListener.this) {
+						matchListModel.addElement(match);
+						statusLabel.setText("Searching: " + matchListModel.size() + " matches");
+					}
+				}
+			});
+		}
+
+		@Override
+		public void searchEnded(final int matchCount, final boolean complete) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == MatchListener.this)
+						statusLabel.setText(complete ? matchCount + " matches" : "First " + matchCount + " matches");
+				}
+			});
+		}
+	}
+
+	private void setHideOnEscapeButton() {
+		Action escapeAction = new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				FindInJarBox.this.setVisible(false);
+			}
+		};
+
+		KeyStroke escapeKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0, false);
+		this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(escapeKeyStroke, "ESCAPE");
+		this.getRootPane().getActionMap().put("ESCAPE", escapeAction);
+	}
+}
@@ -0,0 +1,183 @@
+package com.modcrafting.luyten.view.find;
+
+import java.awt.Dimension;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.DefaultListModel;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+
+import com.modcrafting.luyten.MainWindow;
+import com.modcrafting.luyten.search.SearchListener;
+import com.modcrafting.luyten.search.SearchMatch;
+import com.modcrafting.luyten.search.UsageSearch;
+
+/**
+ * This class is the dialog listing the usages of a type, a field or a method in the opened jar.<br>
+ * Opening a usage opens its class and selects the using member.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class FindUsagesBox extends JDialog {
+	private static final long serialVersionUID = -6480917268227383548L;
+
+	private JLabel titleLabel;
+	private JLabel statusLabel;
+	private DefaultListModel<SearchMatch> usageListModel;
+	private JList<SearchMatch> usageList;
+	private MainWindow mainWindow;
+	/** The listener of the running search (older searches are ignored). */
+	private SearchListener currentListener;
+
+	public FindUsagesBox(MainWindow mainWindow) {
+		this.mainWindow = mainWindow;
+		this.setDefaultCloseOperation(HIDE_ON_CLOSE);
+		this.setHideOnEscapeButton();
+
+		titleLabel = new JLabel(" ");
+		statusLabel = new JLabel(" ");
+		usageListModel = new DefaultListModel<>();
+		usageList = new JList<>(usageListModel);
+		usageList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		usageList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent event) {
+				if (event.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(event)) {
+					openSelectedUsage();
+				}
+			}
+		});
+		usageList.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "OPEN");
+		usageList.getActionMap().put("OPEN", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedUsage();
+			}
+		});
+		JScrollPane usageScrollPane = new JScrollPane(usageList);
+
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		final Dimension center = new Dimension((int) (screenSize.width * 0.5), (int) (screenSize.height * 0.5));
+		final int x = (int) (center.width * 0.2);
+		final int y = (int) (center.height * 0.2);
+		this.setBounds(x, y, center.width, center.height);
+
+		GroupLayout layout = new GroupLayout(getRootPane());
+		getRootPane().setLayout(layout);
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(titleLabel)
+				.addComponent(usageScrollPane)
+				.addComponent(statusLabel)
+				);
+		layout.setVerticalGroup(layout.createSequentialGroup()
+				.addComponent(titleLabel)
+				.addComponent(usageScrollPane)
+				.addComponent(statusLabel)
+				);
+
+		this.setName("Find Usages");
+		this.setTitle("Find Usages");
+	}
+
+	/**
+	 * Show the usages of a type, a field or a method.
+	 * 
+	 * @param usageSearch
+	 *            The usage search of the opened jar.
+	 * @param link
+	 *            The navigation link of the used type, field or method.
+	 * @param description
+	 *            The description of the used type, field or method.
+	 */
+	public void showUsages(UsageSearch usageSearch, String link, String description) {
+		titleLabel.setText("Usages of " + description);
+		usageListModel.clear();
+		statusLabel.setText("Searching...");
+		currentListener = new UsageListener();
+		usageSearch.findUsages(link, currentListener);
+		this.setVisible(true);
+		this.usageList.requestFocus();
+	}
+
+	private void openSelectedUsage() {
+		SearchMatch usage = usageList.getSelectedValue();
+		if (usage == null)
+			return;
+		mainWindow.getModel().navigateTo(usage.getLink());
+	}
+
+	/**
+	 * This class updates the dialog with the usages found by a search.<br>
+	 * Notifications come from search threads and are applied in the event dispatch thread, unless a newer search
+	 * started meanwhile.
+	 */
+	private class UsageListener implements SearchListener {
+		@Override
+		public void indexing(int indexedCount, int classCount) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == UsageListener.this)
+						statusLabel.setText("Indexing class references...");
+				}
+			});
+		}
+
+		@Override
+		public void matchFound(final SearchMatch match) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == UsageListener.this)
+						usageListModel.addElement(match);
+				}
+			});
+		}
+
+		@Override
+		public void searchEnded(final int matchCount, boolean complete) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == UsageListener.this)
+						statusLabel.setText(matchCount + " usages");
+				}
+			});
+		}
+	}
+
+	private void setHideOnEscapeButton() {
+		Action escapeAction = new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				FindUsagesBox.this.setVisible(false);
+			}
+		};
+
+		KeyStroke escapeKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0, false);
+		this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(escapeKeyStroke, "ESCAPE");
+		this.getRootPane().getActionMap().put("ESCAPE", escapeAction);
+	}
+}
@@ -0,0 +1,269 @@
+package com.modcrafting.luyten.view.find;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import com.modcrafting.luyten.MainWindow;
+import com.modcrafting.luyten.search.SearchListener;
+import com.modcrafting.luyten.search.SearchMatch;
+import com.modcrafting.luyten.search.SymbolSearch;
+
+/**
+ * This class is the dialog to go to a type, a field or a method of the opened jar by fuzzy matching its name.<br>
+ * Results are updated at each keystroke. <code>Type.member</code> restricts the members to the matching types.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class QuickOpenBox extends JDialog {
+	private static final long serialVersionUID = 2734911536205637281L;
+
+	private JTextField textField;
+	private JLabel statusLabel;
+	private DefaultListModel<SearchMatch> symbolListModel;
+	private JList<SearchMatch> symbolList;
+	private MainWindow mainWindow;
+	/** The symbol search of the opened jar. */
+	private SymbolSearch symbolSearch;
+	/** The listener of the running search (older searches are ignored). */
+	private SearchListener currentListener;
+
+	public QuickOpenBox(MainWindow mainWindow) {
+		this.mainWindow = mainWindow;
+		this.setDefaultCloseOperation(HIDE_ON_CLOSE);
+		this.setHideOnEscapeButton();
+
+		JLabel label = new JLabel("Type or member name (Type.member to filter by type):");
+		textField = new JTextField();
+		textField.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				search();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				search();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+			}
+		});
+		textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "OPEN");
+		textField.getActionMap().put("OPEN", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedSymbol();
+			}
+		});
+		textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "NEXT");
+		textField.getActionMap().put("NEXT", new MoveSelectionAction(1));
+		textField.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "PREVIOUS");
+		textField.getActionMap().put("PREVIOUS", new MoveSelectionAction(-1));
+
+		statusLabel = new JLabel(" ");
+		symbolListModel = new DefaultListModel<>();
+		symbolList = new JList<>(symbolListModel);
+		symbolList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		symbolList.setFocusable(false);
+		symbolList.setCellRenderer(new DefaultListCellRenderer() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+					boolean isSelected, boolean cellHasFocus) {
+				SearchMatch match = (SearchMatch) value;
+				String text = match.getDescription() + " - " + match.getTypeName().replace('/', '.');
+				return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+			}
+		});
+		symbolList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent event) {
+				if (event.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(event)) {
+					openSelectedSymbol();
+				}
+			}
+		});
+		JScrollPane symbolScrollPane = new JScrollPane(symbolList);
+
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		final Dimension center = new Dimension((int) (screenSize.width * 0.4), (int) (screenSize.height * 0.5));
+		final int x = (int) (center.width * 0.5);
+		final int y = (int) (center.height * 0.2);
+		this.setBounds(x, y, center.width, center.height);
+
+		GroupLayout layout = new GroupLayout(getRootPane());
+		getRootPane().setLayout(layout);
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(label)
+				.addComponent(textField)
+				.addComponent(symbolScrollPane)
+				.addComponent(statusLabel)
+				);
+		layout.setVerticalGroup(layout.createSequentialGroup()
+				.addComponent(label)
+				.addComponent(textField, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE,
+						GroupLayout.PREFERRED_SIZE)
+				.addComponent(symbolScrollPane)
+				.addComponent(statusLabel)
+				);
+
+		this.setName("Go to Type/Member");
+		this.setTitle("Go to Type/Member");
+	}
+
+	/**
+	 * Show the dialog on the symbols of the opened jar.
+	 * 
+	 * @param symbolSearch
+	 *            The symbol search of the opened jar.
+	 */
+	public void showQuickOpenBox(SymbolSearch symbolSearch) {
+		if (this.symbolSearch != symbolSearch) {
+			this.symbolSearch = symbolSearch;
+			search();
+		}
+		textField.selectAll();
+		this.setVisible(true);
+		textField.requestFocus();
+	}
+
+	private void search() {
+		String query = textField.getText();
+		if (symbolSearch == null || query.trim().isEmpty()) {
+			currentListener = null;
+			symbolListModel.clear();
+			statusLabel.setText(" ");
+			return;
+		}
+		currentListener = new SymbolListener(System.nanoTime());
+		symbolSearch.search(query, currentListener);
+	}
+
+	private void openSelectedSymbol() {
+		SearchMatch match = symbolList.getSelectedValue();
+		if (match == null)
+			return;
+		this.setVisible(false);
+		mainWindow.getModel().navigateTo(match.getLink());
+	}
+
+	/**
+	 * This class moves the list selection from the text field.
+	 */
+	private class MoveSelectionAction extends AbstractAction {
+		private static final long serialVersionUID = 1L;
+		private final int step;
+
+		private MoveSelectionAction(int step) {
+			this.step = step;
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			int size = symbolListModel.getSize();
+			if (size == 0)
+				return;
+			int index = Math.max(0, Math.min(size - 1, symbolList.getSelectedIndex() + step));
+			symbolList.setSelectedIndex(index);
+			symbolList.ensureIndexIsVisible(index);
+		}
+	}
+
+	/**
+	 * This class updates the dialog with the symbols found by a search.<br>
+	 * Matches are collected from the search thread and shown at once in the event dispatch thread, unless a newer
+	 * search started meanwhile.
+	 */
+	private class SymbolListener implements SearchListener {
+		private final long startTime;
+		private final List<SearchMatch> matches;
+
+		private SymbolListener(long startTime) {
+			this.startTime = startTime;
+			this.matches = new ArrayList<>();
+		}
+
+		@Override
+		public void indexing(int indexedCount, int classCount) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener == SymbolListener.this)
+						statusLabel.setText("Indexing symbols...");
+				}
+			});
+		}
+
+		@Override
+		public void matchFound(SearchMatch match) {
+			matches.add(match);
+		}
+
+		@Override
+		public void searchEnded(final int matchCount, final boolean complete) {
+			final long elapsedTime = (System.nanoTime() - startTime) / 1000000L;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener != SymbolListener.this || !complete)
+						return;
+					symbolListModel.clear();
+					for (SearchMatch match : matches) {
+						symbolListModel.addElement(match);
+					}
+					if (!matches.isEmpty())
+						symbolList.setSelectedIndex(0);
+					statusLabel.setText(matchCount + " symbols (" + elapsedTime + " ms)");
+				}
+			});
+		}
+	}
+
+	private void setHideOnEscapeButton() {
+		Action escapeAction = new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				QuickOpenBox.this.setVisible(false);
+			}
+		};
+
+		KeyStroke escapeKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0, false);
+		this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(escapeKeyStroke, "ESCAPE");
+		this.getRootPane().getActionMap().put("ESCAPE", escapeAction);
+	}
+}
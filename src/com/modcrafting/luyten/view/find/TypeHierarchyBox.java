@@ -0,0 +1,313 @@
+package com.modcrafting.luyten.view.find;
+
+import java.awt.Dimension;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.GroupLayout;
+import javax.swing.GroupLayout.Alignment;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.JTree;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import javax.swing.tree.TreeSelectionModel;
+
+import com.modcrafting.luyten.MainWindow;
+import com.modcrafting.luyten.search.HierarchyListener;
+import com.modcrafting.luyten.search.HierarchySearch;
+import com.modcrafting.luyten.search.TypeHierarchy;
+
+/**
+ * This class is the dialog showing the super and sub types of a type, or its implementations, in the opened jar and
+ * its workspace.<br>
+ * Opening a type opens its class.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class TypeHierarchyBox extends JDialog {
+	private static final long serialVersionUID = -2981640176517308853L;
+
+	private JLabel titleLabel;
+	private JLabel statusLabel;
+	private DefaultTreeModel hierarchyTreeModel;
+	private JTree hierarchyTree;
+	private MainWindow mainWindow;
+	/** The listener of the last request (older requests are ignored). */
+	private HierarchyListener currentListener;
+
+	public TypeHierarchyBox(MainWindow mainWindow) {
+		this.mainWindow = mainWindow;
+		this.setDefaultCloseOperation(HIDE_ON_CLOSE);
+		this.setHideOnEscapeButton();
+
+		titleLabel = new JLabel(" ");
+		statusLabel = new JLabel(" ");
+		hierarchyTreeModel = new DefaultTreeModel(null);
+		hierarchyTree = new JTree(hierarchyTreeModel);
+		hierarchyTree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+		hierarchyTree.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent event) {
+				if (event.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(event)) {
+					openSelectedType();
+				}
+			}
+		});
+		hierarchyTree.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "OPEN");
+		hierarchyTree.getActionMap().put("OPEN", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				openSelectedType();
+			}
+		});
+		JScrollPane hierarchyScrollPane = new JScrollPane(hierarchyTree);
+
+		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+		final Dimension center = new Dimension((int) (screenSize.width * 0.4), (int) (screenSize.height * 0.5));
+		final int x = (int) (center.width * 0.2);
+		final int y = (int) (center.height * 0.2);
+		this.setBounds(x, y, center.width, center.height);
+
+		GroupLayout layout = new GroupLayout(getRootPane());
+		getRootPane().setLayout(layout);
+		layout.setAutoCreateGaps(true);
+		layout.setAutoCreateContainerGaps(true);
+
+		layout.setHorizontalGroup(layout.createParallelGroup(Alignment.LEADING)
+				.addComponent(titleLabel)
+				.addComponent(hierarchyScrollPane)
+				.addComponent(statusLabel)
+				);
+		layout.setVerticalGroup(layout.createSequentialGroup()
+				.addComponent(titleLabel)
+				.addComponent(hierarchyScrollPane)
+				.addComponent(statusLabel)
+				);
+
+		this.setName("Type Hierarchy");
+		this.setTitle("Type Hierarchy");
+	}
+
+	/**
+	 * Show the super and sub types of a type.
+	 * 
+	 * @param hierarchySearch
+	 *            The hierarchy search of the opened jar.
+	 * @param typeName
+	 *            The internal name of the type.
+	 */
+	public void showHierarchy(HierarchySearch hierarchySearch, String typeName) {
+		titleLabel.setText("Hierarchy of " + typeName.replace('/', '.'));
+		hierarchyTreeModel.setRoot(null);
+		statusLabel.setText(" ");
+		currentListener = new TypeHierarchyListener(typeName, false);
+		hierarchySearch.getHierarchy(currentListener);
+		this.setVisible(true);
+		this.hierarchyTree.requestFocus();
+	}
+
+	/**
+	 * Show the implementations of a type, or open it if there is only one.
+	 * 
+	 * @param hierarchySearch
+	 *            The hierarchy search of the opened jar.
+	 * @param typeName
+	 *            The internal name of the type.
+	 */
+	public void showImplementations(HierarchySearch hierarchySearch, String typeName) {
+		titleLabel.setText("Implementations of " + typeName.replace('/', '.'));
+		hierarchyTreeModel.setRoot(null);
+		statusLabel.setText(" ");
+		currentListener = new TypeHierarchyListener(typeName, true);
+		hierarchySearch.getHierarchy(currentListener);
+	}
+
+	private void openSelectedType() {
+		TreePath selectionPath = hierarchyTree.getSelectionPath();
+		if (selectionPath == null)
+			return;
+		Object userObject = ((DefaultMutableTreeNode) selectionPath.getLastPathComponent()).getUserObject();
+		if (userObject instanceof TypeNode)
+			mainWindow.getModel().navigateTo(((TypeNode) userObject).link);
+	}
+
+	/**
+	 * Build the tree of the super and sub types of a type.
+	 * 
+	 * @param hierarchy
+	 *            The type hierarchy.
+	 * @param typeName
+	 *            The internal name of the type.
+	 */
+	private void buildHierarchyTree(TypeHierarchy hierarchy, String typeName) {
+		DefaultMutableTreeNode rootNode = createTypeNode(hierarchy, typeName);
+		DefaultMutableTreeNode superTypesNode = new DefaultMutableTreeNode("Supertypes");
+		addSuperTypeNodes(hierarchy, superTypesNode, typeName, new HashSet<String>());
+		rootNode.add(superTypesNode);
+		DefaultMutableTreeNode subTypesNode = new DefaultMutableTreeNode("Subtypes");
+		addSubTypeNodes(hierarchy, subTypesNode, typeName, new HashSet<String>());
+		rootNode.add(subTypesNode);
+		hierarchyTreeModel.setRoot(rootNode);
+		hierarchyTree.expandPath(new TreePath(superTypesNode.getPath()));
+		hierarchyTree.expandPath(new TreePath(subTypesNode.getPath()));
+		if (!hierarchy.hasType(typeName)) {
+			statusLabel.setText("Type not found in the opened jars");
+		} else {
+			statusLabel.setText(hierarchy.getImplementations(typeName).size() + " implementations");
+		}
+	}
+
+	/**
+	 * Build the list of the implementations of a type, or open it if there is only one.
+	 * 
+	 * @param hierarchy
+	 *            The type hierarchy.
+	 * @param typeName
+	 *            The internal name of the type.
+	 */
+	private void buildImplementationTree(TypeHierarchy hierarchy, String typeName) {
+		List<String> implementations = hierarchy.getImplementations(typeName);
+		if (implementations.size() == 1) {
+			this.setVisible(false);
+			mainWindow.getModel().navigateTo(HierarchySearch.getTypeLink(hierarchy, implementations.get(0)));
+			return;
+		}
+		DefaultMutableTreeNode rootNode = createTypeNode(hierarchy, typeName);
+		for (String implementation : implementations) {
+			rootNode.add(createTypeNode(hierarchy, implementation));
+		}
+		hierarchyTreeModel.setRoot(rootNode);
+		statusLabel.setText(implementations.size() + " implementations");
+		this.setVisible(true);
+		this.hierarchyTree.requestFocus();
+	}
+
+	private void addSuperTypeNodes(TypeHierarchy hierarchy, DefaultMutableTreeNode parentNode, String typeName,
+			Set<String> pathTypes) {
+		// Check cycles of invalid class files
+		if (!pathTypes.add(typeName))
+			return;
+		for (String superTypeName : hierarchy.getSuperTypes(typeName)) {
+			DefaultMutableTreeNode superTypeNode = createTypeNode(hierarchy, superTypeName);
+			addSuperTypeNodes(hierarchy, superTypeNode, superTypeName, pathTypes);
+			parentNode.add(superTypeNode);
+		}
+		pathTypes.remove(typeName);
+	}
+
+	private void addSubTypeNodes(TypeHierarchy hierarchy, DefaultMutableTreeNode parentNode, String typeName,
+			Set<String> pathTypes) {
+		// Check cycles of invalid class files
+		if (!pathTypes.add(typeName))
+			return;
+		for (String subTypeName : hierarchy.getSubTypes(typeName)) {
+			DefaultMutableTreeNode subTypeNode = createTypeNode(hierarchy, subTypeName);
+			addSubTypeNodes(hierarchy, subTypeNode, subTypeName, pathTypes);
+			parentNode.add(subTypeNode);
+		}
+		pathTypes.remove(typeName);
+	}
+
+	private DefaultMutableTreeNode createTypeNode(TypeHierarchy hierarchy, String typeName) {
+		return new DefaultMutableTreeNode(new TypeNode(typeName, HierarchySearch.getTypeLink(hierarchy, typeName),
+				hierarchy.isInterface(typeName)));
+	}
+
+	/**
+	 * This class is the user object of the type nodes.
+	 */
+	private static class TypeNode {
+		private final String label;
+		private final String link;
+
+		private TypeNode(String typeName, String link, boolean isInterface) {
+			int packageEnd = typeName.lastIndexOf('/');
+			String simpleName = typeName.substring(packageEnd + 1).replace('$', '.');
+			String label = packageEnd < 0 ? simpleName : simpleName + " - "
+					+ typeName.substring(0, packageEnd).replace('/', '.');
+			this.label = isInterface ? label + " (interface)" : label;
+			this.link = link;
+		}
+
+		@Override
+		public String toString() {
+			return label;
+		}
+	}
+
+	/**
+	 * This class updates the dialog with the hierarchy once loaded.<br>
+	 * Notifications come from search threads and are applied in the event dispatch thread, unless a newer request
+	 * was made meanwhile.
+	 */
+	private class TypeHierarchyListener implements HierarchyListener {
+		private final String typeName;
+		private final boolean implementations;
+
+		private TypeHierarchyListener(String typeName, boolean implementations) {
+			this.typeName = typeName;
+			this.implementations = implementations;
+		}
+
+		@Override
+		public void indexing() {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener != TypeHierarchyListener.this)
+						return;
+					statusLabel.setText("Indexing class headers...");
+					TypeHierarchyBox.this.setVisible(true);
+				}
+			});
+		}
+
+		@Override
+		public void hierarchyLoaded(final TypeHierarchy hierarchy) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (currentListener != TypeHierarchyListener.this)
+						return;
+					if (implementations) {
+						buildImplementationTree(hierarchy, typeName);
+					} else {
+						buildHierarchyTree(hierarchy, typeName);
+					}
+				}
+			});
+		}
+	}
+
+	private void setHideOnEscapeButton() {
+		Action escapeAction = new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				TypeHierarchyBox.this.setVisible(false);
+			}
+		};
+
+		KeyStroke escapeKeyStroke = KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0, false);
+		this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(escapeKeyStroke, "ESCAPE");
+		this.getRootPane().getActionMap().put("ESCAPE", escapeAction);
+	}
+}
@@ -0,0 +1,56 @@
+package com.modcrafting.luyten.view.tree;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+
+/**
+ * This class is a lazy tree node of a jar directory.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class DirectoryTreeNode extends LazyTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = -3043383880452998170L;
+	/** The indexed directory. */
+	private final transient PackageIndex.Directory directory;
+	/** <code>true</code> to list files before sub-directories (Package Explorer style), <code>false</code> otherwise. */
+	private final boolean filesFirst;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param userObject
+	 *            The node user object.
+	 * @param directory
+	 *            The indexed directory.
+	 * @param filesFirst
+	 *            <code>true</code> to list files before sub-directories, <code>false</code> otherwise.
+	 */
+	public DirectoryTreeNode(TreeNodeUserObject userObject, PackageIndex.Directory directory, boolean filesFirst) {
+		super(userObject);
+		this.directory = directory;
+		this.filesFirst = filesFirst;
+	}
+
+	@Override
+	protected void loadChildren() {
+		if (this.filesFirst)
+			this.addFiles();
+		for (PackageIndex.Directory subDirectory : this.directory.getDirectories()) {
+			this.add(new DirectoryTreeNode(new TreeNodeUserObject(subDirectory.getName()), subDirectory,
+					this.filesFirst));
+		}
+		if (!this.filesFirst)
+			this.addFiles();
+	}
+
+	/**
+	 * Add the directory files as children.
+	 */
+	private void addFiles() {
+		for (String fileName : this.directory.getFiles()) {
+			this.add(NestedJarTreeNode.createFileNode(this.directory, fileName, this.filesFirst));
+		}
+	}
+}
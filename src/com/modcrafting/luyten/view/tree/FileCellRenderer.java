@@ -36,8 +36,8 @@ public class FileCellRenderer extends DefaultTreeCellRenderer {
 		boolean iconSet = false;
 		if (value instanceof DefaultMutableTreeNode) {
 			DefaultMutableTreeNode node = (DefaultMutableTreeNode) value;
-			// Check package node
-			if (node.getChildCount()>0) {
+			// Check package node (without creating lazy node children)
+			if (!node.isLeaf()) {
 				// Set package icon
 				this.setIcon(FileCellRenderer.PACKAGE_ICON);
 				iconSet = true;
@@ -0,0 +1,66 @@
+package com.modcrafting.luyten.view.tree;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+
+/**
+ * This class is the lazy root tree node of the Package Explorer style.<br>
+ * META-INF comes first and is not flat, then the Java packages are flat, then the other directories are not flat and
+ * the default package comes last.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class FlatRootTreeNode extends LazyTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = -8120564766286394727L;
+	/** The jar package index. */
+	private final transient PackageIndex index;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param userObject
+	 *            The node user object.
+	 * @param index
+	 *            The jar package index.
+	 */
+	public FlatRootTreeNode(TreeNodeUserObject userObject, PackageIndex index) {
+		super(userObject);
+		this.index = index;
+	}
+
+	@Override
+	protected void loadChildren() {
+		PackageIndex.Directory root = this.index.getRoot();
+		// META-INF comes first -> not flat
+		for (PackageIndex.Directory directory : root.getDirectories()) {
+			if (directory.getName().startsWith("META-INF"))
+				this.addDirectory(directory);
+		}
+		// real packages: path starts with a classContainingPackageRoot -> flat
+		for (PackageIndex.Directory directory : this.index.getFileDirectories()) {
+			if (directory.getPackageRoot().isClassContainingPackageRoot())
+				this.add(new PackageTreeNode(directory));
+		}
+		// the rest, not real packages but directories -> not flat
+		for (PackageIndex.Directory directory : root.getDirectories()) {
+			if (!directory.getName().startsWith("META-INF")&&!directory.isClassContainingPackageRoot())
+				this.addDirectory(directory);
+		}
+		// the default package -> not flat
+		for (String fileName : root.getFiles()) {
+			this.add(NestedJarTreeNode.createFileNode(root, fileName, true));
+		}
+	}
+
+	/**
+	 * Add a not flat directory as child.
+	 * 
+	 * @param directory
+	 *            The root level directory.
+	 */
+	private void addDirectory(PackageIndex.Directory directory) {
+		this.add(new DirectoryTreeNode(new TreeNodeUserObject(directory.getName()), directory, true));
+	}
+}
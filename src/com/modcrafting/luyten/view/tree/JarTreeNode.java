@@ -0,0 +1,72 @@
+package com.modcrafting.luyten.view.tree;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.JarLister;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+
+/**
+ * This class is a lazy tree node of a workspace jar.<br>
+ * The jar is listed and indexed the first time the node is expanded, so the jars of a workspace which are never
+ * browsed cost their name only.
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class JarTreeNode extends LazyTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = 2958196364620437911L;
+	/** The jar file. */
+	private final File file;
+	/** The jar package index (<code>null</code> until the node is expanded). */
+	private transient PackageIndex index;
+	/** <code>true</code> to display the Package Explorer style, <code>false</code> otherwise. */
+	private final boolean packageExplorerStyle;
+	/** <code>true</code> to list the inner classes, <code>false</code> otherwise. */
+	private final boolean includeInnerClasses;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param file
+	 *            The jar file.
+	 * @param index
+	 *            The jar package index (<code>null</code> to index the jar when the node is expanded).
+	 * @param packageExplorerStyle
+	 *            <code>true</code> to display the Package Explorer style, <code>false</code> otherwise.
+	 * @param includeInnerClasses
+	 *            <code>true</code> to list the inner classes, <code>false</code> otherwise.
+	 */
+	public JarTreeNode(File file, PackageIndex index, boolean packageExplorerStyle, boolean includeInnerClasses) {
+		super(new TreeNodeUserObject(file.getName()));
+		this.file = file;
+		this.index = index;
+		this.packageExplorerStyle = packageExplorerStyle;
+		this.includeInnerClasses = includeInnerClasses;
+	}
+
+	/**
+	 * Get the jar file.
+	 * 
+	 * @return The jar file.
+	 */
+	public File getFile() {
+		return this.file;
+	}
+
+	@Override
+	protected void loadChildren() {
+		// Index jar entries
+		if (this.index==null) {
+			try {
+				this.index = new PackageIndex(JarLister.listFiles(this.file, this.includeInnerClasses));
+			} catch (IOException exception) {
+				exception.printStackTrace();
+				return;
+			}
+		}
+		NestedJarTreeNode.addIndexChildren(this, this.index, this.packageExplorerStyle);
+	}
+}
@@ -0,0 +1,81 @@
+package com.modcrafting.luyten.view.tree;
+
+import java.util.Enumeration;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+
+/**
+ * This class is a tree node whose children are created the first time they are requested (when expanded).
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public abstract class LazyTreeNode extends DefaultMutableTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = 4424409640232734113L;
+	/** The children creation status. */
+	private boolean childrenLoaded;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param userObject
+	 *            The node user object.
+	 */
+	public LazyTreeNode(TreeNodeUserObject userObject) {
+		super(userObject, true);
+		this.childrenLoaded = false;
+	}
+
+	/**
+	 * Create the node children.
+	 */
+	protected abstract void loadChildren();
+
+	/**
+	 * Ensure the node children are created.
+	 */
+	private void ensureChildrenLoaded() {
+		if (!this.childrenLoaded) {
+			this.childrenLoaded = true;
+			this.loadChildren();
+		}
+	}
+
+	@Override
+	public boolean isLeaf() {
+		// Do not load children to render the node: lazy nodes always have children
+		if (!this.childrenLoaded)
+			return false;
+		return super.isLeaf();
+	}
+
+	@Override
+	public int getChildCount() {
+		this.ensureChildrenLoaded();
+		return super.getChildCount();
+	}
+
+	@Override
+	public TreeNode getChildAt(int index) {
+		this.ensureChildrenLoaded();
+		return super.getChildAt(index);
+	}
+
+	@Override
+	public int getIndex(TreeNode node) {
+		this.ensureChildrenLoaded();
+		return super.getIndex(node);
+	}
+
+	// Java 7 declares DefaultMutableTreeNode.children() with a raw Enumeration: the override must keep it
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public Enumeration children() {
+		this.ensureChildrenLoaded();
+		return super.children();
+	}
+}
@@ -0,0 +1,89 @@
+package com.modcrafting.luyten.view.tree;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.MutableTreeNode;
+import javax.swing.tree.TreeNode;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+
+/**
+ * This class is a lazy tree node of a jar nested in the opened jar (<code>BOOT-INF/lib/*.jar</code> or
+ * <code>WEB-INF/lib/*.jar</code> for example).
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class NestedJarTreeNode extends LazyTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = -6155083520771458716L;
+	/** The nested jar package index. */
+	private final transient PackageIndex index;
+	/** <code>true</code> to display the Package Explorer style, <code>false</code> otherwise. */
+	private final boolean packageExplorerStyle;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param fileName
+	 *            The nested jar file name.
+	 * @param index
+	 *            The nested jar package index.
+	 * @param packageExplorerStyle
+	 *            <code>true</code> to display the Package Explorer style, <code>false</code> otherwise.
+	 */
+	public NestedJarTreeNode(String fileName, PackageIndex index, boolean packageExplorerStyle) {
+		super(new TreeNodeUserObject(fileName));
+		this.index = index;
+		this.packageExplorerStyle = packageExplorerStyle;
+	}
+
+	@Override
+	protected void loadChildren() {
+		NestedJarTreeNode.addIndexChildren(this, this.index, this.packageExplorerStyle);
+	}
+
+	/**
+	 * Add the first level nodes of a jar index as children of a node.
+	 * 
+	 * @param node
+	 *            The node to add children to.
+	 * @param index
+	 *            The jar package index.
+	 * @param packageExplorerStyle
+	 *            <code>true</code> to display the Package Explorer style, <code>false</code> otherwise.
+	 */
+	static void addIndexChildren(DefaultMutableTreeNode node, PackageIndex index, boolean packageExplorerStyle) {
+		// Create root node according preferences
+		TreeNodeUserObject rootUserObject = (TreeNodeUserObject) node.getUserObject();
+		TreeNode rootNode;
+		if (packageExplorerStyle) {
+			rootNode = new FlatRootTreeNode(rootUserObject, index);
+		} else {
+			rootNode = new DirectoryTreeNode(rootUserObject, index.getRoot(), false);
+		}
+		// Adopt root node children
+		while (rootNode.getChildCount()>0) {
+			node.add((MutableTreeNode) rootNode.getChildAt(0));
+		}
+	}
+
+	/**
+	 * Create the node of a jar file.
+	 * 
+	 * @param directory
+	 *            The indexed directory of the file.
+	 * @param fileName
+	 *            The file name.
+	 * @param packageExplorerStyle
+	 *            <code>true</code> to display the Package Explorer style, <code>false</code> otherwise.
+	 * @return A lazy node for a nested jar, a leaf node otherwise.
+	 */
+	static DefaultMutableTreeNode createFileNode(PackageIndex.Directory directory, String fileName,
+			boolean packageExplorerStyle) {
+		PackageIndex nestedIndex = directory.getNestedIndex(fileName);
+		if (nestedIndex!=null)
+			return new NestedJarTreeNode(fileName, nestedIndex, packageExplorerStyle);
+		return new DefaultMutableTreeNode(new TreeNodeUserObject(fileName), false);
+	}
+}
@@ -0,0 +1,47 @@
+package com.modcrafting.luyten.view.tree;
+
+import com.modcrafting.luyten.TreeNodeUserObject;
+import com.modcrafting.luyten.model.tree.PackageIndex;
+
+/**
+ * This class is a lazy tree node of a Java package shown flat (Package Explorer style).
+ * 
+ * @author Perfect Slayer (bruce.bujon@gmail.com)
+ * 
+ */
+public class PackageTreeNode extends LazyTreeNode {
+	/** Serialization id. */
+	private static final long serialVersionUID = 6300848005389785446L;
+	/** The indexed package directory. */
+	private final transient PackageIndex.Directory directory;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param directory
+	 *            The indexed package directory.
+	 */
+	public PackageTreeNode(PackageIndex.Directory directory) {
+		this(directory, directory.getPath());
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param directory
+	 *            The indexed package directory.
+	 * @param path
+	 *            The package path (ex: com/acme).
+	 */
+	private PackageTreeNode(PackageIndex.Directory directory, String path) {
+		super(new TreeNodeUserObject(path, path.replace('/', '.')));
+		this.directory = directory;
+	}
+
+	@Override
+	protected void loadChildren() {
+		for (String fileName : this.directory.getFiles()) {
+			this.add(NestedJarTreeNode.createFileNode(this.directory, fileName, true));
+		}
+	}
+}